@@ -0,0 +1,157 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv6;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and formatting of single addresses. Each invocation takes the next address of the dataset, so that
+ * larger datasets show the effect of cache misses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class AddressBenchmark {
+
+    @State(Scope.Thread)
+    public static class Ipv4Texts {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        String[] texts;
+        int index;
+
+        @Setup
+        public void setUp() {
+            List<Ipv4> addresses = Datasets.ipv4Addresses(size);
+            texts = new String[size];
+            for (int i = 0; i < size; i++) {
+                texts[i] = addresses.get(i).toString();
+            }
+        }
+
+        String next() {
+            String result = texts[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ipv6Texts {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        String[] texts;
+        int index;
+
+        @Setup
+        public void setUp() {
+            List<Ipv6> addresses = Datasets.ipv6Addresses(size);
+            texts = new String[size];
+            for (int i = 0; i < size; i++) {
+                texts[i] = addresses.get(i).toString();
+            }
+        }
+
+        String next() {
+            String result = texts[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ipv4Addresses {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        Ipv4[] addresses;
+        int index;
+
+        @Setup
+        public void setUp() {
+            addresses = Datasets.ipv4Addresses(size).toArray(new Ipv4[size]);
+        }
+
+        Ipv4 next() {
+            Ipv4 result = addresses[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ipv6Addresses {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        Ipv6[] addresses;
+        int index;
+
+        @Setup
+        public void setUp() {
+            addresses = Datasets.ipv6Addresses(size).toArray(new Ipv6[size]);
+        }
+
+        Ipv6 next() {
+            Ipv6 result = addresses[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @Benchmark
+    public Ipv4 parseIpv4(Ipv4Texts state) {
+        return Ipv4.parse(state.next());
+    }
+
+    @Benchmark
+    public Ipv6 parseIpv6(Ipv6Texts state) {
+        return Ipv6.parse(state.next());
+    }
+
+    @Benchmark
+    public String formatIpv4(Ipv4Addresses state) {
+        return state.next().toString();
+    }
+
+    @Benchmark
+    public String formatIpv6(Ipv6Addresses state) {
+        return state.next().toString();
+    }
+}
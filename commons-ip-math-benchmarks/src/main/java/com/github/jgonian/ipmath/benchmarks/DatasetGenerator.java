@@ -0,0 +1,430 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Asn;
+import com.github.jgonian.ipmath.AsnRange;
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv4Range;
+import com.github.jgonian.ipmath.Ipv6;
+import com.github.jgonian.ipmath.Ipv6Range;
+import com.github.jgonian.ipmath.StartAndSizeComparator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A seeded generator of synthetic, but realistic, Internet resource datasets for benchmarks and stress tests.
+ * <p>
+ * Prefixes follow a prefix length distribution modelled on public BGP table reports, which is heavily skewed
+ * towards /24 for IPv4 and /48 for IPv6, and cluster in the address blocks the RIRs allocate from. A prefix is
+ * either a more specific of a recently generated prefix (see {@link #setNestingRate(double)}), the next aligned
+ * prefix after the previous one (see {@link #setAdjacencyRate(double)}), or placed at random. ASN ranges follow
+ * RIR delegations: mostly single ASNs, handed out sequentially from the 16-bit and the 32-bit space. Query
+ * streams pick their target ranges with Zipfian popularity.
+ * <p>
+ * Every dataset only depends on the seed, the settings and the arguments, never on the datasets that were
+ * generated before, so that runs on different machines and with different subsets of benchmarks are comparable.
+ */
+public final class DatasetGenerator {
+
+    // relative weights of the IPv4 prefix lengths /8 to /24
+    private static final int[] IPV4_LENGTH_WEIGHTS = {
+            1, 1, 2, 4, 8, 15, 25, 45, 130, 80, 140, 250, 420, 500, 1100, 800, 6480
+    };
+    private static final int IPV4_MIN_LENGTH = 8;
+
+    // relative weights of the IPv6 prefix lengths /19 to /48
+    private static final int[] IPV6_LENGTH_WEIGHTS = {
+            1, 4, 2, 3, 2, 5, 2, 3, 4, 15, 60, 12, 8, 250, 30, 25, 20, 60, 12, 20, 15, 80, 15, 30, 10, 120, 30, 50, 60, 1000
+    };
+    private static final int IPV6_MIN_LENGTH = 19;
+
+    // the IPv4 /8s which are neither private, loopback, multicast nor reserved
+    private static final long[] IPV4_ROOTS = ipv4Roots();
+    private static final int IPV4_ROOT_LENGTH = 8;
+
+    // the upper 64 bits of the /12s of 2000::/3 that the RIRs allocate from
+    private static final long[] IPV6_ROOTS = {
+            0x2000000000000000L, 0x2400000000000000L, 0x2600000000000000L,
+            0x2800000000000000L, 0x2a00000000000000L, 0x2c00000000000000L
+    };
+    private static final int IPV6_ROOT_LENGTH = 12;
+
+    private static final long FIRST_16_BIT_ASN = 1;
+    private static final long LAST_16_BIT_ASN = 64495;
+    private static final long AS_TRANS = 23456;
+    private static final long FIRST_32_BIT_ASN = 131072;
+    private static final long LAST_32_BIT_ASN = 4199999999L;
+
+    // the more specifics of a prefix usually follow it closely in a table
+    private static final int NESTING_WINDOW = 64;
+    private static final int NESTING_ATTEMPTS = 8;
+
+    private static final long PREFIX_SALT = 0x5DEECE66DL;
+    private static final long ASN_SALT = 0x2545F4914F6CDD1DL;
+    private static final long QUERY_SALT = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private double nestingRate = 0.35;
+    private int maxNestingDepth = 3;
+    private double adjacencyRate = 0.25;
+    private double zipfExponent = 1.0;
+    private double missRate = 0.1;
+
+    public DatasetGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the probability that a prefix is a more specific of one of the recently generated prefixes. Roughly
+     * half of the routes in the public tables are more specifics of other routes.
+     */
+    public void setNestingRate(double nestingRate) {
+        checkProbability(nestingRate);
+        this.nestingRate = nestingRate;
+    }
+
+    public double getNestingRate() {
+        return nestingRate;
+    }
+
+    /**
+     * Sets how deep more specifics may nest, e.g. 1 only allows more specifics of top-level prefixes.
+     */
+    public void setMaxNestingDepth(int maxNestingDepth) {
+        if (maxNestingDepth < 0) {
+            throw new IllegalArgumentException("The maximum nesting depth must not be negative: " + maxNestingDepth);
+        }
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /**
+     * Sets the probability that a prefix which is not nested directly follows the previous one, or that an ASN
+     * range directly follows the previous delegation.
+     */
+    public void setAdjacencyRate(double adjacencyRate) {
+        checkProbability(adjacencyRate);
+        this.adjacencyRate = adjacencyRate;
+    }
+
+    public double getAdjacencyRate() {
+        return adjacencyRate;
+    }
+
+    /**
+     * Sets the exponent <tt>s</tt> of the Zipf distribution of the query targets: the <tt>k</tt>-th most popular
+     * range is picked with a probability proportional to <tt>1/k<sup>s</sup></tt>. Zero picks uniformly.
+     */
+    public void setZipfExponent(double zipfExponent) {
+        if (zipfExponent < 0 || Double.isNaN(zipfExponent)) {
+            throw new IllegalArgumentException("The Zipf exponent must not be negative: " + zipfExponent);
+        }
+        this.zipfExponent = zipfExponent;
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    /**
+     * Sets the probability that a query is a uniformly random address instead of an address of a target range.
+     */
+    public void setMissRate(double missRate) {
+        checkProbability(missRate);
+        this.missRate = missRate;
+    }
+
+    public double getMissRate() {
+        return missRate;
+    }
+
+    private static void checkProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Not a probability: " + probability);
+        }
+    }
+
+    /**
+     * @return <tt>size</tt> distinct IPv4 prefixes between /8 and /24, sorted by start and size
+     */
+    public List<Ipv4Range> ipv4Prefixes(int size) {
+        Prefixes prefixes = generatePrefixes(size, Ipv4.NUMBER_OF_BITS, IPV4_ROOTS, IPV4_ROOT_LENGTH,
+                IPV4_MIN_LENGTH, IPV4_LENGTH_WEIGHTS);
+        List<Ipv4Range> result = new ArrayList<Ipv4Range>(size);
+        for (int i = 0; i < size; i++) {
+            long start = prefixes.starts[i];
+            result.add(Ipv4Range.from(start).to(start + (1L << (Ipv4.NUMBER_OF_BITS - prefixes.lengths[i])) - 1));
+        }
+        Collections.sort(result, StartAndSizeComparator.<Ipv4, Ipv4Range>get());
+        return result;
+    }
+
+    /**
+     * @return <tt>size</tt> distinct IPv6 prefixes between /19 and /48 out of 2000::/3, sorted by start and size
+     */
+    public List<Ipv6Range> ipv6Prefixes(int size) {
+        // all lengths are at most /64, so the prefixes are generated in the space of the upper 64 bits
+        Prefixes prefixes = generatePrefixes(size, 64, IPV6_ROOTS, IPV6_ROOT_LENGTH,
+                IPV6_MIN_LENGTH, IPV6_LENGTH_WEIGHTS);
+        List<Ipv6Range> result = new ArrayList<Ipv6Range>(size);
+        for (int i = 0; i < size; i++) {
+            BigInteger start = BigInteger.valueOf(prefixes.starts[i]).shiftLeft(64);
+            result.add(Ipv6Range.from(start).andPrefixLength(prefixes.lengths[i]));
+        }
+        Collections.sort(result, StartAndSizeComparator.<Ipv6, Ipv6Range>get());
+        return result;
+    }
+
+    /**
+     * @return <tt>size</tt> disjoint ASN ranges, sorted by start and size, which may be adjacent to each other
+     */
+    public List<AsnRange> asnRanges(int size) {
+        Random random = new Random(seed ^ ASN_SALT);
+        List<AsnRange> result = new ArrayList<AsnRange>(size);
+        long next16 = FIRST_16_BIT_ASN;
+        long next32 = FIRST_32_BIT_ASN;
+        for (int i = 0; i < size; i++) {
+            // most delegations are a single ASN, the rest are blocks of up to 1024
+            long blockSize = random.nextDouble() < 0.9 ? 1 : 1L << (1 + random.nextInt(10));
+            long gap = random.nextDouble() < adjacencyRate ? 0 : 1 + random.nextInt(64);
+            boolean sixteenBit = random.nextBoolean() && next16 + gap + blockSize - 1 <= LAST_16_BIT_ASN;
+            long start = (sixteenBit ? next16 : next32) + gap;
+            if (sixteenBit && start <= AS_TRANS && start + blockSize > AS_TRANS) {
+                start = AS_TRANS + 1;
+            }
+            long end = start + blockSize - 1;
+            if (end > LAST_32_BIT_ASN) {
+                throw new IllegalArgumentException("Too many ASN ranges: " + size);
+            }
+            result.add(AsnRange.from(start).to(end));
+            if (sixteenBit) {
+                next16 = end + 1;
+            } else {
+                next32 = end + 1;
+            }
+        }
+        Collections.sort(result, StartAndSizeComparator.<Asn, AsnRange>get());
+        return result;
+    }
+
+    /**
+     * @return <tt>size</tt> addresses, each of which is either a random address of one of the target ranges picked
+     * with Zipfian popularity, or with the {@linkplain #setMissRate(double) miss rate} any random address
+     */
+    public List<Ipv4> ipv4Queries(List<Ipv4Range> targets, int size) {
+        Random random = new Random(seed ^ QUERY_SALT);
+        ZipfSampler sampler = new ZipfSampler(targets.size(), zipfExponent, random);
+        List<Ipv4> result = new ArrayList<Ipv4>(size);
+        for (int i = 0; i < size; i++) {
+            if (targets.isEmpty() || random.nextDouble() < missRate) {
+                result.add(Ipv4.of(random.nextLong() & 0xFFFFFFFFL));
+            } else {
+                Ipv4Range target = targets.get(sampler.next());
+                long offset = (random.nextLong() & Long.MAX_VALUE) % target.size();
+                result.add(Ipv4.of(target.start().asBigInteger().longValue() + offset));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return <tt>size</tt> addresses, each of which is either a random address of one of the target ranges picked
+     * with Zipfian popularity, or with the {@linkplain #setMissRate(double) miss rate} any random address of
+     * 2000::/3
+     */
+    public List<Ipv6> ipv6Queries(List<Ipv6Range> targets, int size) {
+        Random random = new Random(seed ^ QUERY_SALT);
+        ZipfSampler sampler = new ZipfSampler(targets.size(), zipfExponent, random);
+        BigInteger globalUnicast = BigInteger.ONE.shiftLeft(125);
+        List<Ipv6> result = new ArrayList<Ipv6>(size);
+        for (int i = 0; i < size; i++) {
+            if (targets.isEmpty() || random.nextDouble() < missRate) {
+                result.add(Ipv6.of(globalUnicast.or(new BigInteger(125, random))));
+            } else {
+                Ipv6Range target = targets.get(sampler.next());
+                BigInteger targetSize = target.size();
+                BigInteger offset;
+                do {
+                    offset = new BigInteger(targetSize.bitLength(), random);
+                } while (offset.compareTo(targetSize) >= 0);
+                result.add(Ipv6.of(target.start().asBigInteger().add(offset)));
+            }
+        }
+        return result;
+    }
+
+    private Prefixes generatePrefixes(int size, int bitSize, long[] roots, int rootLength, int minLength, int[] weights) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size must not be negative: " + size);
+        }
+        Random random = new Random(seed ^ PREFIX_SALT);
+        double[] cumulativeWeights = cumulative(weights);
+        Prefixes result = new Prefixes(size);
+        // a prefix is identified by the address in its middle, which is unique for prefixes shorter than bitSize
+        Set<Long> generated = new HashSet<Long>(size * 2);
+        int i = 0;
+        while (i < size) {
+            int length = minLength + sample(cumulativeWeights, random);
+            long blockSize = 1L << (bitSize - length);
+            long start = -1;
+            int depth = 0;
+            if (i > 0 && random.nextDouble() < nestingRate) {
+                for (int attempt = 0; attempt < NESTING_ATTEMPTS && start < 0; attempt++) {
+                    int parent = i - 1 - random.nextInt(Math.min(i, NESTING_WINDOW));
+                    if (result.depths[parent] < maxNestingDepth && result.lengths[parent] < length) {
+                        long offsets = 1L << (length - result.lengths[parent]);
+                        start = result.starts[parent] + (nextLong(random, offsets) << (bitSize - length));
+                        depth = result.depths[parent] + 1;
+                    }
+                }
+            } else if (i > 0 && random.nextDouble() < adjacencyRate) {
+                long previous = result.starts[i - 1];
+                long afterPrevious = previous + (1L << (bitSize - result.lengths[i - 1]));
+                long aligned = (afterPrevious + blockSize - 1) & -blockSize;
+                if (((aligned ^ previous) >>> (bitSize - rootLength)) == 0) {
+                    start = aligned;
+                    depth = result.depths[i - 1];
+                }
+            }
+            if (start < 0) {
+                long root = roots[random.nextInt(roots.length)];
+                start = root + (nextLong(random, 1L << (length - rootLength)) << (bitSize - length));
+            }
+            if (generated.add(start + (blockSize >>> 1))) {
+                result.starts[i] = start;
+                result.lengths[i] = length;
+                result.depths[i] = depth;
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static double[] cumulative(int[] weights) {
+        double[] result = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            result[i] = sum;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            result[i] /= sum;
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the first cumulative probability which is greater than a random number
+     */
+    private static int sample(double[] cumulativeProbabilities, Random random) {
+        int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        index = index < 0 ? -index - 1 : index + 1;
+        return Math.min(index, cumulativeProbabilities.length - 1);
+    }
+
+    /**
+     * @return a random number between 0 (inclusive) and the given power of two (exclusive)
+     */
+    private static long nextLong(Random random, long powerOfTwo) {
+        return random.nextLong() & (powerOfTwo - 1);
+    }
+
+    private static long[] ipv4Roots() {
+        List<Long> roots = new ArrayList<Long>();
+        for (long octet = 1; octet < 224; octet++) {
+            if (octet != 10 && octet != 127) {
+                roots.add(octet << 24);
+            }
+        }
+        long[] result = new long[roots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = roots.get(i);
+        }
+        return result;
+    }
+
+    private static final class Prefixes {
+
+        final long[] starts;
+        final int[] lengths;
+        final int[] depths;
+
+        Prefixes(int size) {
+            this.starts = new long[size];
+            this.lengths = new int[size];
+            this.depths = new int[size];
+        }
+    }
+
+    /**
+     * Picks indexes with Zipfian popularity. The popularity ranks are shuffled, so that popular ranges are spread
+     * over the whole dataset rather than being its first ranges.
+     */
+    private static final class ZipfSampler {
+
+        private final double[] cumulativeProbabilities;
+        private final int[] indexByRank;
+        private final Random random;
+
+        ZipfSampler(int size, double exponent, Random random) {
+            this.random = random;
+            this.cumulativeProbabilities = new double[size];
+            this.indexByRank = new int[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1 / Math.pow(rank + 1, exponent);
+                cumulativeProbabilities[rank] = sum;
+                indexByRank[rank] = rank;
+            }
+            for (int rank = 0; rank < size; rank++) {
+                cumulativeProbabilities[rank] /= sum;
+            }
+            for (int rank = size - 1; rank > 0; rank--) {
+                int other = random.nextInt(rank + 1);
+                int index = indexByRank[rank];
+                indexByRank[rank] = indexByRank[other];
+                indexByRank[other] = index;
+            }
+        }
+
+        int next() {
+            return indexByRank[sample(cumulativeProbabilities, random)];
+        }
+    }
+}
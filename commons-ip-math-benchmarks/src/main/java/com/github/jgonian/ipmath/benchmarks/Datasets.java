@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv4Range;
+import com.github.jgonian.ipmath.Ipv6;
+import com.github.jgonian.ipmath.Ipv6Range;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded datasets shared by the benchmarks, so that every run measures the same inputs.
+ */
+final class Datasets {
+
+    static final long SEED = 20171203L;
+
+    private static final BigInteger IPV6_GLOBAL_UNICAST_START = Ipv6.parse("2000::").asBigInteger();
+
+    private Datasets() {
+    }
+
+    static List<Ipv4> ipv4Addresses(int size) {
+        Random random = new Random(SEED);
+        List<Ipv4> result = new ArrayList<Ipv4>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Ipv4.of(random.nextLong() & 0xFFFFFFFFL));
+        }
+        return result;
+    }
+
+    static List<Ipv6> ipv6Addresses(int size) {
+        Random random = new Random(SEED);
+        List<Ipv6> result = new ArrayList<Ipv6>(size);
+        for (int i = 0; i < size; i++) {
+            // a /48 out of 2000::/3 with a mostly empty interface identifier, like most real addresses
+            BigInteger network = new BigInteger(45, random).shiftLeft(80);
+            BigInteger host = BigInteger.valueOf(random.nextInt(1 << 16));
+            result.add(Ipv6.of(IPV6_GLOBAL_UNICAST_START.or(network).or(host)));
+        }
+        return result;
+    }
+
+    /**
+     * @return at most 10<sup>7</sup> disjoint, non-adjacent ranges in ascending order, which may or may not be
+     * prefixes
+     */
+    static List<Ipv4Range> ipv4Ranges(int size) {
+        Random random = new Random(SEED);
+        List<Ipv4Range> result = new ArrayList<Ipv4Range>(size);
+        long start = 1;
+        for (int i = 0; i < size; i++) {
+            long end = start + random.nextInt(256);
+            result.add(Ipv4Range.from(start).to(end));
+            start = end + 2 + random.nextInt(128);
+        }
+        return result;
+    }
+
+    /**
+     * @return disjoint, non-adjacent ranges in ascending order, which may or may not be prefixes
+     */
+    static List<Ipv6Range> ipv6Ranges(int size) {
+        Random random = new Random(SEED);
+        List<Ipv6Range> result = new ArrayList<Ipv6Range>(size);
+        BigInteger start = IPV6_GLOBAL_UNICAST_START;
+        for (int i = 0; i < size; i++) {
+            BigInteger end = start.add(BigInteger.valueOf(1 + random.nextInt(1 << 16)).shiftLeft(80)).subtract(BigInteger.ONE);
+            result.add(Ipv6Range.from(start).to(end));
+            start = end.add(BigInteger.valueOf(2 + random.nextInt(1 << 16)).shiftLeft(80));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv4Range;
+import com.github.jgonian.ipmath.Ipv6;
+import com.github.jgonian.ipmath.Ipv6Range;
+import com.github.jgonian.ipmath.Range;
+import com.github.jgonian.ipmath.Rangeable;
+import com.github.jgonian.ipmath.SortedRangeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Address lookups in a {@link SortedRangeSet} built from a realistic routing table, with a Zipfian query stream
+ * of which a tenth misses, see {@link DatasetGenerator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+    private static final int NUMBER_OF_QUERIES = 1 << 16;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"ipv4", "ipv6"})
+    String family;
+
+    @Param({"1.0"})
+    double zipfExponent;
+
+    private Lookups<?, ?> lookups;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(Datasets.SEED);
+        generator.setZipfExponent(zipfExponent);
+        if ("ipv4".equals(family)) {
+            List<Ipv4Range> prefixes = generator.ipv4Prefixes(size);
+            List<Ipv4Range> queries = new ArrayList<Ipv4Range>(NUMBER_OF_QUERIES);
+            for (Ipv4 address : generator.ipv4Queries(prefixes, NUMBER_OF_QUERIES)) {
+                queries.add(address.asRange());
+            }
+            lookups = new Lookups<Ipv4, Ipv4Range>(prefixes, queries);
+        } else {
+            List<Ipv6Range> prefixes = generator.ipv6Prefixes(size);
+            List<Ipv6Range> queries = new ArrayList<Ipv6Range>(NUMBER_OF_QUERIES);
+            for (Ipv6 address : generator.ipv6Queries(prefixes, NUMBER_OF_QUERIES)) {
+                queries.add(address.asRange());
+            }
+            lookups = new Lookups<Ipv6, Ipv6Range>(prefixes, queries);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return lookups.contains();
+    }
+
+    static final class Lookups<C extends Rangeable<C, R>, R extends Range<C, R>> {
+
+        private final SortedRangeSet<C, R> set = new SortedRangeSet<C, R>();
+        private final List<R> queries;
+        private int index;
+
+        Lookups(List<R> ranges, List<R> queries) {
+            this.set.addAll(ranges);
+            this.queries = queries;
+        }
+
+        boolean contains() {
+            R query = queries.get(index);
+            index = (index + 1) & (NUMBER_OF_QUERIES - 1);
+            return set.contains(query);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Ipv4Range;
+import com.github.jgonian.ipmath.Ipv6Range;
+import com.github.jgonian.ipmath.PrefixUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix arithmetic on single ranges, half of which are legal prefixes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class PrefixBenchmark {
+
+    @State(Scope.Thread)
+    public static class Ipv4Ranges {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        Ipv4Range[] ranges;
+        int index;
+
+        @Setup
+        public void setUp() {
+            List<Ipv4Range> dataset = Datasets.ipv4Ranges(size);
+            ranges = new Ipv4Range[size];
+            for (int i = 0; i < size; i++) {
+                Ipv4Range range = dataset.get(i);
+                ranges[i] = i % 2 == 0 ? range : range.splitToPrefixes().get(0);
+            }
+        }
+
+        Ipv4Range next() {
+            Ipv4Range result = ranges[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ipv6Ranges {
+        @Param({"1000", "100000", "10000000"})
+        int size;
+        Ipv6Range[] ranges;
+        int index;
+
+        @Setup
+        public void setUp() {
+            List<Ipv6Range> dataset = Datasets.ipv6Ranges(size);
+            ranges = new Ipv6Range[size];
+            for (int i = 0; i < size; i++) {
+                Ipv6Range range = dataset.get(i);
+                ranges[i] = i % 2 == 0 ? range : range.splitToPrefixes().get(0);
+            }
+        }
+
+        Ipv6Range next() {
+            Ipv6Range result = ranges[index];
+            index = index + 1 == size ? 0 : index + 1;
+            return result;
+        }
+    }
+
+    @Benchmark
+    public List<Ipv4Range> splitIpv4ToPrefixes(Ipv4Ranges state) {
+        return state.next().splitToPrefixes();
+    }
+
+    @Benchmark
+    public List<Ipv6Range> splitIpv6ToPrefixes(Ipv6Ranges state) {
+        return state.next().splitToPrefixes();
+    }
+
+    @Benchmark
+    public boolean isLegalIpv4Prefix(Ipv4Ranges state) {
+        return PrefixUtils.isLegalPrefix(state.next());
+    }
+
+    @Benchmark
+    public boolean isLegalIpv6Prefix(Ipv6Ranges state) {
+        return PrefixUtils.isLegalPrefix(state.next());
+    }
+}
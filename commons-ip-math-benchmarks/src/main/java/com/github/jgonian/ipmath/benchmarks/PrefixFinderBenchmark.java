@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.ConservativePrefixFinder;
+import com.github.jgonian.ipmath.Ipv6;
+import com.github.jgonian.ipmath.Ipv6Range;
+import com.github.jgonian.ipmath.PrefixAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding a free prefix in a pool of free ranges, with the stateless {@link ConservativePrefixFinder}, which scans
+ * all ranges, and with the indexed {@link PrefixAllocator}, which gives the same answers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class PrefixFinderBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    private final ConservativePrefixFinder<Ipv6, Ipv6Range> finder = ConservativePrefixFinder.newInstance();
+    private List<Ipv6Range> freeRanges;
+    private PrefixAllocator<Ipv6, Ipv6Range> allocator;
+    private int prefixLength;
+
+    @Setup
+    public void setUp() {
+        freeRanges = Datasets.ipv6Ranges(size);
+        allocator = PrefixAllocator.forIpv6(freeRanges);
+    }
+
+    private int nextPrefixLength() {
+        prefixLength = prefixLength == 64 ? 32 : prefixLength + 1;
+        return prefixLength;
+    }
+
+    @Benchmark
+    public Ipv6Range conservativePrefixFinder() {
+        return finder.findPrefixOrNull(nextPrefixLength(), freeRanges);
+    }
+
+    @Benchmark
+    public Ipv6Range prefixAllocator() {
+        return allocator.findPrefixOrNull(nextPrefixLength());
+    }
+}
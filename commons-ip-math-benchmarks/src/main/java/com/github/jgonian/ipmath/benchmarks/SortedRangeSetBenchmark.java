@@ -0,0 +1,169 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.Range;
+import com.github.jgonian.ipmath.Rangeable;
+import com.github.jgonian.ipmath.SortedRangeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on a {@link SortedRangeSet} of disjoint ranges. The mutating benchmarks leave the set as they found
+ * it, so that every invocation works on a set of the same size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class SortedRangeSetBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"ipv4", "ipv6"})
+    String family;
+
+    private Workload<?, ?> workload;
+
+    @Setup
+    public void setUp() {
+        if ("ipv4".equals(family)) {
+            workload = Workload.of(Datasets.ipv4Ranges(size));
+        } else {
+            workload = Workload.of(Datasets.ipv6Ranges(size));
+        }
+    }
+
+    /**
+     * Adds a range which is already in the set, which goes through the full merge path.
+     */
+    @Benchmark
+    public void add() {
+        workload.addPresent();
+    }
+
+    /**
+     * Removes a range from a gap of the set, which goes through the full lookup path.
+     */
+    @Benchmark
+    public boolean remove() {
+        return workload.removeAbsent();
+    }
+
+    /**
+     * Punches a hole into a range of the set and fills it again.
+     */
+    @Benchmark
+    public void removeAndAdd() {
+        workload.removeAndAdd();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return workload.contains();
+    }
+
+    /**
+     * Intersects the set with a set of the same size, whose ranges each overlap the end of a range of the set.
+     */
+    @Benchmark
+    public SortedRangeSet<?, ?> intersection() {
+        return workload.intersection();
+    }
+
+    static final class Workload<C extends Rangeable<C, R>, R extends Range<C, R>> {
+
+        private final SortedRangeSet<C, R> set = new SortedRangeSet<C, R>();
+        private final SortedRangeSet<C, R> overlapping = new SortedRangeSet<C, R>();
+        private final List<R> present;
+        private final List<R> absent;
+        private final List<R> holes;
+        private final List<R> queries;
+        private int index;
+
+        private Workload(List<R> ranges) {
+            this.present = ranges;
+            this.absent = new ArrayList<R>(ranges.size());
+            this.holes = new ArrayList<R>(ranges.size());
+            this.queries = new ArrayList<R>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                R range = ranges.get(i);
+                R afterEnd = range.end().next().asRange();
+                set.add(range);
+                overlapping.add(range.end().asRange().merge(afterEnd));
+                absent.add(afterEnd);
+                holes.add(range.start().asRange());
+                queries.add(i % 2 == 0 ? range : afterEnd);
+            }
+        }
+
+        static <C extends Rangeable<C, R>, R extends Range<C, R>> Workload<C, R> of(List<R> ranges) {
+            return new Workload<C, R>(ranges);
+        }
+
+        private int next() {
+            int result = index;
+            index = index + 1 == present.size() ? 0 : index + 1;
+            return result;
+        }
+
+        void addPresent() {
+            set.add(present.get(next()));
+        }
+
+        boolean removeAbsent() {
+            return set.remove(absent.get(next()));
+        }
+
+        void removeAndAdd() {
+            int i = next();
+            set.remove(holes.get(i));
+            set.add(present.get(i));
+        }
+
+        boolean contains() {
+            return set.contains(queries.get(next()));
+        }
+
+        SortedRangeSet<C, R> intersection() {
+            return set.intersection(overlapping);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.benchmarks;
+
+import com.github.jgonian.ipmath.AbstractIp;
+import com.github.jgonian.ipmath.AbstractIpRange;
+import com.github.jgonian.ipmath.Asn;
+import com.github.jgonian.ipmath.AsnRange;
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv4Range;
+import com.github.jgonian.ipmath.Ipv6;
+import com.github.jgonian.ipmath.Ipv6Range;
+import com.github.jgonian.ipmath.PrefixUtils;
+import com.github.jgonian.ipmath.SortedRangeSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DatasetGeneratorTest {
+
+    @Test
+    public void shouldGenerateTheSameDatasetsForTheSameSeed() {
+        DatasetGenerator first = new DatasetGenerator(42);
+        DatasetGenerator second = new DatasetGenerator(42);
+
+        List<Ipv4Range> prefixes = first.ipv4Prefixes(1000);
+        assertEquals(prefixes, second.ipv4Prefixes(1000));
+        assertEquals(first.ipv6Prefixes(1000), second.ipv6Prefixes(1000));
+        assertEquals(first.asnRanges(1000), second.asnRanges(1000));
+        assertEquals(first.ipv4Queries(prefixes, 1000), second.ipv4Queries(prefixes, 1000));
+        assertFalse(prefixes.equals(new DatasetGenerator(43).ipv4Prefixes(1000)));
+    }
+
+    @Test
+    public void shouldGenerateDistinctPrefixesSkewedTowardsSlash24() {
+        List<Ipv4Range> prefixes = new DatasetGenerator(1).ipv4Prefixes(20000);
+
+        assertEquals(20000, new HashSet<Ipv4Range>(prefixes).size());
+        Map<Integer, Integer> countsByLength = countsByLength(prefixes);
+        assertTrue(countsByLength.get(24) > 20000 * 0.55);
+        assertTrue(countsByLength.get(24) < 20000 * 0.75);
+        for (Ipv4Range prefix : prefixes) {
+            assertTrue(PrefixUtils.isLegalPrefix(prefix));
+            long firstOctet = prefix.start().asBigInteger().longValue() >>> 24;
+            assertTrue(firstOctet >= 1 && firstOctet < 224 && firstOctet != 10 && firstOctet != 127);
+        }
+    }
+
+    @Test
+    public void shouldGenerateIpv6PrefixesSkewedTowardsSlash48() {
+        List<Ipv6Range> prefixes = new DatasetGenerator(1).ipv6Prefixes(20000);
+
+        assertEquals(20000, new HashSet<Ipv6Range>(prefixes).size());
+        assertTrue(countsByLength(prefixes).get(48) > 20000 * 0.4);
+        SortedRangeSet<Ipv6, Ipv6Range> globalUnicast = new SortedRangeSet<Ipv6, Ipv6Range>();
+        globalUnicast.add(Ipv6Range.parse("2000::/3"));
+        for (Ipv6Range prefix : prefixes) {
+            assertTrue(PrefixUtils.isLegalPrefix(prefix));
+            assertTrue(globalUnicast.contains(prefix));
+        }
+    }
+
+    @Test
+    public void shouldNestAndJoinPrefixesAccordingToTheRates() {
+        DatasetGenerator flat = new DatasetGenerator(7);
+        flat.setNestingRate(0);
+        flat.setAdjacencyRate(0);
+        DatasetGenerator nested = new DatasetGenerator(7);
+        nested.setAdjacencyRate(0);
+        nested.setNestingRate(0.8);
+        DatasetGenerator adjacent = new DatasetGenerator(7);
+        adjacent.setNestingRate(0);
+        adjacent.setAdjacencyRate(0.8);
+
+        assertTrue(rangesInSet(nested.ipv4Prefixes(5000)) < rangesInSet(flat.ipv4Prefixes(5000)) * 0.5);
+        assertTrue(rangesInSet(adjacent.ipv4Prefixes(5000)) < rangesInSet(flat.ipv4Prefixes(5000)) * 0.5);
+    }
+
+    @Test
+    public void shouldLimitNestingDepth() {
+        DatasetGenerator shallow = new DatasetGenerator(3);
+        shallow.setMaxNestingDepth(0);
+        shallow.setNestingRate(1);
+        DatasetGenerator deep = new DatasetGenerator(3);
+        deep.setMaxNestingDepth(8);
+        deep.setNestingRate(1);
+
+        // randomly placed prefixes may still happen to land in each other
+        assertTrue(maxNestingDepth(shallow.ipv4Prefixes(2000)) <= 1);
+        assertTrue(maxNestingDepth(deep.ipv4Prefixes(2000)) >= 3);
+    }
+
+    @Test
+    public void shouldGenerateDisjointAsnRanges() {
+        List<AsnRange> ranges = new DatasetGenerator(5).asnRanges(5000);
+
+        int singleAsns = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).size() == 1) {
+                singleAsns++;
+            }
+            assertFalse(ranges.get(i).contains(Asn.of(23456L)));
+            if (i > 0) {
+                assertFalse(ranges.get(i - 1).overlaps(ranges.get(i)));
+            }
+        }
+        assertTrue(singleAsns > 5000 * 0.85);
+    }
+
+    @Test
+    public void shouldGenerateZipfianQueries() {
+        DatasetGenerator subject = new DatasetGenerator(11);
+        subject.setMissRate(0);
+        List<Ipv4Range> targets = subject.ipv4Prefixes(1000);
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.addAll(targets);
+
+        Map<Ipv4Range, Integer> hits = new HashMap<Ipv4Range, Integer>();
+        for (Ipv4 query : subject.ipv4Queries(targets, 10000)) {
+            assertTrue(set.contains(query.asRange()));
+            Ipv4Range target = set.floor(query.asRange());
+            hits.put(target, hits.containsKey(target) ? hits.get(target) + 1 : 1);
+        }
+        // with s = 1 the most popular of 1000 targets gets about 13% of the queries
+        int mostHits = 0;
+        for (int count : hits.values()) {
+            mostHits = Math.max(mostHits, count);
+        }
+        assertTrue(mostHits > 10000 * 0.08);
+        assertTrue(hits.size() < 1000);
+    }
+
+    @Test
+    public void shouldGenerateIpv6QueriesWithinTargets() {
+        DatasetGenerator subject = new DatasetGenerator(13);
+        subject.setMissRate(0);
+        List<Ipv6Range> targets = subject.ipv6Prefixes(100);
+        SortedRangeSet<Ipv6, Ipv6Range> set = new SortedRangeSet<Ipv6, Ipv6Range>();
+        set.addAll(targets);
+
+        for (Ipv6 query : subject.ipv6Queries(targets, 1000)) {
+            assertTrue(set.contains(query.asRange()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRatesWhichAreNotProbabilities() {
+        new DatasetGenerator(1).setNestingRate(1.5);
+    }
+
+    private static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> Map<Integer, Integer> countsByLength(List<R> prefixes) {
+        Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+        for (R prefix : prefixes) {
+            int length = PrefixUtils.getPrefixLength(prefix);
+            result.put(length, result.containsKey(length) ? result.get(length) + 1 : 1);
+        }
+        return result;
+    }
+
+    private static int rangesInSet(List<Ipv4Range> prefixes) {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.addAll(prefixes);
+        return set.size();
+    }
+
+    /**
+     * @return the largest number of prefixes in the list which contain one prefix, the prefix itself included,
+     * minus one
+     */
+    private static int maxNestingDepth(List<Ipv4Range> sortedPrefixes) {
+        int result = 0;
+        List<Ipv4Range> enclosing = new ArrayList<Ipv4Range>();
+        for (Ipv4Range prefix : sortedPrefixes) {
+            while (!enclosing.isEmpty() && !enclosing.get(enclosing.size() - 1).contains(prefix)) {
+                enclosing.remove(enclosing.size() - 1);
+            }
+            result = Math.max(result, enclosing.size());
+            enclosing.add(prefix);
+        }
+        return result;
+    }
+}
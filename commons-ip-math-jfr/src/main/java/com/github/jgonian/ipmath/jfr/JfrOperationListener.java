@@ -0,0 +1,95 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.jfr;
+
+import com.github.jgonian.ipmath.Operation;
+import com.github.jgonian.ipmath.OperationListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link OperationListener} which emits a Java Flight Recorder event for every bulk operation that takes at least
+ * a threshold, by default {@value #DEFAULT_THRESHOLD_MILLIS} milliseconds, which can be changed with the system
+ * property {@value #THRESHOLD_PROPERTY}.
+ * <p>
+ * The listener is registered with {@link java.util.ServiceLoader}, so having this module on the class path is
+ * enough to install it. It does not enable the per-call metrics, and it works next to any
+ * {@link com.github.jgonian.ipmath.MetricsRecorder}. The events still need to be enabled in the JFR recording, like
+ * any other event.
+ */
+public class JfrOperationListener implements OperationListener {
+
+    public static final String THRESHOLD_PROPERTY = "com.github.jgonian.ipmath.jfr.thresholdMillis";
+    public static final long DEFAULT_THRESHOLD_MILLIS = 10;
+
+    private final long thresholdNanos;
+
+    public JfrOperationListener() {
+        this(TimeUnit.MILLISECONDS.toNanos(Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS)));
+    }
+
+    public JfrOperationListener(long thresholdNanos) {
+        if (thresholdNanos < 0) {
+            throw new IllegalArgumentException("The threshold must not be negative: " + thresholdNanos);
+        }
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, long inputSize, long outputSize, long durationNanos) {
+        if (durationNanos < thresholdNanos) {
+            return;
+        }
+        OperationEvent event = newEvent(operation);
+        if (event.isEnabled()) {
+            event.operation = operation.name();
+            event.inputSize = inputSize;
+            event.outputSize = outputSize;
+            event.operationDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    private static OperationEvent newEvent(Operation operation) {
+        switch (operation) {
+            case RANGE_SET_ADD_ALL:
+            case RANGE_SET_REMOVE_ALL:
+                return new RangeSetBulkEvent();
+            case SPLIT_TO_PREFIXES:
+                return new SplitToPrefixesEvent();
+            case FIND_PREFIX:
+                return new FindPrefixEvent();
+            case RANGE_INDEX_BUILD:
+            case RANGE_TREE_BUILD:
+            case RANGE_SET_FILTER_BUILD:
+                return new RangeSetRebuildEvent();
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + operation);
+        }
+    }
+}
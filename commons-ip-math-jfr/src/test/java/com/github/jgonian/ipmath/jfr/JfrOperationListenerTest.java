@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.jfr;
+
+import com.github.jgonian.ipmath.Metrics;
+import com.github.jgonian.ipmath.Operation;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JfrOperationListenerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldRecordOperationsAboveTheThreshold() throws IOException {
+        JfrOperationListener subject = new JfrOperationListener(1000);
+
+        List<RecordedEvent> events = record(subject);
+
+        assertEquals(2, events.size());
+        RecordedEvent split = events.get(0);
+        assertEquals("com.github.jgonian.ipmath.SplitToPrefixes", split.getEventType().getName());
+        assertEquals("SPLIT_TO_PREFIXES", split.getString("operation"));
+        assertEquals(1, split.getLong("inputSize"));
+        assertEquals(7, split.getLong("outputSize"));
+        assertEquals(5000, split.getDuration("operationDuration").toNanos());
+        RecordedEvent rebuild = events.get(1);
+        assertEquals("com.github.jgonian.ipmath.RangeSetRebuild", rebuild.getEventType().getName());
+        assertEquals("RANGE_TREE_BUILD", rebuild.getString("operation"));
+        assertEquals(100, rebuild.getLong("inputSize"));
+    }
+
+    @Test
+    public void shouldBeInstalledWithoutEnablingPerCallMetrics() {
+        assertFalse(Metrics.isEnabled());
+        assertEquals(1, Metrics.getOperationListeners().size());
+        assertTrue(Metrics.getOperationListeners().get(0) instanceof JfrOperationListener);
+    }
+
+    @Test
+    public void shouldReadTheThresholdFromASystemProperty() {
+        System.setProperty(JfrOperationListener.THRESHOLD_PROPERTY, "25");
+        try {
+            assertEquals(25000000, new JfrOperationListener().getThresholdNanos());
+        } finally {
+            System.clearProperty(JfrOperationListener.THRESHOLD_PROPERTY);
+        }
+        assertEquals(10000000, new JfrOperationListener().getThresholdNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNegativeThreshold() {
+        new JfrOperationListener(-1);
+    }
+
+    private List<RecordedEvent> record(JfrOperationListener subject) throws IOException {
+        File file = temporaryFolder.newFile("operations.jfr");
+        Recording recording = new Recording();
+        try {
+            recording.enable("com.github.jgonian.ipmath.*");
+            recording.start();
+            subject.operationCompleted(Operation.SPLIT_TO_PREFIXES, 1, 7, 5000);
+            subject.operationCompleted(Operation.FIND_PREFIX, 10, 1, 999);
+            subject.operationCompleted(Operation.RANGE_TREE_BUILD, 100, 100, 1000);
+            recording.stop();
+            recording.dump(file.toPath());
+        } finally {
+            recording.close();
+        }
+        return RecordingFile.readAllEvents(file.toPath());
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.vector;
+
+import com.github.jgonian.ipmath.Ipv4BatchCodec;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * An {@link Ipv4BatchCodec} which handles an address at a time in a 128-bit vector.
+ * <p>
+ * Parsing classifies all bytes of an address with vector compares and looks up the layout of its octets from the
+ * positions of the dots. A shuffle for that layout right-aligns the digits of each octet in a group of four lanes,
+ * where a compare finds leading zeros and a multiply-add computes the octets. Formatting runs the same layouts
+ * backwards. Text which needs trimming, or contains anything but digits and dots, goes through the scalar
+ * implementation, so the results are always the same as those of {@link Ipv4BatchCodec#scalar()}.
+ * <p>
+ * The Vector API is incubating in Java 17, so the JVM needs <tt>--add-modules jdk.incubator.vector</tt>.
+ */
+public class VectorIpv4BatchCodec extends Ipv4BatchCodec {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_128;
+
+    private static final int MIN_TEXT_LENGTH = 7;
+    private static final int MAX_OCTET_LENGTH = 3;
+    private static final int LAYOUTS = 81;
+    private static final int ZERO_LANE = 15;
+
+    /**
+     * The layout of the first three octets for each bit mask of dot positions, or -1.
+     */
+    private static final byte[] DOT_PATTERNS = new byte[1 << 12];
+    private static final VectorShuffle<Byte>[] PARSE_SHUFFLES = newShuffleArray();
+    private static final VectorShuffle<Byte>[] FORMAT_SHUFFLES = newShuffleArray();
+    private static final VectorMask<Byte>[] LEADING_DIGITS = newMaskArray();
+    private static final int[] TEXT_LENGTHS = new int[LAYOUTS];
+
+    private static final ShortVector PLACE_VALUES = ShortVector.fromArray(SHORTS,
+            new short[]{100, 10, 1, 0, 100, 10, 1, 0}, 0);
+    private static final VectorMask<Short> FIRST_GROUP = VectorMask.fromLong(SHORTS, 0x0F);
+    private static final VectorMask<Short> SECOND_GROUP = VectorMask.fromLong(SHORTS, 0xF0);
+
+    /**
+     * The digits of each octet value, right-aligned in the first three bytes and followed by a dot.
+     */
+    private static final int[] OCTET_TEXTS = new int[256];
+    private static final int[] OCTET_LENGTHS = new int[256];
+
+    static {
+        Arrays.fill(DOT_PATTERNS, (byte) -1);
+        for (int layout = 0; layout < LAYOUTS; layout++) {
+            int[] octetLengths = octetLengthsOf(layout);
+            int[] parseShuffle = new int[BYTES.length()];
+            int[] formatShuffle = new int[BYTES.length()];
+            boolean[] leadingDigits = new boolean[BYTES.length()];
+            Arrays.fill(parseShuffle, ZERO_LANE);
+            int position = 0;
+            int dots = 0;
+            for (int octet = 0; octet < 4; octet++) {
+                int length = octetLengths[octet];
+                int firstLane = 4 * octet + MAX_OCTET_LENGTH - length;
+                for (int digit = 0; digit < length; digit++) {
+                    parseShuffle[firstLane + digit] = position;
+                    formatShuffle[position] = firstLane + digit;
+                    position++;
+                }
+                leadingDigits[firstLane] = length > 1;
+                if (octet < 3) {
+                    dots |= 1 << position;
+                    formatShuffle[position] = 4 * octet + MAX_OCTET_LENGTH;
+                    position++;
+                }
+            }
+            DOT_PATTERNS[dots] = (byte) (layout / MAX_OCTET_LENGTH);
+            PARSE_SHUFFLES[layout] = VectorShuffle.fromArray(BYTES, parseShuffle, 0);
+            FORMAT_SHUFFLES[layout] = VectorShuffle.fromArray(BYTES, formatShuffle, 0);
+            LEADING_DIGITS[layout] = VectorMask.fromArray(BYTES, leadingDigits, 0);
+            TEXT_LENGTHS[layout] = position;
+        }
+        for (int octet = 0; octet < 256; octet++) {
+            String digits = Integer.toString(octet);
+            int text = '.' << 24;
+            for (int i = 0; i < digits.length(); i++) {
+                text |= digits.charAt(i) << (8 * (MAX_OCTET_LENGTH - digits.length() + i));
+            }
+            OCTET_TEXTS[octet] = text;
+            OCTET_LENGTHS[octet] = digits.length();
+        }
+    }
+
+    public VectorIpv4BatchCodec() {
+        if (ByteVector.SPECIES_PREFERRED.vectorBitSize() < BYTES.vectorBitSize()) {
+            throw new UnsupportedOperationException("The platform does not support 128-bit vectors");
+        }
+    }
+
+    @Override
+    protected long parseAddress(byte[] buffer, int offset, int length) {
+        if (length < MIN_TEXT_LENGTH || length > MAX_TEXT_LENGTH) {
+            return super.parseAddress(buffer, offset, length);
+        }
+        ByteVector text = ByteVector.fromArray(BYTES, buffer, offset, BYTES.indexInRange(0, length));
+        VectorMask<Byte> digits = text.compare(VectorOperators.GE, (byte) '0')
+                .and(text.compare(VectorOperators.LE, (byte) '9'));
+        VectorMask<Byte> dots = text.compare(VectorOperators.EQ, (byte) '.');
+        if (digits.or(dots).trueCount() != length) {
+            return super.parseAddress(buffer, offset, length);
+        }
+
+        long dotPositions = dots.toLong();
+        if (Long.bitCount(dotPositions) != 3 || dotPositions >= DOT_PATTERNS.length) {
+            return INVALID;
+        }
+        int pattern = DOT_PATTERNS[(int) dotPositions];
+        int lastOctetLength = length - 64 + Long.numberOfLeadingZeros(dotPositions);
+        if (pattern < 0 || lastOctetLength < 1 || lastOctetLength > MAX_OCTET_LENGTH) {
+            return INVALID;
+        }
+        int layout = pattern * MAX_OCTET_LENGTH + lastOctetLength - 1;
+
+        ByteVector aligned = ByteVector.zero(BYTES).blend(text.sub((byte) '0'), digits)
+                .rearrange(PARSE_SHUFFLES[layout]);
+        if (aligned.compare(VectorOperators.EQ, (byte) 0).and(LEADING_DIGITS[layout]).anyTrue()) {
+            return INVALID;
+        }
+        ShortVector firstHalf = ((ShortVector) aligned.convertShape(VectorOperators.B2S, SHORTS, 0)).mul(PLACE_VALUES);
+        ShortVector secondHalf = ((ShortVector) aligned.convertShape(VectorOperators.B2S, SHORTS, 1)).mul(PLACE_VALUES);
+        int a = firstHalf.reduceLanes(VectorOperators.ADD, FIRST_GROUP);
+        int b = firstHalf.reduceLanes(VectorOperators.ADD, SECOND_GROUP);
+        int c = secondHalf.reduceLanes(VectorOperators.ADD, FIRST_GROUP);
+        int d = secondHalf.reduceLanes(VectorOperators.ADD, SECOND_GROUP);
+        if ((a | b | c | d) > 255) {
+            return INVALID;
+        }
+        return ((long) a << 24) | (b << 16) | (c << 8) | d;
+    }
+
+    @Override
+    protected int formatAddress(long value, byte[] buffer, int offset) {
+        int a = (int) (value >>> 24);
+        int b = (int) (value >>> 16) & 0xff;
+        int c = (int) (value >>> 8) & 0xff;
+        int d = (int) value & 0xff;
+        int layout = 27 * (OCTET_LENGTHS[a] - 1) + 9 * (OCTET_LENGTHS[b] - 1) + 3 * (OCTET_LENGTHS[c] - 1)
+                + OCTET_LENGTHS[d] - 1;
+        int length = TEXT_LENGTHS[layout];
+        long low = (OCTET_TEXTS[a] & 0xFFFFFFFFL) | ((long) OCTET_TEXTS[b] << 32);
+        long high = (OCTET_TEXTS[c] & 0xFFFFFFFFL) | ((long) OCTET_TEXTS[d] << 32);
+        LongVector.zero(LongVector.SPECIES_128).withLane(0, low).withLane(1, high)
+                .reinterpretAsBytes()
+                .rearrange(FORMAT_SHUFFLES[layout])
+                .intoArray(buffer, offset, BYTES.indexInRange(0, length));
+        return offset + length;
+    }
+
+    private static int[] octetLengthsOf(int layout) {
+        return new int[]{layout / 27 + 1, layout / 9 % 3 + 1, layout / 3 % 3 + 1, layout % 3 + 1};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static VectorShuffle<Byte>[] newShuffleArray() {
+        return (VectorShuffle<Byte>[]) new VectorShuffle[LAYOUTS];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static VectorMask<Byte>[] newMaskArray() {
+        return (VectorMask<Byte>[]) new VectorMask[LAYOUTS];
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath.vector;
+
+import com.github.jgonian.ipmath.Ipv4;
+import com.github.jgonian.ipmath.Ipv4BatchCodec;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VectorIpv4BatchCodecTest {
+
+    private static final int BATCH_SIZE = 10000;
+
+    private final Ipv4BatchCodec subject = new VectorIpv4BatchCodec();
+    private final Ipv4BatchCodec scalar = Ipv4BatchCodec.scalar();
+
+    @Test
+    public void shouldBeInstalledAsTheDefaultCodec() {
+        assertTrue(Ipv4BatchCodec.getInstance() instanceof VectorIpv4BatchCodec);
+    }
+
+    @Test
+    public void shouldParseEdgeCasesLikeScalarCodec() {
+        assertParsedLikeScalar("", "1.2.3.4", " 1.2.3.4\t", "0.0.0.0", "255.255.255.255", "255.255.255.256",
+                "256.0.0.0", "999.999.999.999", "1.2.3.4.", ".1.2.3.4", "1..3.4", "1.2.3.4.5", "01.2.3.4", "1.2.3.04",
+                "1.2.3.00", "100.020.1.1", "1.2.3", "1234.1.1.1", "1.2.3.1234", "1.2.3.-4", "1.2.3.a", "1.2 .3.4",
+                "10.0.0.1x", "1.1.1.1111", "1111.1.1.1", "100.200.10.0", "1.22.133.4");
+    }
+
+    @Test
+    public void shouldParseRandomTextLikeScalarCodec() {
+        Random random = new Random(39);
+        char[] alphabet = "0123456789. x".toCharArray();
+        String[] texts = new String[BATCH_SIZE];
+        for (int i = 0; i < texts.length; i++) {
+            if (random.nextBoolean()) {
+                texts[i] = Ipv4.of(random.nextLong() & Ipv4.MAXIMUM_VALUE).toString();
+            } else {
+                StringBuilder text = new StringBuilder();
+                int length = 5 + random.nextInt(13);
+                for (int j = 0; j < length; j++) {
+                    text.append(random.nextInt(3) == 0 ? '.' : alphabet[random.nextInt(alphabet.length)]);
+                }
+                texts[i] = text.toString();
+            }
+        }
+        assertParsedLikeScalar(texts);
+    }
+
+    @Test
+    public void shouldFormatLikeScalarCodec() {
+        Random random = new Random(39);
+        long[] values = new long[BATCH_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            int a = random.nextInt(4) == 0 ? random.nextInt(10) : random.nextInt(256);
+            int b = random.nextInt(4) == 0 ? random.nextInt(100) : random.nextInt(256);
+            values[i] = ((long) a << 24) | (b << 16) | random.nextInt(1 << 16);
+        }
+        values[0] = Ipv4.MAXIMUM_VALUE;
+        values[1] = 0;
+        byte[] expected = new byte[values.length * Ipv4BatchCodec.MAX_TEXT_LENGTH];
+        byte[] actual = new byte[values.length * Ipv4BatchCodec.MAX_TEXT_LENGTH];
+        int[] expectedOffsets = new int[values.length];
+        int[] actualOffsets = new int[values.length];
+        int[] lengths = new int[values.length];
+
+        int expectedEnd = scalar.format(values, expected, 0, expectedOffsets, lengths, values.length);
+        int actualEnd = subject.format(values, actual, 0, actualOffsets, lengths, values.length);
+
+        assertEquals(expectedEnd, actualEnd);
+        assertArrayEquals(expectedOffsets, actualOffsets);
+        assertArrayEquals(expected, actual);
+        assertEquals("255.255.255.255", new String(actual, 0, lengths[0], StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void shouldNotWriteBeyondTheEndOfTheBuffer() {
+        byte[] buffer = new byte[7];
+        int[] offsets = new int[1];
+        int[] lengths = new int[1];
+
+        assertEquals(7, subject.format(new long[]{0}, buffer, 0, offsets, lengths, 1));
+        assertEquals("0.0.0.0", new String(buffer, StandardCharsets.US_ASCII));
+
+        long[] values = new long[1];
+        assertEquals(0, subject.parse(buffer, offsets, lengths, values, 1));
+        assertEquals(0, values[0]);
+    }
+
+    private void assertParsedLikeScalar(String... texts) {
+        StringBuilder joined = new StringBuilder();
+        int[] offsets = new int[texts.length];
+        int[] lengths = new int[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            offsets[i] = joined.length();
+            lengths[i] = texts[i].length();
+            joined.append(texts[i]).append('9');
+        }
+        byte[] buffer = joined.toString().getBytes(StandardCharsets.US_ASCII);
+        long[] expected = new long[texts.length];
+        long[] actual = new long[texts.length];
+
+        assertEquals(scalar.parse(buffer, offsets, lengths, expected, texts.length),
+                subject.parse(buffer, offsets, lengths, actual, texts.length));
+        for (int i = 0; i < texts.length; i++) {
+            assertEquals(texts[i], expected[i], actual[i]);
+        }
+    }
+}
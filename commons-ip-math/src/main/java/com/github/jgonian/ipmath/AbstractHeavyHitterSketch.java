@@ -0,0 +1,269 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Base class of sketches which find the prefixes that receive the most weight, e.g. traffic, at a few prefix
+ * lengths, in constant memory.
+ * <p>
+ * Every address is counted towards its prefix of each tracked length, the prefix being the range from the
+ * {@link AbstractIp#lowerBoundForPrefix lower bound for the prefix} of the address. The weight of the prefixes of
+ * a length is estimated with a Count-Min sketch, whose estimates are never too low and exceed the true weight by at
+ * most half the threshold times the total weight, with a probability of 99%. The prefixes whose estimate reaches the
+ * threshold times the total weight when they are counted become candidates of their length, which are reported by
+ * {@link #heavyHitters}.
+ * <p>
+ * Updates are lock-free and can come from several threads at once.
+ */
+public abstract class AbstractHeavyHitterSketch<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+    private static final int DEPTH = 5;
+    private static final int BUCKET_SIZE = 8;
+    private static final long CANDIDATE_SEED = 0x2545F4914F6CDD1DL;
+
+    private final ResourceFamily<C, R> family;
+    private final int keyBits;
+    private final double threshold;
+    private final int[] prefixLengths;
+    private final long[] masks;
+    private final long[] rowSeeds;
+    private final int width;
+    private final AtomicLongArray[] counters;
+    private final AtomicLongArray[] candidates;
+    private final AtomicIntegerArray zeroKeyCandidates;
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    /**
+     * @param keyBits the number of bits of an address the prefixes are taken from: 32 for IPv4, or the upper 64 of
+     * the 128 bits of an IPv6 address
+     * @param threshold the smallest fraction of the total weight that a prefix must receive to be reported
+     */
+    AbstractHeavyHitterSketch(ResourceFamily<C, R> family, int keyBits, double threshold, int... prefixLengths) {
+        Validate.isTrue(threshold > 0 && threshold < 1, "The threshold must be between 0 and 1");
+        Validate.isTrue(prefixLengths.length > 0, "At least one prefix length is required");
+        this.family = family;
+        this.keyBits = keyBits;
+        this.threshold = threshold;
+        this.prefixLengths = prefixLengths.clone();
+        this.masks = new long[prefixLengths.length];
+        for (int level = 0; level < prefixLengths.length; level++) {
+            int prefixLength = prefixLengths[level];
+            if (prefixLength < 0 || prefixLength > keyBits) {
+                throw new IllegalArgumentException("Prefix length " + prefixLength + " is not supported, the maximum is "
+                        + keyBits);
+            }
+            if (levelOf(prefixLength) != level) {
+                throw new IllegalArgumentException("Prefix length " + prefixLength + " is given twice");
+            }
+            masks[level] = prefixLength == 0 ? 0 : -1L << (64 - prefixLength) >>> (64 - keyBits);
+        }
+        this.rowSeeds = new long[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            rowSeeds[row] = Bits.mix(row + 1);
+        }
+        // a width of 2e/threshold bounds the error by threshold/2 with a probability of 1 - e^-DEPTH
+        this.width = (int) Math.ceil(2 * Math.E / threshold);
+        int candidateCapacity = Math.max(BUCKET_SIZE, (int) Math.ceil(8 / threshold));
+        this.counters = new AtomicLongArray[prefixLengths.length];
+        this.candidates = new AtomicLongArray[prefixLengths.length];
+        for (int level = 0; level < prefixLengths.length; level++) {
+            counters[level] = new AtomicLongArray(DEPTH * width);
+            candidates[level] = new AtomicLongArray(candidateCapacity);
+        }
+        this.zeroKeyCandidates = new AtomicIntegerArray(prefixLengths.length);
+    }
+
+    /**
+     * Counts the weight of an address towards its prefixes.
+     *
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public void add(C address, long weight) {
+        Uint128 value = family.valueOf(Validate.notNull(address, "An address is required"));
+        addKey(keyBits == 64 ? value.high() : value.low(), weight);
+    }
+
+    final void addKey(long address, long weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight must be positive: " + weight);
+        }
+        long total = totalWeight.addAndGet(weight);
+        long candidateWeight = (long) Math.ceil(threshold * total);
+        for (int level = 0; level < masks.length; level++) {
+            long key = address & masks[level];
+            AtomicLongArray levelCounters = counters[level];
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                estimate = Math.min(estimate, levelCounters.addAndGet(counterIndex(row, key), weight));
+            }
+            if (estimate >= candidateWeight) {
+                addCandidate(level, key, estimate);
+            }
+        }
+    }
+
+    /**
+     * Makes a key a candidate of its level, if it is not one yet, in one of the slots of its bucket. When the bucket
+     * is full, the key replaces the candidate with the lowest estimate if that estimate is lower than its own.
+     */
+    private void addCandidate(int level, long key, long estimate) {
+        if (key == 0) {
+            // zero marks an empty slot
+            zeroKeyCandidates.set(level, 1);
+            return;
+        }
+        AtomicLongArray levelCandidates = candidates[level];
+        int start = Bits.reduce(Bits.mix(key ^ CANDIDATE_SEED), levelCandidates.length());
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = slotInBucket(levelCandidates, start, i);
+            long candidate = levelCandidates.get(slot);
+            if (candidate == 0) {
+                levelCandidates.compareAndSet(slot, 0, key);
+                candidate = levelCandidates.get(slot);
+            }
+            if (candidate == key) {
+                return;
+            }
+        }
+        int weakestSlot = -1;
+        long weakestCandidate = 0;
+        long weakestEstimate = estimate;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = slotInBucket(levelCandidates, start, i);
+            long candidate = levelCandidates.get(slot);
+            long candidateEstimate = estimate(level, candidate);
+            if (candidateEstimate < weakestEstimate) {
+                weakestSlot = slot;
+                weakestCandidate = candidate;
+                weakestEstimate = candidateEstimate;
+            }
+        }
+        if (weakestSlot >= 0) {
+            // losing the race to another thread leaves the key out until its next update
+            levelCandidates.compareAndSet(weakestSlot, weakestCandidate, key);
+        }
+    }
+
+    private static int slotInBucket(AtomicLongArray levelCandidates, int start, int i) {
+        int slot = start + i;
+        return slot < levelCandidates.length() ? slot : slot - levelCandidates.length();
+    }
+
+    private long estimate(int level, long key) {
+        long result = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            result = Math.min(result, counters[level].get(counterIndex(row, key)));
+        }
+        return result;
+    }
+
+    private int counterIndex(int row, long key) {
+        return row * width + Bits.reduce(Bits.mix(key ^ rowSeeds[row]), width);
+    }
+
+    /**
+     * @return an estimate of the weight of the prefix, which is never lower than its true weight
+     * @throws IllegalArgumentException if the range is not a prefix of one of the tracked lengths
+     */
+    public long estimate(R prefix) {
+        int level = levelOf(PrefixUtils.getPrefixLength(prefix));
+        if (level < 0) {
+            throw new IllegalArgumentException("Prefix length of " + prefix + " is not tracked");
+        }
+        Uint128 start = family.valueOf(prefix.start());
+        return estimate(level, keyBits == 64 ? start.high() : start.low());
+    }
+
+    /**
+     * Returns the candidates of the given prefix length whose estimated weight is at least the given fraction of
+     * the total weight, from the heaviest to the lightest.
+     *
+     * @throws IllegalArgumentException if the prefix length is not tracked or the fraction is below the threshold
+     */
+    public List<R> heavyHitters(int prefixLength, double fraction) {
+        int level = levelOf(prefixLength);
+        if (level < 0) {
+            throw new IllegalArgumentException("Prefix length " + prefixLength + " is not tracked");
+        }
+        if (!(fraction >= threshold)) {
+            throw new IllegalArgumentException("The fraction must not be below the threshold of " + threshold);
+        }
+        long minimumWeight = (long) Math.ceil(fraction * totalWeight.get());
+        AtomicLongArray levelCandidates = candidates[level];
+        long[] keys = new long[levelCandidates.length() + 1];
+        int count = 0;
+        for (int slot = 0; slot < levelCandidates.length(); slot++) {
+            long key = levelCandidates.get(slot);
+            if (key != 0) {
+                keys[count++] = key;
+            }
+        }
+        if (zeroKeyCandidates.get(level) != 0) {
+            keys[count++] = 0;
+        }
+        Arrays.sort(keys, 0, count);
+        List<long[]> heavyHitters = new ArrayList<long[]>();
+        for (int i = 0; i < count; i++) {
+            long estimate = estimate(level, keys[i]);
+            // a key can take two slots when threads add it at the same time
+            if ((i == 0 || keys[i] != keys[i - 1]) && estimate >= minimumWeight) {
+                heavyHitters.add(new long[]{keys[i], estimate});
+            }
+        }
+        Collections.sort(heavyHitters, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compareUnsigned(a[0], b[0]);
+            }
+        });
+        List<R> result = new ArrayList<R>(heavyHitters.size());
+        for (long[] heavyHitter : heavyHitters) {
+            Uint128 start = keyBits == 64 ? Uint128.valueOf(heavyHitter[0], 0) : Uint128.valueOf(heavyHitter[0]);
+            result.add(family.prefixOf(start, prefixLength));
+        }
+        return result;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight.get();
+    }
+
+    private int levelOf(int prefixLength) {
+        for (int level = 0; level < prefixLengths.length; level++) {
+            if (prefixLengths[level] == prefixLength) {
+                return level;
+            }
+        }
+        return -1;
+    }
+}
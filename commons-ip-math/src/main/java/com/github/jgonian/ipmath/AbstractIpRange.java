@@ -71,6 +71,7 @@ public abstract class AbstractIpRange<C extends AbstractIp<C, R>, R extends Abst
     }
 
     public List<R> splitToPrefixes() {
+        long startTime = Metrics.startOperationTimer();
         BigInteger rangeEnd = end().asBigInteger();
         BigInteger currentRangeStart = start().asBigInteger();
         int startingPrefixLength = start().bitSize();
@@ -89,6 +90,7 @@ public abstract class AbstractIpRange<C extends AbstractIp<C, R>, R extends Abst
             prefixes.add(newInstance(currentRangeStart, currentRangeEnd));
             currentRangeStart = currentRangeEnd.add(ONE);
         }
+        Metrics.recordOperation(Operation.SPLIT_TO_PREFIXES, 1, prefixes.size(), startTime);
         return prefixes;
     }
 
@@ -0,0 +1,259 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Arrays;
+
+/**
+ * Base class of hash maps with prefixes as keys, for exact-match lookups such as "what is known about 10.0.0.0/8
+ * itself". A prefix is stored as its first address and its prefix length, packed into one <tt>long</tt> for IPv4 and
+ * three for IPv6, so that lookups by address and prefix length need no range objects.
+ * <p>
+ * The maps use open addressing with linear probing; an empty slot is marked by a <tt>null</tt> value, so values
+ * must not be <tt>null</tt>. These maps are not thread-safe.
+ */
+public abstract class AbstractPrefixMap<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>, V>
+        extends OpenAddressingTable {
+
+    public interface EntryConsumer<R, V> {
+        void accept(R prefix, V value);
+    }
+
+    // the keys of all slots share one array, so the capacity is limited by the number of longs per key
+    private static final int MAX_KEY_WORDS = 1 << 30;
+
+    private final int stride;
+    private final int[] sizeByPrefixLength;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * @param stride the number of longs per key: 1 to pack address and prefix length into one long, or 3 for the
+     * high and low bits of the address followed by the prefix length
+     */
+    AbstractPrefixMap(int stride, int bitSize, int expectedSize) {
+        super(MAX_KEY_WORDS / stride);
+        this.stride = stride;
+        this.sizeByPrefixLength = new int[bitSize + 1];
+        allocate(initialCapacity(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity * stride];
+        this.values = new Object[capacity];
+        setCapacity(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of prefixes of the given length in this map
+     */
+    public int size(int prefixLength) {
+        Validate.checkRange(prefixLength, 0, sizeByPrefixLength.length - 1);
+        return sizeByPrefixLength[prefixLength];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(R prefix) {
+        return getValue(slotOf(prefix));
+    }
+
+    public boolean containsKey(R prefix) {
+        return slotOf(prefix) >= 0;
+    }
+
+    /**
+     * @return the previous value of the prefix, or <tt>null</tt> if there was none
+     * @throws IllegalArgumentException if the range is not a prefix
+     */
+    public abstract V put(R prefix, V value);
+
+    /**
+     * @return the value of the removed prefix, or <tt>null</tt> if the map did not contain it
+     */
+    public V remove(R prefix) {
+        int slot = slotOf(prefix);
+        if (slot < 0) {
+            return null;
+        }
+        V result = getValue(slot);
+        sizeByPrefixLength[prefixLengthAt(slot)]--;
+        size--;
+        shiftBack(slot);
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        Arrays.fill(sizeByPrefixLength, 0);
+        size = 0;
+    }
+
+    /**
+     * Passes the entries to the consumer, from the shortest to the longest prefixes. The consumer must not modify
+     * the map.
+     */
+    public void forEach(EntryConsumer<? super R, ? super V> consumer) {
+        int[] next = new int[sizeByPrefixLength.length];
+        for (int prefixLength = 1; prefixLength < next.length; prefixLength++) {
+            next[prefixLength] = next[prefixLength - 1] + sizeByPrefixLength[prefixLength - 1];
+        }
+        int[] slotsByPrefixLength = new int[size];
+        for (int slot = 0; slot < capacity; slot++) {
+            if (values[slot] != null) {
+                slotsByPrefixLength[next[prefixLengthAt(slot)]++] = slot;
+            }
+        }
+        for (int slot : slotsByPrefixLength) {
+            consumer.accept(prefixAt(slot), getValue(slot));
+        }
+    }
+
+    /**
+     * Passes the entries with prefixes of the given length to the consumer, in no particular order. The consumer
+     * must not modify the map.
+     */
+    public void forEach(int prefixLength, EntryConsumer<? super R, ? super V> consumer) {
+        Validate.checkRange(prefixLength, 0, sizeByPrefixLength.length - 1);
+        int remaining = sizeByPrefixLength[prefixLength];
+        for (int slot = 0; remaining > 0; slot++) {
+            if (values[slot] != null && prefixLengthAt(slot) == prefixLength) {
+                consumer.accept(prefixAt(slot), getValue(slot));
+                remaining--;
+            }
+        }
+    }
+
+    abstract int slotOf(R prefix);
+
+    abstract R prefixAt(int slot);
+
+    abstract int prefixLengthAt(int slot);
+
+    @SuppressWarnings("unchecked")
+    final V getValue(int slot) {
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    final long keyAt(int slot, int word) {
+        return keys[slot * stride + word];
+    }
+
+    /**
+     * @return the slot of the key, or -1 if the map does not contain it; the last two words are ignored for keys
+     * of one word
+     */
+    final int slotOf(long key0, long key1, long key2) {
+        for (int slot = homeSlot(key0, key1, key2, capacity); values[slot] != null; slot = next(slot)) {
+            int i = slot * stride;
+            if (keys[i] == key0 && (stride == 1 || keys[i + 1] == key1 && keys[i + 2] == key2)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    final V put(long key0, long key1, long key2, int prefixLength, V value) {
+        Validate.notNull(value, "A value is required");
+        int slot = homeSlot(key0, key1, key2, capacity);
+        while (values[slot] != null) {
+            int i = slot * stride;
+            if (keys[i] == key0 && (stride == 1 || keys[i + 1] == key1 && keys[i + 2] == key2)) {
+                V previous = getValue(slot);
+                values[slot] = value;
+                return previous;
+            }
+            slot = next(slot);
+        }
+        if (size >= maxSize) {
+            grow();
+            return put(key0, key1, key2, prefixLength, value);
+        }
+        int i = slot * stride;
+        keys[i] = key0;
+        if (stride > 1) {
+            keys[i + 1] = key1;
+            keys[i + 2] = key2;
+        }
+        values[slot] = value;
+        sizeByPrefixLength[prefixLength]++;
+        size++;
+        return null;
+    }
+
+    private void grow() {
+        int newCapacity = grownCapacity();
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            if (oldValues[oldSlot] != null) {
+                int i = oldSlot * stride;
+                int slot = stride == 1
+                        ? homeSlot(oldKeys[i], 0, 0, capacity)
+                        : homeSlot(oldKeys[i], oldKeys[i + 1], oldKeys[i + 2], capacity);
+                while (values[slot] != null) {
+                    slot = next(slot);
+                }
+                System.arraycopy(oldKeys, i, keys, slot * stride, stride);
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+
+    @Override
+    final boolean isEmptySlot(int slot) {
+        return values[slot] == null;
+    }
+
+    @Override
+    final int homeSlotOf(int slot) {
+        int i = slot * stride;
+        return stride == 1
+                ? homeSlot(keys[i], 0, 0, capacity)
+                : homeSlot(keys[i], keys[i + 1], keys[i + 2], capacity);
+    }
+
+    @Override
+    final void moveSlot(int from, int to) {
+        System.arraycopy(keys, from * stride, keys, to * stride, stride);
+        values[to] = values[from];
+    }
+
+    @Override
+    final void clearSlot(int slot) {
+        values[slot] = null;
+    }
+
+    private static int homeSlot(long key0, long key1, long key2, int capacity) {
+        return Bits.reduce(Bits.mix(key0 ^ Bits.mix(key1 + key2)), capacity);
+    }
+}
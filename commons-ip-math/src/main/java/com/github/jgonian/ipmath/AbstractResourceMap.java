@@ -0,0 +1,342 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * Base class of hash maps keyed by IPv4 addresses, IPv6 addresses or ASNs, which store the keys as 32-bit or
+ * 128-bit numbers next to primitive values instead of as objects.
+ * <p>
+ * The maps use open addressing with linear probing, a strong mixing of the key bits and deletion by shifting back
+ * the following entries, so that they need neither nodes nor tombstones: an entry takes 8 to 24 bytes, depending on
+ * the key and value types, divided by the load factor of at most 0.75. The slots can be stored outside of the Java
+ * heap, in which case they are released when the map is garbage collected.
+ * <p>
+ * These maps are not thread-safe.
+ */
+public abstract class AbstractResourceMap<C extends SingleInternetResource<C, ?>> extends OpenAddressingTable {
+
+    public enum Storage {
+        HEAP, OFF_HEAP
+    }
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 1;
+
+    private final ResourceFamily<C, ?> family;
+    private final boolean wideKeys;
+    private final int valueOffset;
+    private final int slotSize;
+    private final boolean offHeap;
+    private SlotStorage slots;
+    private int size;
+    private boolean containsZeroKey;
+
+    AbstractResourceMap(ResourceFamily<C, ?> family, int expectedSize, Storage storage, int valueSize) {
+        super(MAX_CAPACITY);
+        this.family = family;
+        this.wideKeys = family.bitSize() > 32;
+        this.valueOffset = wideKeys ? 16 : 4;
+        this.slotSize = valueOffset + valueSize;
+        this.offHeap = Validate.notNull(storage, "A storage is required") == Storage.OFF_HEAP;
+        allocate(initialCapacity(expectedSize));
+    }
+
+    /**
+     * Allocates empty slots, plus one extra slot at index <tt>capacity</tt> for the key zero, which cannot be told
+     * apart from an empty slot in the table.
+     */
+    private void allocate(int capacity) {
+        this.slots = new SlotStorage(capacity + 1, slotSize, offHeap);
+        setCapacity(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of bytes taken by the slots of this map
+     */
+    public long sizeInBytes() {
+        return slots.sizeInBytes();
+    }
+
+    public boolean containsKey(C key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @param key an IPv4 address or ASN as an unsigned 32-bit number
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @param high the upper 64 bits of the key
+     * @param low the lower 64 bits of the key
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public boolean containsKey(long high, long low) {
+        return slotOf(high, low) >= 0;
+    }
+
+    /**
+     * @return whether the map contained the key
+     */
+    public boolean remove(C key) {
+        return removeSlot(slotOf(key));
+    }
+
+    /**
+     * @param key an IPv4 address or ASN as an unsigned 32-bit number
+     * @return whether the map contained the key
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public boolean remove(int key) {
+        return removeSlot(slotOf(key));
+    }
+
+    /**
+     * @param high the upper 64 bits of the key
+     * @param low the lower 64 bits of the key
+     * @return whether the map contained the key
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public boolean remove(long high, long low) {
+        return removeSlot(slotOf(high, low));
+    }
+
+    private boolean removeSlot(int slot) {
+        if (slot < 0) {
+            return false;
+        }
+        size--;
+        if (slot == capacity) {
+            containsZeroKey = false;
+            slots.clear(slot);
+        } else {
+            shiftBack(slot);
+        }
+        return true;
+    }
+
+    public void clear() {
+        allocate(capacity);
+        size = 0;
+        containsZeroKey = false;
+    }
+
+    /**
+     * @return the slot of the key, or -1 if the map does not contain it
+     */
+    final int slotOf(C key) {
+        Uint128 value = family.valueOf(Validate.notNull(key, "A key is required"));
+        return findSlot(value.high(), value.low());
+    }
+
+    final int slotOf(int key) {
+        return findSlot(0, narrowKey(key));
+    }
+
+    final int slotOf(long high, long low) {
+        checkKey(high, low);
+        return findSlot(high, low);
+    }
+
+    private int findSlot(long high, long low) {
+        if (high == 0 && low == 0) {
+            return containsZeroKey ? capacity : -1;
+        }
+        for (int slot = homeSlot(high, low, capacity); ; slot = next(slot)) {
+            if (isEmptySlot(slot)) {
+                return -1;
+            } else if (hasKey(slot, high, low)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return the slot of the key, which is added with a zero value if the map does not contain it yet
+     */
+    final int claimSlot(C key) {
+        Uint128 value = family.valueOf(Validate.notNull(key, "A key is required"));
+        return claimSlotOf(value.high(), value.low());
+    }
+
+    final int claimSlot(int key) {
+        return claimSlotOf(0, narrowKey(key));
+    }
+
+    final int claimSlot(long high, long low) {
+        checkKey(high, low);
+        return claimSlotOf(high, low);
+    }
+
+    private int claimSlotOf(long high, long low) {
+        if (high == 0 && low == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            return capacity;
+        }
+        for (int slot = homeSlot(high, low, capacity); ; slot = next(slot)) {
+            if (isEmptySlot(slot)) {
+                if (size >= maxSize) {
+                    grow();
+                    return claimSlotOf(high, low);
+                }
+                putKey(slot, high, low);
+                size++;
+                return slot;
+            } else if (hasKey(slot, high, low)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return the first occupied slot from the given one on, or -1 if there is none
+     */
+    final int nextOccupiedSlot(int from) {
+        for (int slot = from; slot < capacity; slot++) {
+            if (!isEmptySlot(slot)) {
+                return slot;
+            }
+        }
+        return from <= capacity && containsZeroKey ? capacity : -1;
+    }
+
+    final C keyAt(int slot) {
+        if (slot == capacity) {
+            return family.resourceOf(Uint128.ZERO);
+        }
+        return family.resourceOf(wideKeys
+                ? Uint128.valueOf(slots.getLong(slot, 0), slots.getLong(slot, 8))
+                : Uint128.valueOf(lowKey(slot)));
+    }
+
+    final long getLongValue(int slot) {
+        return slots.getLong(slot, valueOffset);
+    }
+
+    final void putLongValue(int slot, long value) {
+        slots.putLong(slot, valueOffset, value);
+    }
+
+    final int getIntValue(int slot) {
+        return slots.getInt(slot, valueOffset);
+    }
+
+    final void putIntValue(int slot, int value) {
+        slots.putInt(slot, valueOffset, value);
+    }
+
+    private long narrowKey(int key) {
+        if (wideKeys) {
+            throw new IllegalArgumentException("The keys of this map do not fit in 32 bits");
+        }
+        return key & 0xFFFFFFFFL;
+    }
+
+    private void checkKey(long high, long low) {
+        if (!wideKeys && (high != 0 || low >>> 32 != 0)) {
+            throw new IllegalArgumentException("The key does not fit in 32 bits: " + Uint128.valueOf(high, low));
+        }
+    }
+
+    private void grow() {
+        int newCapacity = grownCapacity();
+        SlotStorage oldSlots = slots;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            long high = wideKeys ? oldSlots.getLong(oldSlot, 0) : 0;
+            long low = wideKeys ? oldSlots.getLong(oldSlot, 8) : oldSlots.getInt(oldSlot, 0) & 0xFFFFFFFFL;
+            if (high != 0 || low != 0) {
+                int slot = homeSlot(high, low, capacity);
+                while (!isEmptySlot(slot)) {
+                    slot = next(slot);
+                }
+                oldSlots.copy(oldSlot, slots, slot);
+            }
+        }
+        oldSlots.copy(oldCapacity, slots, capacity);
+    }
+
+    @Override
+    final boolean isEmptySlot(int slot) {
+        if (wideKeys) {
+            return slots.getLong(slot, 0) == 0 && slots.getLong(slot, 8) == 0;
+        }
+        return slots.getInt(slot, 0) == 0;
+    }
+
+    @Override
+    final int homeSlotOf(int slot) {
+        return wideKeys
+                ? homeSlot(slots.getLong(slot, 0), slots.getLong(slot, 8), capacity)
+                : homeSlot(0, lowKey(slot), capacity);
+    }
+
+    @Override
+    final void moveSlot(int from, int to) {
+        slots.copy(from, slots, to);
+    }
+
+    @Override
+    final void clearSlot(int slot) {
+        slots.clear(slot);
+    }
+
+    private boolean hasKey(int slot, long high, long low) {
+        if (wideKeys) {
+            return slots.getLong(slot, 8) == low && slots.getLong(slot, 0) == high;
+        }
+        return lowKey(slot) == low;
+    }
+
+    private long lowKey(int slot) {
+        return slots.getInt(slot, 0) & 0xFFFFFFFFL;
+    }
+
+    private void putKey(int slot, long high, long low) {
+        if (wideKeys) {
+            slots.putLong(slot, 0, high);
+            slots.putLong(slot, 8, low);
+        } else {
+            slots.putInt(slot, 0, (int) low);
+        }
+    }
+
+    private static int homeSlot(long high, long low, int capacity) {
+        return Bits.reduce(Bits.mix(high ^ Bits.mix(low)), capacity);
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads text files with one address, prefix or range per line, e.g. blocklists or scan targets, into a
+ * {@link SortedRangeSet}.
+ * <p>
+ * A line is parsed like {@link Ipv4Range#parse(String)} or {@link Ipv6Range#parse(String)}, or like
+ * {@link Ipv4#parse(String)} or {@link Ipv6#parse(String)} if it has neither a dash nor a slash. Leading and
+ * trailing whitespace is ignored, and so are empty lines and lines which start with <tt>#</tt>. Lines which cannot
+ * be parsed are passed to an {@link ErrorSink} instead of failing the load.
+ * <p>
+ * Every file is memory-mapped and split into chunks at line boundaries, which are parsed in parallel on a
+ * {@link ForkJoinPool}. Plain IPv4 addresses and prefixes are parsed straight from the mapped bytes. Each chunk
+ * becomes a sorted run of ranges, and the runs are combined with {@link SortedRangeSet#fromSortedRuns}.
+ */
+public final class AddressListLoader<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+    public interface ErrorSink {
+        /**
+         * Receives a line which could not be parsed. The sink is called on the thread which called
+         * {@link #load(Path...)}, in the order of the lines, once all chunks have been parsed.
+         *
+         * @param lineNumber the number of the line in its file, starting from 1
+         * @param line       the line without leading and trailing whitespace
+         */
+        void malformedLine(Path file, long lineNumber, String line, IllegalArgumentException error);
+    }
+
+    private final ResourceFamily<C, R> family;
+    private final boolean ipv4;
+    private final ForkJoinPool pool;
+    private final ErrorSink errorSink;
+    private final int chunkSize;
+
+    /**
+     * @param ipv4 whether to parse IPv4 addresses and prefixes straight from the bytes of the file, which only
+     * works for the IPv4 family
+     */
+    AddressListLoader(ResourceFamily<C, R> family, boolean ipv4, ForkJoinPool pool, ErrorSink errorSink,
+                      int chunkSize) {
+        this.family = family;
+        this.ipv4 = ipv4;
+        this.pool = Validate.notNull(pool, "A pool is required");
+        this.errorSink = Validate.notNull(errorSink, "An error sink is required");
+        this.chunkSize = chunkSize;
+    }
+
+    public static AddressListLoader<Ipv4, Ipv4Range> forIpv4(ErrorSink errorSink) {
+        return forIpv4(ForkJoinPool.commonPool(), errorSink);
+    }
+
+    public static AddressListLoader<Ipv4, Ipv4Range> forIpv4(ForkJoinPool pool, ErrorSink errorSink) {
+        return new AddressListLoader<Ipv4, Ipv4Range>(ResourceFamily.IPV4, true, pool, errorSink,
+                MappedFileChunk.DEFAULT_SIZE);
+    }
+
+    public static AddressListLoader<Ipv6, Ipv6Range> forIpv6(ErrorSink errorSink) {
+        return forIpv6(ForkJoinPool.commonPool(), errorSink);
+    }
+
+    public static AddressListLoader<Ipv6, Ipv6Range> forIpv6(ForkJoinPool pool, ErrorSink errorSink) {
+        return new AddressListLoader<Ipv6, Ipv6Range>(ResourceFamily.IPV6, false, pool, errorSink,
+                MappedFileChunk.DEFAULT_SIZE);
+    }
+
+    /**
+     * @return the union of the ranges of all lines of the files
+     */
+    public SortedRangeSet<C, R> load(Path... files) throws IOException {
+        List<Path> chunkFiles = new ArrayList<Path>();
+        List<MappedFileChunk> chunks = new ArrayList<MappedFileChunk>();
+        List<ForkJoinTask<ParsedChunk<C, R>>> tasks = new ArrayList<ForkJoinTask<ParsedChunk<C, R>>>();
+        for (Path file : files) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                for (MappedFileChunk chunk : MappedFileChunk.split(channel, chunkSize)) {
+                    chunkFiles.add(file);
+                    chunks.add(chunk);
+                    tasks.add(pool.submit(new ChunkParser(chunk)));
+                }
+            } finally {
+                channel.close();
+            }
+        }
+        List<SortedRangeSet<C, R>> runs = new ArrayList<SortedRangeSet<C, R>>(tasks.size());
+        long firstLineNumber = 1;
+        for (int i = 0; i < tasks.size(); i++) {
+            ParsedChunk<C, R> chunk = tasks.get(i).join();
+            if (chunks.get(i).offset == 0) {
+                firstLineNumber = 1;
+            }
+            for (MalformedLine error : chunk.errors) {
+                errorSink.malformedLine(chunkFiles.get(i), firstLineNumber + error.lineIndex, error.line, error.cause);
+            }
+            firstLineNumber += chunk.lineCount;
+            runs.add(chunk.ranges);
+        }
+        return SortedRangeSet.fromSortedRuns(runs);
+    }
+
+    private static final class ParsedChunk<C extends Rangeable<C, R>, R extends Range<C, R>> {
+        final SortedRangeSet<C, R> ranges;
+        final int lineCount;
+        final List<MalformedLine> errors;
+
+        ParsedChunk(SortedRangeSet<C, R> ranges, int lineCount, List<MalformedLine> errors) {
+            this.ranges = ranges;
+            this.lineCount = lineCount;
+            this.errors = errors;
+        }
+    }
+
+    private static final class MalformedLine {
+        final int lineIndex;
+        final String line;
+        final IllegalArgumentException cause;
+
+        MalformedLine(int lineIndex, String line, IllegalArgumentException cause) {
+            this.lineIndex = lineIndex;
+            this.line = line;
+            this.cause = cause;
+        }
+    }
+
+    private final class ChunkParser implements Callable<ParsedChunk<C, R>> {
+
+        private final MappedFileChunk chunk;
+        private final byte[] address = new byte[Ipv4BatchCodec.MAX_TEXT_LENGTH];
+
+        ChunkParser(MappedFileChunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public ParsedChunk<C, R> call() {
+            ByteBuffer buffer = chunk.buffer;
+            List<R> ranges = new ArrayList<R>();
+            List<MalformedLine> errors = new ArrayList<MalformedLine>();
+            int lineCount = 0;
+            int lineStart = 0;
+            while (lineStart < buffer.limit()) {
+                int lineEnd = MappedFileChunk.lineEnd(buffer, lineStart);
+                int start = lineStart;
+                int end = lineEnd;
+                while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+                    start++;
+                }
+                while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+                    end--;
+                }
+                if (start < end && buffer.get(start) != '#') {
+                    R range = ipv4 ? parseIpv4OrNull(buffer, start, end) : null;
+                    if (range != null) {
+                        ranges.add(range);
+                    } else {
+                        String line = MappedFileChunk.text(buffer, start, end);
+                        try {
+                            ranges.add(parse(line));
+                        } catch (IllegalArgumentException e) {
+                            errors.add(new MalformedLine(lineCount, line, e));
+                        }
+                    }
+                }
+                lineCount++;
+                lineStart = lineEnd + 1;
+            }
+            Collections.sort(ranges, StartAndSizeComparator.<C, R>get());
+            return new ParsedChunk<C, R>(SortedRangeSet.fromSorted(ranges), lineCount, errors);
+        }
+
+        private R parse(String line) {
+            if (line.indexOf('-') >= 0 || line.indexOf('/') >= 0) {
+                return family.parseRange(line);
+            }
+            return family.parseResource(line).asRange();
+        }
+
+        /**
+         * Parses an IPv4 address or prefix without decoding the line, or returns <tt>null</tt> to leave anything
+         * else, including all errors, to the parsers of the ranges. Only called by loaders of IPv4 ranges.
+         */
+        private R parseIpv4OrNull(ByteBuffer buffer, int start, int end) {
+            int slash = start;
+            while (slash < end && buffer.get(slash) != '/') {
+                slash++;
+            }
+            int addressLength = slash - start;
+            if (addressLength > address.length) {
+                return null;
+            }
+            for (int i = 0; i < addressLength; i++) {
+                address[i] = buffer.get(start + i);
+            }
+            long value = Ipv4BatchCodec.scalar().parseAddress(address, 0, addressLength);
+            if (value == Ipv4BatchCodec.INVALID) {
+                return null;
+            }
+            int prefixLength = Ipv4.NUMBER_OF_BITS;
+            if (slash < end) {
+                int digits = end - slash - 1;
+                if (digits < 1 || digits > 2) {
+                    return null;
+                }
+                prefixLength = 0;
+                for (int i = slash + 1; i < end; i++) {
+                    int digit = buffer.get(i) - '0';
+                    if (digit < 0 || digit > 9) {
+                        return null;
+                    }
+                    prefixLength = prefixLength * 10 + digit;
+                }
+            }
+            if (prefixLength > Ipv4.NUMBER_OF_BITS) {
+                return null;
+            }
+            long hostMask = (1L << (Ipv4.NUMBER_OF_BITS - prefixLength)) - 1;
+            if ((value & hostMask) != 0) {
+                return null;
+            }
+            return family.rangeOf(Uint128.valueOf(value), Uint128.valueOf(value | hostMask));
+        }
+    }
+}
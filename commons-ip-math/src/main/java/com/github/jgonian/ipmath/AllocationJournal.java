@@ -0,0 +1,507 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A durable record of the free space of an allocator, kept in a local directory as a compact snapshot of the free
+ * space plus an append-only journal of the allocations and releases since that snapshot.
+ * <p>
+ * Every {@link #logAllocation} and {@link #logRelease} appends one fixed-size record and returns once the record
+ * is on disk. Concurrent callers are group-committed: while one thread writes and forces the journal, the records
+ * of the others accumulate in memory and are written and forced together by the next one, so that a burst of
+ * operations costs a single <tt>fsync</tt>. A {@link #checkpoint} writes a new snapshot and starts an empty
+ * journal, which keeps the recovery time bounded.
+ * <p>
+ * Opening a journal recovers the free space by loading the snapshot and replaying the journal. A record that was
+ * only partially written when the process stopped is detected by its checksum and discarded.
+ */
+public class AllocationJournal<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> implements Closeable {
+
+    static final String SNAPSHOT_FILE_NAME = "free-space.snapshot";
+    static final String JOURNAL_FILE_NAME = "free-space.journal";
+
+    private static final int SNAPSHOT_MAGIC = 0x49505353;
+    private static final int JOURNAL_MAGIC = 0x49504a4c;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 8 + 4;
+    private static final byte ALLOCATION = 1;
+    private static final byte RELEASE = 2;
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    static final int REPLAY_CHUNK_RECORDS = 8192;
+
+    private final ResourceFamily<C, R> family;
+    private final byte familyId;
+    private final int valueSize;
+    private final int recordSize;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final SortedRangeSet<C, R> recoveredFreeSpace;
+
+    private final Object lock = new Object();
+    private FileChannel journal;
+    private long generation;
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long appendedRecords;
+    private long durableRecords;
+    private long recordsSinceCheckpoint;
+    private boolean syncing;
+    private IOException failure;
+
+    AllocationJournal(ResourceFamily<C, R> family, File directory) throws IOException {
+        this.family = family;
+        this.familyId = familyIdOf(family);
+        this.valueSize = family.bitSize() <= 32 ? 4 : 16;
+        this.recordSize = 1 + 2 * valueSize + 4;
+        Validate.notNull(directory, "directory is required");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE_NAME);
+        this.journalFile = new File(directory, JOURNAL_FILE_NAME);
+        this.pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.recoveredFreeSpace = recover();
+    }
+
+    public static AllocationJournal<Ipv4, Ipv4Range> forIpv4(File directory) throws IOException {
+        return new AllocationJournal<Ipv4, Ipv4Range>(ResourceFamily.IPV4, directory);
+    }
+
+    public static AllocationJournal<Ipv6, Ipv6Range> forIpv6(File directory) throws IOException {
+        return new AllocationJournal<Ipv6, Ipv6Range>(ResourceFamily.IPV6, directory);
+    }
+
+    public static AllocationJournal<Asn, AsnRange> forAsn(File directory) throws IOException {
+        return new AllocationJournal<Asn, AsnRange>(ResourceFamily.ASN, directory);
+    }
+
+    private static byte familyIdOf(ResourceFamily<?, ?> family) {
+        if (family == ResourceFamily.IPV4) {
+            return 4;
+        } else if (family == ResourceFamily.IPV6) {
+            return 6;
+        }
+        return 'A';
+    }
+
+    /**
+     * @return the free space as it was when the journal was opened, i.e. the last snapshot with the journal
+     * replayed on top of it, or an empty set for a new journal
+     */
+    public SortedRangeSet<C, R> getRecoveredFreeSpace() {
+        SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
+        result.addAll(recoveredFreeSpace);
+        return result;
+    }
+
+    /**
+     * Durably records that a range was removed from the free space.
+     */
+    public void logAllocation(R range) throws IOException {
+        awaitDurable(append(ALLOCATION, range));
+    }
+
+    /**
+     * Durably records that a range was returned to the free space.
+     */
+    public void logRelease(R range) throws IOException {
+        awaitDurable(append(RELEASE, range));
+    }
+
+    /**
+     * @return the number of records appended since the last checkpoint, which can be used to decide when to
+     * take the next one
+     */
+    public long getRecordsSinceCheckpoint() {
+        synchronized (lock) {
+            return recordsSinceCheckpoint;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given free space and starts an empty journal. The free space must reflect
+     * all the records logged so far. Records that are logged concurrently end up in the new journal even if the
+     * free space already reflects them, which is harmless because replaying them again has no further effect.
+     */
+    public void checkpoint(SortedRangeSet<C, R> freeSpace) throws IOException {
+        Validate.notNull(freeSpace, "free space is required");
+        synchronized (lock) {
+            awaitIdle();
+            ensureUsable();
+            syncing = true;
+            try {
+                long nextGeneration = generation + 1;
+                writeSnapshot(freeSpace, nextGeneration);
+                FileChannel previous = journal;
+                journal = createJournal(nextGeneration);
+                closeQuietly(previous);
+                generation = nextGeneration;
+                recordsSinceCheckpoint = 0;
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } finally {
+                syncing = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            awaitIdle();
+            if (journal != null) {
+                try {
+                    if (failure == null) {
+                        flush(pending);
+                    }
+                } finally {
+                    journal.close();
+                    journal = null;
+                }
+            }
+        }
+    }
+
+    private long append(byte type, R range) throws IOException {
+        Validate.notNull(range, "A range is required");
+        synchronized (lock) {
+            ensureUsable();
+            if (pending.remaining() < recordSize) {
+                ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            int recordStart = pending.position();
+            pending.put(type);
+            putValue(pending, family.valueOf(range.start()));
+            putValue(pending, family.valueOf(range.end()));
+            pending.putInt(checksum(pending.array(), recordStart, recordSize - 4));
+            recordsSinceCheckpoint++;
+            return ++appendedRecords;
+        }
+    }
+
+    private void awaitDurable(long record) throws IOException {
+        ByteBuffer batch;
+        long batchEnd;
+        synchronized (lock) {
+            while (syncing && durableRecords < record) {
+                awaitUninterruptibly();
+            }
+            if (durableRecords >= record) {
+                return;
+            }
+            ensureUsable();
+            syncing = true;
+            batch = pending;
+            batchEnd = appendedRecords;
+            pending = spare;
+            spare = null;
+        }
+        IOException error = null;
+        try {
+            flush(batch);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (lock) {
+            batch.clear();
+            spare = batch;
+            syncing = false;
+            if (error == null) {
+                durableRecords = batchEnd;
+            } else {
+                failure = error;
+            }
+            lock.notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void flush(ByteBuffer batch) throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            journal.write(batch);
+        }
+        journal.force(false);
+    }
+
+    private void awaitIdle() throws InterruptedIOException {
+        while (syncing) {
+            awaitUninterruptibly();
+        }
+    }
+
+    private void awaitUninterruptibly() throws InterruptedIOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal");
+        }
+    }
+
+    private void ensureUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("The journal failed to write and must be reopened", failure);
+        }
+        if (journal == null) {
+            throw new IOException("The journal is closed");
+        }
+    }
+
+    private SortedRangeSet<C, R> recover() throws IOException {
+        SortedRangeSet<C, R> freeSpace = new SortedRangeSet<C, R>();
+        long snapshotGeneration = 0;
+        if (snapshotFile.exists()) {
+            snapshotGeneration = readSnapshot(freeSpace);
+        }
+        boolean replayed = false;
+        if (journalFile.exists()) {
+            RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+            try {
+                if (readHeader(file, JOURNAL_MAGIC, journalFile) == snapshotGeneration) {
+                    file.setLength(replay(file, freeSpace));
+                    file.getFD().sync();
+                    replayed = true;
+                }
+            } finally {
+                file.close();
+            }
+        }
+        // a journal of an older generation is left over from a checkpoint that was interrupted after the snapshot
+        // was replaced, so its records are already part of the snapshot
+        journal = replayed
+                ? FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : createJournal(snapshotGeneration);
+        generation = snapshotGeneration;
+        return freeSpace;
+    }
+
+    /**
+     * Replays the records in chunks of {@link #REPLAY_CHUNK_RECORDS} records.
+     *
+     * @return the length of the journal up to the first record which is incomplete or fails its checksum
+     */
+    private long replay(RandomAccessFile file, SortedRangeSet<C, R> freeSpace) throws IOException {
+        FileChannel channel = file.getChannel();
+        ByteBuffer records = ByteBuffer.allocate(REPLAY_CHUNK_RECORDS * recordSize);
+        long validLength = HEADER_SIZE;
+        while (true) {
+            records.clear();
+            readFully(channel, records, validLength);
+            records.flip();
+            while (records.remaining() >= recordSize) {
+                int recordStart = records.position();
+                int expectedChecksum = records.getInt(recordStart + recordSize - 4);
+                if (expectedChecksum != checksum(records.array(), recordStart, recordSize - 4)) {
+                    return validLength;
+                }
+                byte type = records.get();
+                R range = readRange(records);
+                records.getInt();
+                if (type == ALLOCATION) {
+                    freeSpace.remove(range);
+                } else if (type == RELEASE) {
+                    freeSpace.add(range);
+                } else {
+                    throw new IOException("Unknown type of record " + type + " in " + journalFile);
+                }
+                validLength += recordSize;
+            }
+            if (records.limit() < records.capacity()) {
+                return validLength;
+            }
+        }
+    }
+
+    /**
+     * Reads from the given position until the buffer is full or the end of the file is reached.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    private long readSnapshot(SortedRangeSet<C, R> freeSpace) throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE + 8
+                || buffer.getInt(bytes.length - 4) != checksum(bytes, 0, bytes.length - 4)) {
+            throw new IOException("Corrupt snapshot " + snapshotFile);
+        }
+        long snapshotGeneration = readHeader(buffer, SNAPSHOT_MAGIC, snapshotFile);
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != (long) count * 2 * valueSize + 4) {
+            throw new IOException("Corrupt snapshot " + snapshotFile);
+        }
+        for (int i = 0; i < count; i++) {
+            freeSpace.add(readRange(buffer));
+        }
+        return snapshotGeneration;
+    }
+
+    private void writeSnapshot(SortedRangeSet<C, R> freeSpace, long snapshotGeneration) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 + freeSpace.size() * 2 * valueSize + 4);
+        putHeader(buffer, SNAPSHOT_MAGIC, snapshotGeneration);
+        buffer.putInt(freeSpace.size());
+        for (R range : freeSpace) {
+            putValue(buffer, family.valueOf(range.start()));
+            putValue(buffer, family.valueOf(range.end()));
+        }
+        buffer.putInt(checksum(buffer.array(), 0, buffer.position()));
+        buffer.flip();
+        replaceAtomically(snapshotFile, buffer);
+    }
+
+    private FileChannel createJournal(long journalGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        putHeader(header, JOURNAL_MAGIC, journalGeneration);
+        header.flip();
+        replaceAtomically(journalFile, header);
+        return FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void replaceAtomically(File target, ByteBuffer content) throws IOException {
+        File temporary = new File(target.getParentFile(), target.getName() + ".tmp");
+        FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.getParentFile());
+    }
+
+    private static void syncDirectory(File directory) {
+        try {
+            FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            try {
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // not supported on all platforms; the rename itself is atomic
+        }
+    }
+
+    private void putHeader(ByteBuffer buffer, int magic, long headerGeneration) {
+        buffer.putInt(magic);
+        buffer.put(FORMAT_VERSION);
+        buffer.put(familyId);
+        buffer.putLong(headerGeneration);
+        buffer.putInt(checksum(buffer.array(), buffer.position() - (HEADER_SIZE - 4), HEADER_SIZE - 4));
+    }
+
+    private long readHeader(RandomAccessFile file, int magic, File source) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try {
+            file.readFully(header);
+        } catch (EOFException e) {
+            throw new IOException("Corrupt header in " + source, e);
+        }
+        return readHeader(ByteBuffer.wrap(header), magic, source);
+    }
+
+    private long readHeader(ByteBuffer buffer, int magic, File source) throws IOException {
+        int headerStart = buffer.position();
+        int actualMagic = buffer.getInt();
+        byte version = buffer.get();
+        byte actualFamilyId = buffer.get();
+        long headerGeneration = buffer.getLong();
+        int expectedChecksum = checksum(buffer.array(), headerStart, HEADER_SIZE - 4);
+        if (actualMagic != magic || buffer.getInt() != expectedChecksum) {
+            throw new IOException("Corrupt header in " + source);
+        }
+        if (version != FORMAT_VERSION || actualFamilyId != familyId) {
+            throw new IOException("Unsupported version or type of resources in " + source);
+        }
+        return headerGeneration;
+    }
+
+    private void putValue(ByteBuffer buffer, Uint128 value) {
+        if (valueSize == 4) {
+            buffer.putInt((int) value.low());
+        } else {
+            buffer.putLong(value.high());
+            buffer.putLong(value.low());
+        }
+    }
+
+    private R readRange(ByteBuffer buffer) {
+        Uint128 start = readValue(buffer);
+        Uint128 end = readValue(buffer);
+        return family.rangeOf(start, end);
+    }
+
+    private Uint128 readValue(ByteBuffer buffer) {
+        if (valueSize == 4) {
+            return Uint128.valueOf(buffer.getInt() & 0xFFFFFFFFL);
+        }
+        long high = buffer.getLong();
+        return Uint128.valueOf(high, buffer.getLong());
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // the new journal is already in place
+        }
+    }
+}
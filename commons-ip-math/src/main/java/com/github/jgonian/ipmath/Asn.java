@@ -71,6 +71,7 @@ public final class Asn implements SingleInternetResource<Asn, AsnRange>, Compara
      * Textual Representation of Autonomous System (AS) Numbers</a>
      */
     public static Asn parse(String text) {
+        long startTime = Metrics.startTimer();
         try {
             String asnString = Validate.notNull(text, "AS Number must not be null").trim().toUpperCase();
             if (asnString.startsWith("AS")) {
@@ -85,8 +86,13 @@ public final class Asn implements SingleInternetResource<Asn, AsnRange>, Compara
             } else {
                 low = Long.valueOf(asnString);
             }
-            return new Asn((high << SIXTEEN) | low);
+            Asn result = new Asn((high << SIXTEEN) | low);
+            Metrics.increment(Metric.ASN_PARSE_SUCCESS);
+            Metrics.recordDuration(Metric.ASN_PARSE_NANOS, startTime);
+            return result;
         } catch (Exception ex) {
+            Metrics.increment(Metric.ASN_PARSE_FAILURE);
+            Metrics.recordDuration(Metric.ASN_PARSE_NANOS, startTime);
             throw new IllegalArgumentException("Invalid AS number: '" + text + "'. Details: " + ex.getMessage(), ex);
         }
     }
@@ -0,0 +1,52 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds a block of consecutive AS numbers of a given size in a collection of free ranges. Unlike prefixes, AS
+ * number blocks do not need to be aligned to their size.
+ */
+public abstract class AsnBlockFinder {
+
+    public interface Strategy {
+        public AsnRange findBlockOrNull(long blockSize, Collection<AsnRange> ranges);
+    }
+
+    private final Strategy strategy;
+
+    public AsnBlockFinder(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public AsnRange findBlockOrNull(long blockSize, Collection<AsnRange> ranges) {
+        return strategy.findBlockOrNull(blockSize, ranges);
+    }
+
+    static AsnRange blockOf(AsnRange freeBlock, long blockSize) {
+        long start = freeBlock.start().value();
+        return new AsnRange(freeBlock.start(), Asn.of(start + blockSize - 1));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Allocates many prefixes out of a free address space in one pass.
+ * <p>
+ * The requests are served largest prefix first, each from the smallest free prefix that can hold it, using a
+ * {@link PrefixAllocator}. Serving the large prefixes first means that the small ones are carved out of what is
+ * left over instead of fragmenting the blocks the large ones need. The whole batch takes
+ * <tt>O((n + k) log n)</tt> for <tt>n</tt> free ranges and <tt>k</tt> requested prefixes.
+ */
+public final class BatchPrefixAllocator {
+
+    // the list of allocations grows as prefixes are found, so a huge request does not reserve memory up front
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private BatchPrefixAllocator() {
+    }
+
+    /**
+     * @param requestedPrefixes the number of prefixes requested per prefix length
+     * @param freeSpace the free space to allocate from, which is not modified
+     * @return the allocated prefixes, the requests that could not be satisfied and the remaining free space
+     */
+    public static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>>
+    Result<C, R> allocate(Map<Integer, Integer> requestedPrefixes, SortedRangeSet<C, R> freeSpace) {
+        Validate.notNull(requestedPrefixes, "requested prefixes are required");
+        Validate.notNull(freeSpace, "free space is required");
+        SortedMap<Integer, Integer> requests = new TreeMap<Integer, Integer>(requestedPrefixes);
+        SortedMap<Integer, List<R>> allocations = new TreeMap<Integer, List<R>>();
+        SortedMap<Integer, Integer> unsatisfied = new TreeMap<Integer, Integer>();
+        if (freeSpace.isEmpty()) {
+            for (Map.Entry<Integer, Integer> request : requests.entrySet()) {
+                // without a free range the family is unknown, so check against the widest one
+                Validate.checkRange(request.getKey(), 0, Ipv6.NUMBER_OF_BITS);
+                addUnsatisfied(unsatisfied, request.getKey(), validateCount(request.getValue()));
+            }
+            return new Result<C, R>(allocations, unsatisfied, new SortedRangeSet<C, R>());
+        }
+
+        ResourceFamily<C, R> family = ResourceFamily.of(freeSpace.iterator().next());
+        PrefixAllocator<C, R> allocator = new PrefixAllocator<C, R>(family, freeSpace);
+        for (Map.Entry<Integer, Integer> request : requests.entrySet()) {
+            int prefixLength = request.getKey();
+            int count = validateCount(request.getValue());
+            List<R> allocated = new ArrayList<R>(Math.min(count, MAX_INITIAL_CAPACITY));
+            while (allocated.size() < count) {
+                R prefix = allocator.allocatePrefixOrNull(prefixLength);
+                if (prefix == null) {
+                    break;
+                }
+                allocated.add(prefix);
+            }
+            if (!allocated.isEmpty()) {
+                allocations.put(prefixLength, Collections.unmodifiableList(allocated));
+            }
+            addUnsatisfied(unsatisfied, prefixLength, count - allocated.size());
+        }
+        return new Result<C, R>(allocations, unsatisfied, allocator.getFreeSpace());
+    }
+
+    private static int validateCount(Integer count) {
+        if (count == null || count < 0) {
+            throw new IllegalArgumentException("The number of requested prefixes must not be negative: " + count);
+        }
+        return count;
+    }
+
+    private static void addUnsatisfied(SortedMap<Integer, Integer> unsatisfied, int prefixLength, int count) {
+        if (count > 0) {
+            unsatisfied.put(prefixLength, count);
+        }
+    }
+
+    public static final class Result<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+        private final SortedMap<Integer, List<R>> allocations;
+        private final SortedMap<Integer, Integer> unsatisfied;
+        private final SortedRangeSet<C, R> remainingFreeSpace;
+
+        private Result(SortedMap<Integer, List<R>> allocations, SortedMap<Integer, Integer> unsatisfied,
+                       SortedRangeSet<C, R> remainingFreeSpace) {
+            this.allocations = Collections.unmodifiableSortedMap(allocations);
+            this.unsatisfied = Collections.unmodifiableSortedMap(unsatisfied);
+            this.remainingFreeSpace = remainingFreeSpace;
+        }
+
+        /**
+         * @return the allocated prefixes per prefix length, in allocation order
+         */
+        public SortedMap<Integer, List<R>> getAllocations() {
+            return allocations;
+        }
+
+        /**
+         * @return the allocated prefixes of the given length, in allocation order
+         */
+        public List<R> getAllocations(int prefixLength) {
+            List<R> result = allocations.get(prefixLength);
+            return result == null ? Collections.<R>emptyList() : result;
+        }
+
+        /**
+         * @return the number of prefixes per prefix length that could not be allocated
+         */
+        public SortedMap<Integer, Integer> getUnsatisfied() {
+            return unsatisfied;
+        }
+
+        public boolean isFullySatisfied() {
+            return unsatisfied.isEmpty();
+        }
+
+        public SortedRangeSet<C, R> getRemainingFreeSpace() {
+            return remainingFreeSpace;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{allocations=" + allocations + ", unsatisfied=" + unsatisfied
+                    + ", remainingFreeSpace=" + remainingFreeSpace + '}';
+        }
+    }
+}
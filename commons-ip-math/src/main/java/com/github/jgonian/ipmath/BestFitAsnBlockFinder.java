@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds the block at the start of the smallest range which can hold it. If several ranges of the same size can
+ * hold the block, the first one in the iteration order of the ranges is used.
+ */
+public class BestFitAsnBlockFinder extends AsnBlockFinder {
+
+    public static BestFitAsnBlockFinder newInstance() {
+        return new BestFitAsnBlockFinder();
+    }
+
+    private BestFitAsnBlockFinder() {
+        super(new BestFitStrategy());
+    }
+
+    private static class BestFitStrategy implements Strategy {
+
+        @Override
+        public AsnRange findBlockOrNull(long blockSize, Collection<AsnRange> ranges) {
+            Validate.checkRange(blockSize, 1L, Asn.ASN_32_BIT_MAX_VALUE + 1);
+            AsnRange foundBlock = null;
+            long foundSize = Long.MAX_VALUE;
+
+            for (AsnRange freeBlock : ranges) {
+                long size = freeBlock.end().value() - freeBlock.start().value() + 1;
+                if (size >= blockSize && size < foundSize) {
+                    foundBlock = freeBlock;
+                    foundSize = size;
+                    if (size == blockSize) {
+                        break;
+                    }
+                }
+            }
+            return foundBlock == null ? null : blockOf(foundBlock, blockSize);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds the lowest prefix of the smallest range which can hold it. If several ranges of the same size can hold
+ * the prefix, the first one in the iteration order of the ranges is used.
+ * <p>
+ * Every call visits all ranges, so it takes <tt>O(n)</tt> for <tt>n</tt> ranges. A {@link PrefixAllocator} indexes
+ * the free space by prefix length instead, at the cost of building the index once.
+ */
+public class BestFitPrefixFinder<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> extends PrefixFinder<C, R> {
+
+    public static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> BestFitPrefixFinder<C, R> newInstance() {
+        return new BestFitPrefixFinder<C, R>();
+    }
+
+    private BestFitPrefixFinder() {
+        super(new BestFitStrategy<C, R>());
+    }
+
+    private static class BestFitStrategy<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> implements Strategy<C, R> {
+
+        @Override
+        public R findPrefixOrNull(int prefixLength, Collection<R> ranges) {
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            final ResourceFamily<C, R> family = ResourceFamily.of(ranges.iterator().next());
+            Validate.checkRange(prefixLength, 0, family.bitSize());
+            final int desiredExponent = family.bitSize() - prefixLength;
+            Uint128 foundPrefix = null;
+            Uint128 foundRangeSize = null;
+
+            for (R freeBlock : ranges) {
+                final Uint128 start = family.valueOf(freeBlock.start());
+                final Uint128 end = family.valueOf(freeBlock.end());
+                final Uint128 rangeSize = end.subtract(start);
+                if (foundRangeSize != null && rangeSize.compareTo(foundRangeSize) >= 0) {
+                    continue;
+                }
+                final Uint128 prefix = Uint128.firstAlignedBlockOrNull(start, end, desiredExponent);
+                if (prefix != null) {
+                    foundPrefix = prefix;
+                    foundRangeSize = rangeSize;
+                }
+            }
+            return foundPrefix == null ? null : family.prefixOf(foundPrefix, prefixLength);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * Low-level arithmetic used on hot paths.
+ */
+final class Bits {
+
+    private static final long LOW_32_BITS = 0xFFFFFFFFL;
+
+    private Bits() {
+    }
+
+    /**
+     * @return the upper 64 bits of the unsigned 128-bit product of two unsigned longs
+     */
+    static long unsignedMultiplyHigh(long a, long b) {
+        long aLow = a & LOW_32_BITS;
+        long aHigh = a >>> 32;
+        long bLow = b & LOW_32_BITS;
+        long bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long middle = (lowLow >>> 32) + (highLow & LOW_32_BITS) + (lowHigh & LOW_32_BITS);
+        return aHigh * bHigh + (highLow >>> 32) + (lowHigh >>> 32) + (middle >>> 32);
+    }
+
+    /**
+     * Maps a uniformly distributed 64-bit hash to an index between 0 (inclusive) and <tt>size</tt> (exclusive),
+     * without a division.
+     */
+    static int reduce(long hash, int size) {
+        return (int) unsignedMultiplyHigh(hash, size);
+    }
+
+    /**
+     * The finalizer of <tt>SplittableRandom</tt> (variant 13 of the MurmurHash3 finalizer by David Stafford), which
+     * spreads keys that differ in a few bits, such as the addresses of a block, uniformly over all 64 bits.
+     */
+    static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A Bloom filter of 64-bit hashes which sets and tests all bits of a hash within one block of 512 bits, the size of
+ * a cache line on common hardware, so that a lookup reads a single cache line.
+ */
+final class BlockedBloomFilter {
+
+    private static final int BLOCK_BITS = 512;
+    private static final int LONGS_PER_BLOCK = BLOCK_BITS / 64;
+    private static final int MAX_HASH_COUNT = 16;
+    // blocking makes the load of the blocks uneven, which is compensated with a few more bits
+    private static final double BLOCKING_OVERHEAD = 1.2;
+
+    private final long[] bits;
+    private final int blocks;
+    private final int hashCount;
+
+    /**
+     * @param falsePositiveRate the probability that a hash which was not added is reported to be contained
+     */
+    BlockedBloomFilter(int expectedHashes, double falsePositiveRate) {
+        Validate.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "The false positive rate must be between 0 and 1");
+        double bitsPerHash = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long totalBits = (long) Math.ceil(Math.max(1, expectedHashes) * bitsPerHash * BLOCKING_OVERHEAD);
+        this.blocks = (int) Math.min(Integer.MAX_VALUE / LONGS_PER_BLOCK, (totalBits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(bitsPerHash * Math.log(2))));
+        this.bits = new long[blocks * LONGS_PER_BLOCK];
+    }
+
+    void add(long hash) {
+        int block = Bits.reduce(hash, blocks) * LONGS_PER_BLOCK;
+        long positions = Bits.mix(hash);
+        int first = (int) positions;
+        int step = (int) (positions >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (first + i * step) & (BLOCK_BITS - 1);
+            bits[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int block = Bits.reduce(hash, blocks) * LONGS_PER_BLOCK;
+        long positions = Bits.mix(hash);
+        int first = (int) positions;
+        int step = (int) (positions >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (first + i * step) & (BLOCK_BITS - 1);
+            if ((bits[block + (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return bits.length * 8L;
+    }
+}
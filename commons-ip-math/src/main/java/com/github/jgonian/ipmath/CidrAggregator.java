@@ -0,0 +1,203 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Collapses large collections of IPv4 or IPv6 ranges into the minimal list of prefixes which covers the same
+ * addresses. The result is the same as adding all ranges to a {@link SortedRangeSet} and splitting each range of
+ * the set to prefixes, but the work is done in parallel.
+ * <p>
+ * The ranges are sorted in parallel. The sorted array is then cut into partitions of consecutive address space,
+ * and each partition merges its overlapping and consecutive ranges in place, in parallel on a {@link ForkJoinPool}.
+ * A sequential pass then merges the ranges which meet across partition boundaries. That pass takes time in the
+ * number of partitions rather than ranges. The prefixes are produced lazily as the returned stream is consumed,
+ * and in parallel if the stream is made parallel.
+ */
+public final class CidrAggregator<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+    static final int MIN_PARTITION_SIZE = 4096;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final ResourceFamily<C, R> family;
+    private final ForkJoinPool pool;
+    private final int minPartitionSize;
+
+    CidrAggregator(ResourceFamily<C, R> family, ForkJoinPool pool, int minPartitionSize) {
+        this.family = family;
+        this.pool = Validate.notNull(pool, "A pool is required");
+        this.minPartitionSize = minPartitionSize;
+    }
+
+    public static CidrAggregator<Ipv4, Ipv4Range> forIpv4() {
+        return forIpv4(ForkJoinPool.commonPool());
+    }
+
+    public static CidrAggregator<Ipv4, Ipv4Range> forIpv4(ForkJoinPool pool) {
+        return new CidrAggregator<Ipv4, Ipv4Range>(ResourceFamily.IPV4, pool, MIN_PARTITION_SIZE);
+    }
+
+    public static CidrAggregator<Ipv6, Ipv6Range> forIpv6() {
+        return forIpv6(ForkJoinPool.commonPool());
+    }
+
+    public static CidrAggregator<Ipv6, Ipv6Range> forIpv6(ForkJoinPool pool) {
+        return new CidrAggregator<Ipv6, Ipv6Range>(ResourceFamily.IPV6, pool, MIN_PARTITION_SIZE);
+    }
+
+    /**
+     * @return the minimal list of prefixes covering the given ranges, sorted by start
+     */
+    public Stream<R> aggregate(Collection<R> ranges) {
+        final Object[] sorted = Validate.notNull(ranges, "ranges are required").toArray();
+        for (Object range : sorted) {
+            Validate.notNull(range, "null ranges are not allowed");
+        }
+        List<int[]> segments = pool.invoke(ForkJoinTask.adapt(new Callable<List<int[]>>() {
+            @Override
+            public List<int[]> call() {
+                return normalize(sorted);
+            }
+        }));
+        return segments.stream().flatMap(new Function<int[], Stream<R>>() {
+            @Override
+            public Stream<R> apply(int[] segment) {
+                return IntStream.range(segment[0], segment[1]).mapToObj(new IntFunction<List<R>>() {
+                    @Override
+                    public List<R> apply(int index) {
+                        return prefixesOf(rangeAt(sorted, index));
+                    }
+                }).flatMap(new Function<List<R>, Stream<R>>() {
+                    @Override
+                    public Stream<R> apply(List<R> prefixes) {
+                        return prefixes.stream();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Sorts and normalizes the ranges in place.
+     *
+     * @return the <tt>[from, to)</tt> index ranges of the array which hold the normalized ranges
+     */
+    private List<int[]> normalize(final Object[] ranges) {
+        final Comparator<R> comparator = StartAndSizeComparator.get();
+        Arrays.parallelSort(ranges, new Comparator<Object>() {
+            @Override
+            public int compare(Object left, Object right) {
+                return comparator.compare(asRange(left), asRange(right));
+            }
+        });
+        int partitionCount = pool.getParallelism() * PARTITIONS_PER_THREAD;
+        int partitionSize = Math.max(minPartitionSize, (ranges.length + partitionCount - 1) / partitionCount);
+        List<ForkJoinTask<int[]>> partitions = new ArrayList<ForkJoinTask<int[]>>();
+        for (int from = 0; from < ranges.length; from += partitionSize) {
+            final int partitionFrom = from;
+            final int partitionTo = Math.min(from + partitionSize, ranges.length);
+            partitions.add(ForkJoinTask.adapt(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return new int[]{partitionFrom, mergeInPlace(ranges, partitionFrom, partitionTo)};
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(partitions);
+
+        List<int[]> segments = new ArrayList<int[]>(partitions.size());
+        int lastIndex = -1;
+        for (ForkJoinTask<int[]> partition : partitions) {
+            int[] segment = partition.join();
+            int from = segment[0];
+            while (lastIndex >= 0 && from < segment[1] && touches(rangeAt(ranges, lastIndex), rangeAt(ranges, from))) {
+                ranges[lastIndex] = rangeAt(ranges, lastIndex).merge(rangeAt(ranges, from));
+                from++;
+            }
+            if (from < segment[1]) {
+                segments.add(new int[]{from, segment[1]});
+                lastIndex = segment[1] - 1;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Merges the overlapping and consecutive ranges of a sorted part of the array into its beginning.
+     *
+     * @return the end of the merged ranges
+     */
+    private int mergeInPlace(Object[] ranges, int from, int to) {
+        int last = from;
+        for (int i = from + 1; i < to; i++) {
+            if (touches(rangeAt(ranges, last), rangeAt(ranges, i))) {
+                ranges[last] = rangeAt(ranges, last).merge(rangeAt(ranges, i));
+            } else {
+                ranges[++last] = ranges[i];
+            }
+        }
+        return last + 1;
+    }
+
+    private static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>>
+    boolean touches(R range, R next) {
+        return range.overlaps(next) || range.isConsecutive(next);
+    }
+
+    private R rangeAt(Object[] ranges, int index) {
+        return asRange(ranges[index]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private R asRange(Object range) {
+        return (R) range;
+    }
+
+    private List<R> prefixesOf(R range) {
+        List<R> prefixes = new ArrayList<R>();
+        Uint128 start = family.valueOf(range.start());
+        Uint128 end = family.valueOf(range.end());
+        while (true) {
+            int exponent = Uint128.largestBlockExponent(start, end);
+            Uint128 prefixEnd = start.or(Uint128.lowMask(exponent));
+            prefixes.add(family.rangeOf(start, prefixEnd));
+            if (prefixEnd.equals(end)) {
+                return prefixes;
+            }
+            start = prefixEnd.add(Uint128.ONE);
+        }
+    }
+}
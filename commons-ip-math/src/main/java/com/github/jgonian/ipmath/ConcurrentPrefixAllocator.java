@@ -0,0 +1,239 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe allocator of prefixes, which partitions the free space into stripes that are locked independently.
+ * <p>
+ * Each stripe is a covering prefix of a fixed length, e.g. a /32 of an IPv6 pool, with its own
+ * {@link PrefixAllocator}. A thread allocates from its home stripe and, when that cannot hold the requested
+ * prefix, spills over to the other stripes, first skipping the ones that are locked by other threads. Each stripe
+ * publishes the length of its largest free prefix, so stripes that are too full are skipped without locking them.
+ * A release only locks the stripe that the released range belongs to.
+ * <p>
+ * Within a stripe allocations are conservative, but there is no ordering across stripes: which stripe serves a
+ * request depends on the calling thread and on contention.
+ */
+public class ConcurrentPrefixAllocator<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+    // far more stripes than threads allocating at once only cost memory: each has an index per prefix length
+    static final int MAX_NUMBER_OF_STRIPES = 1024;
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final ResourceFamily<C, R> family;
+    private final int stripePrefixLength;
+    private final Uint128 stripeMask;
+    private final Uint128[] stripeStarts;
+    private final List<Stripe<C, R>> stripes;
+
+    ConcurrentPrefixAllocator(ResourceFamily<C, R> family, Iterable<R> freeRanges, int stripePrefixLength) {
+        Validate.notNull(freeRanges, "free ranges are required");
+        Validate.checkRange(stripePrefixLength, 0, family.bitSize());
+        this.family = family;
+        this.stripePrefixLength = stripePrefixLength;
+        this.stripeMask = Uint128.lowMask(family.bitSize() - stripePrefixLength);
+
+        Map<Uint128, List<R>> rangesByStripe = new TreeMap<Uint128, List<R>>();
+        for (R range : freeRanges) {
+            splitIntoStripes(range, rangesByStripe);
+        }
+        this.stripeStarts = new Uint128[rangesByStripe.size()];
+        this.stripes = new ArrayList<Stripe<C, R>>(rangesByStripe.size());
+        for (Map.Entry<Uint128, List<R>> entry : rangesByStripe.entrySet()) {
+            stripeStarts[stripes.size()] = entry.getKey();
+            stripes.add(new Stripe<C, R>(new PrefixAllocator<C, R>(family, entry.getValue())));
+        }
+    }
+
+    public static ConcurrentPrefixAllocator<Ipv4, Ipv4Range> forIpv4(Iterable<Ipv4Range> freeRanges, int stripePrefixLength) {
+        return new ConcurrentPrefixAllocator<Ipv4, Ipv4Range>(ResourceFamily.IPV4, freeRanges, stripePrefixLength);
+    }
+
+    public static ConcurrentPrefixAllocator<Ipv6, Ipv6Range> forIpv6(Iterable<Ipv6Range> freeRanges, int stripePrefixLength) {
+        return new ConcurrentPrefixAllocator<Ipv6, Ipv6Range>(ResourceFamily.IPV6, freeRanges, stripePrefixLength);
+    }
+
+    private void splitIntoStripes(R range, Map<Uint128, List<R>> rangesByStripe) {
+        Uint128 start = family.valueOf(range.start());
+        Uint128 end = family.valueOf(range.end());
+        while (true) {
+            Uint128 stripeStart = start.and(stripeMask.not());
+            Uint128 stripeEnd = stripeStart.or(stripeMask);
+            Uint128 pieceEnd = stripeEnd.compareTo(end) < 0 ? stripeEnd : end;
+            List<R> ranges = rangesByStripe.get(stripeStart);
+            if (ranges == null) {
+                if (rangesByStripe.size() >= MAX_NUMBER_OF_STRIPES) {
+                    throw new IllegalArgumentException("Too many stripes of prefix length " + stripePrefixLength
+                            + ", use a shorter prefix length");
+                }
+                ranges = new ArrayList<R>();
+                rangesByStripe.put(stripeStart, ranges);
+            }
+            ranges.add(family.rangeOf(start, pieceEnd));
+            if (pieceEnd.equals(end)) {
+                return;
+            }
+            start = pieceEnd.add(Uint128.ONE);
+        }
+    }
+
+    /**
+     * Allocates a prefix of the given length and removes it from the free space.
+     *
+     * @param prefixLength a prefix length which is not shorter than the prefix length of the stripes
+     * @return the allocated prefix, or <tt>null</tt> if no stripe has a free prefix large enough
+     */
+    public R allocate(int prefixLength) {
+        Validate.checkRange(prefixLength, stripePrefixLength, family.bitSize());
+        if (stripes.isEmpty()) {
+            return null;
+        }
+        int home = homeStripeIndex();
+        for (int i = 0; i < stripes.size(); i++) {
+            Stripe<C, R> stripe = stripes.get((home + i) % stripes.size());
+            if (stripe.canHold(prefixLength) && stripe.lock.tryLock()) {
+                try {
+                    R result = stripe.allocate(prefixLength);
+                    if (result != null) {
+                        return result;
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+        for (int i = 0; i < stripes.size(); i++) {
+            Stripe<C, R> stripe = stripes.get((home + i) % stripes.size());
+            if (stripe.canHold(prefixLength)) {
+                stripe.lock.lock();
+                try {
+                    R result = stripe.allocate(prefixLength);
+                    if (result != null) {
+                        return result;
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+        return null;
+    }
+
+    private int homeStripeIndex() {
+        long hash = Thread.currentThread().getId() * GOLDEN_RATIO;
+        return Bits.reduce(hash, stripes.size());
+    }
+
+    /**
+     * Returns a range to the free space of the stripe it belongs to.
+     *
+     * @throws IllegalArgumentException if the range does not lie within one stripe or overlaps with the free space
+     */
+    public void release(R range) {
+        Validate.notNull(range, "A range is required");
+        Uint128 start = family.valueOf(range.start());
+        Uint128 stripeStart = start.and(stripeMask.not());
+        int index = Arrays.binarySearch(stripeStarts, stripeStart);
+        if (index < 0 || family.valueOf(range.end()).compareTo(stripeStart.or(stripeMask)) > 0) {
+            throw new IllegalArgumentException("Range " + range + " does not belong to a stripe of this allocator");
+        }
+        Stripe<C, R> stripe = stripes.get(index);
+        stripe.lock.lock();
+        try {
+            stripe.release(range);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the free space as a set of ranges. The stripes are locked one at a time, so concurrent allocations
+     * and releases may be partially reflected.
+     */
+    public SortedRangeSet<C, R> getFreeSpace() {
+        SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
+        for (Stripe<C, R> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                result.addAll(stripe.allocator.getFreePrefixes());
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    public int getStripePrefixLength() {
+        return stripePrefixLength;
+    }
+
+    public int getNumberOfStripes() {
+        return stripes.size();
+    }
+
+    private static final class Stripe<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+        private static final int EMPTY = Integer.MAX_VALUE;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PrefixAllocator<C, R> allocator;
+        private volatile int largestFreePrefixLength;
+
+        private Stripe(PrefixAllocator<C, R> allocator) {
+            this.allocator = allocator;
+            updateLargestFreePrefixLength();
+        }
+
+        private boolean canHold(int prefixLength) {
+            return largestFreePrefixLength <= prefixLength;
+        }
+
+        private R allocate(int prefixLength) {
+            R result = allocator.allocatePrefixOrNull(prefixLength);
+            updateLargestFreePrefixLength();
+            return result;
+        }
+
+        private void release(R range) {
+            try {
+                allocator.release(range);
+            } finally {
+                updateLargestFreePrefixLength();
+            }
+        }
+
+        private void updateLargestFreePrefixLength() {
+            int prefixLength = allocator.largestFreePrefixLength();
+            largestFreePrefixLength = prefixLength < 0 ? EMPTY : prefixLength;
+        }
+    }
+}
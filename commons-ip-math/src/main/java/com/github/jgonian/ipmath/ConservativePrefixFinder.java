@@ -23,42 +23,59 @@
  */
 package com.github.jgonian.ipmath;
 
-import java.math.BigInteger;
 import java.util.Collection;
-import java.util.Optional;
 
-public class ConservativePrefixFinder extends PrefixFinder {
+/**
+ * Finds the prefix in the smallest free block that can hold it, where the free blocks are the prefixes that
+ * the given ranges split into. This keeps large blocks intact for as long as possible.
+ */
+public class ConservativePrefixFinder<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> extends PrefixFinder<C, R> {
 
-    public static ConservativePrefixFinder newInstance() {
-        return new ConservativePrefixFinder();
+    public static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> ConservativePrefixFinder<C, R> newInstance() {
+        return new ConservativePrefixFinder<C, R>();
     }
 
     private ConservativePrefixFinder() {
-        super(new ConservativeStrategy());
+        super(new ConservativeStrategy<C, R>());
     }
 
-    private static class ConservativeStrategy implements Strategy {
+    private static class ConservativeStrategy<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> implements Strategy<C, R> {
 
         @Override
-        public Ipv6Range findPrefixOrNull(int prefixLength, Collection<Ipv6Range> ranges) {
-            final BigInteger desiredPrefixSize = BigInteger.valueOf(2).pow(128 - prefixLength);
-            Ipv6Range foundPrefix = null;
-            BigInteger currentSize = null;
+        public R findPrefixOrNull(int prefixLength, Collection<R> ranges) {
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            final ResourceFamily<C, R> family = ResourceFamily.of(ranges.iterator().next());
+            Validate.checkRange(prefixLength, 0, family.bitSize());
+            final int desiredExponent = family.bitSize() - prefixLength;
+            final Uint128 desiredSizeMinusOne = Uint128.lowMask(desiredExponent);
+            Uint128 foundPrefix = null;
+            int foundExponent = Integer.MAX_VALUE;
 
-            for (Ipv6Range freeBlock : ranges) {
-                if (freeBlock.size().compareTo(desiredPrefixSize) >= 0) {
-                    final Optional<Ipv6Range> smallestPrefix = PrefixUtils.findMinimumPrefixForPrefixLength(freeBlock, prefixLength);
-                    if (smallestPrefix.isPresent()) {
-                        final Ipv6Range candidatePrefix = smallestPrefix.get();
-                        final BigInteger candidateSize = candidatePrefix.size();
-                        if ((foundPrefix == null) || candidateSize.compareTo(currentSize) < 0) {
-                            foundPrefix = candidatePrefix;
-                            currentSize = candidateSize;
+            for (R freeBlock : ranges) {
+                Uint128 start = family.valueOf(freeBlock.start());
+                final Uint128 end = family.valueOf(freeBlock.end());
+                if (end.subtract(start).compareTo(desiredSizeMinusOne) < 0) {
+                    continue;
+                }
+                while (true) {
+                    final int exponent = Uint128.largestBlockExponent(start, end);
+                    final Uint128 prefixEnd = start.or(Uint128.lowMask(exponent));
+                    if (exponent >= desiredExponent && exponent < foundExponent) {
+                        foundPrefix = start;
+                        foundExponent = exponent;
+                        if (exponent == desiredExponent) {
+                            return family.prefixOf(foundPrefix, prefixLength);
                         }
                     }
+                    if (prefixEnd.equals(end)) {
+                        break;
+                    }
+                    start = prefixEnd.add(Uint128.ONE);
                 }
             }
-            return foundPrefix == null ? null : Ipv6Range.from(foundPrefix.start()).andPrefixLength(prefixLength);
+            return foundPrefix == null ? null : family.prefixOf(foundPrefix, prefixLength);
         }
     }
 }
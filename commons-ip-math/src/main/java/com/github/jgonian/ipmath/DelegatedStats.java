@@ -0,0 +1,360 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The Internet resources of one or more RIR statistics exchange files, e.g. the daily
+ * <tt>delegated-*-extended</tt> files of the five RIRs, grouped by registry, country code or status.
+ * <p>
+ * The files are memory-mapped and split into chunks at line boundaries, which are parsed in parallel on a
+ * {@link ForkJoinPool} straight from the mapped bytes. The records of every group are then merged into
+ * {@link SortedRangeSet}s with {@link SortedRangeSet#fromSorted(Iterable)}. The IPv4 and ASN records are
+ * parsed without creating any intermediate objects; the start of an IPv6 record is decoded to a string for
+ * {@link Ipv6#parse(String)}.
+ * <p>
+ * Version, summary and comment lines are skipped. Any other line which is not a valid record fails the load
+ * with an {@link IllegalArgumentException} naming the file and the offset of the line.
+ */
+public final class DelegatedStats {
+
+    public enum GroupBy {
+        REGISTRY(0), COUNTRY(1), STATUS(6);
+
+        private final int field;
+
+        GroupBy(int field) {
+            this.field = field;
+        }
+    }
+
+    private final Map<String, SortedRangeSet<Ipv4, Ipv4Range>> ipv4 = new TreeMap<String, SortedRangeSet<Ipv4, Ipv4Range>>();
+    private final Map<String, SortedRangeSet<Ipv6, Ipv6Range>> ipv6 = new TreeMap<String, SortedRangeSet<Ipv6, Ipv6Range>>();
+    private final Map<String, SortedRangeSet<Asn, AsnRange>> asn = new TreeMap<String, SortedRangeSet<Asn, AsnRange>>();
+    private final SortedRangeSet<Ipv4, Ipv4Range> allIpv4;
+    private final SortedRangeSet<Ipv6, Ipv6Range> allIpv6;
+    private final SortedRangeSet<Asn, AsnRange> allAsn;
+    private final int recordCount;
+
+    private DelegatedStats(Map<String, Records> groups) {
+        List<Ipv4Range> allIpv4Records = new ArrayList<Ipv4Range>();
+        List<Ipv6Range> allIpv6Records = new ArrayList<Ipv6Range>();
+        List<AsnRange> allAsnRecords = new ArrayList<AsnRange>();
+        for (Map.Entry<String, Records> group : groups.entrySet()) {
+            Records records = group.getValue();
+            putIfNotEmpty(ipv4, group.getKey(), records.ipv4);
+            putIfNotEmpty(ipv6, group.getKey(), records.ipv6);
+            putIfNotEmpty(asn, group.getKey(), records.asn);
+            allIpv4Records.addAll(records.ipv4);
+            allIpv6Records.addAll(records.ipv6);
+            allAsnRecords.addAll(records.asn);
+        }
+        this.allIpv4 = sortAndMerge(allIpv4Records);
+        this.allIpv6 = sortAndMerge(allIpv6Records);
+        this.allAsn = sortAndMerge(allAsnRecords);
+        this.recordCount = allIpv4Records.size() + allIpv6Records.size() + allAsnRecords.size();
+    }
+
+    private static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    void putIfNotEmpty(Map<String, SortedRangeSet<C, R>> sets, String key, List<R> records) {
+        if (!records.isEmpty()) {
+            sets.put(key, sortAndMerge(records));
+        }
+    }
+
+    private static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> sortAndMerge(List<R> records) {
+        // the records of a file are sorted, so this is mostly a merge of the runs of the chunks and the files
+        Collections.sort(records, StartAndSizeComparator.<C, R>get());
+        return SortedRangeSet.fromSorted(records);
+    }
+
+    public static DelegatedStats load(GroupBy groupBy, Path... files) throws IOException {
+        return load(ForkJoinPool.commonPool(), groupBy, Arrays.asList(files));
+    }
+
+    public static DelegatedStats load(ForkJoinPool pool, GroupBy groupBy, List<Path> files) throws IOException {
+        return load(pool, groupBy, files, MappedFileChunk.DEFAULT_SIZE);
+    }
+
+    static DelegatedStats load(ForkJoinPool pool, GroupBy groupBy, List<Path> files, int chunkSize)
+            throws IOException {
+        Validate.notNull(groupBy, "A grouping is required");
+        List<ForkJoinTask<Map<String, Records>>> tasks = new ArrayList<ForkJoinTask<Map<String, Records>>>();
+        for (Path file : files) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                for (MappedFileChunk chunk : MappedFileChunk.split(channel, chunkSize)) {
+                    tasks.add(pool.submit(new ChunkParser(file, chunk, groupBy)));
+                }
+            } finally {
+                channel.close();
+            }
+        }
+        Map<String, Records> groups = new HashMap<String, Records>();
+        for (ForkJoinTask<Map<String, Records>> task : tasks) {
+            for (Map.Entry<String, Records> group : task.join().entrySet()) {
+                Records records = groups.get(group.getKey());
+                if (records == null) {
+                    groups.put(group.getKey(), group.getValue());
+                } else {
+                    records.addAll(group.getValue());
+                }
+            }
+        }
+        return new DelegatedStats(groups);
+    }
+
+    /**
+     * @return the registries, country codes or statuses of the records, in alphabetical order
+     */
+    public Set<String> getKeys() {
+        Set<String> keys = new TreeSet<String>(ipv4.keySet());
+        keys.addAll(ipv6.keySet());
+        keys.addAll(asn.keySet());
+        return keys;
+    }
+
+    public SortedRangeSet<Ipv4, Ipv4Range> getIpv4() {
+        return allIpv4;
+    }
+
+    public SortedRangeSet<Ipv4, Ipv4Range> getIpv4(String key) {
+        SortedRangeSet<Ipv4, Ipv4Range> result = ipv4.get(key);
+        return result != null ? result : new SortedRangeSet<Ipv4, Ipv4Range>();
+    }
+
+    public SortedRangeSet<Ipv6, Ipv6Range> getIpv6() {
+        return allIpv6;
+    }
+
+    public SortedRangeSet<Ipv6, Ipv6Range> getIpv6(String key) {
+        SortedRangeSet<Ipv6, Ipv6Range> result = ipv6.get(key);
+        return result != null ? result : new SortedRangeSet<Ipv6, Ipv6Range>();
+    }
+
+    public SortedRangeSet<Asn, AsnRange> getAsn() {
+        return allAsn;
+    }
+
+    public SortedRangeSet<Asn, AsnRange> getAsn(String key) {
+        SortedRangeSet<Asn, AsnRange> result = asn.get(key);
+        return result != null ? result : new SortedRangeSet<Asn, AsnRange>();
+    }
+
+    /**
+     * @return the number of resource records which were loaded
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    private static final class Records {
+        final List<Ipv4Range> ipv4 = new ArrayList<Ipv4Range>();
+        final List<Ipv6Range> ipv6 = new ArrayList<Ipv6Range>();
+        final List<AsnRange> asn = new ArrayList<AsnRange>();
+
+        void addAll(Records other) {
+            ipv4.addAll(other.ipv4);
+            ipv6.addAll(other.ipv6);
+            asn.addAll(other.asn);
+        }
+    }
+
+    private static final class ChunkParser implements Callable<Map<String, Records>> {
+
+        private static final int TYPE = 2;
+        private static final int START = 3;
+        private static final int VALUE = 4;
+        private static final int FIELDS = 7;
+        private static final int SUMMARY_FIELDS = 6;
+        private static final int KEY_CACHE_SIZE = 512;
+
+        private static final byte[] IPV4 = {'i', 'p', 'v', '4'};
+        private static final byte[] IPV6 = {'i', 'p', 'v', '6'};
+        private static final byte[] ASN = {'a', 's', 'n'};
+        private static final byte[] SUMMARY = {'s', 'u', 'm', 'm', 'a', 'r', 'y'};
+
+        private final Path file;
+        private final MappedFileChunk chunk;
+        private final GroupBy groupBy;
+        private final Map<String, Records> groups = new HashMap<String, Records>();
+        private final int[] fieldStarts = new int[FIELDS];
+        private final int[] fieldEnds = new int[FIELDS];
+        private final byte[] address = new byte[Ipv4BatchCodec.MAX_TEXT_LENGTH];
+        private final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+        ChunkParser(Path file, MappedFileChunk chunk, GroupBy groupBy) {
+            this.file = file;
+            this.chunk = chunk;
+            this.groupBy = groupBy;
+        }
+
+        @Override
+        public Map<String, Records> call() {
+            ByteBuffer buffer = chunk.buffer;
+            int lineStart = 0;
+            while (lineStart < buffer.limit()) {
+                int lineEnd = MappedFileChunk.lineEnd(buffer, lineStart);
+                int end = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (end > lineStart && buffer.get(lineStart) != '#') {
+                    try {
+                        parseLine(buffer, lineStart, end);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid record at offset " + (chunk.offset + lineStart)
+                                + " of " + file + ": '" + MappedFileChunk.text(buffer, lineStart, end) + "'", e);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return groups;
+        }
+
+        private void parseLine(ByteBuffer buffer, int start, int end) {
+            int fieldCount = 0;
+            int fieldStart = start;
+            for (int i = start; i <= end && fieldCount < FIELDS; i++) {
+                if (i == end || buffer.get(i) == '|') {
+                    fieldStarts[fieldCount] = fieldStart;
+                    fieldEnds[fieldCount] = i;
+                    fieldCount++;
+                    fieldStart = i + 1;
+                }
+            }
+            byte firstByte = buffer.get(start);
+            if ((firstByte >= '0' && firstByte <= '9') || (fieldCount == SUMMARY_FIELDS && fieldEquals(buffer, 5, SUMMARY))) {
+                return;
+            }
+            Validate.isTrue(fieldCount == FIELDS, "Not enough fields");
+            Records records = recordsOf(key(buffer, fieldStarts[groupBy.field], fieldEnds[groupBy.field]));
+            long value = parseNumber(buffer, fieldStarts[VALUE], fieldEnds[VALUE]);
+            if (fieldEquals(buffer, TYPE, IPV4)) {
+                Validate.isTrue(value > 0, "Invalid number of addresses");
+                long firstAddress = parseIpv4(buffer, fieldStarts[START], fieldEnds[START]);
+                records.ipv4.add(new Ipv4Range(Ipv4.of(firstAddress), Ipv4.of(firstAddress + value - 1)));
+            } else if (fieldEquals(buffer, TYPE, ASN)) {
+                Validate.isTrue(value > 0, "Invalid number of ASNs");
+                long firstAsn = parseNumber(buffer, fieldStarts[START], fieldEnds[START]);
+                records.asn.add(new AsnRange(Asn.of(firstAsn), Asn.of(firstAsn + value - 1)));
+            } else if (fieldEquals(buffer, TYPE, IPV6)) {
+                Validate.isTrue(value <= Ipv6.NUMBER_OF_BITS, "Invalid prefix length");
+                Ipv6 firstAddress = Ipv6.parse(MappedFileChunk.text(buffer, fieldStarts[START], fieldEnds[START]));
+                records.ipv6.add(Ipv6Range.from(firstAddress).andPrefixLength((int) value));
+            } else {
+                throw new IllegalArgumentException("Unknown type of resource");
+            }
+        }
+
+        private Records recordsOf(String key) {
+            Records records = groups.get(key);
+            if (records == null) {
+                records = new Records();
+                groups.put(key, records);
+            }
+            return records;
+        }
+
+        private boolean fieldEquals(ByteBuffer buffer, int field, byte[] expected) {
+            int start = fieldStarts[field];
+            if (fieldEnds[field] - start != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (buffer.get(start + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long parseIpv4(ByteBuffer buffer, int start, int end) {
+            Validate.isTrue(end - start <= address.length, "Invalid IPv4 address");
+            for (int i = start; i < end; i++) {
+                address[i - start] = buffer.get(i);
+            }
+            long value = Ipv4BatchCodec.scalar().parseAddress(address, 0, end - start);
+            Validate.isTrue(value != Ipv4BatchCodec.INVALID, "Invalid IPv4 address");
+            return value;
+        }
+
+        private static long parseNumber(ByteBuffer buffer, int start, int end) {
+            Validate.isTrue(end > start && end - start <= 18, "Invalid number");
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                Validate.isTrue(digit >= 0 && digit <= 9, "Invalid number");
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * Returns the text of a field, reusing the string of an earlier line with the same text, as there are
+         * only a few hundred distinct registries, country codes and statuses.
+         */
+        private String key(ByteBuffer buffer, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+            String cached = keyCache[slot];
+            if (cached != null && hasText(cached, buffer, start, end)) {
+                return cached;
+            }
+            String key = MappedFileChunk.text(buffer, start, end);
+            keyCache[slot] = key;
+            return key;
+        }
+
+        private static boolean hasText(String text, ByteBuffer buffer, int start, int end) {
+            if (text.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i - start) != (char) (buffer.get(i) & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
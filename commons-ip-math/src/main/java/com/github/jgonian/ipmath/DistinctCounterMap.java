@@ -0,0 +1,255 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DistinctCounter} for each of a collection of ranges, e.g. the address blocks of customers, which counts
+ * each resource towards the smallest range that contains it with one binary search, without creating objects for
+ * resources given as numbers.
+ * <p>
+ * The ranges may be nested, as prefixes are, but must not overlap otherwise. This class is not thread-safe.
+ */
+public final class DistinctCounterMap<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+    private final ResourceFamily<C, R> family;
+    private final long seed;
+    private final List<R> ranges;
+    private final Map<R, Integer> indexes;
+    private final DistinctCounter[] counters;
+    // from each boundary on, up to the next one, resources belong to the range with the index of the boundary owner
+    private final long[] boundaryHigh;
+    private final long[] boundaryLow;
+    private final int[] boundaryOwners;
+
+    DistinctCounterMap(ResourceFamily<C, R> family, long seed, Collection<R> ranges, int precision) {
+        this.family = family;
+        this.seed = seed;
+        List<R> sorted = new ArrayList<R>(Validate.notNull(ranges, "ranges are required"));
+        for (R range : sorted) {
+            Validate.notNull(range, "null ranges are not allowed");
+        }
+        // enclosing ranges before the ranges they contain
+        Collections.sort(sorted, new Comparator<R>() {
+            @Override
+            public int compare(R left, R right) {
+                int result = left.start().compareTo(right.start());
+                return result != 0 ? result : right.end().compareTo(left.end());
+            }
+        });
+        this.ranges = Collections.unmodifiableList(sorted);
+        this.indexes = new HashMap<R, Integer>();
+        this.counters = new DistinctCounter[sorted.size()];
+        for (int i = 0; i < counters.length; i++) {
+            indexes.put(sorted.get(i), i);
+            counters[i] = new DistinctCounter(precision);
+        }
+        Boundaries boundaries = new Boundaries(sorted.size() * 2);
+        List<Integer> enclosing = new ArrayList<Integer>();
+        for (int i = 0; i < counters.length; i++) {
+            Uint128 start = family.valueOf(sorted.get(i).start());
+            closeRangesBefore(start, enclosing, boundaries);
+            if (!enclosing.isEmpty()) {
+                R parent = sorted.get(enclosing.get(enclosing.size() - 1));
+                if (parent.equals(sorted.get(i))) {
+                    throw new IllegalArgumentException("Duplicate range " + parent);
+                } else if (!parent.contains(sorted.get(i))) {
+                    throw new IllegalArgumentException("Range " + sorted.get(i) + " overlaps with " + parent + " without being nested in it");
+                }
+            }
+            boundaries.add(start, i);
+            enclosing.add(i);
+        }
+        closeRangesBefore(null, enclosing, boundaries);
+        boundaries.trim();
+        this.boundaryHigh = boundaries.high;
+        this.boundaryLow = boundaries.low;
+        this.boundaryOwners = boundaries.owners;
+    }
+
+    /**
+     * Ends the enclosing ranges which end before the given value, or all of them if the value is <tt>null</tt>.
+     */
+    private void closeRangesBefore(Uint128 value, List<Integer> enclosing, Boundaries boundaries) {
+        while (!enclosing.isEmpty()) {
+            Uint128 end = family.valueOf(ranges.get(enclosing.get(enclosing.size() - 1)).end());
+            if (value != null && end.compareTo(value) >= 0) {
+                return;
+            }
+            enclosing.remove(enclosing.size() - 1);
+            if (!end.equals(Uint128.MAX_VALUE)) {
+                boundaries.add(end.add(Uint128.ONE), enclosing.isEmpty() ? -1 : enclosing.get(enclosing.size() - 1));
+            }
+        }
+    }
+
+    public static DistinctCounterMap<Ipv4, Ipv4Range> forIpv4(Collection<Ipv4Range> ranges) {
+        return forIpv4(ranges, DistinctCounter.DEFAULT_PRECISION);
+    }
+
+    public static DistinctCounterMap<Ipv4, Ipv4Range> forIpv4(Collection<Ipv4Range> ranges, int precision) {
+        return new DistinctCounterMap<Ipv4, Ipv4Range>(ResourceFamily.IPV4, DistinctCounter.IPV4_SEED, ranges, precision);
+    }
+
+    public static DistinctCounterMap<Ipv6, Ipv6Range> forIpv6(Collection<Ipv6Range> ranges) {
+        return forIpv6(ranges, DistinctCounter.DEFAULT_PRECISION);
+    }
+
+    public static DistinctCounterMap<Ipv6, Ipv6Range> forIpv6(Collection<Ipv6Range> ranges, int precision) {
+        return new DistinctCounterMap<Ipv6, Ipv6Range>(ResourceFamily.IPV6, DistinctCounter.IPV6_SEED, ranges, precision);
+    }
+
+    public static DistinctCounterMap<Asn, AsnRange> forAsn(Collection<AsnRange> ranges) {
+        return forAsn(ranges, DistinctCounter.DEFAULT_PRECISION);
+    }
+
+    public static DistinctCounterMap<Asn, AsnRange> forAsn(Collection<AsnRange> ranges, int precision) {
+        return new DistinctCounterMap<Asn, AsnRange>(ResourceFamily.ASN, DistinctCounter.ASN_SEED, ranges, precision);
+    }
+
+    /**
+     * Counts a resource towards the smallest range that contains it.
+     *
+     * @return whether one of the ranges contains the resource
+     */
+    public boolean add(C resource) {
+        Uint128 value = family.valueOf(Validate.notNull(resource, "A resource is required"));
+        return add(value.high(), value.low());
+    }
+
+    /**
+     * Counts an IPv4 address or ASN, given as an unsigned 32-bit number in a long, towards the smallest range that
+     * contains it.
+     *
+     * @return whether one of the ranges contains the resource
+     */
+    public boolean add(long value) {
+        return add(0, value);
+    }
+
+    /**
+     * Counts a resource, given as the upper and lower 64 bits of its number, towards the smallest range that
+     * contains it.
+     *
+     * @return whether one of the ranges contains the resource
+     */
+    public boolean add(long high, long low) {
+        int owner = ownerOf(high, low);
+        if (owner < 0) {
+            return false;
+        }
+        counters[owner].addHash(DistinctCounter.hash(seed, high, low));
+        return true;
+    }
+
+    private int ownerOf(long high, long low) {
+        int from = 0;
+        int to = boundaryOwners.length - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            int result = Long.compareUnsigned(boundaryHigh[middle], high);
+            if (result == 0) {
+                result = Long.compareUnsigned(boundaryLow[middle], low);
+            }
+            if (result <= 0) {
+                from = middle + 1;
+            } else {
+                to = middle - 1;
+            }
+        }
+        return to < 0 ? -1 : boundaryOwners[to];
+    }
+
+    /**
+     * @return the counter of the range, or <tt>null</tt> if it is not one of the ranges of this map
+     */
+    public DistinctCounter get(R range) {
+        Integer index = indexes.get(range);
+        return index == null ? null : counters[index];
+    }
+
+    /**
+     * @return the ranges, sorted by start with enclosing ranges before the ranges they contain
+     */
+    public List<R> getRanges() {
+        return ranges;
+    }
+
+    public int size() {
+        return ranges.size();
+    }
+
+    /**
+     * Merges the counters of another map with the same ranges and precision into the counters of this map.
+     */
+    public void merge(DistinctCounterMap<C, R> other) {
+        Validate.isTrue(ranges.equals(other.ranges), "Cannot merge maps with different ranges");
+        for (int i = 0; i < counters.length; i++) {
+            counters[i].merge(other.counters[i]);
+        }
+    }
+
+    private static final class Boundaries {
+
+        private long[] high;
+        private long[] low;
+        private int[] owners;
+        private int size;
+
+        /**
+         * @param capacity the maximum number of boundaries, two for each range
+         */
+        Boundaries(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+            owners = new int[capacity];
+        }
+
+        void add(Uint128 value, int owner) {
+            if (size > 0 && high[size - 1] == value.high() && low[size - 1] == value.low()) {
+                // a range which starts where the previous one ended
+                owners[size - 1] = owner;
+                return;
+            }
+            high[size] = value.high();
+            low[size] = value.low();
+            owners[size] = owner;
+            size++;
+        }
+
+        void trim() {
+            high = Arrays.copyOf(high, size);
+            low = Arrays.copyOf(low, size);
+            owners = Arrays.copyOf(owners, size);
+        }
+    }
+}
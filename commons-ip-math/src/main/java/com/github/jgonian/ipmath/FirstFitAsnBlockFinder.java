@@ -0,0 +1,54 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds the block at the start of the first range, in the iteration order of the ranges, which can hold it.
+ */
+public class FirstFitAsnBlockFinder extends AsnBlockFinder {
+
+    public static FirstFitAsnBlockFinder newInstance() {
+        return new FirstFitAsnBlockFinder();
+    }
+
+    private FirstFitAsnBlockFinder() {
+        super(new FirstFitStrategy());
+    }
+
+    private static class FirstFitStrategy implements Strategy {
+
+        @Override
+        public AsnRange findBlockOrNull(long blockSize, Collection<AsnRange> ranges) {
+            Validate.checkRange(blockSize, 1L, Asn.ASN_32_BIT_MAX_VALUE + 1);
+            for (AsnRange freeBlock : ranges) {
+                if (freeBlock.size() >= blockSize) {
+                    return blockOf(freeBlock, blockSize);
+                }
+            }
+            return null;
+        }
+    }
+}
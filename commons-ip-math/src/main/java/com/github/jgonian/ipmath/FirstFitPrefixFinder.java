@@ -0,0 +1,65 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds the lowest prefix of the first range, in the iteration order of the ranges, which can hold it.
+ * <p>
+ * The ranges are not indexed: every call scans them until one can hold the prefix, which takes <tt>O(n)</tt> for
+ * <tt>n</tt> ranges in the worst case. Use a {@link PrefixAllocator} to allocate many prefixes from the same ranges.
+ */
+public class FirstFitPrefixFinder<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> extends PrefixFinder<C, R> {
+
+    public static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> FirstFitPrefixFinder<C, R> newInstance() {
+        return new FirstFitPrefixFinder<C, R>();
+    }
+
+    private FirstFitPrefixFinder() {
+        super(new FirstFitStrategy<C, R>());
+    }
+
+    private static class FirstFitStrategy<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> implements Strategy<C, R> {
+
+        @Override
+        public R findPrefixOrNull(int prefixLength, Collection<R> ranges) {
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            final ResourceFamily<C, R> family = ResourceFamily.of(ranges.iterator().next());
+            Validate.checkRange(prefixLength, 0, family.bitSize());
+            final int desiredExponent = family.bitSize() - prefixLength;
+
+            for (R freeBlock : ranges) {
+                final Uint128 prefix = Uint128.firstAlignedBlockOrNull(
+                        family.valueOf(freeBlock.start()), family.valueOf(freeBlock.end()), desiredExponent);
+                if (prefix != null) {
+                    return family.prefixOf(prefix, prefixLength);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link MetricsRecorder} which keeps counters and {@link Histogram}s in memory, from which they can be read
+ * and exported periodically. Install it by starting the JVM with
+ * <tt>-Dcom.github.jgonian.ipmath.metrics.recorder=com.github.jgonian.ipmath.HistogramMetricsRecorder</tt> and get
+ * hold of it with <tt>(HistogramMetricsRecorder) Metrics.getRecorder()</tt>.
+ */
+public class HistogramMetricsRecorder implements MetricsRecorder {
+
+    private final AtomicLongArray counters = new AtomicLongArray(Metric.values().length);
+    private final Map<Metric, Histogram> histograms = new EnumMap<Metric, Histogram>(Metric.class);
+    private final Map<Operation, Histogram> operationHistograms = new EnumMap<Operation, Histogram>(Operation.class);
+
+    public HistogramMetricsRecorder() {
+        for (Metric metric : Metric.values()) {
+            if (metric.getType() == Metric.Type.HISTOGRAM) {
+                histograms.put(metric, new Histogram());
+            }
+        }
+        for (Operation operation : Operation.values()) {
+            operationHistograms.put(operation, new Histogram());
+        }
+    }
+
+    @Override
+    public void increment(Metric metric) {
+        counters.incrementAndGet(metric.ordinal());
+    }
+
+    @Override
+    public void record(Metric metric, long value) {
+        getHistogram(metric).record(value);
+    }
+
+    @Override
+    public void recordOperation(Operation operation, long inputSize, long outputSize, long durationNanos) {
+        getHistogram(operation).record(durationNanos);
+    }
+
+    /**
+     * @return the value of a counter
+     */
+    public long getCount(Metric metric) {
+        Validate.isTrue(metric.getType() == Metric.Type.COUNTER, "Not a counter");
+        return counters.get(metric.ordinal());
+    }
+
+    public Histogram getHistogram(Metric metric) {
+        Histogram result = histograms.get(metric);
+        if (result == null) {
+            throw new IllegalArgumentException("Not a histogram: " + metric);
+        }
+        return result;
+    }
+
+    /**
+     * @return the durations of an operation in nanoseconds
+     */
+    public Histogram getHistogram(Operation operation) {
+        return operationHistograms.get(Validate.notNull(operation, "An operation is required"));
+    }
+
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (Histogram histogram : operationHistograms.values()) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A set of IPv4 addresses, IPv6 addresses and ASNs, e.g. the resources held by an organisation or listed in a
+ * route-set, which keeps a {@link SortedRangeSet} per type of resource and applies each operation to all of them.
+ * Union, intersection and difference walk the sorted ranges of both operands once, instead of looking up every
+ * range of one operand in the other.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class InternetResourceSet {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final Ipv6Range IPV4_MAPPED = Ipv6Range.parse("::ffff:0:0/96");
+
+    private final SortedRangeSet<Ipv4, Ipv4Range> ipv4;
+    private final SortedRangeSet<Ipv6, Ipv6Range> ipv6;
+    private final SortedRangeSet<Asn, AsnRange> asn;
+
+    public InternetResourceSet() {
+        this(new SortedRangeSet<Ipv4, Ipv4Range>(), new SortedRangeSet<Ipv6, Ipv6Range>(), new SortedRangeSet<Asn, AsnRange>());
+    }
+
+    private InternetResourceSet(SortedRangeSet<Ipv4, Ipv4Range> ipv4, SortedRangeSet<Ipv6, Ipv6Range> ipv6, SortedRangeSet<Asn, AsnRange> asn) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.asn = asn;
+    }
+
+    /**
+     * Parses resources separated by commas or whitespace, e.g. <tt>"192.0.2.0/24, 2001:db8::/32, AS64496-AS64511"</tt>.
+     * A resource which starts with <tt>AS</tt> is parsed as an ASN or a range of ASNs, one which contains a colon as
+     * IPv6 and any other as IPv4, in each case as an address, a prefix or a range with a dash.
+     *
+     * @throws IllegalArgumentException if one of the resources cannot be parsed
+     */
+    public static InternetResourceSet parse(String text) {
+        return parse(text, false);
+    }
+
+    /**
+     * Parses resources like {@link #parse(String)} and, if <tt>normalizeIpv4Mapped</tt> is set, moves the
+     * IPv4-mapped IPv6 addresses to IPv4 like {@link #normalizeIpv4Mapped()}.
+     */
+    public static InternetResourceSet parse(String text, boolean normalizeIpv4Mapped) {
+        InternetResourceSet result = new InternetResourceSet();
+        String trimmed = Validate.notNull(text, "A text is required").trim();
+        if (!trimmed.isEmpty()) {
+            for (String resource : trimmed.split("[,\\s]+")) {
+                result.addParsed(resource);
+            }
+        }
+        if (normalizeIpv4Mapped) {
+            result.normalizeIpv4Mapped();
+        }
+        return result;
+    }
+
+    private void addParsed(String resource) {
+        boolean isRange = resource.indexOf('-') >= 0 || resource.indexOf('/') >= 0;
+        if (resource.regionMatches(true, 0, "AS", 0, 2)) {
+            asn.add(resource.indexOf('-') >= 0 ? AsnRange.parse(resource) : Asn.parse(resource).asRange());
+        } else if (resource.indexOf(':') >= 0) {
+            ipv6.add(isRange ? Ipv6Range.parse(resource) : Ipv6.parse(resource).asRange());
+        } else {
+            ipv4.add(isRange ? Ipv4Range.parse(resource) : Ipv4.parse(resource).asRange());
+        }
+    }
+
+    public void add(Ipv4Range range) {
+        ipv4.add(range);
+    }
+
+    public void add(Ipv6Range range) {
+        ipv6.add(range);
+    }
+
+    public void add(AsnRange range) {
+        asn.add(range);
+    }
+
+    public boolean contains(Ipv4Range range) {
+        return ipv4.contains(range);
+    }
+
+    public boolean contains(Ipv6Range range) {
+        return ipv6.contains(range);
+    }
+
+    public boolean contains(AsnRange range) {
+        return asn.contains(range);
+    }
+
+    /**
+     * @return whether every resource of the other set is in this set, e.g. whether the resources of a certificate
+     * are covered by those of its issuer
+     */
+    public boolean containsAll(InternetResourceSet other) {
+        return other.difference(this).isEmpty();
+    }
+
+    /**
+     * Replaces the IPv6 addresses in <tt>::ffff:0:0/96</tt> with the IPv4 addresses they map to.
+     */
+    public void normalizeIpv4Mapped() {
+        SortedRangeSet<Ipv6, Ipv6Range> mapped = new SortedRangeSet<Ipv6, Ipv6Range>();
+        mapped.add(IPV4_MAPPED);
+        for (Ipv6Range range : intersection(ipv6, mapped)) {
+            long start = ResourceFamily.IPV6.valueOf(range.start()).low() & Ipv4.MAXIMUM_VALUE;
+            long end = ResourceFamily.IPV6.valueOf(range.end()).low() & Ipv4.MAXIMUM_VALUE;
+            ipv4.add(Ipv4Range.from(start).to(end));
+        }
+        ipv6.remove(IPV4_MAPPED);
+    }
+
+    public InternetResourceSet union(InternetResourceSet other) {
+        return new InternetResourceSet(union(ipv4, other.ipv4), union(ipv6, other.ipv6), union(asn, other.asn));
+    }
+
+    public InternetResourceSet intersection(InternetResourceSet other) {
+        return new InternetResourceSet(intersection(ipv4, other.ipv4), intersection(ipv6, other.ipv6), intersection(asn, other.asn));
+    }
+
+    /**
+     * @return the resources of this set which are not in the other set
+     */
+    public InternetResourceSet difference(InternetResourceSet other) {
+        return new InternetResourceSet(difference(ipv4, other.ipv4), difference(ipv6, other.ipv6), difference(asn, other.asn));
+    }
+
+    private static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> union(SortedRangeSet<C, R> left, SortedRangeSet<C, R> right) {
+        List<SortedRangeSet<C, R>> runs = new ArrayList<SortedRangeSet<C, R>>(2);
+        runs.add(left);
+        runs.add(right);
+        return SortedRangeSet.fromSortedRuns(runs);
+    }
+
+    private static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> intersection(SortedRangeSet<C, R> left, SortedRangeSet<C, R> right) {
+        List<R> result = new ArrayList<R>();
+        Iterator<R> leftRanges = left.iterator();
+        Iterator<R> rightRanges = right.iterator();
+        R leftRange = nextOrNull(leftRanges);
+        R rightRange = nextOrNull(rightRanges);
+        while (leftRange != null && rightRange != null) {
+            if (leftRange.overlaps(rightRange)) {
+                result.add(leftRange.intersection(rightRange));
+            }
+            if (leftRange.end().compareTo(rightRange.end()) < 0) {
+                leftRange = nextOrNull(leftRanges);
+            } else {
+                rightRange = nextOrNull(rightRanges);
+            }
+        }
+        return SortedRangeSet.fromSorted(result);
+    }
+
+    private static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> difference(SortedRangeSet<C, R> left, SortedRangeSet<C, R> right) {
+        List<R> result = new ArrayList<R>();
+        Iterator<R> rightRanges = right.iterator();
+        R rightRange = nextOrNull(rightRanges);
+        for (R leftRange : left) {
+            R remainder = leftRange;
+            while (remainder != null && rightRange != null && rightRange.start().compareTo(remainder.end()) <= 0) {
+                if (rightRange.end().compareTo(remainder.start()) < 0) {
+                    rightRange = nextOrNull(rightRanges);
+                    continue;
+                }
+                R after = null;
+                for (R part : remainder.exclude(rightRange)) {
+                    if (part.end().compareTo(rightRange.start()) < 0) {
+                        result.add(part);
+                    } else {
+                        after = part;
+                    }
+                }
+                remainder = after;
+                // a remainder after the right range means that the right range cannot overlap any later range
+                if (remainder != null) {
+                    rightRange = nextOrNull(rightRanges);
+                }
+            }
+            if (remainder != null) {
+                result.add(remainder);
+            }
+        }
+        return SortedRangeSet.fromSorted(result);
+    }
+
+    private static <R> R nextOrNull(Iterator<R> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * @return the IPv4 ranges of this set, which are backed by it
+     */
+    public SortedRangeSet<Ipv4, Ipv4Range> getIpv4() {
+        return ipv4;
+    }
+
+    /**
+     * @return the IPv6 ranges of this set, which are backed by it
+     */
+    public SortedRangeSet<Ipv6, Ipv6Range> getIpv6() {
+        return ipv6;
+    }
+
+    /**
+     * @return the ASN ranges of this set, which are backed by it
+     */
+    public SortedRangeSet<Asn, AsnRange> getAsn() {
+        return asn;
+    }
+
+    public boolean isEmpty() {
+        return ipv4.isEmpty() && ipv6.isEmpty() && asn.isEmpty();
+    }
+
+    /**
+     * @return the ranges of this set in a compact form, which {@link #fromByteArray} reads back: for each type of
+     * resource the number of ranges, followed by the gap before and the size of each range as variable-length
+     * integers of 7 bits per byte
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        result.write(FORMAT_VERSION);
+        write(result, ResourceFamily.IPV4, ipv4);
+        write(result, ResourceFamily.IPV6, ipv6);
+        write(result, ResourceFamily.ASN, asn);
+        return result.toByteArray();
+    }
+
+    private static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>>
+    void write(ByteArrayOutputStream out, ResourceFamily<C, R> family, SortedRangeSet<C, R> ranges) {
+        writeVarint(out, Uint128.valueOf(ranges.size()));
+        Uint128 next = Uint128.ZERO;
+        for (R range : ranges) {
+            Uint128 start = family.valueOf(range.start());
+            Uint128 end = family.valueOf(range.end());
+            writeVarint(out, start.subtract(next));
+            writeVarint(out, end.subtract(start));
+            next = end.add(Uint128.ONE);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, Uint128 value) {
+        while (value.bitLength() > 7) {
+            out.write((int) (value.low() & 0x7F) | 0x80);
+            value = value.shiftRight(7);
+        }
+        out.write((int) value.low());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a set of resources
+     */
+    public static InternetResourceSet fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(Validate.notNull(bytes, "The bytes are required"));
+        try {
+            Validate.isTrue(buffer.get() == FORMAT_VERSION, "Unsupported format of a set of resources");
+            SortedRangeSet<Ipv4, Ipv4Range> ipv4 = read(buffer, ResourceFamily.IPV4);
+            SortedRangeSet<Ipv6, Ipv6Range> ipv6 = read(buffer, ResourceFamily.IPV6);
+            SortedRangeSet<Asn, AsnRange> asn = read(buffer, ResourceFamily.ASN);
+            Validate.isTrue(!buffer.hasRemaining(), "Trailing bytes after a set of resources");
+            return new InternetResourceSet(ipv4, ipv6, asn);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated set of resources", e);
+        }
+    }
+
+    private static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>>
+    SortedRangeSet<C, R> read(ByteBuffer buffer, ResourceFamily<C, R> family) {
+        Uint128 count = readVarint(buffer);
+        // every range takes at least two bytes
+        Validate.isTrue(count.compareTo(Uint128.valueOf(buffer.remaining() / 2)) <= 0, "Invalid number of ranges " + count);
+        List<R> ranges = new ArrayList<R>((int) count.low());
+        Uint128 next = Uint128.ZERO;
+        for (int i = 0; i < count.low(); i++) {
+            // the start of the next range wraps around to zero only after a range which ends at 2^128 - 1
+            Validate.isTrue(i == 0 || !next.isZero(), "Invalid range");
+            Uint128 start = next.add(readVarint(buffer));
+            Uint128 end = start.add(readVarint(buffer));
+            // a sum which wrapped around is smaller than its operands
+            Validate.isTrue(start.compareTo(next) >= 0 && end.compareTo(start) >= 0 && end.bitLength() <= family.bitSize(), "Invalid range");
+            ranges.add(family.rangeOf(start, end));
+            next = end.add(Uint128.ONE);
+        }
+        return SortedRangeSet.fromSorted(ranges);
+    }
+
+    private static Uint128 readVarint(ByteBuffer buffer) {
+        Uint128 result = Uint128.ZERO;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            Uint128 bits = Uint128.valueOf(b & 0x7F);
+            Validate.isTrue(shift < Uint128.NUMBER_OF_BITS && bits.shiftLeft(shift).shiftRight(shift).equals(bits), "Invalid variable-length integer");
+            result = result.or(bits.shiftLeft(shift));
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InternetResourceSet)) {
+            return false;
+        }
+        InternetResourceSet that = (InternetResourceSet) o;
+        return ipv4.equals(that.ipv4) && ipv6.equals(that.ipv6) && asn.equals(that.asn);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * ipv4.hashCode() + ipv6.hashCode()) + asn.hashCode();
+    }
+
+    /**
+     * @return the ranges of this set separated by commas, IPv4 first and ASNs last, which {@link #parse(String)}
+     * reads back
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        append(result, ipv4);
+        append(result, ipv6);
+        append(result, asn);
+        return result.toString();
+    }
+
+    private static void append(StringBuilder result, Iterable<?> ranges) {
+        for (Object range : ranges) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(range);
+        }
+    }
+}
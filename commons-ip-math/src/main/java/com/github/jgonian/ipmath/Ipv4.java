@@ -51,8 +51,12 @@ public final class Ipv4 extends AbstractIp<Ipv4, Ipv4Range> {
 
     protected Ipv4(Long value) {
         this.value = Validate.notNull(value, "value is required");
-        Validate.isTrue(value.compareTo(MINIMUM_VALUE) >= 0, "Value of IPv4 has to be greater than or equal to " + MINIMUM_VALUE);
-        Validate.isTrue(value.compareTo(MAXIMUM_VALUE) <= 0, "Value of IPv4 has to be less than or equal to " + MAXIMUM_VALUE + " was: " + value);
+        if (value < MINIMUM_VALUE) {
+            throw new IllegalArgumentException("Value of IPv4 has to be greater than or equal to " + MINIMUM_VALUE);
+        }
+        if (value > MAXIMUM_VALUE) {
+            throw new IllegalArgumentException("Value of IPv4 has to be less than or equal to " + MAXIMUM_VALUE + " was: " + value);
+        }
     }
 
     long value() {
@@ -75,6 +79,7 @@ public final class Ipv4 extends AbstractIp<Ipv4, Ipv4Range> {
     }
 
     public static Ipv4 parse(String ipv4Address) {
+        long startTime = Metrics.startTimer();
         try {
             String ipv4String = Validate.notNull(ipv4Address).trim();
             Validate.isTrue(!ipv4String.isEmpty()
@@ -91,8 +96,9 @@ public final class Ipv4 extends AbstractIp<Ipv4, Ipv4Range> {
                 char ch = ipv4String.charAt(i);
                 if (Character.isDigit(ch)) {
                     octet = octet * 10 + (ch - '0');
+                    Validate.isTrue(octet <= MAX_OCTET_VALUE);
                 } else if (ch == '.') {
-                    Validate.isTrue(octetCount < TOTAL_OCTETS);
+                    Validate.isTrue(octetCount < TOTAL_OCTETS && Character.isDigit(ipv4String.charAt(i - 1)));
                     octetCount++;
                     value = addOctet(value, octet);
                     octet = 0;
@@ -101,8 +107,13 @@ public final class Ipv4 extends AbstractIp<Ipv4, Ipv4Range> {
                 }
             }
             Validate.isTrue(octetCount == TOTAL_OCTETS);
-            return new Ipv4(addOctet(value, octet));
+            Ipv4 result = new Ipv4(addOctet(value, octet));
+            Metrics.increment(Metric.IPV4_PARSE_SUCCESS);
+            Metrics.recordDuration(Metric.IPV4_PARSE_NANOS, startTime);
+            return result;
         } catch (Exception e) {
+            Metrics.increment(Metric.IPV4_PARSE_FAILURE);
+            Metrics.recordDuration(Metric.IPV4_PARSE_NANOS, startTime);
             throw new IllegalArgumentException(String.format(DEFAULT_PARSING_ERROR_MESSAGE, ipv4Address), e);
         }
     }
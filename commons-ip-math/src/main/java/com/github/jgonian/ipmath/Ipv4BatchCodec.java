@@ -0,0 +1,196 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Parses and formats IPv4 addresses in bulk, from and to ASCII text in a byte buffer, with the same results as
+ * {@link Ipv4#parse(String)} and {@link Ipv4#toString()} but without creating any objects per address.
+ * <p>
+ * The text of address <tt>i</tt> of a batch starts at <tt>offsets[i]</tt> of the buffer and is <tt>lengths[i]</tt>
+ * bytes long. {@link #getInstance()} returns the vectorized implementation of the <tt>commons-ip-math-vector</tt>
+ * module if it is on the class path and usable, or else the scalar implementation of this class. Both are
+ * thread-safe.
+ */
+public class Ipv4BatchCodec {
+
+    /**
+     * The value stored for text which is not a valid IPv4 address.
+     */
+    public static final long INVALID = -1;
+
+    /**
+     * The length of the longest IPv4 address, e.g. <tt>255.255.255.255</tt>.
+     */
+    public static final int MAX_TEXT_LENGTH = 15;
+
+    private static final int MAX_OCTET_VALUE = 255;
+    private static final int TOTAL_OCTETS = 4;
+
+    private static final Ipv4BatchCodec SCALAR = new Ipv4BatchCodec();
+
+    protected Ipv4BatchCodec() {
+    }
+
+    public static Ipv4BatchCodec getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    public static Ipv4BatchCodec scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Looks up the implementation only when it is first asked for, as initializing a subclass initializes this
+     * class too.
+     */
+    private static final class InstanceHolder {
+        static final Ipv4BatchCodec INSTANCE = loadInstance();
+    }
+
+    private static Ipv4BatchCodec loadInstance() {
+        try {
+            Iterator<Ipv4BatchCodec> codecs = ServiceLoader.load(Ipv4BatchCodec.class).iterator();
+            return codecs.hasNext() ? codecs.next() : SCALAR;
+        } catch (ServiceConfigurationError e) {
+            return SCALAR;
+        } catch (LinkageError e) {
+            // e.g. the vector module without --add-modules jdk.incubator.vector
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Parses <tt>count</tt> addresses and stores their values in <tt>values</tt>, or {@link #INVALID} for the ones
+     * {@link Ipv4#parse(String)} would reject.
+     *
+     * @return the number of invalid addresses
+     */
+    public int parse(byte[] buffer, int[] offsets, int[] lengths, long[] values, int count) {
+        checkBatch(offsets, lengths, values.length, count);
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            long value = parseAddress(buffer, offsets[i], lengths[i]);
+            values[i] = value;
+            if (value == INVALID) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Formats <tt>count</tt> addresses one after the other into the buffer, starting at <tt>offset</tt>, and stores
+     * where each one starts and how long it is in <tt>offsets</tt> and <tt>lengths</tt>. At most
+     * {@link #MAX_TEXT_LENGTH} bytes are written per address.
+     *
+     * @return the offset right after the last address
+     * @throws IllegalArgumentException if a value is not a valid IPv4 address
+     */
+    public int format(long[] values, byte[] buffer, int offset, int[] offsets, int[] lengths, int count) {
+        checkBatch(offsets, lengths, values.length, count);
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            if (value < Ipv4.MINIMUM_VALUE || value > Ipv4.MAXIMUM_VALUE) {
+                throw new IllegalArgumentException("Value of IPv4 out of range: " + value);
+            }
+            int end = formatAddress(value, buffer, offset);
+            offsets[i] = offset;
+            lengths[i] = end - offset;
+            offset = end;
+        }
+        return offset;
+    }
+
+    private static void checkBatch(int[] offsets, int[] lengths, int valuesLength, int count) {
+        if (count < 0 || count > offsets.length || count > lengths.length || count > valuesLength) {
+            throw new IllegalArgumentException("Count out of range of the batch arrays: " + count);
+        }
+    }
+
+    /**
+     * @return the value of the address in the given text, or {@link #INVALID}
+     */
+    protected long parseAddress(byte[] buffer, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && (buffer[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        long value = 0;
+        int octet = 0;
+        int digits = 0;
+        int octetCount = 1;
+        for (int i = start; i < end; i++) {
+            int ch = buffer[i];
+            if (ch >= '0' && ch <= '9') {
+                octet = octet * 10 + (ch - '0');
+                if ((digits > 0 && octet < 10) || octet > MAX_OCTET_VALUE) {
+                    return INVALID;
+                }
+                digits++;
+            } else if (ch == '.' && digits > 0 && octetCount < TOTAL_OCTETS) {
+                value = (value << 8) | octet;
+                octet = 0;
+                digits = 0;
+                octetCount++;
+            } else {
+                return INVALID;
+            }
+        }
+        return digits > 0 && octetCount == TOTAL_OCTETS ? (value << 8) | octet : INVALID;
+    }
+
+    /**
+     * Writes the text of a valid IPv4 address into the buffer.
+     *
+     * @return the offset right after the address
+     */
+    protected int formatAddress(long value, byte[] buffer, int offset) {
+        offset = formatOctet((int) (value >>> 24), buffer, offset);
+        buffer[offset++] = '.';
+        offset = formatOctet((int) (value >>> 16) & Ipv4.BYTE_MASK, buffer, offset);
+        buffer[offset++] = '.';
+        offset = formatOctet((int) (value >>> 8) & Ipv4.BYTE_MASK, buffer, offset);
+        buffer[offset++] = '.';
+        return formatOctet((int) value & Ipv4.BYTE_MASK, buffer, offset);
+    }
+
+    private static int formatOctet(int octet, byte[] buffer, int offset) {
+        if (octet >= 100) {
+            buffer[offset++] = (byte) ('0' + octet / 100);
+            buffer[offset++] = (byte) ('0' + octet / 10 % 10);
+        } else if (octet >= 10) {
+            buffer[offset++] = (byte) ('0' + octet / 10);
+        }
+        buffer[offset++] = (byte) ('0' + octet % 10);
+        return offset;
+    }
+}
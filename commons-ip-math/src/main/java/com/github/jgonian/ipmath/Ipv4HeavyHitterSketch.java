@@ -0,0 +1,49 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A sketch of the IPv4 prefixes that receive the most weight, e.g. the top source prefixes of traffic at /8, /16
+ * and /24. See {@link AbstractHeavyHitterSketch}.
+ */
+public final class Ipv4HeavyHitterSketch extends AbstractHeavyHitterSketch<Ipv4, Ipv4Range> {
+
+    /**
+     * @param threshold the smallest fraction of the total weight that a prefix must receive to be reported
+     * @param prefixLengths the prefix lengths to track
+     */
+    public Ipv4HeavyHitterSketch(double threshold, int... prefixLengths) {
+        super(ResourceFamily.IPV4, Ipv4.NUMBER_OF_BITS, threshold, prefixLengths);
+    }
+
+    /**
+     * Counts the weight of an address towards its prefixes, without creating objects.
+     *
+     * @param address the address as an unsigned 32-bit number
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public void add(int address, long weight) {
+        addKey(address & 0xFFFFFFFFL, weight);
+    }
+}
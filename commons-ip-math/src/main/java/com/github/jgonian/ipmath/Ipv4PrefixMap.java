@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A hash map from IPv4 prefixes to values, which packs each prefix into one <tt>long</tt> and looks up prefixes
+ * given as an address and a prefix length without creating objects. See {@link AbstractPrefixMap}.
+ */
+public final class Ipv4PrefixMap<V> extends AbstractPrefixMap<Ipv4, Ipv4Range, V> {
+
+    private static final int PREFIX_LENGTH_BITS = 8;
+
+    public Ipv4PrefixMap() {
+        this(0);
+    }
+
+    public Ipv4PrefixMap(int expectedSize) {
+        super(1, Ipv4.NUMBER_OF_BITS, expectedSize);
+    }
+
+    /**
+     * @param address the first address of the prefix, as an unsigned 32-bit number
+     * @return the value of the prefix, or <tt>null</tt> if the map does not contain it
+     * @throws IllegalArgumentException if the address and prefix length do not make a prefix
+     */
+    public V get(int address, int prefixLength) {
+        return getValue(slotOf(pack(address, prefixLength), 0, 0));
+    }
+
+    /**
+     * @param address the first address of the prefix, as an unsigned 32-bit number
+     * @return the previous value of the prefix, or <tt>null</tt> if there was none
+     * @throws IllegalArgumentException if the address and prefix length do not make a prefix
+     */
+    public V put(int address, int prefixLength, V value) {
+        return put(pack(address, prefixLength), 0, 0, prefixLength, value);
+    }
+
+    @Override
+    public V put(Ipv4Range prefix, V value) {
+        return put((int) prefix.start().value(), PrefixUtils.getPrefixLength(prefix), value);
+    }
+
+    @Override
+    int slotOf(Ipv4Range prefix) {
+        return slotOf(pack((int) prefix.start().value(), PrefixUtils.getPrefixLength(prefix)), 0, 0);
+    }
+
+    @Override
+    Ipv4Range prefixAt(int slot) {
+        return ResourceFamily.IPV4.prefixOf(Uint128.valueOf(keyAt(slot, 0) >>> PREFIX_LENGTH_BITS), prefixLengthAt(slot));
+    }
+
+    @Override
+    int prefixLengthAt(int slot) {
+        return (int) keyAt(slot, 0) & 0xFF;
+    }
+
+    private static long pack(int address, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > Ipv4.NUMBER_OF_BITS
+                || prefixLength < Ipv4.NUMBER_OF_BITS && address << prefixLength != 0) {
+            throw new IllegalArgumentException("Invalid IPv4 prefix: address " + (address & 0xFFFFFFFFL) + ", prefix length " + prefixLength);
+        }
+        return (address & 0xFFFFFFFFL) << PREFIX_LENGTH_BITS | prefixLength;
+    }
+}
@@ -55,8 +55,12 @@ public final class Ipv6 extends AbstractIp<Ipv6, Ipv6Range> {
 
     protected Ipv6(BigInteger value) {
         this.value = Validate.notNull(value, "value is required");
-        Validate.isTrue(value.compareTo(MINIMUM_VALUE) >= 0, "Value of IPv6 has to be greater than or equal to " + MINIMUM_VALUE);
-        Validate.isTrue(value.compareTo(MAXIMUM_VALUE) <= 0, "Value of IPv6 has to be less than or equal to " + MAXIMUM_VALUE);
+        if (value.compareTo(MINIMUM_VALUE) < 0) {
+            throw new IllegalArgumentException("Value of IPv6 has to be greater than or equal to " + MINIMUM_VALUE);
+        }
+        if (value.compareTo(MAXIMUM_VALUE) > 0) {
+            throw new IllegalArgumentException("Value of IPv6 has to be less than or equal to " + MAXIMUM_VALUE);
+        }
     }
 
     BigInteger value() {
@@ -158,6 +162,7 @@ public final class Ipv6 extends AbstractIp<Ipv6, Ipv6Range> {
      * @see <a href="http://tools.ietf.org/html/rfc4291">rfc4291 - IP Version 6 Addressing Architecture</a>
      */
     public static Ipv6 parse(final String ipv6Address) {
+        long startTime = Metrics.startTimer();
         try {
             String ipv6String = Validate.notNull(ipv6Address).trim();
             Validate.isTrue(!ipv6String.isEmpty());
@@ -182,8 +187,13 @@ public final class Ipv6 extends AbstractIp<Ipv6, Ipv6Range> {
                 Validate.checkRange(Integer.parseInt(part, BITS_PER_PART), MIN_PART_VALUE, MAX_PART_VALUE);
                 ipv6value = ipv6value.shiftLeft(BITS_PER_PART).add(new BigInteger(part, BITS_PER_PART));
             }
-            return new Ipv6(ipv6value);
+            Ipv6 result = new Ipv6(ipv6value);
+            Metrics.increment(Metric.IPV6_PARSE_SUCCESS);
+            Metrics.recordDuration(Metric.IPV6_PARSE_NANOS, startTime);
+            return result;
         } catch (Exception e) {
+            Metrics.increment(Metric.IPV6_PARSE_FAILURE);
+            Metrics.recordDuration(Metric.IPV6_PARSE_NANOS, startTime);
             throw new IllegalArgumentException(String.format(DEFAULT_PARSING_ERROR_MESSAGE, ipv6Address), e);
         }
     }
@@ -0,0 +1,52 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A sketch of the IPv6 prefixes that receive the most weight, e.g. the top source prefixes of traffic at /32, /48
+ * and /64. Prefixes are taken from the upper 64 bits of the addresses, so prefixes longer than /64 cannot be
+ * tracked. See {@link AbstractHeavyHitterSketch}.
+ */
+public final class Ipv6HeavyHitterSketch extends AbstractHeavyHitterSketch<Ipv6, Ipv6Range> {
+
+    private static final int MAX_PREFIX_LENGTH = 64;
+
+    /**
+     * @param threshold the smallest fraction of the total weight that a prefix must receive to be reported
+     * @param prefixLengths the prefix lengths to track, up to 64
+     */
+    public Ipv6HeavyHitterSketch(double threshold, int... prefixLengths) {
+        super(ResourceFamily.IPV6, MAX_PREFIX_LENGTH, threshold, prefixLengths);
+    }
+
+    /**
+     * Counts the weight of an address towards its prefixes, without creating objects.
+     *
+     * @param high the upper 64 bits of the address, which determine its prefixes up to /64
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public void add(long high, long weight) {
+        addKey(high, weight);
+    }
+}
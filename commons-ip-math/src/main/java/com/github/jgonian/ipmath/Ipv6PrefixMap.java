@@ -0,0 +1,94 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A hash map from IPv6 prefixes to values, which stores each prefix as three <tt>long</tt>s and looks up prefixes
+ * given as the high and low 64 bits of an address and a prefix length without creating objects. See
+ * {@link AbstractPrefixMap}.
+ */
+public final class Ipv6PrefixMap<V> extends AbstractPrefixMap<Ipv6, Ipv6Range, V> {
+
+    public Ipv6PrefixMap() {
+        this(0);
+    }
+
+    public Ipv6PrefixMap(int expectedSize) {
+        super(3, Ipv6.NUMBER_OF_BITS, expectedSize);
+    }
+
+    /**
+     * @param high the upper 64 bits of the first address of the prefix
+     * @param low the lower 64 bits of the first address of the prefix
+     * @return the value of the prefix, or <tt>null</tt> if the map does not contain it
+     * @throws IllegalArgumentException if the address and prefix length do not make a prefix
+     */
+    public V get(long high, long low, int prefixLength) {
+        validatePrefix(high, low, prefixLength);
+        return getValue(slotOf(high, low, prefixLength));
+    }
+
+    /**
+     * @param high the upper 64 bits of the first address of the prefix
+     * @param low the lower 64 bits of the first address of the prefix
+     * @return the previous value of the prefix, or <tt>null</tt> if there was none
+     * @throws IllegalArgumentException if the address and prefix length do not make a prefix
+     */
+    public V put(long high, long low, int prefixLength, V value) {
+        validatePrefix(high, low, prefixLength);
+        return put(high, low, prefixLength, prefixLength, value);
+    }
+
+    @Override
+    public V put(Ipv6Range prefix, V value) {
+        Uint128 start = ResourceFamily.IPV6.valueOf(prefix.start());
+        return put(start.high(), start.low(), PrefixUtils.getPrefixLength(prefix), value);
+    }
+
+    @Override
+    int slotOf(Ipv6Range prefix) {
+        Uint128 start = ResourceFamily.IPV6.valueOf(prefix.start());
+        return slotOf(start.high(), start.low(), PrefixUtils.getPrefixLength(prefix));
+    }
+
+    @Override
+    Ipv6Range prefixAt(int slot) {
+        return ResourceFamily.IPV6.prefixOf(Uint128.valueOf(keyAt(slot, 0), keyAt(slot, 1)), prefixLengthAt(slot));
+    }
+
+    @Override
+    int prefixLengthAt(int slot) {
+        return (int) keyAt(slot, 2);
+    }
+
+    private static void validatePrefix(long high, long low, int prefixLength) {
+        boolean hostBitsSet = prefixLength < 64
+                ? high << prefixLength != 0 || low != 0
+                : prefixLength < Ipv6.NUMBER_OF_BITS && low << (prefixLength - 64) != 0;
+        if (prefixLength < 0 || prefixLength > Ipv6.NUMBER_OF_BITS || hostBitsSet) {
+            throw new IllegalArgumentException("Invalid IPv6 prefix: high bits " + Long.toHexString(high) + ", low bits "
+                    + Long.toHexString(low) + ", prefix length " + prefixLength);
+        }
+    }
+}
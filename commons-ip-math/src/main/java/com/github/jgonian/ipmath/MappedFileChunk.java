@@ -0,0 +1,118 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A part of a text file which starts and ends at line boundaries, mapped into memory, so that the lines of a
+ * large file can be parsed in parallel without copying them.
+ */
+final class MappedFileChunk {
+
+    static final int DEFAULT_SIZE = 16 << 20;
+
+    private static final int PROBE_SIZE = 512;
+
+    /**
+     * The position of the chunk in the file.
+     */
+    final long offset;
+    final ByteBuffer buffer;
+
+    private MappedFileChunk(long offset, ByteBuffer buffer) {
+        this.offset = offset;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Splits a file into chunks of about <tt>chunkSize</tt> bytes, each extended to the end of its last line.
+     */
+    static List<MappedFileChunk> split(FileChannel channel, int chunkSize) throws IOException {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive");
+        long size = channel.size();
+        List<MappedFileChunk> chunks = new ArrayList<MappedFileChunk>();
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(start + chunkSize, size), size, probe);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line too long to map at offset " + start);
+            }
+            chunks.add(new MappedFileChunk(start, channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the start of the first line which starts at or after the given position, or the size of the file
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        long next = position - 1;
+        while (next < size) {
+            probe.clear();
+            int read = channel.read(probe, next);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return next + i + 1;
+                }
+            }
+            next += read;
+        }
+        return size;
+    }
+
+    /**
+     * @return the end of the line which starts at the given index of the buffer, excluding the line terminator
+     */
+    static int lineEnd(ByteBuffer buffer, int lineStart) {
+        int limit = buffer.limit();
+        int end = lineStart;
+        while (end < limit && buffer.get(end) != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the text between the given indexes of the buffer, for error messages and fields which have no
+     * allocation-free parser
+     */
+    static String text(ByteBuffer buffer, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (buffer.get(i) & 0xff);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * The measurements reported to a {@link MetricsRecorder}. A counter is incremented once per event, a histogram
+ * records one value per event, e.g. a duration in nanoseconds or a size.
+ */
+public enum Metric {
+
+    IPV4_PARSE_SUCCESS("ipmath.ipv4.parse.success", Type.COUNTER),
+    IPV4_PARSE_FAILURE("ipmath.ipv4.parse.failure", Type.COUNTER),
+    IPV4_PARSE_NANOS("ipmath.ipv4.parse.nanos", Type.HISTOGRAM),
+    IPV6_PARSE_SUCCESS("ipmath.ipv6.parse.success", Type.COUNTER),
+    IPV6_PARSE_FAILURE("ipmath.ipv6.parse.failure", Type.COUNTER),
+    IPV6_PARSE_NANOS("ipmath.ipv6.parse.nanos", Type.HISTOGRAM),
+    ASN_PARSE_SUCCESS("ipmath.asn.parse.success", Type.COUNTER),
+    ASN_PARSE_FAILURE("ipmath.asn.parse.failure", Type.COUNTER),
+    ASN_PARSE_NANOS("ipmath.asn.parse.nanos", Type.HISTOGRAM),
+
+    /**
+     * Calls to {@link SortedRangeSet#contains(Range)}, {@link SortedRangeSet#floor(Range)} and
+     * {@link SortedRangeSet#ceiling(Range)}.
+     */
+    RANGE_SET_LOOKUPS("ipmath.rangeset.lookups", Type.COUNTER),
+    RANGE_SET_ADD_NANOS("ipmath.rangeset.add.nanos", Type.HISTOGRAM),
+    RANGE_SET_REMOVE_NANOS("ipmath.rangeset.remove.nanos", Type.HISTOGRAM),
+    RANGE_SET_INTERSECTION_NANOS("ipmath.rangeset.intersection.nanos", Type.HISTOGRAM),
+    /**
+     * The depth of the recursive merges of an added range with its neighbours.
+     */
+    RANGE_SET_MERGE_DEPTH("ipmath.rangeset.merge.depth", Type.HISTOGRAM),
+    /**
+     * The number of ranges of a set after an addition or a removal.
+     */
+    RANGE_SET_SIZE("ipmath.rangeset.size", Type.HISTOGRAM),
+
+    PREFIX_ALLOCATIONS("ipmath.allocator.allocations", Type.COUNTER),
+    PREFIX_ALLOCATION_FAILURES("ipmath.allocator.allocation.failures", Type.COUNTER),
+    /**
+     * The number of times a free prefix was split in halves to serve an allocation.
+     */
+    PREFIX_ALLOCATION_SPLITS("ipmath.allocator.allocation.splits", Type.HISTOGRAM),
+    PREFIX_RELEASES("ipmath.allocator.releases", Type.COUNTER),
+    /**
+     * The number of free buddies a released range was coalesced with.
+     */
+    PREFIX_RELEASE_MERGES("ipmath.allocator.release.merges", Type.HISTOGRAM);
+
+    public enum Type {
+        COUNTER, HISTOGRAM
+    }
+
+    private final String name;
+    private final Type type;
+
+    Metric(String name, Type type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * @return a dotted name for exporting the metric, e.g. <tt>ipmath.ipv4.parse.success</tt>
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
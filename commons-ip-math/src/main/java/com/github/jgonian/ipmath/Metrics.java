@@ -0,0 +1,153 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the {@link MetricsRecorder} the library reports to. Metrics are off by default.
+ * <p>
+ * A recorder is installed once, when this class is initialized: either the class named by the system property
+ * {@value #RECORDER_PROPERTY}, which needs a public no-argument constructor, or else the first implementation
+ * registered with {@link ServiceLoader}. Without a recorder, {@link #isEnabled()} is a constant <tt>false</tt>, so
+ * the JIT compiler removes the instrumentation from the instrumented methods altogether.
+ * <p>
+ * Bulk operations are also reported to every {@link OperationListener} registered with {@link ServiceLoader}.
+ * Listeners only enable the timing of bulk operations, not the per-call metrics.
+ */
+public final class Metrics {
+
+    public static final String RECORDER_PROPERTY = "com.github.jgonian.ipmath.metrics.recorder";
+
+    private static final MetricsRecorder NO_OP = new MetricsRecorder() {
+        @Override
+        public void increment(Metric metric) {
+        }
+
+        @Override
+        public void record(Metric metric, long value) {
+        }
+
+        @Override
+        public void recordOperation(Operation operation, long inputSize, long outputSize, long durationNanos) {
+        }
+    };
+
+    private static final MetricsRecorder RECORDER = loadRecorder();
+    private static final boolean ENABLED = RECORDER != NO_OP;
+    private static final OperationListener[] LISTENERS = loadListeners();
+    private static final boolean OPERATIONS_ENABLED = ENABLED || LISTENERS.length > 0;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return the installed recorder, or a no-op recorder if metrics are disabled
+     */
+    public static MetricsRecorder getRecorder() {
+        return RECORDER;
+    }
+
+    /**
+     * @return the installed operation listeners, possibly none
+     */
+    public static List<OperationListener> getOperationListeners() {
+        return Collections.unmodifiableList(Arrays.asList(LISTENERS));
+    }
+
+    static void increment(Metric metric) {
+        if (ENABLED) {
+            RECORDER.increment(metric);
+        }
+    }
+
+    static void record(Metric metric, long value) {
+        if (ENABLED) {
+            RECORDER.record(metric, value);
+        }
+    }
+
+    /**
+     * @return the start time to pass to {@link #recordDuration(Metric, long)}, or 0 if metrics are disabled
+     */
+    static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static void recordDuration(Metric metric, long startTime) {
+        if (ENABLED) {
+            RECORDER.record(metric, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @return the start time to pass to {@link #recordOperation}, or 0 if neither a recorder nor a listener is
+     * installed
+     */
+    static long startOperationTimer() {
+        return OPERATIONS_ENABLED ? System.nanoTime() : 0;
+    }
+
+    static void recordOperation(Operation operation, long inputSize, long outputSize, long startTime) {
+        if (OPERATIONS_ENABLED) {
+            long durationNanos = System.nanoTime() - startTime;
+            if (ENABLED) {
+                RECORDER.recordOperation(operation, inputSize, outputSize, durationNanos);
+            }
+            for (OperationListener listener : LISTENERS) {
+                listener.operationCompleted(operation, inputSize, outputSize, durationNanos);
+            }
+        }
+    }
+
+    private static MetricsRecorder loadRecorder() {
+        String className = System.getProperty(RECORDER_PROPERTY);
+        if (className != null) {
+            try {
+                return (MetricsRecorder) Class.forName(className).newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot create the metrics recorder " + className, e);
+            }
+        }
+        Iterator<MetricsRecorder> recorders = ServiceLoader.load(MetricsRecorder.class).iterator();
+        return recorders.hasNext() ? recorders.next() : NO_OP;
+    }
+
+    private static OperationListener[] loadListeners() {
+        List<OperationListener> result = new ArrayList<OperationListener>();
+        for (OperationListener listener : ServiceLoader.load(OperationListener.class)) {
+            result.add(listener);
+        }
+        return result.toArray(new OperationListener[result.size()]);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * The parts shared by the hash tables with open addressing and linear probing: the capacity and its growth at a
+ * load factor of 0.75, the probe sequence and deletion by shifting back the following entries, which needs no
+ * tombstones. Subclasses store the keys and values and tell where an entry belongs.
+ */
+abstract class OpenAddressingTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final int maxCapacity;
+    int capacity;
+    int maxSize;
+
+    OpenAddressingTable(int maxCapacity) {
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * @return the capacity which holds the expected number of entries without growing
+     */
+    final int initialCapacity(int expectedSize) {
+        Validate.isTrue(expectedSize >= 0, "The expected size must not be negative");
+        return (int) Math.min(maxCapacity, Math.max(MIN_CAPACITY, expectedSize * 4L / 3 + 1));
+    }
+
+    final void setCapacity(int capacity) {
+        this.capacity = capacity;
+        this.maxSize = (int) (capacity * 3L / 4);
+    }
+
+    /**
+     * @return the capacity to grow to, which is twice the current one but at most the maximum capacity
+     * @throws IllegalStateException if the table is at its maximum capacity already
+     */
+    final int grownCapacity() {
+        if (capacity == maxCapacity) {
+            throw new IllegalStateException("The map cannot hold more than " + maxSize + " entries");
+        }
+        return (int) Math.min(maxCapacity, 2L * capacity);
+    }
+
+    final int next(int slot) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    /**
+     * Empties a slot and moves back the entries after it which would otherwise no longer be found, because the
+     * probe sequence from their home slot would stop at the empty slot.
+     */
+    final void shiftBack(int slot) {
+        while (true) {
+            int last = slot;
+            slot = next(slot);
+            while (true) {
+                if (isEmptySlot(slot)) {
+                    clearSlot(last);
+                    return;
+                }
+                int home = homeSlotOf(slot);
+                // the entry can move to the last slot unless its home lies cyclically in (last, slot]
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = next(slot);
+            }
+            moveSlot(slot, last);
+        }
+    }
+
+    abstract boolean isEmptySlot(int slot);
+
+    /**
+     * @return the slot where the probe sequence for the entry in the given slot starts
+     */
+    abstract int homeSlotOf(int slot);
+
+    abstract void moveSlot(int from, int to);
+
+    abstract void clearSlot(int slot);
+}
@@ -0,0 +1,69 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * The bulk operations reported to {@link MetricsRecorder#recordOperation(Operation, long, long, long)} and
+ * {@link OperationListener#operationCompleted(Operation, long, long, long)}, together with the number of elements
+ * they were given and produced.
+ */
+public enum Operation {
+
+    /**
+     * {@link SortedRangeSet#addAll}: from the number of added ranges to the size of the set.
+     */
+    RANGE_SET_ADD_ALL,
+
+    /**
+     * {@link SortedRangeSet#removeAll}: from the number of removed ranges to the size of the set.
+     */
+    RANGE_SET_REMOVE_ALL,
+
+    /**
+     * {@link AbstractIpRange#splitToPrefixes()}: from one range to the number of prefixes.
+     */
+    SPLIT_TO_PREFIXES,
+
+    /**
+     * {@link PrefixFinder#findPrefixOrNull(int, java.util.Collection)}: from the number of ranges searched to one
+     * prefix, or none.
+     */
+    FIND_PREFIX,
+
+    /**
+     * Building a {@link RangeIndex}: from the number of ranges to the size of the index.
+     */
+    RANGE_INDEX_BUILD,
+
+    /**
+     * {@link RangeTree#buildFromSorted(java.util.List)}: from the number of ranges to the size of the tree.
+     */
+    RANGE_TREE_BUILD,
+
+    /**
+     * Building or rebuilding a {@link RangeSetFilter}: from the number of ranges of the set to the number of blocks
+     * added to the filter.
+     */
+    RANGE_SET_FILTER_BUILD
+}
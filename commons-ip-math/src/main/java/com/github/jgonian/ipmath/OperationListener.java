@@ -0,0 +1,42 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * Service provider interface for observing the completed bulk operations of this library only, e.g. to emit
+ * profiling events for slow ones. Unlike a {@link MetricsRecorder}, a listener does not turn on the per-call
+ * metrics of parsing and of single set operations, so it costs nothing on those paths. Every implementation
+ * registered with {@link java.util.ServiceLoader} is installed, next to the recorder if there is one.
+ * <p>
+ * Listeners are called from the threads which perform the operations, so they must be thread-safe.
+ */
+public interface OperationListener {
+
+    /**
+     * @param inputSize the number of elements the operation was given
+     * @param outputSize the number of elements the operation produced
+     * @param durationNanos how long the operation took
+     */
+    void operationCompleted(Operation operation, long inputSize, long outputSize, long durationNanos);
+}
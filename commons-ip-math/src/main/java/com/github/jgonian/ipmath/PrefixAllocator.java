@@ -0,0 +1,246 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A stateful allocator of prefixes out of a pool of free address space, based on the buddy system.
+ * <p>
+ * The free space is kept as its canonical decomposition into prefixes, indexed by prefix length. An allocation
+ * takes the smallest free prefix that can hold the requested prefix length (the lowest one if there are several),
+ * which are the same conservative semantics as {@link ConservativePrefixFinder}, and returns the unused halves
+ * to the index. A release coalesces the released prefix with its free buddies. Both operations take
+ * <tt>O(log n)</tt> per prefix length they touch.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class PrefixAllocator<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+    private final ResourceFamily<C, R> family;
+    private final int bitSize;
+    private final List<NavigableSet<Uint128>> freePrefixesByLength;
+    private final BitSet availablePrefixLengths;
+    private final TreeMap<Uint128, Integer> freePrefixes = new TreeMap<Uint128, Integer>();
+
+    PrefixAllocator(ResourceFamily<C, R> family, Iterable<R> freeRanges) {
+        this.family = family;
+        this.bitSize = family.bitSize();
+        this.freePrefixesByLength = new ArrayList<NavigableSet<Uint128>>(bitSize + 1);
+        for (int prefixLength = 0; prefixLength <= bitSize; prefixLength++) {
+            freePrefixesByLength.add(new TreeSet<Uint128>());
+        }
+        this.availablePrefixLengths = new BitSet(bitSize + 1);
+        for (R range : Validate.notNull(freeRanges, "free ranges are required")) {
+            releaseRange(range);
+        }
+    }
+
+    public static PrefixAllocator<Ipv4, Ipv4Range> forIpv4(Iterable<Ipv4Range> freeRanges) {
+        return new PrefixAllocator<Ipv4, Ipv4Range>(ResourceFamily.IPV4, freeRanges);
+    }
+
+    public static PrefixAllocator<Ipv6, Ipv6Range> forIpv6(Iterable<Ipv6Range> freeRanges) {
+        return new PrefixAllocator<Ipv6, Ipv6Range>(ResourceFamily.IPV6, freeRanges);
+    }
+
+    /**
+     * @return the prefix that the next call to {@link #allocatePrefixOrNull(int)} would return,
+     * or <tt>null</tt> if there is no free prefix large enough
+     */
+    public R findPrefixOrNull(int prefixLength) {
+        int freePrefixLength = findFreePrefixLength(prefixLength);
+        if (freePrefixLength < 0) {
+            return null;
+        }
+        return family.prefixOf(freePrefixesByLength.get(freePrefixLength).first(), prefixLength);
+    }
+
+    /**
+     * Allocates a prefix of the given length and removes it from the free space.
+     *
+     * @return the allocated prefix, or <tt>null</tt> if there is no free prefix large enough
+     */
+    public R allocatePrefixOrNull(int prefixLength) {
+        int freePrefixLength = findFreePrefixLength(prefixLength);
+        if (freePrefixLength < 0) {
+            Metrics.increment(Metric.PREFIX_ALLOCATION_FAILURES);
+            return null;
+        }
+        Uint128 start = freePrefixesByLength.get(freePrefixLength).first();
+        allocateWithin(start, freePrefixLength, start, prefixLength);
+        Metrics.increment(Metric.PREFIX_ALLOCATIONS);
+        Metrics.record(Metric.PREFIX_ALLOCATION_SPLITS, prefixLength - freePrefixLength);
+        return family.prefixOf(start, prefixLength);
+    }
+
+    /**
+     * Removes the prefix <tt>start/prefixLength</tt> from the free prefix <tt>freeStart/freePrefixLength</tt>
+     * which contains it, and returns the rest of the free prefix to the index.
+     */
+    void allocateWithin(Uint128 freeStart, int freePrefixLength, Uint128 start, int prefixLength) {
+        removeFreePrefix(freeStart, freePrefixLength);
+        for (int length = freePrefixLength + 1; length <= prefixLength; length++) {
+            Uint128 half = Uint128.powerOfTwo(bitSize - length);
+            addFreePrefix(start.and(Uint128.lowMask(bitSize - length).not()).xor(half), length);
+        }
+    }
+
+    /**
+     * @return the start of the lowest free prefix of the given length
+     */
+    Uint128 firstFreePrefix(int prefixLength) {
+        return freePrefixesByLength.get(prefixLength).first();
+    }
+
+    /**
+     * @return the length of the free prefixes to allocate from, or -1 if none can hold the prefix length
+     */
+    int findFreePrefixLength(int prefixLength) {
+        Validate.checkRange(prefixLength, 0, bitSize);
+        return availablePrefixLengths.previousSetBit(prefixLength);
+    }
+
+    /**
+     * @return the length of the largest free prefix, or -1 if there is no free space
+     */
+    int largestFreePrefixLength() {
+        return availablePrefixLengths.nextSetBit(0);
+    }
+
+    /**
+     * Returns a range to the free space, merging it with adjacent free prefixes where possible. The range does
+     * not need to be a prefix, e.g. a whole pool can be released at once.
+     *
+     * @throws IllegalArgumentException if the range overlaps with the free space
+     */
+    public void release(R range) {
+        Metrics.record(Metric.PREFIX_RELEASE_MERGES, releaseRange(range));
+        Metrics.increment(Metric.PREFIX_RELEASES);
+    }
+
+    /**
+     * @return the number of free buddies the range was coalesced with
+     */
+    private int releaseRange(R range) {
+        Validate.notNull(range, "A range is required");
+        Uint128 start = family.valueOf(range.start());
+        Uint128 end = family.valueOf(range.end());
+        if (overlapsFreeSpace(start, end)) {
+            throw new IllegalArgumentException("Range " + range + " overlaps with the free space");
+        }
+        int merges = 0;
+        while (true) {
+            int exponent = Uint128.largestBlockExponent(start, end);
+            Uint128 prefixEnd = start.or(Uint128.lowMask(exponent));
+            merges += coalesceAndAdd(start, bitSize - exponent);
+            if (prefixEnd.equals(end)) {
+                return merges;
+            }
+            start = prefixEnd.add(Uint128.ONE);
+        }
+    }
+
+    private boolean overlapsFreeSpace(Uint128 start, Uint128 end) {
+        Map.Entry<Uint128, Integer> floor = freePrefixes.floorEntry(end);
+        return floor != null && endOf(floor.getKey(), floor.getValue()).compareTo(start) >= 0;
+    }
+
+    /**
+     * @return the number of buddies the prefix was coalesced with
+     */
+    private int coalesceAndAdd(Uint128 start, int prefixLength) {
+        int merges = 0;
+        while (prefixLength > 0) {
+            Uint128 buddy = start.xor(Uint128.powerOfTwo(bitSize - prefixLength));
+            if (!freePrefixesByLength.get(prefixLength).contains(buddy)) {
+                break;
+            }
+            removeFreePrefix(buddy, prefixLength);
+            if (buddy.compareTo(start) < 0) {
+                start = buddy;
+            }
+            prefixLength--;
+            merges++;
+        }
+        addFreePrefix(start, prefixLength);
+        return merges;
+    }
+
+    private void addFreePrefix(Uint128 start, int prefixLength) {
+        freePrefixesByLength.get(prefixLength).add(start);
+        freePrefixes.put(start, prefixLength);
+        availablePrefixLengths.set(prefixLength);
+    }
+
+    private void removeFreePrefix(Uint128 start, int prefixLength) {
+        NavigableSet<Uint128> prefixes = freePrefixesByLength.get(prefixLength);
+        prefixes.remove(start);
+        freePrefixes.remove(start);
+        if (prefixes.isEmpty()) {
+            availablePrefixLengths.clear(prefixLength);
+        }
+    }
+
+    private Uint128 endOf(Uint128 start, int prefixLength) {
+        return start.or(Uint128.lowMask(bitSize - prefixLength));
+    }
+
+    /**
+     * @return the free space as a set of ranges
+     */
+    public SortedRangeSet<C, R> getFreeSpace() {
+        SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
+        for (Map.Entry<Uint128, Integer> prefix : freePrefixes.entrySet()) {
+            result.add(family.prefixOf(prefix.getKey(), prefix.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the free space as a list of prefixes sorted by start
+     */
+    public List<R> getFreePrefixes() {
+        List<R> result = new ArrayList<R>(freePrefixes.size());
+        for (Map.Entry<Uint128, Integer> prefix : freePrefixes.entrySet()) {
+            result.add(family.prefixOf(prefix.getKey(), prefix.getValue()));
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return freePrefixes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getFreePrefixes().toString();
+    }
+}
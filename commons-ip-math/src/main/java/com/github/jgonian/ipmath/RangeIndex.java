@@ -0,0 +1,227 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable index of ranges which, unlike {@link SortedRangeSet}, keeps the ranges exactly as they are given:
+ * overlapping, nested, adjacent and duplicate ranges are neither merged nor removed.
+ * <p>
+ * The ranges are kept in an array sorted by start and end, which is treated as an implicit balanced search tree.
+ * Every node of that tree is augmented with the maximum and the minimum end of its subtree, so queries only
+ * descend into subtrees that can contain a match and run in <tt>O(log n + k)</tt> for <tt>k</tt> reported
+ * ranges on typical data. All queries return the matching ranges in the order of the index.
+ */
+public final class RangeIndex<C extends Rangeable<C, R>, R extends Range<C, R>> implements Iterable<R> {
+
+    private final Object[] ranges;
+    private final Object[] maxEnd;
+    private final Object[] minEnd;
+
+    public RangeIndex(Collection<R> ranges) {
+        long startTime = Metrics.startOperationTimer();
+        List<R> sorted = new ArrayList<R>(Validate.notNull(ranges, "ranges are required"));
+        for (R range : sorted) {
+            Validate.notNull(range, "null ranges are not allowed");
+        }
+        Collections.sort(sorted, StartAndSizeComparator.<C, R>get());
+        this.ranges = sorted.toArray();
+        this.maxEnd = new Object[this.ranges.length];
+        this.minEnd = new Object[this.ranges.length];
+        augment(0, this.ranges.length);
+        Metrics.recordOperation(Operation.RANGE_INDEX_BUILD, sorted.size(), this.ranges.length, startTime);
+    }
+
+    private void augment(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        augment(from, mid);
+        augment(mid + 1, to);
+        C max = rangeAt(mid).end();
+        C min = max;
+        if (from < mid) {
+            int left = (from + mid) >>> 1;
+            max = max(max, maxEndAt(left));
+            min = min(min, minEndAt(left));
+        }
+        if (mid + 1 < to) {
+            int right = (mid + 1 + to) >>> 1;
+            max = max(max, maxEndAt(right));
+            min = min(min, minEndAt(right));
+        }
+        maxEnd[mid] = max;
+        minEnd[mid] = min;
+    }
+
+    /**
+     * @return all ranges which contain the given value
+     */
+    public List<R> stab(C value) {
+        Validate.notNull(value, "A value is required");
+        List<R> result = new ArrayList<R>();
+        collectOverlapping(0, ranges.length, value, value, result);
+        return result;
+    }
+
+    /**
+     * @return all ranges which overlap with the given range
+     */
+    public List<R> overlapping(R range) {
+        Validate.notNull(range, "A range is required");
+        List<R> result = new ArrayList<R>();
+        collectOverlapping(0, ranges.length, range.start(), range.end(), result);
+        return result;
+    }
+
+    /**
+     * @return all ranges which are contained in the given range, including the ranges that are equal to it
+     */
+    public List<R> containedIn(R range) {
+        Validate.notNull(range, "A range is required");
+        List<R> result = new ArrayList<R>();
+        int from = firstIndexWithStartNotBefore(range.start());
+        int to = firstIndexWithStartAfter(range.end());
+        collectContained(0, ranges.length, from, to, range.end(), result);
+        return result;
+    }
+
+    private void collectOverlapping(int from, int to, C start, C end, List<R> result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (maxEndAt(mid).compareTo(start) < 0) {
+            return;
+        }
+        collectOverlapping(from, mid, start, end, result);
+        R range = rangeAt(mid);
+        if (range.start().compareTo(end) > 0) {
+            return;
+        }
+        if (range.end().compareTo(start) >= 0) {
+            result.add(range);
+        }
+        collectOverlapping(mid + 1, to, start, end, result);
+    }
+
+    private void collectContained(int from, int to, int lowerIndex, int upperIndex, C end, List<R> result) {
+        if (from >= to || to <= lowerIndex || from >= upperIndex) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (minEndAt(mid).compareTo(end) > 0) {
+            return;
+        }
+        collectContained(from, mid, lowerIndex, upperIndex, end, result);
+        if (mid >= lowerIndex && mid < upperIndex && rangeAt(mid).end().compareTo(end) <= 0) {
+            result.add(rangeAt(mid));
+        }
+        collectContained(mid + 1, to, lowerIndex, upperIndex, end, result);
+    }
+
+    private int firstIndexWithStartNotBefore(C value) {
+        int low = 0;
+        int high = ranges.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rangeAt(mid).start().compareTo(value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexWithStartAfter(C value) {
+        int low = 0;
+        int high = ranges.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rangeAt(mid).start().compareTo(value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private R rangeAt(int index) {
+        return (R) ranges[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private C maxEndAt(int index) {
+        return (C) maxEnd[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private C minEndAt(int index) {
+        return (C) minEnd[index];
+    }
+
+    private C max(C a, C b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private C min(C a, C b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public int size() {
+        return ranges.length;
+    }
+
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    /**
+     * @return an unmodifiable view of all ranges in the order of the index
+     */
+    @SuppressWarnings("unchecked")
+    public List<R> asList() {
+        return Collections.unmodifiableList((List<R>) (List<?>) Arrays.asList(ranges));
+    }
+
+    @Override
+    public Iterator<R> iterator() {
+        return asList().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ranges);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Arrays;
+
+/**
+ * A probabilistic filter in front of a {@link SortedRangeSet}, which answers most lookups of resources that are not
+ * in the set without searching the set, e.g. for blocklists that almost all lookups miss.
+ * <p>
+ * The filter splits the ranges of the set into prefixes and adds each prefix to a Bloom filter as the block of the
+ * longest of a few fixed prefix lengths that contains it; prefixes shorter than the shortest of those lengths are
+ * added as all the blocks of the shortest length they contain. A lookup tests the block of the resource at each
+ * length, reading one cache line per length, and searches the set only if one of them may be present. Resources
+ * in a block which only partly belongs to the set therefore always reach the set, in addition to the configured
+ * false positive rate of the Bloom filter.
+ * <p>
+ * The filter is rebuilt with the next lookup after the set changes. Like the set, it is not thread-safe.
+ */
+public final class RangeSetFilter<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+    // a prefix which spans more blocks of the shortest length than this makes the filter let everything through
+    private static final int MAX_EXPANSION_BITS = 16;
+
+    private final SortedRangeSet<C, R> set;
+    private final ResourceFamily<C, R> family;
+    private final double falsePositiveRate;
+    private final int[] prefixLengths;
+    private final long[] maskHigh;
+    private final long[] maskLow;
+    private BlockedBloomFilter filter;
+    private boolean acceptsAll;
+    private int builtAtModification;
+
+    RangeSetFilter(SortedRangeSet<C, R> set, ResourceFamily<C, R> family, double falsePositiveRate, int... prefixLengths) {
+        Validate.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "The false positive rate must be between 0 and 1");
+        Validate.isTrue(prefixLengths.length > 0, "At least one prefix length is required");
+        this.set = Validate.notNull(set, "A set is required");
+        this.family = family;
+        this.falsePositiveRate = falsePositiveRate;
+        this.prefixLengths = prefixLengths.clone();
+        Arrays.sort(this.prefixLengths);
+        this.maskHigh = new long[prefixLengths.length];
+        this.maskLow = new long[prefixLengths.length];
+        for (int level = 0; level < prefixLengths.length; level++) {
+            int prefixLength = this.prefixLengths[level];
+            Validate.checkRange(prefixLength, 0, family.bitSize());
+            if (level > 0 && prefixLength == this.prefixLengths[level - 1]) {
+                throw new IllegalArgumentException("Prefix length " + prefixLength + " is given twice");
+            }
+            Uint128 mask = Uint128.lowMask(family.bitSize()).and(Uint128.lowMask(family.bitSize() - prefixLength).not());
+            maskHigh[level] = mask.high();
+            maskLow[level] = mask.low();
+        }
+        build();
+    }
+
+    /**
+     * A filter which tests the /16 and /24 blocks of an address.
+     */
+    public static RangeSetFilter<Ipv4, Ipv4Range> forIpv4(SortedRangeSet<Ipv4, Ipv4Range> set, double falsePositiveRate) {
+        return forIpv4(set, falsePositiveRate, 16, 24);
+    }
+
+    public static RangeSetFilter<Ipv4, Ipv4Range> forIpv4(SortedRangeSet<Ipv4, Ipv4Range> set, double falsePositiveRate, int... prefixLengths) {
+        return new RangeSetFilter<Ipv4, Ipv4Range>(set, ResourceFamily.IPV4, falsePositiveRate, prefixLengths);
+    }
+
+    /**
+     * A filter which tests the /32 and /48 blocks of an address.
+     */
+    public static RangeSetFilter<Ipv6, Ipv6Range> forIpv6(SortedRangeSet<Ipv6, Ipv6Range> set, double falsePositiveRate) {
+        return forIpv6(set, falsePositiveRate, 32, 48);
+    }
+
+    public static RangeSetFilter<Ipv6, Ipv6Range> forIpv6(SortedRangeSet<Ipv6, Ipv6Range> set, double falsePositiveRate, int... prefixLengths) {
+        return new RangeSetFilter<Ipv6, Ipv6Range>(set, ResourceFamily.IPV6, falsePositiveRate, prefixLengths);
+    }
+
+    private void build() {
+        long startTime = Metrics.startOperationTimer();
+        long[] hashes = new long[Math.max(16, set.size())];
+        int count = 0;
+        acceptsAll = false;
+        for (R range : set) {
+            Uint128 start = family.valueOf(range.start());
+            Uint128 end = family.valueOf(range.end());
+            while (true) {
+                int exponent = Uint128.largestBlockExponent(start, end);
+                int prefixLength = family.bitSize() - exponent;
+                int level = levelOf(prefixLength);
+                if (level >= 0) {
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, 2 * count);
+                    }
+                    hashes[count++] = hash(level, start.high(), start.low());
+                } else if (prefixLengths[0] - prefixLength > MAX_EXPANSION_BITS) {
+                    acceptsAll = true;
+                } else {
+                    int blocks = 1 << (prefixLengths[0] - prefixLength);
+                    Uint128 blockSize = Uint128.powerOfTwo(family.bitSize() - prefixLengths[0]);
+                    if (count + blocks > hashes.length) {
+                        hashes = Arrays.copyOf(hashes, 2 * (count + blocks));
+                    }
+                    Uint128 block = start;
+                    for (int i = 0; i < blocks; i++) {
+                        hashes[count++] = hash(0, block.high(), block.low());
+                        block = block.add(blockSize);
+                    }
+                }
+                Uint128 prefixEnd = start.or(Uint128.lowMask(exponent));
+                if (acceptsAll || prefixEnd.equals(end)) {
+                    break;
+                }
+                start = prefixEnd.add(Uint128.ONE);
+            }
+            if (acceptsAll) {
+                break;
+            }
+        }
+        filter = new BlockedBloomFilter(count, falsePositiveRate);
+        for (int i = 0; i < count; i++) {
+            filter.add(hashes[i]);
+        }
+        builtAtModification = set.modificationCount();
+        Metrics.recordOperation(Operation.RANGE_SET_FILTER_BUILD, set.size(), count, startTime);
+    }
+
+    /**
+     * @return the level of the longest of the prefix lengths which is not longer than the given one, or -1
+     */
+    private int levelOf(int prefixLength) {
+        for (int level = prefixLengths.length - 1; level >= 0; level--) {
+            if (prefixLengths[level] <= prefixLength) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    private long hash(int level, long high, long low) {
+        return Bits.mix((high & maskHigh[level]) ^ Bits.mix((low & maskLow[level]) + level));
+    }
+
+    /**
+     * @return whether the set contains the resource, searching the set only if the filter cannot rule it out
+     */
+    public boolean contains(C resource) {
+        return mightContain(resource) && set.contains(resource.asRange());
+    }
+
+    /**
+     * @return <tt>false</tt> if the set certainly does not contain the resource
+     */
+    public boolean mightContain(C resource) {
+        Uint128 value = family.valueOf(Validate.notNull(resource, "A resource is required"));
+        return mightContain(value.high(), value.low());
+    }
+
+    /**
+     * Tests a resource given as the upper and lower 64 bits of its number, e.g. 0 and the unsigned 32-bit number of
+     * an IPv4 address, without creating objects.
+     *
+     * @return <tt>false</tt> if the set certainly does not contain the resource
+     */
+    public boolean mightContain(long high, long low) {
+        if (builtAtModification != set.modificationCount()) {
+            build();
+        }
+        if (acceptsAll) {
+            return true;
+        }
+        for (int level = 0; level < prefixLengths.length; level++) {
+            if (filter.mightContain(hash(level, high, low))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public SortedRangeSet<C, R> getSet() {
+        return set;
+    }
+
+    /**
+     * @return the number of bytes taken by the Bloom filter
+     */
+    public long sizeInBytes() {
+        return filter.sizeInBytes();
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of point lookups in a {@link SortedRangeSet}, for workloads in which a small number of resources
+ * accounts for most lookups. It remembers for each recently looked up resource the range of the set which contains
+ * it, or that there is none, so that a repeated lookup takes one hash probe instead of a search of the set.
+ * <p>
+ * The cache is set-associative: a resource can only be stored in one of {@value #WAYS} entries chosen by its hash,
+ * and when they are all taken the CLOCK algorithm evicts one that was not used since the hand last passed it.
+ * Entries remember the modification count of the set at the time of the lookup, so that the results cached
+ * before a change of the set are not used after it.
+ * <p>
+ * Lookups are thread-safe and lock-free, but like the set itself, the set must not be modified concurrently
+ * with them.
+ */
+public final class RangeSetLookupCache<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+    private static final int WAYS = 8;
+
+    private final SortedRangeSet<C, R> set;
+    private final ResourceFamily<C, R> family;
+    private final int buckets;
+    private final AtomicReferenceArray<Entry<R>> entries;
+    private final AtomicIntegerArray hands;
+    // striped counters, so that threads which hit the cache do not contend on one cache line
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    RangeSetLookupCache(SortedRangeSet<C, R> set, ResourceFamily<C, R> family, int capacity) {
+        Validate.isTrue(capacity > 0, "The capacity must be positive");
+        this.set = Validate.notNull(set, "A set is required");
+        this.family = family;
+        this.buckets = (capacity + WAYS - 1) / WAYS;
+        this.entries = new AtomicReferenceArray<Entry<R>>(buckets * WAYS);
+        this.hands = new AtomicIntegerArray(buckets);
+    }
+
+    public static RangeSetLookupCache<Ipv4, Ipv4Range> forIpv4(SortedRangeSet<Ipv4, Ipv4Range> set, int capacity) {
+        return new RangeSetLookupCache<Ipv4, Ipv4Range>(set, ResourceFamily.IPV4, capacity);
+    }
+
+    public static RangeSetLookupCache<Ipv6, Ipv6Range> forIpv6(SortedRangeSet<Ipv6, Ipv6Range> set, int capacity) {
+        return new RangeSetLookupCache<Ipv6, Ipv6Range>(set, ResourceFamily.IPV6, capacity);
+    }
+
+    public static RangeSetLookupCache<Asn, AsnRange> forAsn(SortedRangeSet<Asn, AsnRange> set, int capacity) {
+        return new RangeSetLookupCache<Asn, AsnRange>(set, ResourceFamily.ASN, capacity);
+    }
+
+    /**
+     * @return the range of the set which contains the resource, or <tt>null</tt> if there is none
+     */
+    public R get(C resource) {
+        Uint128 value = family.valueOf(Validate.notNull(resource, "A resource is required"));
+        return lookup(value.high(), value.low(), resource);
+    }
+
+    /**
+     * Looks up a resource given as the upper and lower 64 bits of its number, e.g. 0 and the unsigned 32-bit
+     * number of an IPv4 address, without creating objects if the result is cached.
+     *
+     * @return the range of the set which contains the resource, or <tt>null</tt> if there is none
+     */
+    public R get(long high, long low) {
+        return lookup(high, low, null);
+    }
+
+    public boolean contains(C resource) {
+        return get(resource) != null;
+    }
+
+    public boolean contains(long high, long low) {
+        return get(high, low) != null;
+    }
+
+    private R lookup(long high, long low, C resource) {
+        int modification = set.modificationCount();
+        int base = Bits.reduce(Bits.mix(high ^ Bits.mix(low)), buckets) * WAYS;
+        for (int i = 0; i < WAYS; i++) {
+            Entry<R> entry = entries.get(base + i);
+            if (entry != null && entry.low == low && entry.high == high && entry.modification == modification) {
+                if (!entry.referenced) {
+                    entry.referenced = true;
+                }
+                hits.increment();
+                return entry.range;
+            }
+        }
+        misses.increment();
+        if (resource == null) {
+            resource = family.resourceOf(Uint128.valueOf(high, low));
+        }
+        R range = find(resource);
+        insert(base, new Entry<R>(high, low, range, modification));
+        return range;
+    }
+
+    private R find(C resource) {
+        R point = resource.asRange();
+        R floor = set.floor(point);
+        if (floor != null && floor.contains(resource)) {
+            return floor;
+        }
+        // a range which starts at the resource and is longer than one resource sorts after it
+        R ceiling = set.ceiling(point);
+        return ceiling != null && ceiling.contains(resource) ? ceiling : null;
+    }
+
+    /**
+     * Stores the entry in a free or stale way of the bucket, or else in the first way which the hand finds not
+     * referenced. The entry is dropped if concurrent lookups keep all ways referenced or win the race for a way.
+     */
+    private void insert(int base, Entry<R> entry) {
+        for (int i = 0; i < WAYS; i++) {
+            Entry<R> current = entries.get(base + i);
+            if (current == null || current.modification != entry.modification) {
+                if (entries.compareAndSet(base + i, current, entry)) {
+                    return;
+                }
+            }
+        }
+        int bucket = base / WAYS;
+        for (int step = 0; step < 2 * WAYS; step++) {
+            int way = hands.getAndIncrement(bucket) & (WAYS - 1);
+            Entry<R> current = entries.get(base + way);
+            if (current == null || !current.referenced) {
+                entries.compareAndSet(base + way, current, entry);
+                return;
+            }
+            current.referenced = false;
+        }
+    }
+
+    /**
+     * Discards all cached results. There is no need to call this after the set changes.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+    /**
+     * @return the maximum number of cached results
+     */
+    public int capacity() {
+        return entries.length();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache, or 0 if there were none
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Sets the hit and miss counts to zero.
+     */
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+    }
+
+    public SortedRangeSet<C, R> getSet() {
+        return set;
+    }
+
+    private static final class Entry<R> {
+        private final long high;
+        private final long low;
+        private final R range;
+        private final int modification;
+        private volatile boolean referenced;
+
+        private Entry(long high, long low, R range, int modification) {
+            this.high = high;
+            this.low = low;
+            this.range = range;
+            this.modification = modification;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.ZERO;
+
+/**
+ * A forest of ranges nested according to {@link Range#contains(Range)}, e.g. allocations containing
+ * sub-allocations containing assignments. Ranges in the tree either nest or are disjoint; a range which
+ * partially overlaps another one is rejected. When the same range is added twice, the later one becomes
+ * a child of the earlier one.
+ * <p>
+ * The children of every node are kept sorted by start in an array list, so navigating from a node to the child
+ * containing a range is a binary search, and finding a range takes <tt>O(depth &middot; log(children))</tt>.
+ * Adding and removing a range also shift the children of its parent, so they take time linear in the number of
+ * children of the parent. Every node caches the number of its children and descendants and the total size of its
+ * direct children (the assigned size), which are updated along the path of each change.
+ */
+public class RangeTree<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+    private final Node<C, R> root = new Node<C, R>(null, null, ZERO);
+
+    /**
+     * Builds a tree in linear time from a list of ranges sorted by start and, for ranges with the same start,
+     * by end in descending order, so that every range comes after the ranges that contain it.
+     *
+     * @throws IllegalArgumentException if the ranges are not sorted or if two ranges partially overlap
+     */
+    public static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>>
+    RangeTree<C, R> buildFromSorted(List<R> sortedRanges) {
+        long startTime = Metrics.startOperationTimer();
+        RangeTree<C, R> tree = new RangeTree<C, R>();
+        List<Node<C, R>> created = new ArrayList<Node<C, R>>(sortedRanges.size());
+        LinkedList<Node<C, R>> path = new LinkedList<Node<C, R>>();
+        R previous = null;
+        for (R range : sortedRanges) {
+            Validate.notNull(range, "null ranges are not allowed");
+            if (previous != null && !isInNestingOrder(previous, range)) {
+                throw new IllegalArgumentException("Ranges are not sorted: " + previous + " is followed by " + range);
+            }
+            while (!path.isEmpty() && !path.getLast().range.contains(range)) {
+                checkNotOverlapping(path.getLast().range, range);
+                path.removeLast();
+            }
+            Node<C, R> parent = path.isEmpty() ? tree.root : path.getLast();
+            Node<C, R> node = new Node<C, R>(range, parent, sizeOf(range));
+            parent.children.add(node);
+            created.add(node);
+            path.addLast(node);
+            previous = range;
+        }
+        for (int i = created.size() - 1; i >= 0; i--) {
+            Node<C, R> node = created.get(i);
+            node.parent.assignedSize = node.parent.assignedSize.add(node.size);
+            node.parent.descendantCount += node.descendantCount + 1;
+        }
+        Metrics.recordOperation(Operation.RANGE_TREE_BUILD, sortedRanges.size(), created.size(), startTime);
+        return tree;
+    }
+
+    private static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>>
+    boolean isInNestingOrder(R previous, R next) {
+        int result = previous.start().compareTo(next.start());
+        return result < 0 || (result == 0 && previous.end().compareTo(next.end()) >= 0);
+    }
+
+    /**
+     * Adds a range to the tree. The range becomes a child of the most specific range containing it and adopts
+     * the children of that range which it contains.
+     *
+     * @return the node of the added range
+     * @throws IllegalArgumentException if the range partially overlaps with a range of the tree
+     */
+    public Node<C, R> add(R range) {
+        Validate.notNull(range, "A range is required");
+        Node<C, R> parent = findMostSpecificContainingOrRoot(range);
+        List<Node<C, R>> siblings = parent.children;
+
+        int first = firstChildNotStartingBefore(parent, range.start());
+        if (first > 0) {
+            checkNotOverlapping(siblings.get(first - 1).range, range);
+        }
+        int last = first;
+        while (last < siblings.size() && range.contains(siblings.get(last).range)) {
+            last++;
+        }
+        if (last < siblings.size()) {
+            checkNotOverlapping(siblings.get(last).range, range);
+        }
+
+        Node<C, R> node = new Node<C, R>(range, parent, sizeOf(range));
+        List<Node<C, R>> adopted = siblings.subList(first, last);
+        for (Node<C, R> child : adopted) {
+            child.parent = node;
+            node.children.add(child);
+            node.assignedSize = node.assignedSize.add(child.size);
+            node.descendantCount += child.descendantCount + 1;
+        }
+        adopted.clear();
+        siblings.add(first, node);
+
+        parent.assignedSize = parent.assignedSize.add(node.size).subtract(node.assignedSize);
+        for (Node<C, R> ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.descendantCount++;
+        }
+        return node;
+    }
+
+    /**
+     * Removes a range from the tree. The children of the removed range become children of its parent.
+     *
+     * @return <tt>true</tt> if the range was part of the tree
+     */
+    public boolean remove(R range) {
+        Node<C, R> node = find(range);
+        if (node == null) {
+            return false;
+        }
+        Node<C, R> parent = node.parent;
+        int index = parent.children.indexOf(node);
+        parent.children.remove(index);
+        for (Node<C, R> child : node.children) {
+            child.parent = parent;
+        }
+        parent.children.addAll(index, node.children);
+        parent.assignedSize = parent.assignedSize.subtract(node.size).add(node.assignedSize);
+        for (Node<C, R> ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.descendantCount--;
+        }
+        return true;
+    }
+
+    /**
+     * @return the node of the given range, or <tt>null</tt> if the range is not part of the tree. If the range
+     * was added more than once, the node of the most specific occurrence is returned.
+     */
+    public Node<C, R> find(R range) {
+        Node<C, R> node = findMostSpecificContaining(range);
+        return node != null && node.range.isSameRange(range) ? node : null;
+    }
+
+    /**
+     * @return the node of the most specific range that contains (or is equal to) the given range,
+     * or <tt>null</tt> if no range of the tree contains it
+     */
+    public Node<C, R> findMostSpecificContaining(R range) {
+        Node<C, R> node = findMostSpecificContainingOrRoot(range);
+        return node == root ? null : node;
+    }
+
+    private Node<C, R> findMostSpecificContainingOrRoot(R range) {
+        Validate.notNull(range, "A range is required");
+        Node<C, R> node = root;
+        while (true) {
+            int index = firstChildNotStartingBefore(node, range.start());
+            Node<C, R> candidate = null;
+            if (index < node.children.size() && node.children.get(index).range.contains(range)) {
+                candidate = node.children.get(index);
+            } else if (index > 0 && node.children.get(index - 1).range.contains(range)) {
+                candidate = node.children.get(index - 1);
+            }
+            if (candidate == null) {
+                return node;
+            }
+            node = candidate;
+        }
+    }
+
+    private int firstChildNotStartingBefore(Node<C, R> node, C start) {
+        int low = 0;
+        int high = node.children.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (node.children.get(mid).range.start().compareTo(start) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the nodes of the ranges which are not contained in any other range, sorted by start
+     */
+    public List<Node<C, R>> getRoots() {
+        return root.getChildren();
+    }
+
+    /**
+     * @return the total size of the ranges which are not contained in any other range
+     */
+    public BigInteger getAssignedSize() {
+        return root.assignedSize;
+    }
+
+    public int size() {
+        return root.descendantCount;
+    }
+
+    public boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return root.children.toString();
+    }
+
+    private static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>>
+    void checkNotOverlapping(R existing, R range) {
+        if (existing.overlaps(range)) {
+            throw new IllegalArgumentException("Range " + range + " partially overlaps with " + existing);
+        }
+    }
+
+    private static <C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> BigInteger sizeOf(R range) {
+        return range.end().asBigInteger().subtract(range.start().asBigInteger()).add(ONE);
+    }
+
+    public static final class Node<C extends SingleInternetResource<C, R>, R extends InternetResourceRange<C, R>> {
+
+        private final R range;
+        private final BigInteger size;
+        private final List<Node<C, R>> children = new ArrayList<Node<C, R>>();
+        private Node<C, R> parent;
+        private BigInteger assignedSize = ZERO;
+        private int descendantCount;
+
+        private Node(R range, Node<C, R> parent, BigInteger size) {
+            this.range = range;
+            this.parent = parent;
+            this.size = size;
+        }
+
+        public R getRange() {
+            return range;
+        }
+
+        /**
+         * @return the node of the most specific range containing this one, or <tt>null</tt> for a top-level range
+         */
+        public Node<C, R> getParent() {
+            return parent == null || parent.range == null ? null : parent;
+        }
+
+        /**
+         * @return an unmodifiable view of the direct children of this node, sorted by start
+         */
+        public List<Node<C, R>> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        public int getChildCount() {
+            return children.size();
+        }
+
+        public int getDescendantCount() {
+            return descendantCount;
+        }
+
+        /**
+         * @return the total size of the direct children of this node
+         */
+        public BigInteger getAssignedSize() {
+            return assignedSize;
+        }
+
+        /**
+         * @return the size of the part of this range which is not covered by any of its children
+         */
+        public BigInteger getUnassignedSize() {
+            return size.subtract(assignedSize);
+        }
+
+        @Override
+        public String toString() {
+            return children.isEmpty() ? String.valueOf(range) : range + " " + children;
+        }
+    }
+}
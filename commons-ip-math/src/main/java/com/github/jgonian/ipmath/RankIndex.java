@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The ranges of a {@link SortedRangeSet} in arrays, together with the number of resources in the ranges before each
+ * range, so that the rank of a resource and the resource of a rank are found with a binary search.
+ */
+final class RankIndex<C extends Rangeable<C, R>, R extends Range<C, R>> {
+
+    private final ResourceFamily<C, R> family;
+    private final Uint128[] starts;
+    private final Uint128[] ends;
+    private final Uint128[] resourcesBefore;
+    private final BigInteger cardinality;
+
+    /**
+     * @param ranges disjoint ranges sorted by start
+     */
+    RankIndex(Collection<R> ranges) {
+        int size = ranges.size();
+        this.starts = new Uint128[size];
+        this.ends = new Uint128[size];
+        this.resourcesBefore = new Uint128[size];
+        ResourceFamily<C, R> family = null;
+        Uint128 count = Uint128.ZERO;
+        int i = 0;
+        for (R range : ranges) {
+            if (family == null) {
+                family = ResourceFamily.of(range);
+            }
+            starts[i] = family.valueOf(range.start());
+            ends[i] = family.valueOf(range.end());
+            resourcesBefore[i] = count;
+            // wraps around only after the last range, if the set is the whole IPv6 address space
+            count = count.add(ends[i].subtract(starts[i])).add(Uint128.ONE);
+            i++;
+        }
+        this.family = family;
+        this.cardinality = size == 0 ? BigInteger.ZERO : sizeBefore(size - 1).add(sizeOf(size - 1));
+    }
+
+    BigInteger cardinality() {
+        return cardinality;
+    }
+
+    BigInteger rank(C resource) {
+        Validate.notNull(resource, "A resource is required");
+        if (starts.length == 0) {
+            return BigInteger.ZERO;
+        }
+        Uint128 value = family.valueOf(resource);
+        int i = floorIndex(starts, value);
+        if (i < 0) {
+            return BigInteger.ZERO;
+        }
+        if (value.compareTo(ends[i]) <= 0) {
+            return resourcesBefore[i].add(value.subtract(starts[i])).toBigInteger();
+        }
+        return sizeBefore(i).add(sizeOf(i));
+    }
+
+    C select(BigInteger index) {
+        Validate.notNull(index, "An index is required");
+        if (index.signum() < 0 || index.compareTo(cardinality) >= 0) {
+            throw new IllegalArgumentException("Index " + index + " out of range [0, " + cardinality + ")");
+        }
+        Uint128 rank = Uint128.valueOf(index);
+        int i = floorIndex(resourcesBefore, rank);
+        return family.resourceOf(starts[i].add(rank.subtract(resourcesBefore[i])));
+    }
+
+    List<SortedRangeSet<C, R>> partition(int parts) {
+        Validate.isTrue(parts > 0, "The number of parts must be positive");
+        List<SortedRangeSet<C, R>> result = new ArrayList<SortedRangeSet<C, R>>(parts);
+        BigInteger from = BigInteger.ZERO;
+        for (int part = 1; part <= parts; part++) {
+            BigInteger to = cardinality.multiply(BigInteger.valueOf(part)).divide(BigInteger.valueOf(parts));
+            result.add(slice(from, to));
+            from = to;
+        }
+        return result;
+    }
+
+    /**
+     * @return the resources with a rank from <tt>from</tt> (inclusive) to <tt>to</tt> (exclusive)
+     */
+    private SortedRangeSet<C, R> slice(BigInteger from, BigInteger to) {
+        if (from.compareTo(to) >= 0) {
+            return new SortedRangeSet<C, R>();
+        }
+        Uint128 firstRank = Uint128.valueOf(from);
+        Uint128 lastRank = Uint128.valueOf(to.subtract(BigInteger.ONE));
+        int first = floorIndex(resourcesBefore, firstRank);
+        int last = floorIndex(resourcesBefore, lastRank);
+        List<R> ranges = new ArrayList<R>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            Uint128 start = i == first ? starts[i].add(firstRank.subtract(resourcesBefore[i])) : starts[i];
+            Uint128 end = i == last ? starts[i].add(lastRank.subtract(resourcesBefore[i])) : ends[i];
+            ranges.add(family.rangeOf(start, end));
+        }
+        return SortedRangeSet.fromSorted(ranges);
+    }
+
+    private BigInteger sizeBefore(int i) {
+        return resourcesBefore[i].toBigInteger();
+    }
+
+    private BigInteger sizeOf(int i) {
+        return ends[i].subtract(starts[i]).toBigInteger().add(BigInteger.ONE);
+    }
+
+    /**
+     * @return the index of the last value which is not greater than the key, or -1 if there is none
+     */
+    private static int floorIndex(Uint128[] values, Uint128 key) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle].compareTo(key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * Converts the resources and ranges of one type of Internet resources to and from their numeric
+ * {@link Uint128} representation, so that algorithms can be written once for IPv4, IPv6 and ASNs.
+ */
+abstract class ResourceFamily<C extends Rangeable<C, R>, R extends Range<C, R>> {
+
+    static final ResourceFamily<Ipv4, Ipv4Range> IPV4 = new ResourceFamily<Ipv4, Ipv4Range>(Ipv4.NUMBER_OF_BITS) {
+        @Override
+        Uint128 valueOf(Ipv4 resource) {
+            return Uint128.valueOf(resource.value());
+        }
+
+        @Override
+        Ipv4 resourceOf(Uint128 value) {
+            return Ipv4.of(value.low());
+        }
+
+        @Override
+        Ipv4Range rangeOf(Uint128 start, Uint128 end) {
+            return new Ipv4Range(resourceOf(start), resourceOf(end));
+        }
+
+        @Override
+        Ipv4Range parseRange(String text) {
+            return Ipv4Range.parse(text);
+        }
+
+        @Override
+        Ipv4 parseResource(String text) {
+            return Ipv4.parse(text);
+        }
+    };
+
+    static final ResourceFamily<Ipv6, Ipv6Range> IPV6 = new ResourceFamily<Ipv6, Ipv6Range>(Ipv6.NUMBER_OF_BITS) {
+        @Override
+        Uint128 valueOf(Ipv6 resource) {
+            return Uint128.valueOf(resource.value());
+        }
+
+        @Override
+        Ipv6 resourceOf(Uint128 value) {
+            return Ipv6.of(value.toBigInteger());
+        }
+
+        @Override
+        Ipv6Range rangeOf(Uint128 start, Uint128 end) {
+            return new Ipv6Range(resourceOf(start), resourceOf(end));
+        }
+
+        @Override
+        Ipv6Range parseRange(String text) {
+            return Ipv6Range.parse(text);
+        }
+
+        @Override
+        Ipv6 parseResource(String text) {
+            return Ipv6.parse(text);
+        }
+    };
+
+    static final ResourceFamily<Asn, AsnRange> ASN = new ResourceFamily<Asn, AsnRange>(Asn.NUMBER_OF_BITS) {
+        @Override
+        Uint128 valueOf(Asn resource) {
+            return Uint128.valueOf(resource.value());
+        }
+
+        @Override
+        Asn resourceOf(Uint128 value) {
+            return Asn.of(value.low());
+        }
+
+        @Override
+        AsnRange rangeOf(Uint128 start, Uint128 end) {
+            return new AsnRange(resourceOf(start), resourceOf(end));
+        }
+
+        @Override
+        AsnRange parseRange(String text) {
+            return AsnRange.parse(text);
+        }
+
+        @Override
+        Asn parseResource(String text) {
+            return Asn.parse(text);
+        }
+    };
+
+    private final int bitSize;
+
+    private ResourceFamily(int bitSize) {
+        this.bitSize = bitSize;
+    }
+
+    int bitSize() {
+        return bitSize;
+    }
+
+    abstract Uint128 valueOf(C resource);
+
+    abstract C resourceOf(Uint128 value);
+
+    abstract R rangeOf(Uint128 start, Uint128 end);
+
+    abstract R parseRange(String text);
+
+    abstract C parseResource(String text);
+
+    /**
+     * @return the range of the prefix with the given first address and prefix length
+     */
+    R prefixOf(Uint128 start, int prefixLength) {
+        return rangeOf(start, start.or(Uint128.lowMask(bitSize - prefixLength)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <C extends Rangeable<C, R>, R extends Range<C, R>> ResourceFamily<C, R> of(R range) {
+        Validate.notNull(range, "A range is required");
+        if (range instanceof Ipv4Range) {
+            return (ResourceFamily<C, R>) IPV4;
+        } else if (range instanceof Ipv6Range) {
+            return (ResourceFamily<C, R>) IPV6;
+        } else if (range instanceof AsnRange) {
+            return (ResourceFamily<C, R>) ASN;
+        }
+        throw new IllegalArgumentException("Unsupported type of range: " + range.getClass().getName());
+    }
+}
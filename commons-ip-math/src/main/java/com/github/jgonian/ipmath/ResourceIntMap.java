@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A hash map from IPv4 addresses, IPv6 addresses or ASNs to primitive <tt>int</tt> values, e.g. counters, which
+ * stores the keys as numbers. See {@link AbstractResourceMap}.
+ */
+public final class ResourceIntMap<C extends SingleInternetResource<C, ?>> extends AbstractResourceMap<C> {
+
+    public interface EntryConsumer<C> {
+        void accept(C key, int value);
+    }
+
+    ResourceIntMap(ResourceFamily<C, ?> family, int expectedSize, Storage storage) {
+        super(family, expectedSize, storage, 4);
+    }
+
+    public static ResourceIntMap<Ipv4> forIpv4(int expectedSize) {
+        return forIpv4(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceIntMap<Ipv4> forIpv4(int expectedSize, Storage storage) {
+        return new ResourceIntMap<Ipv4>(ResourceFamily.IPV4, expectedSize, storage);
+    }
+
+    public static ResourceIntMap<Ipv6> forIpv6(int expectedSize) {
+        return forIpv6(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceIntMap<Ipv6> forIpv6(int expectedSize, Storage storage) {
+        return new ResourceIntMap<Ipv6>(ResourceFamily.IPV6, expectedSize, storage);
+    }
+
+    public static ResourceIntMap<Asn> forAsn(int expectedSize) {
+        return forAsn(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceIntMap<Asn> forAsn(int expectedSize, Storage storage) {
+        return new ResourceIntMap<Asn>(ResourceFamily.ASN, expectedSize, storage);
+    }
+
+    /**
+     * @return the value of the key, or the default value if the map does not contain the key
+     */
+    public int get(C key, int defaultValue) {
+        int slot = slotOf(key);
+        return slot < 0 ? defaultValue : getIntValue(slot);
+    }
+
+    public void put(C key, int value) {
+        putIntValue(claimSlot(key), value);
+    }
+
+    /**
+     * Adds to the value of the key, which starts at zero if the map does not contain the key yet.
+     *
+     * @return the new value
+     */
+    public int addTo(C key, int increment) {
+        return addToSlot(claimSlot(key), increment);
+    }
+
+    /**
+     * Looks up an IPv4 address or ASN as an unsigned 32-bit number, without creating a key object.
+     *
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public int get(int key, int defaultValue) {
+        int slot = slotOf(key);
+        return slot < 0 ? defaultValue : getIntValue(slot);
+    }
+
+    /**
+     * Looks up a key given as its upper and lower 64 bits, without creating a key object.
+     *
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public int get(long high, long low, int defaultValue) {
+        int slot = slotOf(high, low);
+        return slot < 0 ? defaultValue : getIntValue(slot);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public void put(int key, int value) {
+        putIntValue(claimSlot(key), value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public void put(long high, long low, int value) {
+        putIntValue(claimSlot(high, low), value);
+    }
+
+    /**
+     * Adds to the value of an IPv4 address or ASN given as an unsigned 32-bit number, without creating a key object.
+     *
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public int addTo(int key, int increment) {
+        return addToSlot(claimSlot(key), increment);
+    }
+
+    /**
+     * Adds to the value of a key given as its upper and lower 64 bits, without creating a key object.
+     *
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public int addTo(long high, long low, int increment) {
+        return addToSlot(claimSlot(high, low), increment);
+    }
+
+    /**
+     * Passes the entries to the consumer, in no particular order. The consumer must not modify the map.
+     */
+    public void forEach(EntryConsumer<? super C> consumer) {
+        for (int slot = nextOccupiedSlot(0); slot >= 0; slot = nextOccupiedSlot(slot + 1)) {
+            consumer.accept(keyAt(slot), getIntValue(slot));
+        }
+    }
+
+    private int addToSlot(int slot, int increment) {
+        int result = getIntValue(slot) + increment;
+        putIntValue(slot, result);
+        return result;
+    }
+}
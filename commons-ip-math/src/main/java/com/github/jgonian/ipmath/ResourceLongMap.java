@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+/**
+ * A hash map from IPv4 addresses, IPv6 addresses or ASNs to primitive <tt>long</tt> values, e.g. counters, which
+ * stores the keys as numbers. See {@link AbstractResourceMap}.
+ */
+public final class ResourceLongMap<C extends SingleInternetResource<C, ?>> extends AbstractResourceMap<C> {
+
+    public interface EntryConsumer<C> {
+        void accept(C key, long value);
+    }
+
+    ResourceLongMap(ResourceFamily<C, ?> family, int expectedSize, Storage storage) {
+        super(family, expectedSize, storage, 8);
+    }
+
+    public static ResourceLongMap<Ipv4> forIpv4(int expectedSize) {
+        return forIpv4(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceLongMap<Ipv4> forIpv4(int expectedSize, Storage storage) {
+        return new ResourceLongMap<Ipv4>(ResourceFamily.IPV4, expectedSize, storage);
+    }
+
+    public static ResourceLongMap<Ipv6> forIpv6(int expectedSize) {
+        return forIpv6(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceLongMap<Ipv6> forIpv6(int expectedSize, Storage storage) {
+        return new ResourceLongMap<Ipv6>(ResourceFamily.IPV6, expectedSize, storage);
+    }
+
+    public static ResourceLongMap<Asn> forAsn(int expectedSize) {
+        return forAsn(expectedSize, Storage.HEAP);
+    }
+
+    public static ResourceLongMap<Asn> forAsn(int expectedSize, Storage storage) {
+        return new ResourceLongMap<Asn>(ResourceFamily.ASN, expectedSize, storage);
+    }
+
+    /**
+     * @return the value of the key, or the default value if the map does not contain the key
+     */
+    public long get(C key, long defaultValue) {
+        int slot = slotOf(key);
+        return slot < 0 ? defaultValue : getLongValue(slot);
+    }
+
+    public void put(C key, long value) {
+        putLongValue(claimSlot(key), value);
+    }
+
+    /**
+     * Adds to the value of the key, which starts at zero if the map does not contain the key yet.
+     *
+     * @return the new value
+     */
+    public long addTo(C key, long increment) {
+        return addToSlot(claimSlot(key), increment);
+    }
+
+    /**
+     * Looks up an IPv4 address or ASN as an unsigned 32-bit number, without creating a key object.
+     *
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public long get(int key, long defaultValue) {
+        int slot = slotOf(key);
+        return slot < 0 ? defaultValue : getLongValue(slot);
+    }
+
+    /**
+     * Looks up a key given as its upper and lower 64 bits, without creating a key object.
+     *
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public long get(long high, long low, long defaultValue) {
+        int slot = slotOf(high, low);
+        return slot < 0 ? defaultValue : getLongValue(slot);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public void put(int key, long value) {
+        putLongValue(claimSlot(key), value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public void put(long high, long low, long value) {
+        putLongValue(claimSlot(high, low), value);
+    }
+
+    /**
+     * Adds to the value of an IPv4 address or ASN given as an unsigned 32-bit number, without creating a key object.
+     *
+     * @throws IllegalArgumentException if this map has IPv6 keys
+     */
+    public long addTo(int key, long increment) {
+        return addToSlot(claimSlot(key), increment);
+    }
+
+    /**
+     * Adds to the value of a key given as its upper and lower 64 bits, without creating a key object.
+     *
+     * @throws IllegalArgumentException if the key is too large for this map
+     */
+    public long addTo(long high, long low, long increment) {
+        return addToSlot(claimSlot(high, low), increment);
+    }
+
+    /**
+     * Passes the entries to the consumer, in no particular order. The consumer must not modify the map.
+     */
+    public void forEach(EntryConsumer<? super C> consumer) {
+        for (int slot = nextOccupiedSlot(0); slot >= 0; slot = nextOccupiedSlot(slot + 1)) {
+            consumer.accept(keyAt(slot), getLongValue(slot));
+        }
+    }
+
+    private long addToSlot(int slot, long increment) {
+        long result = getLongValue(slot) + increment;
+        putLongValue(slot, result);
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-size slots of a hash table, stored in byte buffers on or off the Java heap. The buffers are split into
+ * segments, so that tables with more than 2 GB of slots can be allocated.
+ */
+final class SlotStorage {
+
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SLOTS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SLOTS_PER_SEGMENT - 1;
+
+    private final ByteBuffer[] segments;
+    private final int slotSize;
+
+    /**
+     * @param slotSize the size of a slot in bytes, a multiple of 4
+     * @param direct whether to allocate the slots outside of the Java heap
+     */
+    SlotStorage(int slotCount, int slotSize, boolean direct) {
+        Validate.isTrue(slotSize > 0 && slotSize % 4 == 0, "The slot size must be a positive multiple of 4");
+        this.slotSize = slotSize;
+        this.segments = new ByteBuffer[(int) (((long) slotCount + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            int slots = Math.min(SLOTS_PER_SEGMENT, slotCount - i * SLOTS_PER_SEGMENT);
+            ByteBuffer segment = direct ? ByteBuffer.allocateDirect(slots * slotSize) : ByteBuffer.allocate(slots * slotSize);
+            segments[i] = segment.order(ByteOrder.nativeOrder());
+        }
+    }
+
+    int getInt(int slot, int offset) {
+        return segments[slot >>> SEGMENT_SHIFT].getInt((slot & SEGMENT_MASK) * slotSize + offset);
+    }
+
+    void putInt(int slot, int offset, int value) {
+        segments[slot >>> SEGMENT_SHIFT].putInt((slot & SEGMENT_MASK) * slotSize + offset, value);
+    }
+
+    long getLong(int slot, int offset) {
+        return segments[slot >>> SEGMENT_SHIFT].getLong((slot & SEGMENT_MASK) * slotSize + offset);
+    }
+
+    void putLong(int slot, int offset, long value) {
+        segments[slot >>> SEGMENT_SHIFT].putLong((slot & SEGMENT_MASK) * slotSize + offset, value);
+    }
+
+    /**
+     * Copies a slot of this storage to a slot of the target storage, which has the same slot size.
+     */
+    void copy(int from, SlotStorage target, int to) {
+        for (int offset = 0; offset < slotSize; offset += 4) {
+            target.putInt(to, offset, getInt(from, offset));
+        }
+    }
+
+    void clear(int slot) {
+        for (int offset = 0; offset < slotSize; offset += 4) {
+            putInt(slot, offset, 0);
+        }
+    }
+
+    long sizeInBytes() {
+        long result = 0;
+        for (ByteBuffer segment : segments) {
+            result += segment.capacity();
+        }
+        return result;
+    }
+}
@@ -23,18 +23,25 @@
  */
 package com.github.jgonian.ipmath;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
 
 public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> implements Iterable<R> {
 
     private final NavigableSet<R> set;
+    private RankIndex<C, R> rankIndex;
+    private int modificationCount;
 
     /**
      * Creates an instance of {@link SortedRangeSet} with a default
@@ -46,56 +53,133 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
         set = new TreeSet<R>(StartAndSizeComparator.<C, R>get());
     }
 
+    /**
+     * Creates a set from ranges sorted by start, merging overlapping and consecutive ranges in a single pass
+     * instead of looking up the neighbours of every range. Inserting the merged ranges still takes
+     * <tt>O(n log n)</tt>.
+     *
+     * @throws IllegalArgumentException if the ranges are not sorted by start
+     */
+    public static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> fromSorted(Iterable<R> sortedRanges) {
+        SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
+        R pending = null;
+        for (R range : sortedRanges) {
+            Validate.notNull(range, "null ranges are not allowed");
+            if (pending == null) {
+                pending = range;
+            } else if (range.start().compareTo(pending.start()) < 0) {
+                throw new IllegalArgumentException("Ranges are not sorted: " + pending + " is followed by " + range);
+            } else if (pending.overlaps(range) || pending.isConsecutive(range)) {
+                pending = pending.merge(range);
+            } else {
+                result.set.add(pending);
+                pending = range;
+            }
+        }
+        if (pending != null) {
+            result.set.add(pending);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a set from several lists of ranges which are each sorted by start, e.g. the results of parsing the
+     * parts of a file in parallel, with a k-way merge of the lists.
+     *
+     * @throws IllegalArgumentException if one of the lists is not sorted by start
+     */
+    public static <C extends Rangeable<C, R>, R extends Range<C, R>>
+    SortedRangeSet<C, R> fromSortedRuns(Collection<? extends Iterable<R>> sortedRuns) {
+        final List<Iterator<R>> runs = new ArrayList<Iterator<R>>(sortedRuns.size());
+        for (Iterable<R> run : sortedRuns) {
+            runs.add(run.iterator());
+        }
+        return fromSorted(new Iterable<R>() {
+            @Override
+            public Iterator<R> iterator() {
+                return new MergingIterator<C, R>(runs);
+            }
+        });
+    }
+
     public void addAll(SortedRangeSet<C, R> ranges) {
+        long startTime = Metrics.startOperationTimer();
         for (R range : ranges) {
             add(range);
         }
+        Metrics.recordOperation(Operation.RANGE_SET_ADD_ALL, ranges.size(), set.size(), startTime);
     }
 
     public void addAll(Collection<R> ranges) {
+        long startTime = Metrics.startOperationTimer();
         for (R range : ranges) {
             add(range);
         }
+        Metrics.recordOperation(Operation.RANGE_SET_ADD_ALL, ranges.size(), set.size(), startTime);
     }
 
     public void add(R range) {
-        if (contains(range)) {
-            return;
+        long startTime = Metrics.startTimer();
+        if (!containsRange(range)) {
+            modified();
+            Metrics.record(Metric.RANGE_SET_MERGE_DEPTH, freeAndMergeConsecutive(range));
         }
-        freeAndMergeConsecutive(range);
+        Metrics.recordDuration(Metric.RANGE_SET_ADD_NANOS, startTime);
+        Metrics.record(Metric.RANGE_SET_SIZE, set.size());
     }
 
-    private void freeAndMergeConsecutive(R range) {
+    /**
+     * @return the depth of the recursive merges
+     */
+    private int freeAndMergeConsecutive(R range) {
         R rightSide = set.higher(range);
         R leftSide = set.lower(range);
+        int mergeDepth = 0;
         if (!range.overlaps(rightSide) && !range.overlaps(leftSide)) {
             set.add(range);
         }
         if (range.overlaps(rightSide) || range.isConsecutive(rightSide)) {
             R merged = range.merge(rightSide);
-            remove(rightSide);
-            freeAndMergeConsecutive(merged);
+            removeRange(rightSide);
+            mergeDepth = 1 + freeAndMergeConsecutive(merged);
         }
         if (range.overlaps(leftSide) || range.isConsecutive(leftSide)) {
             R merged = range.merge(leftSide);
-            remove(leftSide);
-            freeAndMergeConsecutive(merged);
+            removeRange(leftSide);
+            mergeDepth = Math.max(mergeDepth, 1 + freeAndMergeConsecutive(merged));
         }
+        return mergeDepth;
     }
 
     public void removeAll(SortedRangeSet<C, R> ranges) {
+        long startTime = Metrics.startOperationTimer();
         for (R range : ranges) {
             remove(range);
         }
+        Metrics.recordOperation(Operation.RANGE_SET_REMOVE_ALL, ranges.size(), set.size(), startTime);
     }
 
     public void removeAll(Collection<R> ranges) {
+        long startTime = Metrics.startOperationTimer();
         for (R range : ranges) {
             remove(range);
         }
+        Metrics.recordOperation(Operation.RANGE_SET_REMOVE_ALL, ranges.size(), set.size(), startTime);
     }
 
     public boolean remove(R range) {
+        long startTime = Metrics.startTimer();
+        boolean removed = removeRange(range);
+        if (removed) {
+            modified();
+        }
+        Metrics.recordDuration(Metric.RANGE_SET_REMOVE_NANOS, startTime);
+        Metrics.record(Metric.RANGE_SET_SIZE, set.size());
+        return removed;
+    }
+
+    private boolean removeRange(R range) {
         R leftSide = set.floor(range);
         R rightSide = set.ceiling(range);
         boolean removed = false;
@@ -120,6 +204,7 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
     }
 
     public SortedRangeSet<C, R> intersection(SortedRangeSet<C, R> other) {
+        long startTime = Metrics.startTimer();
         SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
         for (R thisRange : set) {
             R leftSide = other.set.floor(thisRange);
@@ -131,6 +216,7 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
                 result.add(thisRange.intersection(rightSide));
             }
         }
+        Metrics.recordDuration(Metric.RANGE_SET_INTERSECTION_NANOS, startTime);
         return result;
     }
 
@@ -152,13 +238,21 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
     }
 
     public boolean contains(R range) {
+        Metrics.increment(Metric.RANGE_SET_LOOKUPS);
+        return containsRange(range);
+    }
+
+    private boolean containsRange(R range) {
         R leftmost = set.floor(range);
         R rightmost = set.ceiling(range);
         return (leftmost != null && leftmost.contains(range)) || (rightmost != null && rightmost.contains(range));
     }
 
     public void clear() {
-        set.clear();
+        if (!set.isEmpty()) {
+            set.clear();
+            modified();
+        }
     }
 
     public boolean isEmpty() {
@@ -191,16 +285,92 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
     }
 
     public R floor(R range) {
+        Metrics.increment(Metric.RANGE_SET_LOOKUPS);
         return set.floor(range);
     }
 
     public R ceiling(R range) {
+        Metrics.increment(Metric.RANGE_SET_LOOKUPS);
         return set.ceiling(range);
     }
 
+    /**
+     * @return the number of resources in the ranges of this set
+     * @throws IllegalArgumentException if this is not a set of Internet resource ranges
+     */
+    public BigInteger cardinality() {
+        return rankIndex().cardinality();
+    }
+
+    /**
+     * Returns the number of resources of this set which are lower than the given resource, i.e. the index of the
+     * resource among all resources of this set if it is one of them. This and the other rank based methods take
+     * <tt>O(log n)</tt>, after an <tt>O(n)</tt> indexing of the ranges when first called after a change.
+     *
+     * @throws IllegalArgumentException if this is not a set of Internet resource ranges
+     */
+    public BigInteger rank(C resource) {
+        return rankIndex().rank(resource);
+    }
+
+    /**
+     * @return the resource with the given index among all resources of this set, the inverse of {@link #rank}
+     * @throws IllegalArgumentException if the index is not lower than the {@link #cardinality()} or if this is not
+     * a set of Internet resource ranges
+     */
+    public C select(BigInteger index) {
+        return rankIndex().select(index);
+    }
+
+    /**
+     * Splits this set into subsets with the same number of resources, give or take one, e.g. to share work among
+     * workers. The subsets are in order: all resources of a subset are lower than those of the next one.
+     *
+     * @throws IllegalArgumentException if this is not a set of Internet resource ranges
+     */
+    public List<SortedRangeSet<C, R>> partition(int parts) {
+        return rankIndex().partition(parts);
+    }
+
+    private void modified() {
+        rankIndex = null;
+        modificationCount++;
+    }
+
+    /**
+     * @return a number which changes whenever the ranges of this set change, for structures derived from the set
+     */
+    int modificationCount() {
+        return modificationCount;
+    }
+
+    private RankIndex<C, R> rankIndex() {
+        if (rankIndex == null) {
+            rankIndex = new RankIndex<C, R>(set);
+        }
+        return rankIndex;
+    }
+
     @Override
     public Iterator<R> iterator() {
-        return set.iterator();
+        final Iterator<R> iterator = set.iterator();
+        return new Iterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                modified();
+            }
+        };
     }
 
     @Override
@@ -208,4 +378,68 @@ public class SortedRangeSet<C extends Rangeable<C, R>, R extends Range<C, R>> im
         return set.toString();
     }
 
+    /**
+     * Merges sorted iterators, taking the next range from the iterator with the lowest current range.
+     */
+    private static final class MergingIterator<C extends Rangeable<C, R>, R extends Range<C, R>>
+            implements Iterator<R> {
+
+        private final PriorityQueue<Run<R>> queue;
+
+        MergingIterator(List<Iterator<R>> runs) {
+            final Comparator<R> comparator = StartAndSizeComparator.get();
+            this.queue = new PriorityQueue<Run<R>>(Math.max(1, runs.size()), new Comparator<Run<R>>() {
+                @Override
+                public int compare(Run<R> left, Run<R> right) {
+                    return comparator.compare(left.head, right.head);
+                }
+            });
+            for (Iterator<R> run : runs) {
+                if (run.hasNext()) {
+                    queue.add(new Run<R>(run));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public R next() {
+            Run<R> run = queue.poll();
+            if (run == null) {
+                throw new NoSuchElementException();
+            }
+            R result = run.head;
+            if (run.advance()) {
+                queue.add(run);
+            }
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Run<R> {
+        private final Iterator<R> iterator;
+        private R head;
+
+        Run(Iterator<R> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
 }
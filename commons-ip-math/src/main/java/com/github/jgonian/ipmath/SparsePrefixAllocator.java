@@ -0,0 +1,186 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A stateful allocator which places prefixes sparsely, as far apart from each other as possible, so that they can
+ * grow later without renumbering.
+ * <p>
+ * Each allocation bisects the largest free gap: the prefix is placed at the centre of the largest free prefix,
+ * the lowest one if there are several. A gap is only used whole when it is exactly as large as the allocation
+ * with its growth room. The gaps are the free prefixes of a {@link PrefixAllocator}, which are indexed by size
+ * and alignment, so an allocation takes <tt>O(log n)</tt> per prefix length it touches.
+ * <p>
+ * In addition, a growth room can be configured per prefix length. An allocation of a /L with a growth room of
+ * <tt>g</tt> bits reserves the whole /(L-g) that starts with it, so that it can later {@link #grow} up to that
+ * size. If no gap is that large, the largest gap is reserved instead.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class SparsePrefixAllocator<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> {
+
+    private final ResourceFamily<C, R> family;
+    private final int bitSize;
+    private final PrefixAllocator<C, R> freeSpace;
+    private final int[] growthRoomByPrefixLength;
+    private final Map<Uint128, Reservation> reservations = new HashMap<Uint128, Reservation>();
+
+    SparsePrefixAllocator(ResourceFamily<C, R> family, Iterable<R> freeRanges) {
+        this.family = family;
+        this.bitSize = family.bitSize();
+        this.freeSpace = new PrefixAllocator<C, R>(family, freeRanges);
+        this.growthRoomByPrefixLength = new int[bitSize + 1];
+    }
+
+    public static SparsePrefixAllocator<Ipv4, Ipv4Range> forIpv4(Iterable<Ipv4Range> freeRanges) {
+        return new SparsePrefixAllocator<Ipv4, Ipv4Range>(ResourceFamily.IPV4, freeRanges);
+    }
+
+    public static SparsePrefixAllocator<Ipv6, Ipv6Range> forIpv6(Iterable<Ipv6Range> freeRanges) {
+        return new SparsePrefixAllocator<Ipv6, Ipv6Range>(ResourceFamily.IPV6, freeRanges);
+    }
+
+    /**
+     * Sets the number of bits by which future allocations of the given prefix length should be able to grow.
+     */
+    public void setGrowthRoom(int prefixLength, int bits) {
+        Validate.checkRange(prefixLength, 0, bitSize);
+        Validate.checkRange(bits, 0, prefixLength);
+        growthRoomByPrefixLength[prefixLength] = bits;
+    }
+
+    public int getGrowthRoom(int prefixLength) {
+        Validate.checkRange(prefixLength, 0, bitSize);
+        return growthRoomByPrefixLength[prefixLength];
+    }
+
+    /**
+     * Allocates a prefix of the given length in the centre of the largest free gap, together with its growth room.
+     *
+     * @return the allocated prefix, or <tt>null</tt> if there is no free prefix large enough
+     */
+    public R allocatePrefixOrNull(int prefixLength) {
+        Validate.checkRange(prefixLength, 0, bitSize);
+        int gapPrefixLength = freeSpace.largestFreePrefixLength();
+        if (gapPrefixLength < 0 || gapPrefixLength > prefixLength) {
+            return null;
+        }
+        int reservedPrefixLength = Math.max(gapPrefixLength, prefixLength - growthRoomByPrefixLength[prefixLength]);
+        Uint128 gapStart = freeSpace.firstFreePrefix(gapPrefixLength);
+        Uint128 start = reservedPrefixLength == gapPrefixLength
+                ? gapStart
+                : gapStart.or(Uint128.powerOfTwo(bitSize - gapPrefixLength - 1));
+        freeSpace.allocateWithin(gapStart, gapPrefixLength, start, reservedPrefixLength);
+        reservations.put(start, new Reservation(prefixLength, reservedPrefixLength));
+        return family.prefixOf(start, prefixLength);
+    }
+
+    /**
+     * Grows an allocated prefix within its reserved growth room.
+     *
+     * @return the grown prefix, which starts with the given prefix
+     * @throws IllegalArgumentException if the prefix was not allocated by this allocator or the new prefix length
+     *                                  is not shorter than the current one or exceeds its growth room
+     */
+    public R grow(R allocated, int newPrefixLength) {
+        Reservation reservation = findReservation(allocated);
+        if (newPrefixLength < reservation.reservedPrefixLength || newPrefixLength >= reservation.prefixLength) {
+            throw new IllegalArgumentException("Cannot grow " + allocated + " to /" + newPrefixLength
+                    + ", the prefix length must be in [" + reservation.reservedPrefixLength + ".."
+                    + (reservation.prefixLength - 1) + "]");
+        }
+        reservation.prefixLength = newPrefixLength;
+        return family.prefixOf(family.valueOf(allocated.start()), newPrefixLength);
+    }
+
+    /**
+     * Returns an allocated prefix to the free space, together with its growth room.
+     *
+     * @throws IllegalArgumentException if the prefix was not allocated by this allocator
+     */
+    public void release(R allocated) {
+        Reservation reservation = findReservation(allocated);
+        Uint128 start = family.valueOf(allocated.start());
+        reservations.remove(start);
+        freeSpace.release(family.prefixOf(start, reservation.reservedPrefixLength));
+    }
+
+    private Reservation findReservation(R allocated) {
+        Validate.notNull(allocated, "An allocated prefix is required");
+        Uint128 start = family.valueOf(allocated.start());
+        Reservation reservation = reservations.get(start);
+        if (reservation == null || !family.prefixOf(start, reservation.prefixLength).equals(allocated)) {
+            throw new IllegalArgumentException(allocated + " is not allocated");
+        }
+        return reservation;
+    }
+
+    /**
+     * @return the prefix reserved for the growth of an allocated prefix, which includes the prefix itself
+     */
+    public R getReservation(R allocated) {
+        Reservation reservation = findReservation(allocated);
+        return family.prefixOf(family.valueOf(allocated.start()), reservation.reservedPrefixLength);
+    }
+
+    public SortedRangeSet<C, R> getFreeSpace() {
+        return freeSpace.getFreeSpace();
+    }
+
+    /**
+     * @return the space which is reserved for growth but not allocated
+     */
+    public SortedRangeSet<C, R> getReservedSpace() {
+        SortedRangeSet<C, R> result = new SortedRangeSet<C, R>();
+        for (Map.Entry<Uint128, Reservation> entry : reservations.entrySet()) {
+            Reservation reservation = entry.getValue();
+            if (reservation.reservedPrefixLength < reservation.prefixLength) {
+                Uint128 start = entry.getKey();
+                Uint128 allocatedEnd = start.or(Uint128.lowMask(bitSize - reservation.prefixLength));
+                Uint128 reservedEnd = start.or(Uint128.lowMask(bitSize - reservation.reservedPrefixLength));
+                result.add(family.rangeOf(allocatedEnd.add(Uint128.ONE), reservedEnd));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SparsePrefixAllocator{free=" + freeSpace + ", growthRoom=" + Arrays.toString(growthRoomByPrefixLength) + '}';
+    }
+
+    private static final class Reservation {
+        private int prefixLength;
+        private final int reservedPrefixLength;
+
+        private Reservation(int prefixLength, int reservedPrefixLength) {
+            this.prefixLength = prefixLength;
+            this.reservedPrefixLength = reservedPrefixLength;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.util.Collection;
+
+/**
+ * Finds the prefix in the centre of the largest free block, where the free blocks are the prefixes that the given
+ * ranges split into. This places prefixes as far apart from each other as possible, so that they can grow later.
+ * See {@link SparsePrefixAllocator} for an indexed, stateful version of this strategy.
+ */
+public class SparsePrefixFinder<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> extends PrefixFinder<C, R> {
+
+    public static <C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> SparsePrefixFinder<C, R> newInstance() {
+        return new SparsePrefixFinder<C, R>();
+    }
+
+    private SparsePrefixFinder() {
+        super(new SparseStrategy<C, R>());
+    }
+
+    private static class SparseStrategy<C extends AbstractIp<C, R>, R extends AbstractIpRange<C, R>> implements Strategy<C, R> {
+
+        @Override
+        public R findPrefixOrNull(int prefixLength, Collection<R> ranges) {
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            final ResourceFamily<C, R> family = ResourceFamily.of(ranges.iterator().next());
+            Validate.checkRange(prefixLength, 0, family.bitSize());
+            final int desiredExponent = family.bitSize() - prefixLength;
+            Uint128 foundBlock = null;
+            int foundExponent = -1;
+
+            for (R freeBlock : ranges) {
+                Uint128 start = family.valueOf(freeBlock.start());
+                final Uint128 end = family.valueOf(freeBlock.end());
+                while (true) {
+                    final int exponent = Uint128.largestBlockExponent(start, end);
+                    final Uint128 blockEnd = start.or(Uint128.lowMask(exponent));
+                    if (exponent > foundExponent) {
+                        foundBlock = start;
+                        foundExponent = exponent;
+                    }
+                    if (blockEnd.equals(end)) {
+                        break;
+                    }
+                    start = blockEnd.add(Uint128.ONE);
+                }
+            }
+            if (foundExponent < desiredExponent) {
+                return null;
+            } else if (foundExponent == desiredExponent) {
+                return family.prefixOf(foundBlock, prefixLength);
+            }
+            return family.prefixOf(foundBlock.or(Uint128.powerOfTwo(foundExponent - 1)), prefixLength);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import java.math.BigInteger;
+
+/**
+ * An unsigned 128-bit integer backed by two longs, used internally to do address arithmetic on all resource
+ * types without going through {@link BigInteger}. Arithmetic wraps around modulo 2<sup>128</sup>.
+ */
+final class Uint128 implements Comparable<Uint128> {
+
+    static final int NUMBER_OF_BITS = 128;
+    static final Uint128 ZERO = new Uint128(0, 0);
+    static final Uint128 ONE = new Uint128(0, 1);
+    static final Uint128 MAX_VALUE = new Uint128(-1L, -1L);
+
+    private static final long LONG_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    private final long high;
+    private final long low;
+
+    private Uint128(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    static Uint128 valueOf(long high, long low) {
+        return new Uint128(high, low);
+    }
+
+    static Uint128 valueOf(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        return new Uint128(0, value);
+    }
+
+    static Uint128 valueOf(BigInteger value) {
+        if (value.signum() < 0 || value.bitLength() > NUMBER_OF_BITS) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        return new Uint128(value.shiftRight(64).longValue(), value.longValue());
+    }
+
+    /**
+     * @return 2<sup>exponent</sup>, for an exponent between 0 and 127
+     */
+    static Uint128 powerOfTwo(int exponent) {
+        return exponent < 64 ? new Uint128(0, 1L << exponent) : new Uint128(1L << (exponent - 64), 0);
+    }
+
+    /**
+     * @return a value with the lowest <tt>bits</tt> bits set, for a number of bits between 0 and 128
+     */
+    static Uint128 lowMask(int bits) {
+        if (bits == 0) {
+            return ZERO;
+        } else if (bits <= 64) {
+            return new Uint128(0, LONG_MASK >>> (64 - bits));
+        } else {
+            return new Uint128(LONG_MASK >>> (128 - bits), LONG_MASK);
+        }
+    }
+
+    long high() {
+        return high;
+    }
+
+    long low() {
+        return low;
+    }
+
+    BigInteger toBigInteger() {
+        BigInteger result = toUnsignedBigInteger(high).shiftLeft(64);
+        return result.or(toUnsignedBigInteger(low));
+    }
+
+    private static BigInteger toUnsignedBigInteger(long value) {
+        BigInteger result = BigInteger.valueOf(value & Long.MAX_VALUE);
+        return value < 0 ? result.setBit(63) : result;
+    }
+
+    Uint128 add(Uint128 other) {
+        long sumLow = low + other.low;
+        long carry = Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0;
+        return new Uint128(high + other.high + carry, sumLow);
+    }
+
+    Uint128 subtract(Uint128 other) {
+        long differenceLow = low - other.low;
+        long borrow = Long.compareUnsigned(low, other.low) < 0 ? 1 : 0;
+        return new Uint128(high - other.high - borrow, differenceLow);
+    }
+
+    Uint128 and(Uint128 other) {
+        return new Uint128(high & other.high, low & other.low);
+    }
+
+    Uint128 or(Uint128 other) {
+        return new Uint128(high | other.high, low | other.low);
+    }
+
+    Uint128 xor(Uint128 other) {
+        return new Uint128(high ^ other.high, low ^ other.low);
+    }
+
+    Uint128 not() {
+        return new Uint128(~high, ~low);
+    }
+
+    Uint128 shiftRight(int bits) {
+        if (bits == 0) {
+            return this;
+        } else if (bits < 64) {
+            return new Uint128(high >>> bits, (low >>> bits) | (high << (64 - bits)));
+        } else if (bits < 128) {
+            return new Uint128(0, high >>> (bits - 64));
+        } else {
+            return ZERO;
+        }
+    }
+
+    Uint128 shiftLeft(int bits) {
+        if (bits == 0) {
+            return this;
+        } else if (bits < 64) {
+            return new Uint128((high << bits) | (low >>> (64 - bits)), low << bits);
+        } else if (bits < 128) {
+            return new Uint128(low << (bits - 64), 0);
+        } else {
+            return ZERO;
+        }
+    }
+
+    boolean isZero() {
+        return high == 0 && low == 0;
+    }
+
+    /**
+     * @return the number of trailing zero bits, or 128 for zero
+     */
+    int numberOfTrailingZeros() {
+        return low != 0 ? Long.numberOfTrailingZeros(low) : 64 + Long.numberOfTrailingZeros(high);
+    }
+
+    /**
+     * @return the number of bits of the minimal two's-complement representation, i.e. the position of the
+     * highest set bit plus one, or 0 for zero
+     */
+    int bitLength() {
+        return high != 0 ? 128 - Long.numberOfLeadingZeros(high) : 64 - Long.numberOfLeadingZeros(low);
+    }
+
+    /**
+     * @return the exponent of the largest power of two block which starts at <tt>start</tt> and does not
+     * extend beyond <tt>end</tt>, i.e. the size of the next prefix when splitting [start..end] into prefixes
+     */
+    static int largestBlockExponent(Uint128 start, Uint128 end) {
+        Uint128 remaining = end.subtract(start);
+        int sizeExponent = remaining.equals(MAX_VALUE) ? NUMBER_OF_BITS : remaining.add(ONE).bitLength() - 1;
+        return Math.min(start.numberOfTrailingZeros(), sizeExponent);
+    }
+
+    /**
+     * @return the start of the first block of size 2<sup>exponent</sup> aligned to its size which lies within
+     * [start..end], or <tt>null</tt> if there is no such block
+     */
+    static Uint128 firstAlignedBlockOrNull(Uint128 start, Uint128 end, int exponent) {
+        Uint128 mask = lowMask(exponent);
+        Uint128 alignedStart = start.add(mask).and(mask.not());
+        if (alignedStart.compareTo(start) < 0 || alignedStart.or(mask).compareTo(end) > 0) {
+            return null;
+        }
+        return alignedStart;
+    }
+
+    @Override
+    public int compareTo(Uint128 other) {
+        int result = Long.compareUnsigned(high, other.high);
+        return result != 0 ? result : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Uint128)) {
+            return false;
+        }
+        Uint128 that = (Uint128) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = high * 31 + low;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toBigInteger().toString();
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class AddressListLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> errors = new ArrayList<String>();
+
+    private final AddressListLoader.ErrorSink errorSink = new AddressListLoader.ErrorSink() {
+        @Override
+        public void malformedLine(Path file, long lineNumber, String line, IllegalArgumentException error) {
+            assertNotNull(error);
+            errors.add(file.getFileName() + ":" + lineNumber + ":" + line);
+        }
+    };
+
+    @Test
+    public void shouldLoadAddressesPrefixesAndRanges() throws IOException {
+        Path file = write("blocklist", "# blocklist\n"
+                + "10.0.0.1\n"
+                + "  10.0.0.2\t\r\n"
+                + "\n"
+                + "10.0.0.4/30\n"
+                + "10.0.1.0-10.0.1.10\n"
+                + "192.168.0.0/16\n"
+                + "192.168.1.0/24\n");
+
+        SortedRangeSet<Ipv4, Ipv4Range> result = AddressListLoader.forIpv4(errorSink).load(file);
+
+        assertEquals(set("10.0.0.1-10.0.0.2", "10.0.0.4/30", "10.0.1.0-10.0.1.10", "192.168.0.0/16"), result);
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void shouldReportMalformedLinesToErrorSink() throws IOException {
+        Path first = write("first", "10.0.0.1\n10.0.0.256\n10.0.0.1/24\n10.0.0.0/33\n::1\n10.0.0.0/ 8\n10.0.0.3 # comment\n");
+        Path second = write("second", "10.0.0.5\n010.0.0.6");
+
+        SortedRangeSet<Ipv4, Ipv4Range> result = AddressListLoader.forIpv4(errorSink).load(first, second);
+
+        assertEquals(set("10.0.0.1/32", "10.0.0.5/32"), result);
+        assertEquals(Arrays.asList("first:2:10.0.0.256", "first:3:10.0.0.1/24", "first:4:10.0.0.0/33",
+                "first:5:::1", "first:6:10.0.0.0/ 8", "first:7:10.0.0.3 # comment", "second:2:010.0.0.6"), errors);
+    }
+
+    @Test
+    public void shouldLoadIpv6() throws IOException {
+        Path file = write("ipv6", "2001:db8::/33\n2001:db8:8000::/33\n::1\n::2-::3\n10.0.0.1\n");
+
+        SortedRangeSet<Ipv6, Ipv6Range> result = AddressListLoader.forIpv6(errorSink).load(file);
+
+        SortedRangeSet<Ipv6, Ipv6Range> expected = new SortedRangeSet<Ipv6, Ipv6Range>();
+        expected.add(Ipv6Range.parse("2001:db8::/32"));
+        expected.add(Ipv6Range.parse("::1-::3"));
+        assertEquals(expected, result);
+        assertEquals(Collections.singletonList("ipv6:5:10.0.0.1"), errors);
+    }
+
+    @Test
+    public void shouldLoadLikeSequentialParsingWithAnyChunkSize() throws IOException {
+        Random random = new Random(41);
+        StringBuilder content = new StringBuilder();
+        SortedRangeSet<Ipv4, Ipv4Range> expected = new SortedRangeSet<Ipv4, Ipv4Range>();
+        int expectedErrors = 0;
+        for (int i = 0; i < 2000; i++) {
+            Ipv4 address = Ipv4.of((long) random.nextInt(1 << 16) << 8);
+            String line;
+            switch (random.nextInt(4)) {
+                case 0:
+                    line = address.toString();
+                    break;
+                case 1:
+                    line = address + "/" + (24 + random.nextInt(9));
+                    break;
+                case 2:
+                    line = address + "-" + address.next().next();
+                    break;
+                default:
+                    line = address + "/" + random.nextInt(24);
+            }
+            try {
+                expected.add(line.contains("-") || line.contains("/") ? Ipv4Range.parse(line) : Ipv4.parse(line).asRange());
+            } catch (IllegalArgumentException e) {
+                expectedErrors++;
+            }
+            content.append(line).append('\n');
+        }
+        Path file = write("random", content.toString());
+
+        for (int chunkSize : new int[]{1, 100, 4096, 1 << 20}) {
+            errors.clear();
+            AddressListLoader<Ipv4, Ipv4Range> subject = new AddressListLoader<Ipv4, Ipv4Range>(ResourceFamily.IPV4,
+                    true, ForkJoinPool.commonPool(), errorSink, chunkSize);
+            assertEquals(expected, subject.load(file));
+            assertEquals(expectedErrors, errors.size());
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.newFile(name).toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private static SortedRangeSet<Ipv4, Ipv4Range> set(String... ranges) {
+        SortedRangeSet<Ipv4, Ipv4Range> result = new SortedRangeSet<Ipv4, Ipv4Range>();
+        for (String range : ranges) {
+            result.add(Ipv4Range.parse(range));
+        }
+        return result;
+    }
+}
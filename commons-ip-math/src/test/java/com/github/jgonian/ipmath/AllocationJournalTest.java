@@ -0,0 +1,238 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class AllocationJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldStartWithEmptyFreeSpace() throws IOException {
+        AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+
+        assertTrue(subject.getRecoveredFreeSpace().isEmpty());
+        subject.close();
+    }
+
+    @Test
+    public void shouldReplayJournal() throws IOException {
+        AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+        subject.logRelease(parse("2001:db8::/32"));
+        subject.logAllocation(parse("2001:db8::/48"));
+        subject.logAllocation(parse("2001:db8:1::/48"));
+        subject.logRelease(parse("2001:db8::/48"));
+        subject.close();
+
+        assertEquals(set("2001:db8::/48, 2001:db8:2::-2001:db8:ffff:ffff:ffff:ffff:ffff:ffff"),
+                AllocationJournal.forIpv6(folder.getRoot()).getRecoveredFreeSpace());
+    }
+
+    @Test
+    public void shouldRecoverFromSnapshotAndJournal() throws IOException {
+        AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+        subject.logAllocation(parse("2001:db8::/48"));
+        subject.checkpoint(set("2001:db8::/32, 2001:db9::/40"));
+        assertEquals(0, subject.getRecordsSinceCheckpoint());
+        subject.logAllocation(parse("2001:db9::/48"));
+        subject.close();
+
+        AllocationJournal<Ipv6, Ipv6Range> reopened = AllocationJournal.forIpv6(folder.getRoot());
+        assertEquals(set("2001:db8::/32, 2001:db9:1::-2001:db9:ff:ffff:ffff:ffff:ffff:ffff"), reopened.getRecoveredFreeSpace());
+        reopened.logRelease(parse("2001:db9::/48"));
+        reopened.close();
+
+        assertEquals(set("2001:db8::/32, 2001:db9::/40"), AllocationJournal.forIpv6(folder.getRoot()).getRecoveredFreeSpace());
+    }
+
+    @Test
+    public void shouldDiscardTornRecordAtTheEndOfTheJournal() throws IOException {
+        AllocationJournal<Ipv4, Ipv4Range> subject = AllocationJournal.forIpv4(folder.getRoot());
+        subject.checkpoint(ipv4Set("10.0.0.0/8"));
+        subject.logAllocation(Ipv4Range.parse("10.0.0.0/16"));
+        subject.logAllocation(Ipv4Range.parse("10.1.0.0/16"));
+        subject.close();
+        File journal = new File(folder.getRoot(), AllocationJournal.JOURNAL_FILE_NAME);
+        RandomAccessFile file = new RandomAccessFile(journal, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+
+        AllocationJournal<Ipv4, Ipv4Range> reopened = AllocationJournal.forIpv4(folder.getRoot());
+        assertEquals(ipv4Set("10.1.0.0-10.255.255.255"), reopened.getRecoveredFreeSpace());
+        reopened.logAllocation(Ipv4Range.parse("10.2.0.0/16"));
+        reopened.close();
+
+        assertEquals(ipv4Set("10.1.0.0/16, 10.3.0.0-10.255.255.255"), AllocationJournal.forIpv4(folder.getRoot()).getRecoveredFreeSpace());
+    }
+
+    @Test
+    public void shouldReplayJournalLargerThanOneRead() throws IOException {
+        AllocationJournal<Ipv4, Ipv4Range> subject = AllocationJournal.forIpv4(folder.getRoot());
+        subject.checkpoint(ipv4Set("10.0.0.0/8"));
+        subject.logAllocation(Ipv4Range.parse("10.0.0.0/16"));
+        subject.logRelease(Ipv4Range.parse("10.0.0.0/16"));
+        subject.logAllocation(Ipv4Range.parse("10.1.0.0/16"));
+        subject.close();
+        File journal = new File(folder.getRoot(), AllocationJournal.JOURNAL_FILE_NAME);
+        byte[] content = Files.readAllBytes(journal.toPath());
+        int recordSize = 13;
+        int pairStart = content.length - 3 * recordSize;
+        int lastStart = content.length - recordSize;
+        ByteArrayOutputStream padded = new ByteArrayOutputStream();
+        padded.write(content, 0, pairStart);
+        // repeat the allocation and release of 10.0.0.0/16 across more than two reads
+        for (int i = 0; i < AllocationJournal.REPLAY_CHUNK_RECORDS + 7; i++) {
+            padded.write(content, pairStart, 2 * recordSize);
+        }
+        padded.write(content, lastStart, recordSize);
+        Files.write(journal.toPath(), padded.toByteArray());
+
+        AllocationJournal<Ipv4, Ipv4Range> reopened = AllocationJournal.forIpv4(folder.getRoot());
+        reopened.close();
+
+        assertEquals(ipv4Set("10.0.0.0/16, 10.2.0.0-10.255.255.255"), reopened.getRecoveredFreeSpace());
+        assertEquals(padded.size(), journal.length());
+    }
+
+    @Test
+    public void shouldIgnoreJournalOfAnInterruptedCheckpoint() throws IOException {
+        AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+        subject.logRelease(parse("2001:db8::/32"));
+        subject.close();
+        File journal = new File(folder.getRoot(), AllocationJournal.JOURNAL_FILE_NAME);
+        File staleJournal = new File(folder.getRoot(), "stale");
+        assertTrue(journal.renameTo(staleJournal));
+        subject = AllocationJournal.forIpv6(folder.getRoot());
+        subject.checkpoint(set("2001:db8::/32"));
+        subject.close();
+        assertTrue(staleJournal.renameTo(journal));
+
+        assertEquals(set("2001:db8::/32"), AllocationJournal.forIpv6(folder.getRoot()).getRecoveredFreeSpace());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectJournalOfAnotherTypeOfResources() throws IOException {
+        AllocationJournal.forIpv4(folder.getRoot()).close();
+        AllocationJournal.forIpv6(folder.getRoot());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectCorruptSnapshot() throws IOException {
+        AllocationJournal<Asn, AsnRange> subject = AllocationJournal.forAsn(folder.getRoot());
+        SortedRangeSet<Asn, AsnRange> asns = new SortedRangeSet<Asn, AsnRange>();
+        asns.add(AsnRange.parse("AS1-AS100"));
+        subject.checkpoint(asns);
+        subject.close();
+        RandomAccessFile file = new RandomAccessFile(new File(folder.getRoot(), AllocationJournal.SNAPSHOT_FILE_NAME), "rw");
+        try {
+            file.seek(20);
+            file.write(0xFF);
+        } finally {
+            file.close();
+        }
+
+        AllocationJournal.forAsn(folder.getRoot());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotLogAfterClose() throws IOException {
+        AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+        subject.close();
+        subject.logAllocation(parse("2001:db8::/48"));
+    }
+
+    @Test
+    public void shouldGroupCommitConcurrentRecords() throws Exception {
+        final AllocationJournal<Ipv6, Ipv6Range> subject = AllocationJournal.forIpv6(folder.getRoot());
+        final PrefixAllocator<Ipv6, Ipv6Range> allocator = PrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/40")));
+        subject.checkpoint(allocator.getFreeSpace());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        for (int i = 0; i < 50; i++) {
+                            Ipv6Range prefix;
+                            synchronized (allocator) {
+                                prefix = allocator.allocatePrefixOrNull(48);
+                            }
+                            subject.logAllocation(prefix);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200, subject.getRecordsSinceCheckpoint());
+        subject.close();
+
+        assertEquals(allocator.getFreeSpace(), AllocationJournal.forIpv6(folder.getRoot()).getRecoveredFreeSpace());
+    }
+
+    private static SortedRangeSet<Ipv6, Ipv6Range> set(String commaSeparatedRanges) {
+        SortedRangeSet<Ipv6, Ipv6Range> result = new SortedRangeSet<Ipv6, Ipv6Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+
+    private static SortedRangeSet<Ipv4, Ipv4Range> ipv4Set(String commaSeparatedRanges) {
+        SortedRangeSet<Ipv4, Ipv4Range> result = new SortedRangeSet<Ipv4, Ipv4Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(Ipv4Range.parse(s.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.jgonian.ipmath.AsnRange.parse;
+import static org.junit.Assert.*;
+
+public class AsnBlockFinderTest {
+
+    private final AsnBlockFinder firstFit = FirstFitAsnBlockFinder.newInstance();
+    private final AsnBlockFinder bestFit = BestFitAsnBlockFinder.newInstance();
+
+    @Test
+    public void shouldReturnNullIfRequestedBlockIsTooBig() {
+        assertNull(firstFit.findBlockOrNull(101, in("AS1-AS100, AS200-AS209")));
+        assertNull(bestFit.findBlockOrNull(101, in("AS1-AS100, AS200-AS209")));
+    }
+
+    @Test
+    public void shouldFindBlockAtTheStartOfTheFirstRangeThatCanHoldIt() {
+        assertEquals(parse("AS1-AS5"), firstFit.findBlockOrNull(5, in("AS1-AS100, AS200-AS209")));
+        assertEquals(parse("AS200-AS210"), firstFit.findBlockOrNull(11, in("AS200-AS209, AS200-AS299")));
+    }
+
+    @Test
+    public void shouldFindBlockAtTheStartOfTheSmallestRangeThatCanHoldIt() {
+        assertEquals(parse("AS200-AS204"), bestFit.findBlockOrNull(5, in("AS1-AS100, AS200-AS209")));
+        assertEquals(parse("AS300-AS309"), bestFit.findBlockOrNull(10, in("AS1-AS100, AS200-AS219, AS300-AS309")));
+        assertEquals(parse("AS200-AS209"), bestFit.findBlockOrNull(10, in("AS1-AS100, AS200-AS209, AS300-AS309")));
+    }
+
+    @Test
+    public void shouldFindBlockAtTheEndOfTheAsnSpace() {
+        assertEquals(parse("AS4294967295-AS4294967295"), bestFit.findBlockOrNull(1, in("AS4294967295-AS4294967295")));
+        assertEquals(parse("AS0-AS4294967295"), firstFit.findBlockOrNull(Asn.ASN_32_BIT_MAX_VALUE + 1, in("AS0-AS4294967295")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyBlock() {
+        firstFit.findBlockOrNull(0, in("AS1-AS100"));
+    }
+
+    private List<AsnRange> in(String commaSeparatedRanges) {
+        List<AsnRange> result = new ArrayList<AsnRange>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class BatchPrefixAllocatorTest {
+
+    @Test
+    public void shouldAllocateLargestPrefixesFirst() {
+        SortedRangeSet<Ipv6, Ipv6Range> free = in("2001:db8::/47, 2001:db8:2::/48");
+
+        BatchPrefixAllocator.Result<Ipv6, Ipv6Range> result = BatchPrefixAllocator.allocate(requests(56, 2, 48, 2), free);
+
+        assertTrue(result.isFullySatisfied());
+        assertEquals(Arrays.asList(parse("2001:db8:2::/48"), parse("2001:db8::/48")), result.getAllocations(48));
+        assertEquals(Arrays.asList(parse("2001:db8:1::/56"), parse("2001:db8:1:100::/56")), result.getAllocations(56));
+        assertEquals(in("2001:db8:1:200::-2001:db8:1:ffff:ffff:ffff:ffff:ffff"), result.getRemainingFreeSpace());
+    }
+
+    @Test
+    public void shouldNotModifyTheFreeSpace() {
+        SortedRangeSet<Ipv6, Ipv6Range> free = in("2001:db8::/32");
+
+        BatchPrefixAllocator.allocate(requests(48, 10), free);
+
+        assertEquals(in("2001:db8::/32"), free);
+    }
+
+    @Test
+    public void shouldReportUnsatisfiedRequests() {
+        BatchPrefixAllocator.Result<Ipv6, Ipv6Range> result = BatchPrefixAllocator.allocate(requests(47, 1, 48, 3), in("2001:db8::/47"));
+
+        assertFalse(result.isFullySatisfied());
+        assertEquals(1, result.getAllocations(47).size());
+        assertTrue(result.getAllocations(48).isEmpty());
+        assertEquals(Integer.valueOf(3), result.getUnsatisfied().get(48));
+        assertTrue(result.getRemainingFreeSpace().isEmpty());
+    }
+
+    @Test
+    public void shouldReportAllRequestsUnsatisfiedForEmptyFreeSpace() {
+        BatchPrefixAllocator.Result<Ipv6, Ipv6Range> result =
+                BatchPrefixAllocator.allocate(requests(48, 2, 56, 0), new SortedRangeSet<Ipv6, Ipv6Range>());
+
+        assertEquals(requests(48, 2), result.getUnsatisfied());
+        assertTrue(result.getAllocations().isEmpty());
+    }
+
+    @Test
+    public void shouldAllocateIpv4Prefixes() {
+        SortedRangeSet<Ipv4, Ipv4Range> free = new SortedRangeSet<Ipv4, Ipv4Range>();
+        free.add(Ipv4Range.parse("10.0.0.0/23"));
+
+        BatchPrefixAllocator.Result<Ipv4, Ipv4Range> result = BatchPrefixAllocator.allocate(requests(25, 1, 24, 1), free);
+
+        assertEquals(Arrays.asList(Ipv4Range.parse("10.0.0.0/24")), result.getAllocations(24));
+        assertEquals(Arrays.asList(Ipv4Range.parse("10.0.1.0/25")), result.getAllocations(25));
+        assertEquals(Ipv4Range.parse("10.0.1.128/25"), result.getRemainingFreeSpace().getSingleRange());
+    }
+
+    @Test
+    public void shouldAccountForAllAddresses() {
+        SortedRangeSet<Ipv6, Ipv6Range> free = in("2001:db8::/33, 2001:db9::-2001:db9:1234::");
+
+        BatchPrefixAllocator.Result<Ipv6, Ipv6Range> result = BatchPrefixAllocator.allocate(requests(40, 100, 48, 500, 56, 20), free);
+
+        assertTrue(result.isFullySatisfied());
+        SortedRangeSet<Ipv6, Ipv6Range> union = new SortedRangeSet<Ipv6, Ipv6Range>();
+        BigInteger allocatedSize = BigInteger.ZERO;
+        for (List<Ipv6Range> prefixes : result.getAllocations().values()) {
+            for (Ipv6Range prefix : prefixes) {
+                assertFalse(result.getRemainingFreeSpace().contains(prefix));
+                union.add(prefix);
+                allocatedSize = allocatedSize.add(prefix.size());
+            }
+        }
+        BigInteger unionSize = BigInteger.ZERO;
+        for (Ipv6Range range : union) {
+            unionSize = unionSize.add(range.size());
+        }
+        assertEquals("allocations must not overlap", allocatedSize, unionSize);
+        union.addAll(result.getRemainingFreeSpace());
+        assertEquals(free, union);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeCounts() {
+        BatchPrefixAllocator.allocate(requests(48, -1), in("2001:db8::/32"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrefixLengthForEmptyFreeSpace() {
+        BatchPrefixAllocator.allocate(requests(129, 1), new SortedRangeSet<Ipv6, Ipv6Range>());
+    }
+
+    @Test
+    public void shouldNotReserveSpaceForHugeRequests() {
+        BatchPrefixAllocator.Result<Ipv6, Ipv6Range> result =
+                BatchPrefixAllocator.allocate(requests(48, Integer.MAX_VALUE), in("2001:db8::/47"));
+
+        assertEquals(2, result.getAllocations(48).size());
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE - 2), result.getUnsatisfied().get(48));
+    }
+
+    private static Map<Integer, Integer> requests(int... prefixLengthsAndCounts) {
+        Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+        for (int i = 0; i < prefixLengthsAndCounts.length; i += 2) {
+            result.put(prefixLengthsAndCounts[i], prefixLengthsAndCounts[i + 1]);
+        }
+        return result;
+    }
+
+    private static SortedRangeSet<Ipv6, Ipv6Range> in(String commaSeparatedRanges) {
+        SortedRangeSet<Ipv6, Ipv6Range> result = new SortedRangeSet<Ipv6, Ipv6Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class BestFitPrefixFinderTest {
+
+    private final BestFitPrefixFinder<Ipv6, Ipv6Range> subject = BestFitPrefixFinder.newInstance();
+
+    @Test
+    public void shouldReturnNullIfRequestedPrefixIsTooBig() {
+        assertNull(subject.findPrefixOrNull(9, in("::/10, 2::/20, 3::/30")));
+    }
+
+    @Test
+    public void shouldFindPrefixInTheSmallestRangeThatCanHoldIt() {
+        assertEquals(parse("3::/31"), subject.findPrefixOrNull(31, in("::/10, 2::/20, 3::/30")));
+        assertEquals(parse("2::/29"), subject.findPrefixOrNull(29, in("::/10, 2::/20, 3::/30")));
+        assertEquals(parse("::/19"), subject.findPrefixOrNull(19, in("::/10, 2::/20, 3::/30")));
+    }
+
+    @Test
+    public void shouldFindPrefixInTheFirstOfEquallySizedRanges() {
+        assertEquals(parse("2::/20"), subject.findPrefixOrNull(20, in("::/10, 2::/20, 3::/20")));
+        assertEquals(parse("3::/20"), subject.findPrefixOrNull(20, in("::/10, 3::/20, 2::/20")));
+    }
+
+    @Test
+    public void shouldSkipSmallerRangesWithoutAnAlignedPrefix() {
+        assertEquals(parse("::100/126"), subject.findPrefixOrNull(126, in("::1-::6, ::100/120")));
+    }
+
+    @Test
+    public void shouldFindIpv4Prefix() {
+        BestFitPrefixFinder<Ipv4, Ipv4Range> ipv4Subject = BestFitPrefixFinder.newInstance();
+        List<Ipv4Range> ranges = new ArrayList<Ipv4Range>();
+        ranges.add(Ipv4Range.parse("10.0.0.0/8"));
+        ranges.add(Ipv4Range.parse("192.168.0.1-192.168.1.255"));
+
+        assertEquals(Ipv4Range.parse("192.168.1.0/24"), ipv4Subject.findPrefixOrNull(24, ranges));
+        assertEquals(Ipv4Range.parse("10.0.0.0/23"), ipv4Subject.findPrefixOrNull(23, ranges));
+    }
+
+    private List<Ipv6Range> in(String commaSeparatedRanges) {
+        List<Ipv6Range> result = new ArrayList<Ipv6Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+}
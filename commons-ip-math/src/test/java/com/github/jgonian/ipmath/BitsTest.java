@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitsTest {
+
+    private static final BigInteger TWO_TO_THE_64 = BigInteger.ONE.shiftLeft(64);
+
+    @Test
+    public void shouldMultiplyUnsignedLongs() {
+        Random random = new Random(38);
+        long[] edgeCases = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 0xFFFFFFFFL, 0x100000000L};
+        for (long a : edgeCases) {
+            for (long b : edgeCases) {
+                assertEquals(expectedMultiplyHigh(a, b), Bits.unsignedMultiplyHigh(a, b));
+            }
+        }
+        for (int i = 0; i < 10000; i++) {
+            long a = random.nextLong();
+            long b = random.nextLong();
+            assertEquals(expectedMultiplyHigh(a, b), Bits.unsignedMultiplyHigh(a, b));
+        }
+    }
+
+    @Test
+    public void shouldReduceHashesIntoRange() {
+        assertEquals(0, Bits.reduce(0, 10));
+        assertEquals(9, Bits.reduce(-1, 10));
+        assertEquals(5, Bits.reduce(Long.MIN_VALUE, 10));
+        Random random = new Random(38);
+        int[] counts = new int[7];
+        for (int i = 0; i < 70000; i++) {
+            counts[Bits.reduce(random.nextLong(), 7)]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10000) < 500);
+        }
+    }
+
+    @Test
+    public void shouldMixSequentialKeys() {
+        assertEquals(0, Bits.mix(0));
+        Random random = new Random(45);
+        int[] counts = new int[16];
+        for (long key = 1; key <= 16000; key++) {
+            counts[Bits.reduce(Bits.mix(key), 16)]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 1000) < 150);
+        }
+        long a = random.nextLong();
+        assertEquals(32, Long.bitCount(Bits.mix(a) ^ Bits.mix(a ^ 1)), 12);
+    }
+
+    private static long expectedMultiplyHigh(long a, long b) {
+        return unsigned(a).multiply(unsigned(b)).shiftRight(64).longValue();
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger result = BigInteger.valueOf(value);
+        return value < 0 ? result.add(TWO_TO_THE_64) : result;
+    }
+}
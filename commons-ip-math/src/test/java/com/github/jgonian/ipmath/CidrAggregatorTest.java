@@ -0,0 +1,102 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class CidrAggregatorTest {
+
+    @Test
+    public void shouldCollapseToMinimalPrefixes() {
+        List<Ipv4Range> ranges = Arrays.asList(Ipv4Range.parse("10.0.1.0/24"), Ipv4Range.parse("10.0.0.0/24"),
+                Ipv4Range.parse("10.0.0.128/25"), Ipv4Range.parse("10.0.2.0-10.0.2.4"), Ipv4Range.parse("192.168.0.0/16"));
+
+        List<Ipv4Range> result = CidrAggregator.forIpv4().aggregate(ranges).collect(Collectors.<Ipv4Range>toList());
+
+        assertEquals(Arrays.asList(Ipv4Range.parse("10.0.0.0/23"), Ipv4Range.parse("10.0.2.0/30"),
+                Ipv4Range.parse("10.0.2.4/32"), Ipv4Range.parse("192.168.0.0/16")), result);
+    }
+
+    @Test
+    public void shouldHandleEmptyInputAndTheWholeAddressSpace() {
+        assertEquals(0, CidrAggregator.forIpv6().aggregate(Collections.<Ipv6Range>emptyList()).count());
+
+        List<Ipv6Range> halves = Arrays.asList(Ipv6Range.parse("8000::/1"), Ipv6Range.parse("::/1"));
+        assertEquals(Collections.singletonList(Ipv6Range.parse("::/0")),
+                CidrAggregator.forIpv6().aggregate(halves).collect(Collectors.<Ipv6Range>toList()));
+    }
+
+    @Test
+    public void shouldAggregateLikeSortedRangeSetAcrossPartitions() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<Ipv4Range> ranges = new ArrayList<Ipv4Range>();
+            SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+            int count = random.nextInt(500);
+            for (int i = 0; i < count; i++) {
+                long start = random.nextInt(1 << 16);
+                long size = random.nextInt(10) == 0 ? random.nextInt(1 << 12) : 1 + random.nextInt(64);
+                Ipv4Range range = Ipv4Range.from(start).to(Math.min(start + size, Ipv4.MAXIMUM_VALUE));
+                ranges.add(range);
+                set.add(range);
+            }
+            List<Ipv4Range> expected = new ArrayList<Ipv4Range>();
+            for (Ipv4Range range : set) {
+                expected.addAll(range.splitToPrefixes());
+            }
+
+            for (int partitionSize : new int[]{1, 3, 64, CidrAggregator.MIN_PARTITION_SIZE}) {
+                CidrAggregator<Ipv4, Ipv4Range> subject =
+                        new CidrAggregator<Ipv4, Ipv4Range>(ResourceFamily.IPV4, ForkJoinPool.commonPool(), partitionSize);
+                assertEquals(expected, subject.aggregate(ranges).collect(Collectors.<Ipv4Range>toList()));
+                assertEquals(expected, subject.aggregate(ranges).parallel().collect(Collectors.<Ipv4Range>toList()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotModifyTheInput() {
+        List<Ipv4Range> ranges = new ArrayList<Ipv4Range>(Arrays.asList(Ipv4Range.parse("10.0.1.0/24"),
+                Ipv4Range.parse("10.0.0.0/24")));
+
+        assertEquals(1, CidrAggregator.forIpv4().aggregate(ranges).count());
+        assertEquals(Ipv4Range.parse("10.0.1.0/24"), ranges.get(0));
+        assertEquals(2, ranges.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullRanges() {
+        CidrAggregator.forIpv4().aggregate(Arrays.asList(Ipv4Range.parse("10.0.0.0/24"), null));
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class ConcurrentPrefixAllocatorTest {
+
+    @Test
+    public void shouldSplitFreeSpaceIntoStripes() {
+        ConcurrentPrefixAllocator<Ipv6, Ipv6Range> subject =
+                ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/31"), parse("2001:dba::/48")), 32);
+
+        assertEquals(3, subject.getNumberOfStripes());
+        assertEquals(32, subject.getStripePrefixLength());
+        SortedRangeSet<Ipv6, Ipv6Range> expected = new SortedRangeSet<Ipv6, Ipv6Range>();
+        expected.add(parse("2001:db8::/31"));
+        expected.add(parse("2001:dba::/48"));
+        assertEquals(expected, subject.getFreeSpace());
+    }
+
+    @Test
+    public void shouldSpillOverToOtherStripes() {
+        ConcurrentPrefixAllocator<Ipv6, Ipv6Range> subject =
+                ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/47"), parse("2001:db9::/47")), 32);
+        Set<Ipv6Range> allocated = new HashSet<Ipv6Range>();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(allocated.add(subject.allocate(48)));
+        }
+        assertNull(subject.allocate(48));
+        assertTrue(subject.getFreeSpace().isEmpty());
+
+        subject.release(parse("2001:db9:1::/48"));
+        assertEquals(parse("2001:db9:1::/48"), subject.allocate(48));
+    }
+
+    @Test
+    public void shouldSkipStripesThatCannotHoldThePrefix() {
+        ConcurrentPrefixAllocator<Ipv4, Ipv4Range> subject = ConcurrentPrefixAllocator.forIpv4(
+                Arrays.asList(Ipv4Range.parse("10.0.0.0/24"), Ipv4Range.parse("10.1.0.0/16"), Ipv4Range.parse("10.2.0.0/20")), 16);
+
+        assertEquals(Ipv4Range.parse("10.1.0.0/17"), subject.allocate(17));
+        assertNull(subject.allocate(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPrefixesLargerThanAStripe() {
+        ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/31")), 32).allocate(31);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectReleaseOutsideOfTheStripes() {
+        ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/48")), 32).release(parse("2001:db9::/48"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectReleaseOverlappingWithFreeSpace() {
+        ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/48")), 32).release(parse("2001:db8::/56"));
+    }
+
+    @Test
+    public void shouldAcceptTheMaximumNumberOfStripes() {
+        ConcurrentPrefixAllocator<Ipv6, Ipv6Range> subject =
+                ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:c00::/22")), 32);
+
+        assertEquals(ConcurrentPrefixAllocator.MAX_NUMBER_OF_STRIPES, subject.getNumberOfStripes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTooManyStripes() {
+        ConcurrentPrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")), 64);
+    }
+
+    @Test
+    public void shouldNotHandOutTheSamePrefixTwiceUnderContention() throws Exception {
+        final List<Ipv6Range> pool = Arrays.asList(parse("2001:db8::/44"));
+        final ConcurrentPrefixAllocator<Ipv6, Ipv6Range> subject = ConcurrentPrefixAllocator.forIpv6(pool, 46);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Ipv6Range>>> results = new ArrayList<Future<List<Ipv6Range>>>();
+            for (int t = 0; t < threads; t++) {
+                final int prefixLength = 52 + t % 3 * 2;
+                results.add(executor.submit(new Callable<List<Ipv6Range>>() {
+                    @Override
+                    public List<Ipv6Range> call() {
+                        List<Ipv6Range> allocated = new ArrayList<Ipv6Range>();
+                        int allocations = 0;
+                        for (Ipv6Range prefix = subject.allocate(prefixLength); prefix != null; prefix = subject.allocate(prefixLength)) {
+                            allocated.add(prefix);
+                            if (++allocations % 3 == 0) {
+                                subject.release(allocated.remove(0));
+                            }
+                        }
+                        return allocated;
+                    }
+                }));
+            }
+            SortedRangeSet<Ipv6, Ipv6Range> union = new SortedRangeSet<Ipv6, Ipv6Range>();
+            int count = 0;
+            for (Future<List<Ipv6Range>> result : results) {
+                for (Ipv6Range prefix : result.get()) {
+                    union.add(prefix);
+                    count++;
+                }
+            }
+            assertTrue(subject.getFreeSpace().isEmpty());
+            assertEquals(pool.get(0), union.getSingleRange());
+            assertTrue(count >= 256);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
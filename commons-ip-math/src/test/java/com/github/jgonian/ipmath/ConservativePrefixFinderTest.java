@@ -25,15 +25,18 @@ package com.github.jgonian.ipmath;
 
 import org.junit.Test;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
 import static com.github.jgonian.ipmath.Ipv6Range.parse;
 import static org.junit.Assert.*;
 
 public class ConservativePrefixFinderTest {
 
-    private final ConservativePrefixFinder subject = ConservativePrefixFinder.newInstance();
+    private final ConservativePrefixFinder<Ipv6, Ipv6Range> subject = ConservativePrefixFinder.newInstance();
 
     @Test
     public void shouldReturnNullIfRequestedPrefixIsTooBig() {
@@ -61,6 +64,60 @@ public class ConservativePrefixFinderTest {
         assertEquals(parse("3::/20"), subject.findPrefixOrNull(20, in("::/10, 3::/20, 2::/20")));
     }
 
+    @Test
+    public void shouldFindIpv4Prefix() {
+        ConservativePrefixFinder<Ipv4, Ipv4Range> ipv4Subject = ConservativePrefixFinder.newInstance();
+        List<Ipv4Range> ranges = new ArrayList<Ipv4Range>();
+        ranges.add(Ipv4Range.parse("10.0.0.0/8"));
+        ranges.add(Ipv4Range.parse("192.168.0.1-192.168.1.255"));
+
+        assertEquals(Ipv4Range.parse("192.168.0.128/25"), ipv4Subject.findPrefixOrNull(25, ranges));
+        assertEquals(Ipv4Range.parse("10.0.0.0/23"), ipv4Subject.findPrefixOrNull(23, ranges));
+        assertEquals(Ipv4Range.parse("0.0.0.0/0"), ipv4Subject.findPrefixOrNull(0, in4("0.0.0.0/0")));
+        assertNull(ipv4Subject.findPrefixOrNull(7, ranges));
+    }
+
+    @Test
+    public void shouldReturnNullForNoRanges() {
+        assertNull(subject.findPrefixOrNull(48, new ArrayList<Ipv6Range>()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidatePrefixLength() {
+        subject.findPrefixOrNull(129, in("::/10"));
+    }
+
+    @Test
+    public void shouldFindTheSmallestPrefixOfTheSplitRanges() {
+        Random random = new Random(29);
+        for (int i = 0; i < 500; i++) {
+            List<Ipv6Range> ranges = new ArrayList<Ipv6Range>();
+            for (int j = 0; j < 5; j++) {
+                BigInteger start = new BigInteger(40, random);
+                ranges.add(Ipv6Range.from(start).to(start.add(new BigInteger(1 + random.nextInt(36), random))));
+            }
+            int prefixLength = 88 + random.nextInt(41);
+            assertEquals(findWithSplitToPrefixes(prefixLength, ranges), subject.findPrefixOrNull(prefixLength, ranges));
+        }
+    }
+
+    private static Ipv6Range findWithSplitToPrefixes(int prefixLength, List<Ipv6Range> ranges) {
+        Ipv6Range found = null;
+        for (Ipv6Range range : ranges) {
+            Optional<Ipv6Range> candidate = PrefixUtils.findMinimumPrefixForPrefixLength(range, prefixLength);
+            if (candidate.isPresent() && (found == null || candidate.get().size().compareTo(found.size()) < 0)) {
+                found = candidate.get();
+            }
+        }
+        return found == null ? null : Ipv6Range.from(found.start()).andPrefixLength(prefixLength);
+    }
+
+    private List<Ipv4Range> in4(String range) {
+        List<Ipv4Range> result = new ArrayList<Ipv4Range>();
+        result.add(Ipv4Range.parse(range));
+        return result;
+    }
+
     private List<Ipv6Range> in(String commaSeparatedRanges) {
         String[] split = commaSeparatedRanges.split(",");
         List<Ipv6Range> result = new ArrayList<Ipv6Range>();
@@ -0,0 +1,150 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class DelegatedStatsTest {
+
+    private static final String RIPENCC = ""
+            + "2|ripencc|1704150000|9|19830705|20240101|+0100\n"
+            + "ripencc|*|ipv4|*|4|summary\n"
+            + "ripencc|*|asn|*|2|summary\n"
+            + "ripencc|*|ipv6|*|3|summary\n"
+            + "# comment\n"
+            + "ripencc|NL|asn|1101|1|19930901|allocated|6bd6b1f9\n"
+            + "ripencc|NL|asn|1102|2|19930901|allocated|6bd6b1f9\n"
+            + "ripencc|DE|ipv4|2.0.0.0|1024|20100712|allocated|4f6e7a2e\n"
+            + "ripencc|NL|ipv4|2.0.4.0|512|20100712|assigned|6bd6b1f9\n"
+            + "ripencc|NL|ipv4|2.0.6.0|512|20100712|allocated|6bd6b1f9\n"
+            + "ripencc|ZZ|ipv4|5.0.0.0|768||available|\n"
+            + "ripencc|NL|ipv6|2001:610::|32|19990819|allocated|6bd6b1f9\n"
+            + "ripencc|DE|ipv6|2001:611::|32|19990819|allocated|4f6e7a2e\n"
+            + "ripencc||ipv6|2a10::|12||reserved|\n";
+
+    private static final String ARIN = ""
+            + "2|arin|1704150000|2|19700101|20240101|-0500\r\n"
+            + "arin|US|ipv4|3.0.0.0|16777216|19880223|allocated|a9f3\r\n"
+            + "arin|US|asn|1|1|20180814|assigned|a9f3\r\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldGroupRecordsByCountry() throws IOException {
+        DelegatedStats subject = DelegatedStats.load(DelegatedStats.GroupBy.COUNTRY, write(RIPENCC));
+
+        assertEquals(Arrays.asList("", "DE", "NL", "ZZ"), Arrays.asList(subject.getKeys().toArray()));
+        assertEquals(Collections.singleton(Ipv4Range.parse("2.0.4.0/22")), subject.getIpv4("NL").unmodifiableSet());
+        assertEquals(Collections.singleton(Ipv4Range.parse("2.0.0.0/22")), subject.getIpv4("DE").unmodifiableSet());
+        assertEquals(Collections.singleton(Ipv4Range.parse("5.0.0.0-5.0.2.255")), subject.getIpv4("ZZ").unmodifiableSet());
+        assertEquals(Collections.singleton(AsnRange.parse("AS1101-AS1103")), subject.getAsn("NL").unmodifiableSet());
+        assertEquals(Collections.singleton(Ipv6Range.parse("2a10::/12")), subject.getIpv6("").unmodifiableSet());
+        assertTrue(subject.getAsn("DE").isEmpty());
+        assertTrue(subject.getIpv4("US").isEmpty());
+        assertEquals(9, subject.getRecordCount());
+    }
+
+    @Test
+    public void shouldGroupRecordsByStatus() throws IOException {
+        DelegatedStats subject = DelegatedStats.load(DelegatedStats.GroupBy.STATUS, write(RIPENCC));
+
+        assertEquals(Arrays.asList("allocated", "assigned", "available", "reserved"),
+                Arrays.asList(subject.getKeys().toArray()));
+        assertEquals(2, subject.getIpv4("allocated").size());
+        assertEquals(Collections.singleton(Ipv6Range.parse("2001:610::/31")),
+                subject.getIpv6("allocated").unmodifiableSet());
+    }
+
+    @Test
+    public void shouldMergeAllRecordsOfSeveralFiles() throws IOException {
+        DelegatedStats subject = DelegatedStats.load(DelegatedStats.GroupBy.REGISTRY, write(RIPENCC), write(ARIN));
+
+        assertEquals(Arrays.asList("arin", "ripencc"), Arrays.asList(subject.getKeys().toArray()));
+        assertEquals(Arrays.asList(Ipv4Range.parse("2.0.0.0/21"), Ipv4Range.parse("3.0.0.0/8"),
+                Ipv4Range.parse("5.0.0.0-5.0.2.255")), Arrays.asList(subject.getIpv4().unmodifiableSet().toArray()));
+        assertEquals(2, subject.getAsn().size());
+        assertEquals(2, subject.getIpv6().size());
+        assertEquals(11, subject.getRecordCount());
+    }
+
+    @Test
+    public void shouldLoadTheSameWithAnyChunkSize() throws IOException {
+        Path file = write(RIPENCC + ARIN);
+        DelegatedStats expected = DelegatedStats.load(DelegatedStats.GroupBy.COUNTRY, file);
+        for (int chunkSize = 1; chunkSize < 200; chunkSize += 7) {
+            DelegatedStats actual = DelegatedStats.load(ForkJoinPool.commonPool(), DelegatedStats.GroupBy.COUNTRY,
+                    Collections.singletonList(file), chunkSize);
+            assertEquals(expected.getKeys(), actual.getKeys());
+            for (String key : expected.getKeys()) {
+                assertEquals(expected.getIpv4(key), actual.getIpv4(key));
+                assertEquals(expected.getIpv6(key), actual.getIpv6(key));
+                assertEquals(expected.getAsn(key), actual.getAsn(key));
+            }
+            assertEquals(expected.getRecordCount(), actual.getRecordCount());
+        }
+    }
+
+    @Test
+    public void shouldLoadFileWithoutTrailingNewline() throws IOException {
+        DelegatedStats subject = DelegatedStats.load(DelegatedStats.GroupBy.COUNTRY,
+                write("apnic|AU|ipv4|1.0.0.0|256|20110811|assigned|A91872ED"));
+
+        assertEquals(Collections.singleton(Ipv4Range.parse("1.0.0.0/24")), subject.getIpv4("AU").unmodifiableSet());
+    }
+
+    @Test
+    public void shouldFailOnInvalidRecords() throws IOException {
+        String[] invalidRecords = {"ripencc|NL|ipv4|2.0.0|256|20100712|allocated", "ripencc|NL|ipv4|2.0.0.0|0|x|allocated",
+                "ripencc|NL|ipv4|255.255.255.0|257|x|allocated", "ripencc|NL|ipv6|2001:610::|16|x|allocated",
+                "ripencc|NL|asn|4294967295|2|x|allocated", "ripencc|NL|asn|1x|1|x|allocated",
+                "ripencc|NL|ipv8|1|1|x|allocated", "ripencc|NL|asn|1"};
+        for (String invalidRecord : invalidRecords) {
+            try {
+                DelegatedStats.load(DelegatedStats.GroupBy.COUNTRY, write("# header\n" + invalidRecord + "\n"));
+                fail("Expected to fail on " + invalidRecord);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains("offset 9"));
+            }
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DistinctCounterMapTest {
+
+    @Test
+    public void shouldCountTowardsTheSmallestRange() {
+        DistinctCounterMap<Ipv4, Ipv4Range> subject = DistinctCounterMap.forIpv4(Arrays.asList(
+                Ipv4Range.parse("10.0.0.0/8"), Ipv4Range.parse("10.1.0.0/16"), Ipv4Range.parse("10.1.2.0/24"),
+                Ipv4Range.parse("10.2.0.0/16"), Ipv4Range.parse("192.168.0.0/16")));
+
+        for (int i = 0; i < 256; i++) {
+            assertTrue(subject.add(0x0A010200L + i));
+            assertTrue(subject.add(0x0A010300L + i));
+            assertTrue(subject.add(0x0A030000L + i));
+            assertTrue(subject.add(Ipv4.of(0x0A020000L + i % 10)));
+        }
+        assertFalse(subject.add(Ipv4.parse("11.0.0.0")));
+        assertFalse(subject.add(Ipv4.parse("0.0.0.0")));
+        assertFalse(subject.add(Ipv4.parse("255.255.255.255")));
+
+        assertEquals(256, subject.get(Ipv4Range.parse("10.1.2.0/24")).cardinality(), 3);
+        assertEquals(256, subject.get(Ipv4Range.parse("10.1.0.0/16")).cardinality(), 3);
+        assertEquals(256, subject.get(Ipv4Range.parse("10.0.0.0/8")).cardinality(), 3);
+        assertEquals(10, subject.get(Ipv4Range.parse("10.2.0.0/16")).cardinality());
+        assertEquals(0, subject.get(Ipv4Range.parse("192.168.0.0/16")).cardinality());
+        assertNull(subject.get(Ipv4Range.parse("172.16.0.0/12")));
+        assertEquals(Ipv4Range.parse("10.0.0.0/8"), subject.getRanges().get(0));
+    }
+
+    @Test
+    public void shouldCountLikeAStandaloneCounter() {
+        DistinctCounterMap<Ipv6, Ipv6Range> subject = DistinctCounterMap.forIpv6(Collections.singletonList(Ipv6Range.parse("::/0")));
+        DistinctCounter expected = new DistinctCounter();
+        for (long i = 0; i < 1000; i++) {
+            subject.add(i, -i);
+            expected.addIpv6(i, -i);
+        }
+        subject.add(Ipv6.LAST_IPV6_ADDRESS);
+        expected.add(Ipv6.LAST_IPV6_ADDRESS);
+
+        assertArrayEquals(expected.toByteArray(), subject.get(Ipv6Range.parse("::/0")).toByteArray());
+    }
+
+    @Test
+    public void shouldMergeMapsWithTheSameRanges() {
+        DistinctCounterMap<Asn, AsnRange> a = DistinctCounterMap.forAsn(Arrays.asList(AsnRange.parse("AS1-AS100"), AsnRange.parse("AS200-AS300")));
+        DistinctCounterMap<Asn, AsnRange> b = DistinctCounterMap.forAsn(Arrays.asList(AsnRange.parse("AS200-AS300"), AsnRange.parse("AS1-AS100")));
+        for (long i = 1; i <= 50; i++) {
+            a.add(i);
+            b.add(i + 50);
+        }
+
+        a.merge(b);
+
+        assertEquals(100, a.get(AsnRange.parse("AS1-AS100")).cardinality(), 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOverlappingRanges() {
+        DistinctCounterMap.forIpv4(Arrays.asList(Ipv4Range.parse("10.0.0.0-10.0.0.10"), Ipv4Range.parse("10.0.0.5-10.0.0.20")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateRanges() {
+        DistinctCounterMap.forIpv4(Arrays.asList(Ipv4Range.parse("10.0.0.0/8"), Ipv4Range.parse("10.0.0.0/8")));
+    }
+}
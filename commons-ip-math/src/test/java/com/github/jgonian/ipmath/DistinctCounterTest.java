@@ -0,0 +1,126 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistinctCounterTest {
+
+    @Test
+    public void shouldEstimateWithinTheStandardError() {
+        Random random = new Random(47);
+        long[] cardinalities = {1, 10, 100, 1000, 5000, 20000, 200000};
+        for (long cardinality : cardinalities) {
+            DistinctCounter subject = new DistinctCounter();
+            long base = random.nextInt();
+            for (long i = 0; i < cardinality; i++) {
+                subject.addIpv4((int) (base + i));
+                // duplicates do not count
+                subject.addIpv4((int) (base + i / 2));
+            }
+            double error = Math.abs(subject.cardinality() - cardinality) / (double) cardinality;
+            assertTrue("error " + error + " at " + cardinality, error < 4 * 1.04 / Math.sqrt(1 << 14));
+        }
+    }
+
+    @Test
+    public void shouldCountNothingWhenEmpty() {
+        assertEquals(0, new DistinctCounter().cardinality());
+    }
+
+    @Test
+    public void shouldCountDifferentResourceTypesSeparately() {
+        DistinctCounter subject = new DistinctCounter();
+        subject.add(Ipv4.parse("0.0.0.1"));
+        subject.add(Ipv6.parse("::1"));
+        subject.add(Asn.of(1L));
+        subject.addIpv4(1);
+        subject.addIpv6(0, 1);
+        subject.addAsn(1);
+
+        assertEquals(3, subject.cardinality());
+    }
+
+    @Test
+    public void shouldMergeCounters() {
+        DistinctCounter a = new DistinctCounter(12);
+        DistinctCounter b = new DistinctCounter(12);
+        DistinctCounter union = new DistinctCounter(12);
+        for (int i = 0; i < 30000; i++) {
+            (i % 3 == 0 ? a : b).addIpv6(i, 0);
+            union.addIpv6(i, 0);
+        }
+        DistinctCounter small = new DistinctCounter(12);
+        small.addIpv6(1, 0);
+        small.addIpv6(50000, 0);
+        union.addIpv6(50000, 0);
+
+        a.merge(b);
+        a.merge(small);
+
+        assertEquals(union.cardinality(), a.cardinality());
+        assertArrayEquals(union.toByteArray(), a.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMergeCountersOfDifferentPrecisions() {
+        new DistinctCounter(12).merge(new DistinctCounter(14));
+    }
+
+    @Test
+    public void shouldConvertToAndFromBytes() {
+        DistinctCounter sparse = new DistinctCounter();
+        DistinctCounter dense = new DistinctCounter(10);
+        for (int i = 0; i < 100; i++) {
+            sparse.addAsn(i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            dense.addAsn(i);
+        }
+
+        assertTrue(sparse.toByteArray().length < 1000);
+        assertEquals(3 + 1024, dense.toByteArray().length);
+        assertEquals(sparse.cardinality(), DistinctCounter.fromByteArray(sparse.toByteArray()).cardinality());
+        assertEquals(dense.cardinality(), DistinctCounter.fromByteArray(dense.toByteArray()).cardinality());
+        assertEquals(10, DistinctCounter.fromByteArray(dense.toByteArray()).getPrecision());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTruncatedBytes() {
+        DistinctCounter subject = new DistinctCounter();
+        subject.addAsn(1);
+        byte[] bytes = subject.toByteArray();
+        DistinctCounter.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidatePrecision() {
+        new DistinctCounter(19);
+    }
+}
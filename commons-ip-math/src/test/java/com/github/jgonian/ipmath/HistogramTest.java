@@ -0,0 +1,118 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void shouldBeEmptyInitially() {
+        Histogram subject = new Histogram();
+
+        assertEquals(0, subject.getTotalCount());
+        assertEquals(0, subject.getMin());
+        assertEquals(0, subject.getMax());
+        assertEquals(0, subject.getValueAtPercentile(99), 0);
+        assertEquals(0.0, subject.getMean(), 0);
+    }
+
+    @Test
+    public void shouldRecordSmallValuesExactly() {
+        Histogram subject = new Histogram();
+        for (int value = 1; value <= 20; value++) {
+            subject.record(value);
+        }
+
+        assertEquals(20, subject.getTotalCount());
+        assertEquals(1, subject.getMin());
+        assertEquals(20, subject.getMax());
+        assertEquals(10.5, subject.getMean(), 0);
+        assertEquals(10, subject.getValueAtPercentile(50));
+        assertEquals(19, subject.getValueAtPercentile(95));
+        assertEquals(20, subject.getValueAtPercentile(100));
+        assertEquals(1, subject.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinThreePercent() {
+        Random random = new Random(36);
+        long[] values = new long[10000];
+        Histogram subject = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 40);
+            subject.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9}) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = subject.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected);
+            assertTrue(actual <= expected + expected / 32);
+        }
+        assertEquals(values[values.length - 1], subject.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldMapEveryValueIntoItsBucket() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 65, 1000, 1 << 20, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(Histogram.lowestValueOf(bucket) <= value);
+            assertTrue(Histogram.highestValueOf(bucket) >= value);
+        }
+        for (int bucket = 1; bucket < Histogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            assertEquals(Histogram.highestValueOf(bucket - 1) + 1, Histogram.lowestValueOf(bucket));
+        }
+    }
+
+    @Test
+    public void shouldRecordNegativeValuesAsZero() {
+        Histogram subject = new Histogram();
+        subject.record(-5);
+
+        assertEquals(0, subject.getMax());
+        assertEquals(1, subject.getTotalCount());
+    }
+
+    @Test
+    public void shouldReset() {
+        Histogram subject = new Histogram();
+        subject.record(42);
+        subject.reset();
+
+        assertEquals(0, subject.getTotalCount());
+        assertEquals(0, subject.getValueAtPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidatePercentile() {
+        new Histogram().getValueAtPercentile(101);
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class InternetResourceSetTest {
+
+    @Test
+    public void shouldParseMixedResources() {
+        InternetResourceSet subject = InternetResourceSet.parse(" 192.0.2.0/24,2001:db8::/32  AS64496-AS64511,\n10.0.0.1, 10.0.0.2-10.0.0.9, ::1, as1, AS2.1 ");
+
+        assertTrue(subject.contains(Ipv4Range.parse("192.0.2.0/24")));
+        assertTrue(subject.contains(Ipv4Range.parse("10.0.0.1-10.0.0.9")));
+        assertTrue(subject.contains(Ipv6Range.parse("2001:db8::/32")));
+        assertTrue(subject.contains(Ipv6Range.parse("::1/128")));
+        assertTrue(subject.contains(AsnRange.parse("AS64496-AS64511")));
+        assertTrue(subject.contains(AsnRange.parse("AS1-AS1")));
+        assertTrue(subject.contains(AsnRange.parse("AS131073-AS131073")));
+        assertEquals(2, subject.getIpv4().size());
+        assertEquals(2, subject.getIpv6().size());
+        assertEquals(3, subject.getAsn().size());
+        assertTrue(InternetResourceSet.parse("  ").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnMalformedResource() {
+        InternetResourceSet.parse("192.0.2.0/24, 192.0.2.300");
+    }
+
+    @Test
+    public void shouldRoundTripThroughText() {
+        InternetResourceSet subject = InternetResourceSet.parse("AS3-AS5, 2001:db8::/32, 10.0.0.0/8, ::1-::6, 192.0.2.1");
+
+        assertEquals("10.0.0.0/8, 192.0.2.1/32, ::1-::6, 2001:db8::/32, AS3-AS5", subject.toString());
+        assertEquals(subject, InternetResourceSet.parse(subject.toString()));
+        assertEquals(subject.hashCode(), InternetResourceSet.parse(subject.toString()).hashCode());
+    }
+
+    @Test
+    public void shouldCombineSetsOfAllTypes() {
+        InternetResourceSet left = InternetResourceSet.parse("10.0.0.0/8, 2001:db8::/32, AS1-AS10");
+        InternetResourceSet right = InternetResourceSet.parse("10.128.0.0/9, 11.0.0.0/8, 2001:db8:8000::/33, AS5-AS20");
+
+        assertEquals(InternetResourceSet.parse("10.0.0.0/7, 2001:db8::/32, AS1-AS20"), left.union(right));
+        assertEquals(InternetResourceSet.parse("10.128.0.0/9, 2001:db8:8000::/33, AS5-AS10"), left.intersection(right));
+        assertEquals(InternetResourceSet.parse("10.0.0.0/9, 2001:db8::/33, AS1-AS4"), left.difference(right));
+        assertEquals(InternetResourceSet.parse("11.0.0.0/8, AS11-AS20"), right.difference(left));
+    }
+
+    @Test
+    public void shouldAgreeWithSortedRangeSet() {
+        Random random = new Random(50);
+        for (int round = 0; round < 50; round++) {
+            InternetResourceSet left = randomSet(random);
+            InternetResourceSet right = randomSet(random);
+
+            SortedRangeSet<Ipv4, Ipv4Range> union = new SortedRangeSet<Ipv4, Ipv4Range>();
+            union.addAll(left.getIpv4());
+            union.addAll(right.getIpv4());
+            SortedRangeSet<Ipv4, Ipv4Range> difference = new SortedRangeSet<Ipv4, Ipv4Range>();
+            difference.addAll(left.getIpv4());
+            difference.removeAll(right.getIpv4());
+            SortedRangeSet<Ipv4, Ipv4Range> intersection = new SortedRangeSet<Ipv4, Ipv4Range>();
+            intersection.addAll(left.getIpv4());
+            intersection.removeAll(difference);
+
+            assertEquals(union, left.union(right).getIpv4());
+            assertEquals(intersection, left.intersection(right).getIpv4());
+            assertEquals(difference, left.difference(right).getIpv4());
+            assertTrue(left.union(right).containsAll(left));
+            assertTrue(left.containsAll(left.intersection(right)));
+            assertTrue(left.difference(right).intersection(right).isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldCheckHoldings() {
+        InternetResourceSet issuer = InternetResourceSet.parse("192.0.2.0/24, 2001:db8::/32, AS64496-AS64511");
+
+        assertTrue(issuer.containsAll(InternetResourceSet.parse("192.0.2.128/25, 2001:db8:1::/48, AS64500")));
+        assertFalse(issuer.containsAll(InternetResourceSet.parse("192.0.2.128/25, AS64512")));
+        assertTrue(issuer.containsAll(new InternetResourceSet()));
+    }
+
+    @Test
+    public void shouldNormalizeIpv4MappedAddresses() {
+        InternetResourceSet subject = InternetResourceSet.parse("::ffff:192.0.2.0/120, ::fffe:0:0-::ffff:0:ff, 2001:db8::/32", true);
+
+        assertEquals(InternetResourceSet.parse("0.0.0.0-0.0.0.255, 192.0.2.0/24, ::fffe:0:0/96, 2001:db8::/32"), subject);
+        assertFalse(InternetResourceSet.parse("::ffff:192.0.2.0/120").getIpv6().isEmpty());
+    }
+
+    @Test
+    public void shouldRoundTripThroughBytes() {
+        InternetResourceSet subject = InternetResourceSet.parse("0.0.0.0/32, 10.0.0.0/8, 255.255.255.255, ::/1, ffff::/16, AS0, AS4294967295");
+
+        byte[] bytes = subject.toByteArray();
+
+        assertEquals(subject, InternetResourceSet.fromByteArray(bytes));
+        assertEquals(new InternetResourceSet(), InternetResourceSet.fromByteArray(new InternetResourceSet().toByteArray()));
+        assertEquals(InternetResourceSet.parse("::/0"), InternetResourceSet.fromByteArray(InternetResourceSet.parse("::/0").toByteArray()));
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            InternetResourceSet set = randomSet(random);
+            assertEquals(set, InternetResourceSet.fromByteArray(set.toByteArray()));
+        }
+    }
+
+    @Test
+    public void shouldBeCompact() {
+        InternetResourceSet subject = new InternetResourceSet();
+        for (int i = 0; i < 1000; i++) {
+            subject.add(Ipv6Range.from(new BigInteger("20010db8", 16).shiftLeft(96).add(BigInteger.valueOf(2 * i).shiftLeft(80))).andPrefixLength(48));
+        }
+        // a gap and a size of 2^80 take 12 bytes each
+        assertTrue(subject.toByteArray().length <= 1 + 1 + 2 + 1 + 1000 * 24 + 18);
+    }
+
+    @Test
+    public void shouldRejectInvalidBytes() {
+        byte[] valid = InternetResourceSet.parse("10.0.0.0/8, ::/1, AS1").toByteArray();
+        assertInvalid(new byte[0]);
+        assertInvalid(new byte[]{2, 0, 0, 0});
+        assertInvalid(new byte[]{1, 0, 0});
+        assertInvalid(Arrays.copyOf(valid, valid.length - 1));
+        assertInvalid(Arrays.copyOf(valid, valid.length + 1));
+        // an IPv4 range which ends beyond 2^32 - 1
+        assertInvalid(new byte[]{1, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x1F, 0, 0});
+        // an IPv6 range which ends at 2^128 - 1 followed by another one
+        byte[] whole = InternetResourceSet.parse("::/0").toByteArray();
+        byte[] wrapped = new byte[whole.length + 2];
+        System.arraycopy(whole, 0, wrapped, 0, whole.length - 1);
+        wrapped[2] = 2;
+        assertInvalid(wrapped);
+    }
+
+    private static void assertInvalid(byte[] bytes) {
+        try {
+            InternetResourceSet.fromByteArray(bytes);
+            fail("Expected an IllegalArgumentException for " + Arrays.toString(bytes));
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static InternetResourceSet randomSet(Random random) {
+        InternetResourceSet result = new InternetResourceSet();
+        for (int i = 0; i < 30; i++) {
+            long start = random.nextInt(1 << 16);
+            result.add(Ipv4Range.from(start).to(start + random.nextInt(1 << 10)));
+            BigInteger ipv6Start = new BigInteger(128, random);
+            result.add(Ipv6Range.from(ipv6Start).to(ipv6Start.add(new BigInteger(100, random)).min(Ipv6.MAXIMUM_VALUE)));
+            long asn = random.nextInt(1000);
+            result.add(AsnRange.from(asn).to(asn + random.nextInt(20)));
+        }
+        return result;
+    }
+}
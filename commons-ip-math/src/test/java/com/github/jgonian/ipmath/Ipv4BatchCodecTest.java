@@ -0,0 +1,126 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Ipv4BatchCodecTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private final Ipv4BatchCodec subject = Ipv4BatchCodec.scalar();
+
+    @Test
+    public void shouldParseBatchFromBuffer() {
+        byte[] buffer = " 10.0.0.1|192.168.08.1|255.255.255.255 |1.2.3|0.0.0.0".getBytes(ASCII);
+        int[] offsets = {0, 10, 23, 40, 46};
+        int[] lengths = {9, 12, 16, 5, 7};
+        long[] values = new long[5];
+
+        assertEquals(2, subject.parse(buffer, offsets, lengths, values, 5));
+
+        assertEquals(Ipv4.parse("10.0.0.1").value(), values[0]);
+        assertEquals(Ipv4BatchCodec.INVALID, values[1]);
+        assertEquals(Ipv4.MAXIMUM_VALUE, values[2]);
+        assertEquals(Ipv4BatchCodec.INVALID, values[3]);
+        assertEquals(0, values[4]);
+    }
+
+    @Test
+    public void shouldParseLikeIpv4Parse() {
+        String[] texts = {"", " ", "1.2.3.4", " 1.2.3.4\t", "1.2.3.4.", ".1.2.3.4", "1..3.4", "1.2.3.4.5", "01.2.3.4",
+                "1.2.3.04", "0.0.0.0", "1.2.3.256", "1.2.3.255", "999.1.1.1", "4294967297.0.0.0", "1.2.3.-4",
+                "1.2.3.a", "1.2 .3.4", "100.200.10.0"};
+        for (String text : texts) {
+            assertParsedLikeIpv4Parse(text);
+        }
+        Random random = new Random(39);
+        char[] alphabet = "0123456789. x".toCharArray();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(18);
+            for (int j = 0; j < length; j++) {
+                text.append(random.nextInt(3) == 0 ? '.' : alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertParsedLikeIpv4Parse(text.toString());
+        }
+    }
+
+    @Test
+    public void shouldFormatLikeIpv4ToString() {
+        Random random = new Random(39);
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(4) == 0 ? random.nextInt(1000) : random.nextLong() & Ipv4.MAXIMUM_VALUE;
+        }
+        values[0] = Ipv4.MAXIMUM_VALUE;
+        byte[] buffer = new byte[3 + values.length * Ipv4BatchCodec.MAX_TEXT_LENGTH];
+        int[] offsets = new int[values.length];
+        int[] lengths = new int[values.length];
+
+        int end = subject.format(values, buffer, 3, offsets, lengths, values.length);
+
+        assertEquals(3, offsets[0]);
+        assertEquals(offsets[values.length - 1] + lengths[values.length - 1], end);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Ipv4.of(values[i]).toString(), new String(buffer, offsets[i], lengths[i], ASCII));
+        }
+        long[] parsed = new long[values.length];
+        assertEquals(0, subject.parse(buffer, offsets, lengths, parsed, values.length));
+        assertArrayEquals(values, parsed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotFormatValuesOutOfRange() {
+        subject.format(new long[]{Ipv4.MAXIMUM_VALUE + 1}, new byte[16], 0, new int[1], new int[1], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateCount() {
+        subject.parse(new byte[16], new int[1], new int[1], new long[1], 2);
+    }
+
+    @Test
+    public void shouldFallBackToScalarCodec() {
+        assertSame(Ipv4BatchCodec.scalar(), Ipv4BatchCodec.getInstance());
+    }
+
+    private void assertParsedLikeIpv4Parse(String text) {
+        long expected;
+        try {
+            expected = Ipv4.parse(text).value();
+        } catch (IllegalArgumentException e) {
+            expected = Ipv4BatchCodec.INVALID;
+        }
+        byte[] buffer = ("#" + text + "#").getBytes(ASCII);
+        long[] values = new long[1];
+        subject.parse(buffer, new int[]{1}, new int[]{text.length()}, values, 1);
+        assertEquals(text, expected, values[0]);
+    }
+}
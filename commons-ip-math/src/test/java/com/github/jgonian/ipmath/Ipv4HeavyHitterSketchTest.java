@@ -0,0 +1,163 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class Ipv4HeavyHitterSketchTest {
+
+    private static final int TEN_ONE_TWO = 0x0A010200;
+
+    @Test
+    public void shouldReportHeavyPrefixesAtEachLength() {
+        Ipv4HeavyHitterSketch subject = new Ipv4HeavyHitterSketch(0.01, 8, 16, 24);
+        Random random = new Random(46);
+        for (int i = 0; i < 100000; i++) {
+            int percentile = random.nextInt(100);
+            if (percentile < 30) {
+                subject.add(TEN_ONE_TWO | random.nextInt(256), 1);
+            } else if (percentile < 50) {
+                subject.add(0x0A010000 | random.nextInt(1 << 16), 1);
+            } else {
+                subject.add(random.nextInt(), 1);
+            }
+        }
+
+        List<Ipv4Range> slash24 = subject.heavyHitters(24, 0.1);
+        assertEquals(1, slash24.size());
+        assertEquals(Ipv4Range.parse("10.1.2.0/24"), slash24.get(0));
+        assertEquals(Ipv4Range.parse("10.1.0.0/16"), subject.heavyHitters(16, 0.4).get(0));
+        assertEquals(Ipv4Range.parse("10.0.0.0/8"), subject.heavyHitters(8, 0.4).get(0));
+        assertTrue(subject.heavyHitters(8, 0.6).isEmpty());
+        assertEquals(100000, subject.getTotalWeight());
+    }
+
+    @Test
+    public void shouldBoundTheErrorOfEstimates() {
+        double threshold = 0.01;
+        Ipv4HeavyHitterSketch subject = new Ipv4HeavyHitterSketch(threshold, 16, 24);
+        Map<Ipv4Range, Long> exact = new HashMap<Ipv4Range, Long>();
+        Random random = new Random(46);
+        for (int i = 0; i < 50000; i++) {
+            // Zipf-like: low /24s are much more popular
+            Ipv4 address = Ipv4.of((long) (random.nextInt(1 + random.nextInt(1 << 12)) << 8 | random.nextInt(256)));
+            long weight = 1 + random.nextInt(1500);
+            subject.add(address, weight);
+            Ipv4Range prefix = Ipv4Range.from(address.lowerBoundForPrefix(24)).andPrefixLength(24);
+            Long previous = exact.get(prefix);
+            exact.put(prefix, (previous == null ? 0 : previous) + weight);
+        }
+
+        long maximumError = (long) (threshold / 2 * subject.getTotalWeight());
+        int tooHigh = 0;
+        for (Map.Entry<Ipv4Range, Long> entry : exact.entrySet()) {
+            long estimate = subject.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate > entry.getValue() + maximumError) {
+                tooHigh++;
+            }
+        }
+        assertTrue(tooHigh <= exact.size() / 100);
+        for (Ipv4Range heavyHitter : subject.heavyHitters(24, threshold)) {
+            assertTrue(exact.get(heavyHitter) >= (threshold / 2) * subject.getTotalWeight());
+        }
+        for (Map.Entry<Ipv4Range, Long> entry : exact.entrySet()) {
+            if (entry.getValue() >= threshold * subject.getTotalWeight()) {
+                assertTrue(subject.heavyHitters(24, threshold).contains(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldTrackTheZeroPrefix() {
+        Ipv4HeavyHitterSketch subject = new Ipv4HeavyHitterSketch(0.1, 0, 8);
+        subject.add(Ipv4.parse("0.0.0.1"), 10);
+        subject.add(Ipv4.parse("1.0.0.1"), 1);
+
+        assertEquals(Ipv4Range.parse("0.0.0.0/8"), subject.heavyHitters(8, 0.5).get(0));
+        assertEquals(Ipv4Range.parse("0.0.0.0/0"), subject.heavyHitters(0, 0.5).get(0));
+        assertEquals(11, subject.estimate(Ipv4Range.parse("0.0.0.0/0")));
+    }
+
+    @Test
+    public void shouldCountFromSeveralThreads() throws InterruptedException {
+        final Ipv4HeavyHitterSketch subject = new Ipv4HeavyHitterSketch(0.05, 16, 24);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Random random = new Random(t);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 50000; i++) {
+                        subject.add(i % 2 == 0 ? TEN_ONE_TWO | random.nextInt(256) : random.nextInt(), 1);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200000, subject.getTotalWeight());
+        assertTrue(subject.estimate(Ipv4Range.parse("10.1.2.0/24")) >= 100000);
+        assertEquals(Ipv4Range.parse("10.1.2.0/24"), subject.heavyHitters(24, 0.4).get(0));
+        assertEquals(1, subject.heavyHitters(24, 0.4).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWeightsWhichAreNotPositive() {
+        new Ipv4HeavyHitterSketch(0.01, 24).add(TEN_ONE_TWO, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFractionsBelowTheThreshold() {
+        new Ipv4HeavyHitterSketch(0.01, 24).heavyHitters(24, 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUntrackedPrefixLengths() {
+        new Ipv4HeavyHitterSketch(0.01, 24).heavyHitters(16, 0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrefixLengths() {
+        new Ipv4HeavyHitterSketch(0.01, 33);
+    }
+}
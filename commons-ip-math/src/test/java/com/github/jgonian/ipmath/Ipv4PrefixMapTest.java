@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Ipv4PrefixMapTest {
+
+    @Test
+    public void shouldLookUpExactPrefixes() {
+        Ipv4PrefixMap<String> subject = new Ipv4PrefixMap<String>();
+
+        assertNull(subject.put(Ipv4Range.parse("10.0.0.0/8"), "a"));
+        assertNull(subject.put(Ipv4Range.parse("10.0.0.0/16"), "b"));
+        assertEquals("a", subject.put(Ipv4Range.parse("10.0.0.0/8"), "c"));
+
+        assertEquals(2, subject.size());
+        assertEquals("c", subject.get(Ipv4Range.parse("10.0.0.0/8")));
+        assertEquals("c", subject.get(0x0A000000, 8));
+        assertEquals("b", subject.get(0x0A000000, 16));
+        assertNull(subject.get(0x0A000000, 24));
+        assertNull(subject.get(Ipv4Range.parse("11.0.0.0/8")));
+    }
+
+    @Test
+    public void shouldHandleTheWholeAddressSpaceAndHostPrefixes() {
+        Ipv4PrefixMap<String> subject = new Ipv4PrefixMap<String>();
+
+        subject.put(Ipv4Range.parse("0.0.0.0/0"), "all");
+        subject.put(0xFFFFFFFF, 32, "last");
+
+        assertEquals("all", subject.get(0, 0));
+        assertEquals("last", subject.get(Ipv4Range.parse("255.255.255.255/32")));
+        assertEquals("last", subject.remove(Ipv4Range.parse("255.255.255.255/32")));
+        assertNull(subject.get(0xFFFFFFFF, 32));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAddressesWithHostBits() {
+        new Ipv4PrefixMap<String>().get(0x0A000001, 24);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrefixLengths() {
+        new Ipv4PrefixMap<String>().put(0, 33, "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRangesWhichAreNotPrefixes() {
+        new Ipv4PrefixMap<String>().put(Ipv4Range.parse("10.0.0.0-10.0.0.2"), "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullValues() {
+        new Ipv4PrefixMap<String>().put(Ipv4Range.parse("10.0.0.0/8"), null);
+    }
+
+    @Test
+    public void shouldIterateByPrefixLength() {
+        Ipv4PrefixMap<Integer> subject = new Ipv4PrefixMap<Integer>();
+        subject.put(Ipv4Range.parse("10.0.0.0/24"), 1);
+        subject.put(Ipv4Range.parse("10.0.0.0/8"), 2);
+        subject.put(Ipv4Range.parse("192.168.0.0/16"), 3);
+        subject.put(Ipv4Range.parse("11.0.0.0/8"), 4);
+
+        final List<Ipv4Range> prefixes = new ArrayList<Ipv4Range>();
+        subject.forEach(new AbstractPrefixMap.EntryConsumer<Ipv4Range, Integer>() {
+            @Override
+            public void accept(Ipv4Range prefix, Integer value) {
+                prefixes.add(prefix);
+            }
+        });
+        assertEquals(8, PrefixUtils.getPrefixLength(prefixes.get(0)));
+        assertEquals(8, PrefixUtils.getPrefixLength(prefixes.get(1)));
+        assertEquals(Arrays.asList(Ipv4Range.parse("192.168.0.0/16"), Ipv4Range.parse("10.0.0.0/24")), prefixes.subList(2, 4));
+
+        final Map<Ipv4Range, Integer> slash8 = new HashMap<Ipv4Range, Integer>();
+        subject.forEach(8, new AbstractPrefixMap.EntryConsumer<Ipv4Range, Integer>() {
+            @Override
+            public void accept(Ipv4Range prefix, Integer value) {
+                slash8.put(prefix, value);
+            }
+        });
+        Map<Ipv4Range, Integer> expected = new HashMap<Ipv4Range, Integer>();
+        expected.put(Ipv4Range.parse("10.0.0.0/8"), 2);
+        expected.put(Ipv4Range.parse("11.0.0.0/8"), 4);
+        assertEquals(expected, slash8);
+        assertEquals(2, subject.size(8));
+        assertEquals(0, subject.size(9));
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMap() {
+        Random random = new Random(45);
+        Ipv4PrefixMap<Integer> subject = new Ipv4PrefixMap<Integer>();
+        Map<Ipv4Range, Integer> expected = new HashMap<Ipv4Range, Integer>();
+        for (int i = 0; i < 20000; i++) {
+            int prefixLength = 20 + random.nextInt(5);
+            int address = (0x0A000000 | random.nextInt(1 << 12) << 12) & (int) (0xFFFFFFFF00000000L >>> prefixLength);
+            Ipv4Range prefix = Ipv4Range.from((long) address).andPrefixLength(prefixLength);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(prefix), subject.remove(prefix));
+            } else {
+                assertEquals(expected.put(prefix, i), subject.put(address, prefixLength, i));
+            }
+        }
+        assertEquals(expected.size(), subject.size());
+        for (Map.Entry<Ipv4Range, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), subject.get(entry.getKey()));
+        }
+    }
+}
@@ -154,6 +154,20 @@ public class Ipv4Test {
         Ipv4.parse("192.168.08.1");
     }
 
+    @Test
+    public void shouldFailOnOctetsThatOverflowAnInt() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Invalid IPv4 address: '4294967297.0.0.0'");
+        Ipv4.parse("4294967297.0.0.0");
+    }
+
+    @Test
+    public void shouldFailOnEmptyOctets() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Invalid IPv4 address: '10..0.1'");
+        Ipv4.parse("10..0.1");
+    }
+
     @Test
     public void shouldHave32BitsSize() {
         assertEquals(Ipv4.NUMBER_OF_BITS, Ipv4.FIRST_IPV4_ADDRESS.bitSize());
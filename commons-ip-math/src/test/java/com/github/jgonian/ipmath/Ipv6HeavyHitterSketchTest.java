@@ -0,0 +1,70 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Ipv6HeavyHitterSketchTest {
+
+    @Test
+    public void shouldReportHeavyPrefixesAtEachLength() {
+        Ipv6HeavyHitterSketch subject = new Ipv6HeavyHitterSketch(0.01, 32, 48, 64);
+        Random random = new Random(46);
+        for (int i = 0; i < 50000; i++) {
+            if (i % 3 == 0) {
+                subject.add(Ipv6.parse("2001:db8:1:2::" + Integer.toHexString(random.nextInt(1 << 16))), 1);
+            } else {
+                subject.add(random.nextLong(), 1);
+            }
+        }
+
+        assertEquals(Ipv6Range.parse("2001:db8:1:2::/64"), subject.heavyHitters(64, 0.3).get(0));
+        assertEquals(Ipv6Range.parse("2001:db8:1::/48"), subject.heavyHitters(48, 0.3).get(0));
+        assertEquals(Ipv6Range.parse("2001:db8::/32"), subject.heavyHitters(32, 0.3).get(0));
+        assertEquals(1, subject.heavyHitters(32, 0.3).size());
+    }
+
+    @Test
+    public void shouldCountAddressesGivenAsUpperBits() {
+        Ipv6HeavyHitterSketch subject = new Ipv6HeavyHitterSketch(0.1, 48);
+        subject.add(0x20010DB800010000L, 3);
+        subject.add(Ipv6.parse("2001:db8:1:ffff::1"), 4);
+
+        assertEquals(7, subject.estimate(Ipv6Range.parse("2001:db8:1::/48")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotTrackPrefixesLongerThan64() {
+        new Ipv6HeavyHitterSketch(0.01, 48, 65);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotTrackPrefixLengthsTwice() {
+        new Ipv6HeavyHitterSketch(0.01, 48, 48);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Ipv6PrefixMapTest {
+
+    @Test
+    public void shouldLookUpExactPrefixes() {
+        Ipv6PrefixMap<String> subject = new Ipv6PrefixMap<String>();
+
+        subject.put(Ipv6Range.parse("2001:db8::/32"), "a");
+        subject.put(Ipv6Range.parse("2001:db8::/48"), "b");
+        subject.put(Ipv6Range.parse("::/0"), "c");
+        subject.put(Ipv6Range.parse("2001:db8::1/128"), "d");
+
+        assertEquals("a", subject.get(0x20010DB800000000L, 0, 32));
+        assertEquals("b", subject.get(0x20010DB800000000L, 0, 48));
+        assertEquals("c", subject.get(0, 0, 0));
+        assertEquals("d", subject.get(0x20010DB800000000L, 1, 128));
+        assertNull(subject.get(0x20010DB800000000L, 0, 64));
+        assertEquals(1, subject.size(128));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAddressesWithHostBits() {
+        new Ipv6PrefixMap<String>().get(0x20010DB800000000L, 1, 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectHostBitsInTheLowerHalf() {
+        new Ipv6PrefixMap<String>().put(0, 1, 127, "a");
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMap() {
+        Random random = new Random(45);
+        Ipv6PrefixMap<Integer> subject = new Ipv6PrefixMap<Integer>();
+        Map<Ipv6Range, Integer> expected = new HashMap<Ipv6Range, Integer>();
+        BigInteger base = Ipv6.parse("2001:db8::").asBigInteger();
+        for (int i = 0; i < 20000; i++) {
+            int prefixLength = 60 + random.nextInt(10);
+            BigInteger start = base.add(BigInteger.valueOf(random.nextInt(1 << 10)).shiftLeft(128 - prefixLength));
+            Ipv6Range prefix = Ipv6Range.from(start).andPrefixLength(prefixLength);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(prefix), subject.remove(prefix));
+            } else {
+                assertEquals(expected.put(prefix, i), subject.put(prefix, i));
+            }
+        }
+        assertEquals(expected.size(), subject.size());
+        for (Map.Entry<Ipv6Range, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), subject.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void shouldBeDisabledByDefault() {
+        assertFalse(Metrics.isEnabled());
+        Metrics.getRecorder().increment(Metric.IPV4_PARSE_SUCCESS);
+        Metrics.getRecorder().record(Metric.IPV4_PARSE_NANOS, 1);
+        assertEquals(0, Metrics.startTimer());
+        assertTrue(Metrics.getOperationListeners().isEmpty());
+        assertEquals(0, Metrics.startOperationTimer());
+    }
+
+    @Test
+    public void shouldCountAndRecordInHistograms() {
+        HistogramMetricsRecorder subject = new HistogramMetricsRecorder();
+        subject.increment(Metric.IPV4_PARSE_SUCCESS);
+        subject.increment(Metric.IPV4_PARSE_SUCCESS);
+        subject.increment(Metric.IPV6_PARSE_FAILURE);
+        subject.record(Metric.RANGE_SET_MERGE_DEPTH, 3);
+
+        assertEquals(2, subject.getCount(Metric.IPV4_PARSE_SUCCESS));
+        assertEquals(1, subject.getCount(Metric.IPV6_PARSE_FAILURE));
+        assertEquals(0, subject.getCount(Metric.ASN_PARSE_SUCCESS));
+        assertEquals(1, subject.getHistogram(Metric.RANGE_SET_MERGE_DEPTH).getTotalCount());
+        assertEquals(3, subject.getHistogram(Metric.RANGE_SET_MERGE_DEPTH).getMax());
+
+        subject.reset();
+        assertEquals(0, subject.getCount(Metric.IPV4_PARSE_SUCCESS));
+        assertEquals(0, subject.getHistogram(Metric.RANGE_SET_MERGE_DEPTH).getTotalCount());
+    }
+
+    @Test
+    public void shouldRecordOperationDurations() {
+        HistogramMetricsRecorder subject = new HistogramMetricsRecorder();
+        subject.recordOperation(Operation.SPLIT_TO_PREFIXES, 1, 7, 1000);
+        subject.recordOperation(Operation.SPLIT_TO_PREFIXES, 1, 3, 3000);
+
+        assertEquals(2, subject.getHistogram(Operation.SPLIT_TO_PREFIXES).getTotalCount());
+        assertEquals(3000, subject.getHistogram(Operation.SPLIT_TO_PREFIXES).getMax());
+        assertEquals(0, subject.getHistogram(Operation.FIND_PREFIX).getTotalCount());
+    }
+
+    @Test
+    public void shouldHaveAHistogramForEveryHistogramMetric() {
+        HistogramMetricsRecorder subject = new HistogramMetricsRecorder();
+        for (Metric metric : Metric.values()) {
+            assertTrue(metric.getName().startsWith("ipmath."));
+            if (metric.getType() == Metric.Type.HISTOGRAM) {
+                assertNotNull(subject.getHistogram(metric));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRecordCountersInHistograms() {
+        new HistogramMetricsRecorder().record(Metric.PREFIX_ALLOCATIONS, 1);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OpenAddressingTableTest {
+
+    @Test
+    public void shouldLimitTheInitialCapacity() {
+        OpenAddressingTable subject = new Table(100);
+
+        assertEquals(16, subject.initialCapacity(0));
+        assertEquals(41, subject.initialCapacity(30));
+        assertEquals(100, subject.initialCapacity(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldClampTheGrownCapacity() {
+        OpenAddressingTable subject = new Table(100);
+        subject.setCapacity(41);
+        assertEquals(82, subject.grownCapacity());
+
+        subject.setCapacity(82);
+        assertEquals(100, subject.grownCapacity());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotGrowBeyondTheMaximumCapacity() {
+        OpenAddressingTable subject = new Table(100);
+        subject.setCapacity(100);
+
+        subject.grownCapacity();
+    }
+
+    @Test
+    public void shouldDeriveTheMaximumCapacityOfPrefixMapsFromTheKeySize() {
+        assertEquals(1 << 30, new Ipv4PrefixMap<String>().initialCapacity(Integer.MAX_VALUE));
+        assertEquals((1 << 30) / 3, new Ipv6PrefixMap<String>().initialCapacity(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldShiftBackEntriesWhenEmptyingASlot() {
+        Table subject = new Table(100);
+        subject.setCapacity(8);
+        subject.put(6, 6);
+        subject.put(7, 6);
+        subject.put(0, 7);
+        subject.put(1, 1);
+        subject.put(2, 1);
+
+        subject.shiftBack(6);
+
+        assertArrayEquals(new int[] {-1, 1, 1, -1, -1, -1, 6, 7}, subject.homes);
+    }
+
+    private static final class Table extends OpenAddressingTable {
+
+        final int[] homes = new int[] {-1, -1, -1, -1, -1, -1, -1, -1};
+
+        Table(int maxCapacity) {
+            super(maxCapacity);
+        }
+
+        void put(int slot, int home) {
+            homes[slot] = home;
+        }
+
+        @Override
+        boolean isEmptySlot(int slot) {
+            return homes[slot] < 0;
+        }
+
+        @Override
+        int homeSlotOf(int slot) {
+            return homes[slot];
+        }
+
+        @Override
+        void moveSlot(int from, int to) {
+            homes[to] = homes[from];
+        }
+
+        @Override
+        void clearSlot(int slot) {
+            homes[slot] = -1;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class PrefixAllocatorTest {
+
+    @Test
+    public void shouldReturnNullIfRequestedPrefixIsTooBig() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("1000::/10, 2::/20, 3::/30"));
+
+        assertNull(subject.allocatePrefixOrNull(9));
+        assertNull(subject.findPrefixOrNull(9));
+    }
+
+    @Test
+    public void shouldAllocateLikeConservativePrefixFinder() {
+        assertEquals(parse("3::/31"), PrefixAllocator.forIpv6(in("1000::/10, 2::/20, 3::/30")).allocatePrefixOrNull(31));
+        assertEquals(parse("2::/29"), PrefixAllocator.forIpv6(in("1000::/10, 2::/20, 3::/30")).allocatePrefixOrNull(29));
+        assertEquals(parse("2::/21"), PrefixAllocator.forIpv6(in("1000::/10, 2::/20, 3::/30")).allocatePrefixOrNull(21));
+        assertEquals(parse("1000::/19"), PrefixAllocator.forIpv6(in("1000::/10, 2::/20, 3::/30")).allocatePrefixOrNull(19));
+        assertEquals(parse("2::/20"), PrefixAllocator.forIpv6(in("1000::/10, 3::/20, 2::/20")).allocatePrefixOrNull(20));
+    }
+
+    @Test
+    public void shouldSplitFreePrefixIntoBuddies() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("2001:db8::/32"));
+
+        assertEquals(parse("2001:db8::/48"), subject.findPrefixOrNull(48));
+        assertEquals(parse("2001:db8::/48"), subject.allocatePrefixOrNull(48));
+        assertEquals(parse("2001:db8:1::/48"), subject.allocatePrefixOrNull(48));
+        assertEquals(parse("2001:db8:2::/56"), subject.allocatePrefixOrNull(56));
+        assertEquals(parse("2001:db8:3::/48"), subject.allocatePrefixOrNull(48));
+
+        List<Ipv6Range> freePrefixes = subject.getFreePrefixes();
+        assertEquals(parse("2001:db8:2:100::/56"), freePrefixes.get(0));
+        assertEquals(parse("2001:db8:8000::/33"), freePrefixes.get(freePrefixes.size() - 1));
+        assertEquals(parse("2001:db8:2:100::-2001:db8:2:ffff:ffff:ffff:ffff:ffff"), subject.getFreeSpace().unmodifiableSet().iterator().next());
+    }
+
+    @Test
+    public void shouldCoalesceBuddiesOnRelease() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("2001:db8::/32"));
+        Ipv6Range first = subject.allocatePrefixOrNull(48);
+        Ipv6Range second = subject.allocatePrefixOrNull(56);
+
+        subject.release(first);
+        assertEquals(parse("2001:db8::/48"), subject.findPrefixOrNull(48));
+        subject.release(second);
+
+        assertEquals(Arrays.asList(parse("2001:db8::/32")), subject.getFreePrefixes());
+    }
+
+    @Test
+    public void shouldMergeAdjacentFreeRanges() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("2001:db8::/33, 2001:db8:8000::/33"));
+
+        assertEquals(Arrays.asList(parse("2001:db8::/32")), subject.getFreePrefixes());
+    }
+
+    @Test
+    public void shouldReleaseRangesThatAreNotPrefixes() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("::1-::6"));
+
+        assertEquals(Arrays.asList(parse("::1/128"), parse("::2/127"), parse("::4/127"), parse("::6/128")), subject.getFreePrefixes());
+        assertEquals(parse("::2/127"), subject.allocatePrefixOrNull(127));
+        assertEquals(parse("::4/127"), subject.allocatePrefixOrNull(127));
+        assertNull(subject.allocatePrefixOrNull(127));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotReleaseRangeOverlappingWithFreeSpace() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("2001:db8::/32"));
+        subject.release(parse("2001:db8:ffff::/48"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidatePrefixLength() {
+        PrefixAllocator.forIpv6(in("2001:db8::/32")).allocatePrefixOrNull(129);
+    }
+
+    @Test
+    public void shouldHandleTheWholeAddressSpace() {
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(in("::/0"));
+
+        assertEquals(parse("::/1"), subject.allocatePrefixOrNull(1));
+        assertEquals(parse("8000::/1"), subject.allocatePrefixOrNull(1));
+        assertTrue(subject.isEmpty());
+        subject.release(parse("::/0"));
+        assertEquals(parse("::/0"), subject.allocatePrefixOrNull(0));
+    }
+
+    @Test
+    public void shouldAgreeWithConservativePrefixFinder() {
+        Random random = new Random(28);
+        BigInteger base = parse("2001:db8::/32").start().asBigInteger();
+        SortedRangeSet<Ipv6, Ipv6Range> free = new SortedRangeSet<Ipv6, Ipv6Range>();
+        for (int i = 0; i < 40; i++) {
+            BigInteger start = base.add(BigInteger.valueOf(random.nextInt(1 << 24)).shiftLeft(72));
+            BigInteger size = BigInteger.valueOf(1 + random.nextInt(1 << 16)).shiftLeft(64);
+            free.add(Ipv6Range.from(start).to(start.add(size).subtract(BigInteger.ONE)));
+        }
+        PrefixAllocator<Ipv6, Ipv6Range> subject = PrefixAllocator.forIpv6(free);
+        ConservativePrefixFinder<Ipv6, Ipv6Range> finder = ConservativePrefixFinder.newInstance();
+
+        for (int i = 0; i < 1000; i++) {
+            int prefixLength = 40 + random.nextInt(25);
+            Ipv6Range expected = finder.findPrefixOrNull(prefixLength, new ArrayList<Ipv6Range>(free.unmodifiableSet()));
+            assertEquals(expected, subject.allocatePrefixOrNull(prefixLength));
+            if (expected != null) {
+                free.remove(expected);
+            }
+        }
+        assertEquals(free, subject.getFreeSpace());
+    }
+
+    private static List<Ipv6Range> in(String commaSeparatedRanges) {
+        List<Ipv6Range> result = new ArrayList<Ipv6Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeIndexTest {
+
+    //---------------------------------------------------------------
+    // List<R> stab(C value)
+    //---------------------------------------------------------------
+
+    @Test
+    public void shouldFindAllRangesContainingValue() {
+        // ranges      |----------|      [0,10]
+        //               |---|           [2,5]
+        //               |---|           [2,5]
+        //                   |------|    [5,12]
+        // stab              ^           [5]
+        RangeIndex<Asn, AsnRange> subject = index(asn(0, 10), asn(2, 5), asn(2, 5), asn(5, 12), asn(20, 30));
+
+        assertEquals(Arrays.asList(asn(0, 10), asn(2, 5), asn(2, 5), asn(5, 12)), subject.stab(Asn.of(5l)));
+        assertEquals(Arrays.asList(asn(0, 10)), subject.stab(Asn.of(0l)));
+        assertEquals(Collections.<AsnRange>emptyList(), subject.stab(Asn.of(15l)));
+        assertEquals(Arrays.asList(asn(20, 30)), subject.stab(Asn.of(30l)));
+    }
+
+    @Test
+    public void shouldStabIpv4Allocations() {
+        RangeIndex<Ipv4, Ipv4Range> subject = new RangeIndex<Ipv4, Ipv4Range>(Arrays.asList(
+                Ipv4Range.parse("10.0.0.0/8"), Ipv4Range.parse("10.1.0.0/16"), Ipv4Range.parse("10.1.2.0/24"),
+                Ipv4Range.parse("192.168.0.0/16")));
+
+        assertEquals(Arrays.asList(Ipv4Range.parse("10.0.0.0/8"), Ipv4Range.parse("10.1.0.0/16"), Ipv4Range.parse("10.1.2.0/24")),
+                subject.stab(Ipv4.parse("10.1.2.3")));
+        assertEquals(Arrays.asList(Ipv4Range.parse("10.0.0.0/8")), subject.stab(Ipv4.parse("10.2.0.0")));
+    }
+
+    //---------------------------------------------------------------
+    // List<R> overlapping(R range)
+    //---------------------------------------------------------------
+
+    @Test
+    public void shouldFindAllOverlappingRanges() {
+        // ranges      |--|  |--|  |--|  [0,5] [10,15] [20,25]
+        //                 |------|      [7,17]
+        // query          |----|         [4,11]
+        RangeIndex<Asn, AsnRange> subject = index(asn(0, 5), asn(10, 15), asn(20, 25), asn(7, 17));
+
+        assertEquals(Arrays.asList(asn(0, 5), asn(7, 17), asn(10, 15)), subject.overlapping(asn(4, 11)));
+        assertEquals(Arrays.asList(asn(7, 17), asn(20, 25)), subject.overlapping(asn(16, 20)));
+        assertEquals(Collections.<AsnRange>emptyList(), subject.overlapping(asn(26, 30)));
+    }
+
+    //---------------------------------------------------------------
+    // List<R> containedIn(R range)
+    //---------------------------------------------------------------
+
+    @Test
+    public void shouldFindAllContainedRanges() {
+        RangeIndex<Asn, AsnRange> subject = index(asn(0, 5), asn(10, 15), asn(20, 25), asn(7, 17), asn(10, 10));
+
+        assertEquals(Arrays.asList(asn(7, 17), asn(10, 10), asn(10, 15)), subject.containedIn(asn(7, 17)));
+        assertEquals(Arrays.asList(asn(0, 5)), subject.containedIn(asn(0, 9)));
+        assertEquals(Collections.<AsnRange>emptyList(), subject.containedIn(asn(1, 5)));
+    }
+
+    @Test
+    public void shouldHandleEmptyIndex() {
+        RangeIndex<Asn, AsnRange> subject = index();
+
+        assertTrue(subject.isEmpty());
+        assertEquals(Collections.<AsnRange>emptyList(), subject.stab(Asn.of(1l)));
+        assertEquals(Collections.<AsnRange>emptyList(), subject.overlapping(asn(0, 10)));
+        assertEquals(Collections.<AsnRange>emptyList(), subject.containedIn(asn(0, 10)));
+    }
+
+    @Test
+    public void shouldAgreeWithLinearScan() {
+        Random random = new Random(26);
+        List<AsnRange> ranges = new ArrayList<AsnRange>();
+        for (int i = 0; i < 2000; i++) {
+            ranges.add(randomRange(random));
+        }
+        RangeIndex<Asn, AsnRange> subject = new RangeIndex<Asn, AsnRange>(ranges);
+        List<AsnRange> sorted = new ArrayList<AsnRange>(ranges);
+        Collections.sort(sorted, StartAndSizeComparator.<Asn, AsnRange>get());
+
+        assertEquals(sorted, subject.asList());
+        for (int i = 0; i < 500; i++) {
+            AsnRange query = randomRange(random);
+            List<AsnRange> overlapping = new ArrayList<AsnRange>();
+            List<AsnRange> contained = new ArrayList<AsnRange>();
+            List<AsnRange> stabbed = new ArrayList<AsnRange>();
+            for (AsnRange range : sorted) {
+                if (range.overlaps(query)) {
+                    overlapping.add(range);
+                }
+                if (query.contains(range)) {
+                    contained.add(range);
+                }
+                if (range.contains(query.start())) {
+                    stabbed.add(range);
+                }
+            }
+            assertEquals(overlapping, subject.overlapping(query));
+            assertEquals(contained, subject.containedIn(query));
+            assertEquals(stabbed, subject.stab(query.start()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNullRanges() {
+        new RangeIndex<Asn, AsnRange>(Collections.<AsnRange>singletonList(null));
+    }
+
+    private static AsnRange randomRange(Random random) {
+        long start = random.nextInt(10000);
+        return asn(start, start + random.nextInt(random.nextBoolean() ? 20 : 2000));
+    }
+
+    private static RangeIndex<Asn, AsnRange> index(AsnRange... ranges) {
+        return new RangeIndex<Asn, AsnRange>(Arrays.asList(ranges));
+    }
+
+    private static AsnRange asn(long start, long end) {
+        return AsnRange.from(start).to(end);
+    }
+}
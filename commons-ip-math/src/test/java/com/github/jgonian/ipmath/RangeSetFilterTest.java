@@ -0,0 +1,146 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RangeSetFilterTest {
+
+    @Test
+    public void shouldHaveNoFalseNegatives() {
+        Random random = new Random(48);
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt() & 0xFFFFFFFFL;
+            set.add(Ipv4Range.from(start).to(Math.min(Ipv4.MAXIMUM_VALUE, start + random.nextInt(1 << 12))));
+        }
+        RangeSetFilter<Ipv4, Ipv4Range> subject = RangeSetFilter.forIpv4(set, 0.01);
+
+        for (Ipv4Range range : set) {
+            assertTrue(subject.mightContain(range.start()));
+            assertTrue(subject.mightContain(range.end()));
+            assertTrue(subject.contains(range.start()));
+        }
+        for (int i = 0; i < 100000; i++) {
+            Ipv4 address = Ipv4.of(random.nextInt() & 0xFFFFFFFFL);
+            assertEquals(set.contains(address.asRange()), subject.contains(address));
+        }
+    }
+
+    @Test
+    public void shouldRejectMostAddressesOutsideTheSet() {
+        Random random = new Random(16);
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        for (int i = 0; i < 5000; i++) {
+            set.add(Ipv4Range.from((random.nextInt() & 0xFFFFFFFFL) & ~0xFFL).andPrefixLength(24));
+        }
+        RangeSetFilter<Ipv4, Ipv4Range> subject = RangeSetFilter.forIpv4(set, 0.01);
+
+        int falsePositives = 0;
+        int misses = 0;
+        for (int i = 0; i < 100000; i++) {
+            Ipv4 address = Ipv4.of(random.nextInt() & 0xFFFFFFFFL);
+            if (!set.contains(address.asRange())) {
+                misses++;
+                if (subject.mightContain(address)) {
+                    falsePositives++;
+                }
+            }
+        }
+        // two lengths are tested, so the rate may be up to twice the configured one
+        assertTrue("false positives: " + falsePositives, falsePositives < misses * 0.03);
+    }
+
+    @Test
+    public void shouldRebuildAfterTheSetChanges() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("10.0.0.0/24"));
+        RangeSetFilter<Ipv4, Ipv4Range> subject = RangeSetFilter.forIpv4(set, 0.001);
+        assertFalse(subject.contains(Ipv4.parse("192.0.2.1")));
+
+        set.add(Ipv4Range.parse("192.0.2.0/24"));
+        assertTrue(subject.mightContain(Ipv4.parse("192.0.2.1")));
+        assertTrue(subject.contains(Ipv4.parse("192.0.2.1")));
+
+        set.remove(Ipv4Range.parse("10.0.0.0/24"));
+        assertFalse(subject.contains(Ipv4.parse("10.0.0.1")));
+        assertSame(set, subject.getSet());
+    }
+
+    @Test
+    public void shouldExpandPrefixesShorterThanTheShortestLength() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("16.0.0.0/4"));
+        RangeSetFilter<Ipv4, Ipv4Range> subject = RangeSetFilter.forIpv4(set, 0.001);
+
+        assertTrue(subject.mightContain(Ipv4.parse("16.0.0.0")));
+        assertTrue(subject.mightContain(Ipv4.parse("20.20.20.20")));
+        assertTrue(subject.mightContain(Ipv4.parse("31.255.255.255")));
+        assertFalse(subject.contains(Ipv4.parse("32.0.0.0")));
+    }
+
+    @Test
+    public void shouldAcceptAllIfPrefixIsTooShortToExpand() {
+        SortedRangeSet<Ipv6, Ipv6Range> set = new SortedRangeSet<Ipv6, Ipv6Range>();
+        set.add(Ipv6Range.parse("::/0"));
+        RangeSetFilter<Ipv6, Ipv6Range> subject = RangeSetFilter.forIpv6(set, 0.01);
+
+        assertTrue(subject.mightContain(Ipv6.parse("2001:db8::1")));
+        assertTrue(subject.contains(Ipv6.parse("ffff::1")));
+
+        set.clear();
+        assertFalse(subject.mightContain(Ipv6.parse("2001:db8::1")));
+    }
+
+    @Test
+    public void shouldTestPrimitiveResources() {
+        SortedRangeSet<Ipv6, Ipv6Range> set = new SortedRangeSet<Ipv6, Ipv6Range>();
+        set.add(Ipv6Range.parse("2001:db8::/48"));
+        RangeSetFilter<Ipv6, Ipv6Range> subject = RangeSetFilter.forIpv6(set, 0.001, 32, 48, 64);
+
+        assertTrue(subject.mightContain(0x20010db800000000L, 42));
+        assertTrue(subject.mightContain(0x20010db80000ffffL, -1L));
+        assertFalse(subject.mightContain(0x20010db900000000L, 0));
+        assertTrue(subject.sizeInBytes() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateFalsePositiveRate() {
+        RangeSetFilter.forIpv4(new SortedRangeSet<Ipv4, Ipv4Range>(), 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidatePrefixLengths() {
+        RangeSetFilter.forIpv4(new SortedRangeSet<Ipv4, Ipv4Range>(), 0.01, 16, 33);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicatePrefixLengths() {
+        RangeSetFilter.forIpv4(new SortedRangeSet<Ipv4, Ipv4Range>(), 0.01, 24, 16, 24);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RangeSetLookupCacheTest {
+
+    @Test
+    public void shouldReturnTheRangeContainingTheResource() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("10.0.0.0/8"));
+        set.add(Ipv4Range.parse("192.0.2.7/32"));
+        RangeSetLookupCache<Ipv4, Ipv4Range> subject = RangeSetLookupCache.forIpv4(set, 64);
+
+        assertEquals(Ipv4Range.parse("10.0.0.0/8"), subject.get(Ipv4.parse("10.0.0.0")));
+        assertEquals(Ipv4Range.parse("10.0.0.0/8"), subject.get(Ipv4.parse("10.255.255.255")));
+        assertEquals(Ipv4Range.parse("192.0.2.7/32"), subject.get(Ipv4.parse("192.0.2.7")));
+        assertNull(subject.get(Ipv4.parse("192.0.2.8")));
+        assertFalse(subject.contains(Ipv4.parse("11.0.0.0")));
+        assertTrue(subject.contains(0, Ipv4.parse("10.1.2.3").asBigInteger().longValue()));
+    }
+
+    @Test
+    public void shouldCountHitsAndMissesIncludingNegativeResults() {
+        SortedRangeSet<Ipv6, Ipv6Range> set = new SortedRangeSet<Ipv6, Ipv6Range>();
+        set.add(Ipv6Range.parse("2001:db8::/32"));
+        RangeSetLookupCache<Ipv6, Ipv6Range> subject = RangeSetLookupCache.forIpv6(set, 16);
+
+        assertTrue(subject.contains(Ipv6.parse("2001:db8::1")));
+        assertTrue(subject.contains(Ipv6.parse("2001:db8::1")));
+        assertFalse(subject.contains(Ipv6.parse("2001:db9::1")));
+        assertFalse(subject.contains(0x20010db900000000L, 1));
+        assertEquals(2, subject.getHitCount());
+        assertEquals(2, subject.getMissCount());
+        assertEquals(0.5, subject.getHitRate(), 0);
+
+        subject.resetCounters();
+        assertEquals(0, subject.getHitCount());
+        assertEquals(0, subject.getMissCount());
+        assertEquals(0, subject.getHitRate(), 0);
+    }
+
+    @Test
+    public void shouldNotUseResultsCachedBeforeTheSetChanged() {
+        SortedRangeSet<Asn, AsnRange> set = new SortedRangeSet<Asn, AsnRange>();
+        set.add(AsnRange.parse("AS100-AS200"));
+        RangeSetLookupCache<Asn, AsnRange> subject = RangeSetLookupCache.forAsn(set, 16);
+        assertNull(subject.get(Asn.of(300L)));
+        assertNotNull(subject.get(Asn.of(150L)));
+
+        set.add(AsnRange.parse("AS300-AS300"));
+        set.remove(AsnRange.parse("AS150-AS150"));
+        assertEquals(AsnRange.parse("AS300-AS300"), subject.get(Asn.of(300L)));
+        assertNull(subject.get(Asn.of(150L)));
+        assertEquals(AsnRange.parse("AS151-AS200"), subject.get(Asn.of(151L)));
+        assertEquals(0, subject.getHitCount());
+        assertEquals(5, subject.getMissCount());
+    }
+
+    @Test
+    public void shouldFindRangesStartingAtTheResource() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("10.0.0.0/24"));
+        set.add(Ipv4Range.parse("10.0.2.0/24"));
+        RangeSetLookupCache<Ipv4, Ipv4Range> subject = RangeSetLookupCache.forIpv4(set, 8);
+
+        assertEquals(Ipv4Range.parse("10.0.2.0/24"), subject.get(Ipv4.parse("10.0.2.0")));
+        assertNull(subject.get(Ipv4.parse("10.0.1.255")));
+    }
+
+    @Test
+    public void shouldStayWithinCapacityAndKeepHotEntries() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("0.0.0.0/1"));
+        RangeSetLookupCache<Ipv4, Ipv4Range> subject = RangeSetLookupCache.forIpv4(set, 1024);
+        assertEquals(1024, subject.capacity());
+
+        Random random = new Random(49);
+        for (int i = 0; i < 200000; i++) {
+            long address = random.nextInt(4) != 0 ? random.nextInt(100) : random.nextInt() & 0xFFFFFFFFL;
+            assertEquals(address < (1L << 31), subject.contains(0, address));
+        }
+        // three quarters of the lookups are for a hundred hot addresses
+        assertTrue("hit rate: " + subject.getHitRate(), subject.getHitRate() > 0.7);
+    }
+
+    @Test
+    public void shouldClear() {
+        SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        RangeSetLookupCache<Ipv4, Ipv4Range> subject = RangeSetLookupCache.forIpv4(set, 8);
+        subject.get(Ipv4.parse("192.0.2.1"));
+        subject.clear();
+        subject.get(Ipv4.parse("192.0.2.1"));
+
+        assertEquals(0, subject.getHitCount());
+        assertSame(set, subject.getSet());
+    }
+
+    @Test
+    public void shouldAllowConcurrentLookups() throws Exception {
+        final SortedRangeSet<Ipv4, Ipv4Range> set = new SortedRangeSet<Ipv4, Ipv4Range>();
+        set.add(Ipv4Range.parse("10.0.0.0/8"));
+        final RangeSetLookupCache<Ipv4, Ipv4Range> subject = RangeSetLookupCache.forIpv4(set, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int seed = thread;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 50000; i++) {
+                            long address = (9L << 24) + random.nextInt(1 << 25);
+                            boolean expected = address >= (10L << 24) && address < (11L << 24);
+                            if (subject.contains(0, address) != expected) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200000, subject.getHitCount() + subject.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateCapacity() {
+        RangeSetLookupCache.forIpv4(new SortedRangeSet<Ipv4, Ipv4Range>(), 0);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.jgonian.ipmath.Ipv4Range.parse;
+import static org.junit.Assert.*;
+
+public class RangeTreeTest {
+
+    private RangeTree<Ipv4, Ipv4Range> subject;
+
+    @Before
+    public void before() {
+        subject = new RangeTree<Ipv4, Ipv4Range>();
+        subject.add(parse("10.0.0.0/8"));
+        subject.add(parse("10.0.0.0/16"));
+        subject.add(parse("10.1.0.0/16"));
+        subject.add(parse("10.1.2.0/24"));
+        subject.add(parse("192.168.0.0/16"));
+    }
+
+    @Test
+    public void shouldNestRanges() {
+        assertEquals(Arrays.asList(parse("10.0.0.0/8"), parse("192.168.0.0/16")), rangesOf(subject.getRoots()));
+        RangeTree.Node<Ipv4, Ipv4Range> slash8 = subject.find(parse("10.0.0.0/8"));
+        assertEquals(Arrays.asList(parse("10.0.0.0/16"), parse("10.1.0.0/16")), rangesOf(slash8.getChildren()));
+        assertNull(slash8.getParent());
+        assertEquals(slash8, subject.find(parse("10.1.0.0/16")).getParent());
+        assertEquals(5, subject.size());
+    }
+
+    @Test
+    public void shouldAdoptContainedChildrenWhenAddingIntermediateRange() {
+        subject.add(parse("10.0.0.0/15"));
+
+        RangeTree.Node<Ipv4, Ipv4Range> slash15 = subject.find(parse("10.0.0.0/15"));
+        assertEquals(Arrays.asList(parse("10.0.0.0/15")), rangesOf(subject.find(parse("10.0.0.0/8")).getChildren()));
+        assertEquals(Arrays.asList(parse("10.0.0.0/16"), parse("10.1.0.0/16")), rangesOf(slash15.getChildren()));
+        assertEquals(slash15, subject.find(parse("10.1.0.0/16")).getParent());
+        assertEquals(3, slash15.getDescendantCount());
+        assertEquals(BigInteger.valueOf(131072), slash15.getAssignedSize());
+        assertEquals(BigInteger.valueOf(131072), subject.find(parse("10.0.0.0/8")).getAssignedSize());
+    }
+
+    @Test
+    public void shouldMaintainAggregates() {
+        RangeTree.Node<Ipv4, Ipv4Range> slash8 = subject.find(parse("10.0.0.0/8"));
+        assertEquals(2, slash8.getChildCount());
+        assertEquals(3, slash8.getDescendantCount());
+        assertEquals(BigInteger.valueOf(131072), slash8.getAssignedSize());
+        assertEquals(BigInteger.valueOf(16777216 - 131072), slash8.getUnassignedSize());
+        assertEquals(BigInteger.valueOf(16777216 + 65536), subject.getAssignedSize());
+
+        subject.add(parse("10.2.0.0/16"));
+        assertEquals(3, slash8.getChildCount());
+        assertEquals(BigInteger.valueOf(196608), slash8.getAssignedSize());
+    }
+
+    @Test
+    public void shouldFindMostSpecificContainingRange() {
+        assertEquals(parse("10.1.2.0/24"), subject.findMostSpecificContaining(parse("10.1.2.128/25")).getRange());
+        assertEquals(parse("10.1.0.0/16"), subject.findMostSpecificContaining(parse("10.1.3.0/24")).getRange());
+        assertEquals(parse("10.0.0.0/8"), subject.findMostSpecificContaining(parse("10.200.0.0/16")).getRange());
+        assertNull(subject.findMostSpecificContaining(parse("11.0.0.0/8")));
+        assertNull(subject.find(parse("10.1.3.0/24")));
+    }
+
+    @Test
+    public void shouldPromoteChildrenOnRemove() {
+        assertTrue(subject.remove(parse("10.1.0.0/16")));
+
+        RangeTree.Node<Ipv4, Ipv4Range> slash8 = subject.find(parse("10.0.0.0/8"));
+        assertEquals(Arrays.asList(parse("10.0.0.0/16"), parse("10.1.2.0/24")), rangesOf(slash8.getChildren()));
+        assertEquals(2, slash8.getDescendantCount());
+        assertEquals(BigInteger.valueOf(65536 + 256), slash8.getAssignedSize());
+        assertEquals(4, subject.size());
+        assertFalse(subject.remove(parse("10.1.0.0/16")));
+    }
+
+    @Test
+    public void shouldNestDuplicateRangeUnderExistingOne() {
+        subject.add(parse("10.1.0.0/16"));
+
+        RangeTree.Node<Ipv4, Ipv4Range> duplicate = subject.find(parse("10.1.0.0/16"));
+        assertEquals(parse("10.1.0.0/16"), duplicate.getParent().getRange());
+        assertEquals(Arrays.asList(parse("10.1.2.0/24")), rangesOf(duplicate.getChildren()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPartiallyOverlappingRange() {
+        subject.add(parse("10.0.128.0-10.1.127.255"));
+    }
+
+    @Test
+    public void shouldBuildFromSortedRanges() {
+        RangeTree<Ipv4, Ipv4Range> built = RangeTree.buildFromSorted(Arrays.asList(
+                parse("10.0.0.0/8"), parse("10.0.0.0/16"), parse("10.1.0.0/16"), parse("10.1.2.0/24"), parse("192.168.0.0/16")));
+
+        assertEquals(subject.toString(), built.toString());
+        assertEquals(subject.size(), built.size());
+        assertEquals(subject.getAssignedSize(), built.getAssignedSize());
+        RangeTree.Node<Ipv4, Ipv4Range> slash8 = built.find(parse("10.0.0.0/8"));
+        assertEquals(3, slash8.getDescendantCount());
+        assertEquals(BigInteger.valueOf(131072), slash8.getAssignedSize());
+        assertEquals(slash8, built.find(parse("10.1.0.0/16")).getParent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnsortedRangesWhenBuilding() {
+        RangeTree.buildFromSorted(Arrays.asList(parse("10.0.0.0/16"), parse("10.0.0.0/8")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOverlappingRangesWhenBuilding() {
+        RangeTree.buildFromSorted(Arrays.asList(parse("10.0.0.0/16"), parse("10.0.128.0-10.1.127.255")));
+    }
+
+    private static List<Ipv4Range> rangesOf(List<RangeTree.Node<Ipv4, Ipv4Range>> nodes) {
+        List<Ipv4Range> result = new ArrayList<Ipv4Range>();
+        for (RangeTree.Node<Ipv4, Ipv4Range> node : nodes) {
+            result.add(node.getRange());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResourceIntMapTest {
+
+    @Test
+    public void shouldCountAsns() {
+        ResourceIntMap<Asn> subject = ResourceIntMap.forAsn(10);
+
+        subject.addTo(Asn.parse("AS3333"), 1);
+        subject.addTo(Asn.parse("AS3333"), 1);
+        subject.addTo(Asn.parse("AS4294967295"), 1);
+
+        assertEquals(2, subject.get(Asn.parse("AS3333"), 0));
+        assertEquals(1, subject.get(Asn.parse("AS4294967295"), 0));
+        assertEquals(0, subject.get(Asn.parse("AS1"), 0));
+    }
+
+    @Test
+    public void shouldCountPrimitiveKeys() {
+        ResourceIntMap<Asn> subject = ResourceIntMap.forAsn(10);
+
+        subject.addTo(3333, 1);
+        subject.addTo(Asn.parse("AS3333"), 1);
+        subject.addTo(0, 0xFFFFFFFFL, 1);
+
+        assertEquals(2, subject.get(3333, 0));
+        assertEquals(1, subject.get(Asn.parse("AS4294967295"), 0));
+        assertEquals(1, subject.get(-1, 0));
+        subject.put(0, 3333L, 5);
+        assertEquals(5, subject.get(Asn.parse("AS3333"), 0));
+    }
+
+    @Test
+    public void shouldHoldEntriesInSeveralSegments() {
+        ResourceIntMap<Ipv4> subject = ResourceIntMap.forIpv4(100, AbstractResourceMap.Storage.OFF_HEAP);
+        for (int i = 0; i < 2000000; i++) {
+            subject.put(Ipv4.of(i * 2654435761L & 0xFFFFFFFFL), i);
+        }
+        for (int i = 0; i < 2000000; i += 2) {
+            assertTrue(subject.remove(Ipv4.of(i * 2654435761L & 0xFFFFFFFFL)));
+        }
+        assertEquals(1000000, subject.size());
+        for (int i = 1; i < 2000000; i += 2) {
+            assertEquals(i, subject.get(Ipv4.of(i * 2654435761L & 0xFFFFFFFFL), -1));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResourceLongMapTest {
+
+    @Test
+    public void shouldPutGetAndRemove() {
+        ResourceLongMap<Ipv4> subject = ResourceLongMap.forIpv4(10);
+
+        subject.put(Ipv4.parse("10.0.0.1"), 42);
+        subject.put(Ipv4.parse("10.0.0.1"), 43);
+        subject.put(Ipv4.parse("255.255.255.255"), -1);
+
+        assertEquals(2, subject.size());
+        assertEquals(43, subject.get(Ipv4.parse("10.0.0.1"), 0));
+        assertEquals(-1, subject.get(Ipv4.parse("255.255.255.255"), 0));
+        assertEquals(7, subject.get(Ipv4.parse("10.0.0.2"), 7));
+        assertTrue(subject.remove(Ipv4.parse("10.0.0.1")));
+        assertFalse(subject.remove(Ipv4.parse("10.0.0.1")));
+        assertFalse(subject.containsKey(Ipv4.parse("10.0.0.1")));
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    public void shouldAcceptPrimitiveIpv4Keys() {
+        ResourceLongMap<Ipv4> subject = ResourceLongMap.forIpv4(10);
+
+        subject.put(Ipv4.parse("10.0.0.1"), 42);
+        subject.put(0xFFFFFFFF, -1);
+
+        assertEquals(42, subject.get(0x0A000001, 0));
+        assertEquals(-1, subject.get(Ipv4.parse("255.255.255.255"), 0));
+        assertEquals(43, subject.addTo(0x0A000001, 1));
+        assertEquals(44, subject.addTo(0, 0x0A000001L, 1));
+        assertEquals(44, subject.get(0, 0x0A000001L, 0));
+        assertTrue(subject.containsKey(0xFFFFFFFF));
+        assertTrue(subject.remove(0xFFFFFFFF));
+        assertFalse(subject.containsKey(0, 0xFFFFFFFFL));
+        assertTrue(subject.remove(0, 0x0A000001L));
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void shouldAcceptPrimitiveIpv6Keys() {
+        ResourceLongMap<Ipv6> subject = ResourceLongMap.forIpv6(10);
+
+        subject.put(0x20010DB800000000L, 1, 42);
+        subject.put(0, 0, 7);
+
+        assertEquals(42, subject.get(Ipv6.parse("2001:db8::1"), 0));
+        assertEquals(43, subject.addTo(Ipv6.parse("2001:db8::1"), 1));
+        assertEquals(44, subject.addTo(0x20010DB800000000L, 1, 1));
+        assertEquals(7, subject.get(Ipv6.FIRST_IPV6_ADDRESS, 0));
+        assertEquals(-1, subject.get(0x20010DB800000000L, 2, -1));
+        assertTrue(subject.remove(0, 0));
+        assertFalse(subject.containsKey(0, 0));
+        assertEquals(1, subject.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPrimitiveIpv4KeysForIpv6Maps() {
+        ResourceLongMap.forIpv6(10).addTo(1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPrimitiveKeysLargerThan32BitsForAsnMaps() {
+        ResourceLongMap.forAsn(10).get(0, 1L << 32, 0);
+    }
+
+    @Test
+    public void shouldStoreTheZeroKey() {
+        ResourceLongMap<Ipv6> subject = ResourceLongMap.forIpv6(10);
+
+        assertFalse(subject.containsKey(Ipv6.FIRST_IPV6_ADDRESS));
+        assertEquals(5, subject.addTo(Ipv6.FIRST_IPV6_ADDRESS, 5));
+        assertEquals(6, subject.addTo(Ipv6.FIRST_IPV6_ADDRESS, 1));
+        assertEquals(1, subject.size());
+        assertTrue(subject.remove(Ipv6.FIRST_IPV6_ADDRESS));
+        assertTrue(subject.isEmpty());
+        assertEquals(-1, subject.get(Ipv6.FIRST_IPV6_ADDRESS, -1));
+    }
+
+    @Test
+    public void shouldGrowBeyondExpectedSize() {
+        ResourceLongMap<Asn> subject = ResourceLongMap.forAsn(0);
+        for (long i = 0; i < 10000; i++) {
+            subject.addTo(Asn.of(i), i);
+        }
+        assertEquals(10000, subject.size());
+        for (long i = 0; i < 10000; i++) {
+            assertEquals(i, subject.get(Asn.of(i), -1));
+        }
+    }
+
+    @Test
+    public void shouldIterateOverEntries() {
+        ResourceLongMap<Ipv4> subject = ResourceLongMap.forIpv4(10);
+        subject.put(Ipv4.FIRST_IPV4_ADDRESS, 1);
+        subject.put(Ipv4.LAST_IPV4_ADDRESS, 2);
+        subject.put(Ipv4.parse("192.168.0.1"), 3);
+
+        final Map<Ipv4, Long> entries = new HashMap<Ipv4, Long>();
+        subject.forEach(new ResourceLongMap.EntryConsumer<Ipv4>() {
+            @Override
+            public void accept(Ipv4 key, long value) {
+                entries.put(key, value);
+            }
+        });
+
+        Map<Ipv4, Long> expected = new HashMap<Ipv4, Long>();
+        expected.put(Ipv4.FIRST_IPV4_ADDRESS, 1L);
+        expected.put(Ipv4.LAST_IPV4_ADDRESS, 2L);
+        expected.put(Ipv4.parse("192.168.0.1"), 3L);
+        assertEquals(expected, entries);
+    }
+
+    @Test
+    public void shouldClear() {
+        ResourceLongMap<Ipv4> subject = ResourceLongMap.forIpv4(10);
+        subject.put(Ipv4.FIRST_IPV4_ADDRESS, 1);
+        subject.put(Ipv4.LAST_IPV4_ADDRESS, 2);
+
+        subject.clear();
+
+        assertTrue(subject.isEmpty());
+        assertFalse(subject.containsKey(Ipv4.FIRST_IPV4_ADDRESS));
+        assertFalse(subject.containsKey(Ipv4.LAST_IPV4_ADDRESS));
+    }
+
+    @Test
+    public void shouldTakeFewBytesPerEntry() {
+        assertTrue(ResourceLongMap.forIpv4(1000000).sizeInBytes() <= 1000000 * 12 * 4 / 3 + 24);
+        assertTrue(ResourceLongMap.forIpv6(1000000, AbstractResourceMap.Storage.OFF_HEAP).sizeInBytes() <= 1000000 * 24 * 4 / 3 + 48);
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMapForIpv4() {
+        Random random = new Random(44);
+        for (AbstractResourceMap.Storage storage : AbstractResourceMap.Storage.values()) {
+            ResourceLongMap<Ipv4> subject = ResourceLongMap.forIpv4(16, storage);
+            Map<Ipv4, Long> expected = new HashMap<Ipv4, Long>();
+            for (int i = 0; i < 20000; i++) {
+                // few distinct keys, so that entries are often removed from the middle of probe sequences
+                Ipv4 key = Ipv4.of((long) random.nextInt(300));
+                applyRandomOperation(random, subject, expected, key);
+            }
+            assertEquals(expected.size(), subject.size());
+            for (Map.Entry<Ipv4, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue().longValue(), subject.get(entry.getKey(), Long.MIN_VALUE));
+            }
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeHashMapForIpv6() {
+        Random random = new Random(128);
+        for (AbstractResourceMap.Storage storage : AbstractResourceMap.Storage.values()) {
+            ResourceLongMap<Ipv6> subject = ResourceLongMap.forIpv6(16, storage);
+            Map<Ipv6, Long> expected = new HashMap<Ipv6, Long>();
+            for (int i = 0; i < 20000; i++) {
+                BigInteger value = BigInteger.valueOf(random.nextInt(300)).shiftLeft(random.nextBoolean() ? 80 : 0);
+                applyRandomOperation(random, subject, expected, Ipv6.of(value));
+            }
+            assertEquals(expected.size(), subject.size());
+            for (Map.Entry<Ipv6, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue().longValue(), subject.get(entry.getKey(), Long.MIN_VALUE));
+            }
+        }
+    }
+
+    private static <C extends SingleInternetResource<C, ?>> void applyRandomOperation(Random random, ResourceLongMap<C> subject, Map<C, Long> expected, C key) {
+        switch (random.nextInt(4)) {
+            case 0:
+                assertEquals(expected.remove(key) != null, subject.remove(key));
+                break;
+            case 1:
+                Long previous = expected.get(key);
+                expected.put(key, (previous == null ? 0 : previous) + 3);
+                assertEquals(expected.get(key).longValue(), subject.addTo(key, 3));
+                break;
+            default:
+                long value = random.nextLong();
+                expected.put(key, value);
+                subject.put(key, value);
+        }
+        assertEquals(expected.containsKey(key), subject.containsKey(key));
+    }
+}
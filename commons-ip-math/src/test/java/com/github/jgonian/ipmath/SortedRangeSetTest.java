@@ -24,6 +24,7 @@
 package com.github.jgonian.ipmath;
 
 import static junit.framework.Assert.*;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -122,6 +123,81 @@ public class SortedRangeSetTest {
         assertEquals(result, subject.unmodifiableSet());
     }
 
+    //---------------------------------------------------------------
+    // SortedRangeSet<C, R> fromSorted(Iterable<R> sortedRanges)
+    //---------------------------------------------------------------
+
+    @Test
+    public void testFromSortedMergesOverlappingAndConsecutiveRanges() {
+        // sorted      |--|  |--|
+        //               |----|  |--|      [0,5] [4,11] [10,15] [16,19] [22,25]
+        // result      |-----------| |--|  [0,19] [22,25]
+        List<AsnRange> sorted = new ArrayList<AsnRange>();
+        sorted.add(new AsnRange(Asn.of(0l), Asn.of(5l)));
+        sorted.add(new AsnRange(Asn.of(4l), Asn.of(11l)));
+        sorted.add(new AsnRange(Asn.of(10l), Asn.of(15l)));
+        sorted.add(new AsnRange(Asn.of(16l), Asn.of(19l)));
+        sorted.add(new AsnRange(Asn.of(22l), Asn.of(25l)));
+
+        SortedRangeSet<Asn, AsnRange> expected = new SortedRangeSet<Asn, AsnRange>();
+        expected.addAll(sorted);
+
+        SortedRangeSet<Asn, AsnRange> result = SortedRangeSet.fromSorted(sorted);
+        assertEquals(expected, result);
+        assertEquals(2, result.size());
+        assertTrue(SortedRangeSet.fromSorted(new ArrayList<AsnRange>()).isEmpty());
+    }
+
+    @Test
+    public void testFromSortedBuildsAModifiableSet() {
+        List<AsnRange> sorted = new ArrayList<AsnRange>();
+        for (long i = 0; i < 1000; i++) {
+            sorted.add(new AsnRange(Asn.of(3 * i), Asn.of(3 * i + 1)));
+        }
+        SortedRangeSet<Asn, AsnRange> expected = new SortedRangeSet<Asn, AsnRange>();
+        expected.addAll(sorted);
+
+        SortedRangeSet<Asn, AsnRange> result = SortedRangeSet.fromSorted(sorted);
+        assertEquals(expected, result);
+        assertEquals(new AsnRange(Asn.of(1500l), Asn.of(1501l)), result.floor(new AsnRange(Asn.of(1502l), Asn.of(1502l))));
+
+        result.add(new AsnRange(Asn.of(2l), Asn.of(2l)));
+        result.remove(new AsnRange(Asn.of(2997l), Asn.of(2998l)));
+        assertEquals(998, result.size());
+        assertEquals(new AsnRange(Asn.of(0l), Asn.of(4l)), result.iterator().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedRejectsUnsortedRanges() {
+        List<AsnRange> unsorted = new ArrayList<AsnRange>();
+        unsorted.add(new AsnRange(Asn.of(10l), Asn.of(15l)));
+        unsorted.add(new AsnRange(Asn.of(0l), Asn.of(5l)));
+        SortedRangeSet.fromSorted(unsorted);
+    }
+
+    @Test
+    public void testFromSortedRunsMergesRuns() {
+        // run 1       |--|        |--|    [0,5] [20,25]
+        // run 2          |--|  |--|       [6,9] [14,19]
+        // run 3             |--|          [10,13]
+        // result      |-----------------| [0,25]
+        List<List<AsnRange>> runs = new ArrayList<List<AsnRange>>();
+        runs.add(new ArrayList<AsnRange>());
+        runs.get(0).add(new AsnRange(Asn.of(0l), Asn.of(5l)));
+        runs.get(0).add(new AsnRange(Asn.of(20l), Asn.of(25l)));
+        runs.add(new ArrayList<AsnRange>());
+        runs.get(1).add(new AsnRange(Asn.of(6l), Asn.of(9l)));
+        runs.get(1).add(new AsnRange(Asn.of(14l), Asn.of(19l)));
+        runs.add(new ArrayList<AsnRange>());
+        runs.add(new ArrayList<AsnRange>());
+        runs.get(3).add(new AsnRange(Asn.of(10l), Asn.of(13l)));
+
+        SortedRangeSet<Asn, AsnRange> result = SortedRangeSet.fromSortedRuns(runs);
+
+        assertEquals(1, result.size());
+        assertEquals(new AsnRange(Asn.of(0l), Asn.of(25l)), result.getSingleRange());
+    }
+
     //---------------------------------------------------------------
     // void addAll(SortedRangeSet<C, R> ranges)
     //---------------------------------------------------------------
@@ -689,4 +765,101 @@ public class SortedRangeSetTest {
         assertEquals(new AsnRange(Asn.of(2l), Asn.of(2l)), subject.ceiling(new AsnRange(Asn.of(1l), Asn.of(1l))));
     }
 
+    //---------------------------------------------------------------
+    // BigInteger rank(C resource), C select(BigInteger index), List<SortedRangeSet<C, R>> partition(int parts)
+    //---------------------------------------------------------------
+
+    @Test
+    public void shouldRankAndSelectResources() {
+        initSubject();
+
+        assertEquals(BigInteger.valueOf(18), subject.cardinality());
+        assertEquals(BigInteger.ZERO, subject.rank(Asn.of(0l)));
+        assertEquals(BigInteger.valueOf(6), subject.rank(Asn.of(7l)));
+        assertEquals(BigInteger.valueOf(8), subject.rank(Asn.of(12l)));
+        assertEquals(BigInteger.valueOf(18), subject.rank(Asn.of(30l)));
+        for (long i = 0; i < 18; i++) {
+            Asn selected = subject.select(BigInteger.valueOf(i));
+            assertEquals(BigInteger.valueOf(i), subject.rank(selected));
+        }
+        assertEquals(Asn.of(25l), subject.select(BigInteger.valueOf(17)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotSelectBeyondCardinality() {
+        initSubject();
+        subject.select(BigInteger.valueOf(18));
+    }
+
+    @Test
+    public void shouldRankNothingInEmptySet() {
+        assertEquals(BigInteger.ZERO, subject.cardinality());
+        assertEquals(BigInteger.ZERO, subject.rank(Asn.of(10l)));
+    }
+
+    @Test
+    public void shouldRankTheWholeIpv6AddressSpace() {
+        SortedRangeSet<Ipv6, Ipv6Range> all = new SortedRangeSet<Ipv6, Ipv6Range>();
+        all.add(Ipv6Range.parse("::/0"));
+
+        assertEquals(BigInteger.ONE.shiftLeft(128), all.cardinality());
+        assertEquals(Ipv6.LAST_IPV6_ADDRESS, all.select(Ipv6.MAXIMUM_VALUE));
+        assertEquals(Ipv6.MAXIMUM_VALUE, all.rank(Ipv6.LAST_IPV6_ADDRESS));
+
+        List<SortedRangeSet<Ipv6, Ipv6Range>> halves = all.partition(2);
+        assertEquals(Ipv6Range.parse("::/1"), halves.get(0).iterator().next());
+        assertEquals(Ipv6Range.parse("8000::/1"), halves.get(1).iterator().next());
+    }
+
+    @Test
+    public void shouldPartitionIntoSetsOfEqualCardinality() {
+        initSubject();
+
+        for (int parts = 1; parts <= 20; parts++) {
+            List<SortedRangeSet<Asn, AsnRange>> partition = subject.partition(parts);
+            assertEquals(parts, partition.size());
+            SortedRangeSet<Asn, AsnRange> union = new SortedRangeSet<Asn, AsnRange>();
+            for (SortedRangeSet<Asn, AsnRange> part : partition) {
+                int cardinality = part.cardinality().intValue();
+                assertTrue(cardinality == 18 / parts || cardinality == (18 + parts - 1) / parts);
+                union.addAll(part);
+            }
+            assertEquals(subject, union);
+        }
+        assertEquals(new AsnRange(Asn.of(13l), Asn.of(15l)), subject.partition(2).get(1).iterator().next());
+    }
+
+    @Test
+    public void shouldUpdateRanksAfterModification() {
+        initSubject();
+        assertEquals(BigInteger.valueOf(12), subject.rank(Asn.of(20l)));
+
+        subject.add(new AsnRange(Asn.of(16l), Asn.of(17l)));
+        assertEquals(BigInteger.valueOf(14), subject.rank(Asn.of(20l)));
+
+        Iterator<AsnRange> iterator = subject.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(BigInteger.valueOf(8), subject.rank(Asn.of(20l)));
+
+        subject.remove(new AsnRange(Asn.of(10l), Asn.of(10l)));
+        assertEquals(BigInteger.valueOf(7), subject.rank(Asn.of(20l)));
+    }
+
+    @Test
+    public void shouldNotCountChangesThatLeaveTheSetAsItIs() {
+        initSubject();
+        int modificationCount = subject.modificationCount();
+
+        subject.add(new AsnRange(Asn.of(11l), Asn.of(11l)));
+        subject.remove(new AsnRange(Asn.of(1000l), Asn.of(2000l)));
+        assertEquals(modificationCount, subject.modificationCount());
+
+        subject.add(new AsnRange(Asn.of(1000l), Asn.of(2000l)));
+        assertTrue(subject.modificationCount() != modificationCount);
+        modificationCount = subject.modificationCount();
+        subject.remove(new AsnRange(Asn.of(1000l), Asn.of(2000l)));
+        assertTrue(subject.modificationCount() != modificationCount);
+    }
+
 }
@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class SparsePrefixAllocatorTest {
+
+    @Test
+    public void shouldBisectTheLargestGap() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+
+        assertEquals(parse("2001:db8:8000::/48"), subject.allocatePrefixOrNull(48));
+        assertEquals(parse("2001:db8:4000::/48"), subject.allocatePrefixOrNull(48));
+        assertEquals(parse("2001:db8:2000::/48"), subject.allocatePrefixOrNull(48));
+        assertEquals(parse("2001:db8:e000::/48"), subject.allocatePrefixOrNull(48));
+    }
+
+    @Test
+    public void shouldUseGapWhichIsExactlyLargeEnough() {
+        SparsePrefixAllocator<Ipv4, Ipv4Range> subject = SparsePrefixAllocator.forIpv4(Arrays.asList(Ipv4Range.parse("10.0.0.0/24")));
+
+        assertEquals(Ipv4Range.parse("10.0.0.128/25"), subject.allocatePrefixOrNull(25));
+        assertEquals(Ipv4Range.parse("10.0.0.0/25"), subject.allocatePrefixOrNull(25));
+        assertNull(subject.allocatePrefixOrNull(25));
+        assertTrue(subject.getFreeSpace().isEmpty());
+    }
+
+    @Test
+    public void shouldReserveGrowthRoom() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+        subject.setGrowthRoom(48, 4);
+
+        Ipv6Range allocated = subject.allocatePrefixOrNull(48);
+
+        assertEquals(parse("2001:db8:8000::/48"), allocated);
+        assertEquals(parse("2001:db8:8000::/44"), subject.getReservation(allocated));
+        assertEquals(parse("2001:db8:8001::-2001:db8:800f:ffff:ffff:ffff:ffff:ffff"), subject.getReservedSpace().getSingleRange());
+        assertFalse(subject.getFreeSpace().contains(parse("2001:db8:8000::/44")));
+    }
+
+    @Test
+    public void shouldGrowWithinGrowthRoom() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+        subject.setGrowthRoom(48, 4);
+        Ipv6Range allocated = subject.allocatePrefixOrNull(48);
+
+        Ipv6Range grown = subject.grow(allocated, 45);
+
+        assertEquals(parse("2001:db8:8000::/45"), grown);
+        assertEquals(parse("2001:db8:8008::-2001:db8:800f:ffff:ffff:ffff:ffff:ffff"), subject.getReservedSpace().getSingleRange());
+        subject.release(grown);
+        assertEquals(parse("2001:db8::/32"), subject.getFreeSpace().getSingleRange());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotGrowBeyondGrowthRoom() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+        subject.setGrowthRoom(48, 4);
+        subject.grow(subject.allocatePrefixOrNull(48), 43);
+    }
+
+    @Test
+    public void shouldOnlyGrowToShorterPrefixLengths() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+        subject.setGrowthRoom(48, 4);
+        Ipv6Range allocated = subject.allocatePrefixOrNull(48);
+        Ipv6Range grown = subject.grow(allocated, 46);
+
+        for (int prefixLength : new int[] {46, 47, 48, 56}) {
+            try {
+                subject.grow(grown, prefixLength);
+                fail("expected the growth to /" + prefixLength + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        assertEquals(parse("2001:db8:8000::/45"), subject.grow(grown, 45));
+    }
+
+    @Test
+    public void shouldReserveLargestGapIfGrowthRoomDoesNotFit() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/46")));
+        subject.setGrowthRoom(48, 4);
+
+        Ipv6Range allocated = subject.allocatePrefixOrNull(48);
+
+        assertEquals(parse("2001:db8::/48"), allocated);
+        assertEquals(parse("2001:db8::/46"), subject.getReservation(allocated));
+        assertTrue(subject.getFreeSpace().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotReleaseWhatWasNotAllocated() {
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(Arrays.asList(parse("2001:db8::/32")));
+        subject.allocatePrefixOrNull(48);
+        subject.release(parse("2001:db8:8000::/47"));
+    }
+
+    @Test
+    public void shouldAgreeWithSparsePrefixFinder() {
+        Random random = new Random(32);
+        BigInteger base = parse("2001:db8::/32").start().asBigInteger();
+        SortedRangeSet<Ipv6, Ipv6Range> free = new SortedRangeSet<Ipv6, Ipv6Range>();
+        for (int i = 0; i < 40; i++) {
+            BigInteger start = base.add(BigInteger.valueOf(random.nextInt(1 << 24)).shiftLeft(72));
+            BigInteger size = BigInteger.valueOf(1 + random.nextInt(1 << 16)).shiftLeft(64);
+            free.add(Ipv6Range.from(start).to(start.add(size).subtract(BigInteger.ONE)));
+        }
+        SparsePrefixAllocator<Ipv6, Ipv6Range> subject = SparsePrefixAllocator.forIpv6(free);
+        SparsePrefixFinder<Ipv6, Ipv6Range> finder = SparsePrefixFinder.newInstance();
+
+        for (int i = 0; i < 500; i++) {
+            int prefixLength = 40 + random.nextInt(25);
+            Ipv6Range expected = finder.findPrefixOrNull(prefixLength, new ArrayList<Ipv6Range>(free.unmodifiableSet()));
+            assertEquals(expected, subject.allocatePrefixOrNull(prefixLength));
+            if (expected != null) {
+                free.remove(expected);
+            }
+        }
+        assertEquals(free, subject.getFreeSpace());
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.jgonian.ipmath.Ipv6Range.parse;
+import static org.junit.Assert.*;
+
+public class SparsePrefixFinderTest {
+
+    private final SparsePrefixFinder<Ipv6, Ipv6Range> subject = SparsePrefixFinder.newInstance();
+
+    @Test
+    public void shouldReturnNullIfRequestedPrefixIsTooBig() {
+        assertNull(subject.findPrefixOrNull(9, in("::/10, 2::/20, 3::/30")));
+        assertNull(subject.findPrefixOrNull(9, new ArrayList<Ipv6Range>()));
+    }
+
+    @Test
+    public void shouldFindPrefixInTheCentreOfTheLargestBlock() {
+        assertEquals(parse("20::/31"), subject.findPrefixOrNull(31, in("3::/30, 2::/20, ::/10")));
+        assertEquals(parse("::/10"), subject.findPrefixOrNull(10, in("3::/30, 2::/20, ::/10")));
+        assertEquals(parse("2:800::/21"), subject.findPrefixOrNull(21, in("3::/30, 2::/20")));
+    }
+
+    @Test
+    public void shouldFindTheFirstOfEquallyLargeBlocks() {
+        assertEquals(parse("3:800::/21"), subject.findPrefixOrNull(21, in("3::/20, 2::/20")));
+    }
+
+    @Test
+    public void shouldConsiderTheBlocksRangesSplitInto() {
+        assertEquals(parse("::c/126"), subject.findPrefixOrNull(126, in("::1-::f")));
+        assertEquals(parse("::8/125"), subject.findPrefixOrNull(125, in("::1-::f")));
+        assertNull(subject.findPrefixOrNull(124, in("::1-::f")));
+    }
+
+    private List<Ipv6Range> in(String commaSeparatedRanges) {
+        List<Ipv6Range> result = new ArrayList<Ipv6Range>();
+        for (String s : commaSeparatedRanges.split(",")) {
+            result.add(parse(s.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2011-2017, Yannis Gonianakis
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.jgonian.ipmath;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class Uint128Test {
+
+    private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(128);
+
+    @Test
+    public void shouldConvertToAndFromBigInteger() {
+        assertEquals(BigInteger.ZERO, Uint128.ZERO.toBigInteger());
+        assertEquals(Ipv6.MAXIMUM_VALUE, Uint128.MAX_VALUE.toBigInteger());
+        assertEquals(Uint128.MAX_VALUE, Uint128.valueOf(Ipv6.MAXIMUM_VALUE));
+        assertEquals(BigInteger.ONE.shiftLeft(64), Uint128.valueOf(1, 0).toBigInteger());
+    }
+
+    @Test
+    public void shouldDoArithmeticModulo128Bits() {
+        Random random = new Random(128);
+        for (int i = 0; i < 1000; i++) {
+            BigInteger a = new BigInteger(128, random);
+            BigInteger b = new BigInteger(random.nextInt(129), random);
+            Uint128 x = Uint128.valueOf(a);
+            Uint128 y = Uint128.valueOf(b);
+            int shift = random.nextInt(129);
+
+            assertEquals(a.add(b).mod(MODULUS), x.add(y).toBigInteger());
+            assertEquals(a.subtract(b).mod(MODULUS), x.subtract(y).toBigInteger());
+            assertEquals(a.shiftRight(shift), x.shiftRight(shift).toBigInteger());
+            assertEquals(a.shiftLeft(shift).mod(MODULUS), x.shiftLeft(shift).toBigInteger());
+            assertEquals(a.compareTo(b), x.compareTo(y));
+            assertEquals(a.bitLength(), x.bitLength());
+        }
+    }
+
+    @Test
+    public void shouldCreateMasks() {
+        for (int bits = 0; bits <= 128; bits++) {
+            assertEquals(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE), Uint128.lowMask(bits).toBigInteger());
+        }
+        for (int exponent = 0; exponent < 128; exponent++) {
+            assertEquals(BigInteger.ONE.shiftLeft(exponent), Uint128.powerOfTwo(exponent).toBigInteger());
+            assertEquals(exponent, Uint128.powerOfTwo(exponent).numberOfTrailingZeros());
+        }
+        assertEquals(128, Uint128.ZERO.numberOfTrailingZeros());
+    }
+
+    @Test
+    public void shouldFindLargestBlockLikeSplitToPrefixes() {
+        assertEquals(128, Uint128.largestBlockExponent(Uint128.ZERO, Uint128.MAX_VALUE));
+        assertEquals(0, Uint128.largestBlockExponent(Uint128.ONE, Uint128.MAX_VALUE));
+        assertEquals(1, Uint128.largestBlockExponent(Uint128.valueOf(2), Uint128.valueOf(6)));
+        assertEquals(2, Uint128.largestBlockExponent(Uint128.valueOf(4), Uint128.valueOf(7)));
+        assertEquals(0, Uint128.largestBlockExponent(Uint128.valueOf(6), Uint128.valueOf(6)));
+    }
+}